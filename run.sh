@@ -2,9 +2,28 @@
 
 set -e # Exit early if any commands fail
 
+# The Vector API scanners need an incubator module, which makes the JVM warn on
+# every start, so they are only used with JAVASHELL_VECTOR=1. The AOT cache is
+# built with the same flags.
+VECTOR_OPTS=""
+GRADLE_PROPS=""
+if [ "$JAVASHELL_VECTOR" = 1 ]; then
+  VECTOR_OPTS="--add-modules jdk.incubator.vector"
+  GRADLE_PROPS="-Pvector"
+fi
+
 (
   cd "$(dirname "$0")" # Ensure compile steps are run within the repository directory
-  ./gradlew -q jar
+  ./gradlew -q $GRADLE_PROPS jar aotCache
 )
 
-exec java --enable-preview --enable-native-access=ALL-UNNAMED -jar /tmp/javashell-build/javashell.jar "$@"
+JAR=/tmp/javashell-build/javashell.jar
+AOT=/tmp/javashell-build/javashell.aot
+
+# Start from the AOT cache unless the jar has been rebuilt since it was made.
+AOT_OPTS=""
+if [ -f "$AOT" ] && [ "$AOT" -nt "$JAR" ]; then
+  AOT_OPTS="-XX:AOTCache=$AOT"
+fi
+
+exec java --enable-preview --enable-native-access=ALL-UNNAMED $VECTOR_OPTS $AOT_OPTS -jar "$JAR" "$@"
@@ -0,0 +1,94 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a script of 1M {@code echo ... >> log} lines through
+ * {@link Shell#runScript} and reports the time for the whole script.
+ *
+ * With {@code targets=1} every line appends to the same file, so the handle
+ * opened by the first line is reused by all the others. With {@code targets}
+ * larger than the number of handles the evaluator keeps open, the lines cycle
+ * through the files and every append has to open its target again, which is
+ * what every line used to cost.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=AppendBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AppendBenchmark {
+  private static final int LINES = 1_000_000;
+
+  @Param({ "1", "64" })
+  int targets;
+
+  private Path dir;
+  private String script;
+  private PrintWriter devNull;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("append-bench");
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < LINES; i++) {
+      sb.append("echo appended line ").append(i)
+          .append(" >> ").append(dir.resolve("log" + (i % targets) + ".txt")).append('\n');
+    }
+    script = sb.toString();
+    devNull = new PrintWriter(new FileOutputStream("/dev/null"));
+  }
+
+  @Setup(Level.Iteration)
+  public void truncateLogs() throws IOException {
+    for (int i = 0; i < targets; i++) {
+      Files.deleteIfExists(dir.resolve("log" + i + ".txt"));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    devNull.close();
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int appendLines() {
+    BufferedReader reader = new BufferedReader(new StringReader(script));
+    IoContext io = new IoContext(reader, devNull, devNull, EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io);
+    return new Shell(ctx, new Evaluator(ctx, new Builtins())).runScript(reader);
+  }
+}
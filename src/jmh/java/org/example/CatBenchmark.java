@@ -0,0 +1,108 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code cat in > out} through the shell, now that cat is a builtin that
+ * copies with transferTo, against spawning /bin/cat with its stdout
+ * redirected to the same file, which is what the shell did before.
+ *
+ * The pipeline pair runs {@code cat in | cat > out}, two builtin stages
+ * joined by the shell's own pipe, against the same two processes joined by
+ * an OS pipe.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=CatBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatBenchmark {
+
+  @Param({ "4096", "1048576", "67108864" })
+  int size;
+
+  private Path dir;
+  private Path input;
+  private Path output;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("cat-bench");
+    input = dir.resolve("in");
+    output = dir.resolve("out");
+    byte[] data = new byte[size];
+    new Random(1).nextBytes(data);
+    Files.write(input, data);
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(System.out),
+        new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(output);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public int builtin() throws IOException {
+    return evaluator.evaluate("cat " + input + " > " + output).getExitCode();
+  }
+
+  @Benchmark
+  public int external() throws IOException, InterruptedException {
+    return new ProcessBuilder("cat", input.toString())
+        .redirectOutput(output.toFile())
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+
+  @Benchmark
+  public int builtinPipeline() throws IOException {
+    return evaluator.evaluate("cat " + input + " | cat > " + output).getExitCode();
+  }
+
+  @Benchmark
+  public int externalPipeline() throws IOException, InterruptedException {
+    List<Process> stages = ProcessBuilder.startPipeline(List.of(
+        new ProcessBuilder("cat", input.toString()).redirectError(ProcessBuilder.Redirect.INHERIT),
+        new ProcessBuilder("cat").redirectOutput(output.toFile()).redirectError(ProcessBuilder.Redirect.INHERIT)));
+    int exitCode = 0;
+    for (Process p : stages) {
+      exitCode = p.waitFor();
+    }
+    return exitCode;
+  }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.ParseException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.example.parser.CommandList;
+import org.example.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A line of builtins joined by {@code &&}, {@code ||} and {@code ;}, run by
+ * the shell itself and, as it had to be before the shell understood lists,
+ * through {@code bash -c}. {@code parse} is the cost of lexing and parsing
+ * the whole line once, without the parse cache.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=CommandListBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandListBenchmark {
+  private static final String LINE = "cd . && pwd || echo failed; echo a b | wc -w && echo ok; type cd || echo no";
+
+  private Evaluator evaluator;
+
+  @Setup
+  public void setUp() {
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        IoContext.discardingWriter(), IoContext.discardingWriter(), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io, false), new Builtins());
+  }
+
+  @Benchmark
+  public CommandList parse() throws ParseException {
+    return Parser.parse(LINE);
+  }
+
+  @Benchmark
+  public int inShell() throws IOException {
+    return evaluator.evaluate(LINE).getExitCode();
+  }
+
+  @Benchmark
+  public int bashC() throws IOException {
+    return evaluator.evaluate("bash -c '" + LINE + "'").getExitCode();
+  }
+}
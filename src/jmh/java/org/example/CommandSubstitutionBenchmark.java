@@ -0,0 +1,74 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 100,000 substitutions of {@code $(pwd)}. As a builtin it runs inside the
+ * shell and costs no process at all; bash forks a subshell for each one.
+ * {@code external} substitutes {@code realpath .}, which prints the same but
+ * costs a process start and one bulk read each time, and only does 1,000.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=CommandSubstitutionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommandSubstitutionBenchmark {
+  private static final int SUBSTITUTIONS = 100_000;
+
+  private Evaluator evaluator;
+
+  @Setup
+  public void setUp() {
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        IoContext.discardingWriter(), IoContext.discardingWriter(), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io, false), new Builtins());
+  }
+
+  @Benchmark
+  public int builtin() throws IOException {
+    int status = 0;
+    for (int i = 0; i < SUBSTITUTIONS; i++) {
+      status |= evaluator.evaluate("echo $(pwd)").getExitCode();
+    }
+    return status;
+  }
+
+  @Benchmark
+  public int external() throws IOException {
+    int status = 0;
+    for (int i = 0; i < SUBSTITUTIONS / 100; i++) {
+      status |= evaluator.evaluate("echo $(realpath .)").getExitCode();
+    }
+    return status;
+  }
+
+  @Benchmark
+  public int bash() throws IOException, InterruptedException {
+    return new ProcessBuilder("bash", "-c", "for ((i = 0; i < " + SUBSTITUTIONS + "; i++)); do echo $(pwd); done")
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.example.evaluator.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Giving a child process its environment, without starting it. While
+ * nothing is exported beyond the JVM's own environment {@code inherited}
+ * copies nothing; {@code exported} applies one variable's worked-out
+ * difference. {@code copyEverySpawn} is what building the whole environment
+ * from the shell's variables on each start would cost.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=EnvironmentBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+  private Variables inherited;
+  private Variables exported;
+
+  @Setup
+  public void setUp() {
+    inherited = Variables.fromEnvironment();
+    exported = Variables.fromEnvironment().forkWith(List.of("BENCHMARK=1"));
+  }
+
+  @Benchmark
+  public ProcessBuilder inherited() {
+    ProcessBuilder builder = new ProcessBuilder("true");
+    inherited.applyTo(builder);
+    return builder;
+  }
+
+  @Benchmark
+  public ProcessBuilder exported() {
+    ProcessBuilder builder = new ProcessBuilder("true");
+    exported.applyTo(builder);
+    return builder;
+  }
+
+  @Benchmark
+  public ProcessBuilder copyEverySpawn() {
+    ProcessBuilder builder = new ProcessBuilder("true");
+    Map<String, String> environment = builder.environment();
+    environment.clear();
+    environment.putAll(exported.exported());
+    return builder;
+  }
+}
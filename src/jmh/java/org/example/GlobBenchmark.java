@@ -0,0 +1,114 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pathname expansion over a tree of a million empty files, 1,000 to a
+ * directory in 100 x 10 directories, half of them .java. {@code globstar}
+ * walks all of it for {@code src/**}{@code /*.java}, reading each level's
+ * directories in parallel; {@code twice} expands that and a second pattern
+ * over the same tree on one line, the second from the listings the first
+ * read. {@code oneDirectory} is 1,000 expansions of {@code *.java} in a
+ * single directory, with the pattern compiled once. {@code bash} is
+ * {@code shopt -s globstar} and the same pattern.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=GlobBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GlobBenchmark {
+  private static final int TOP = 100;
+  private static final int MIDDLE = 10;
+
+  @Param({ "1000000" })
+  int files;
+
+  private Path dir;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("glob-bench");
+    int perDirectory = files / (TOP * MIDDLE);
+    for (int t = 0; t < TOP; t++) {
+      for (int m = 0; m < MIDDLE; m++) {
+        Path leaf = Files.createDirectories(dir.resolve("src/m" + t + "/p" + m));
+        for (int f = 0; f < perDirectory; f++) {
+          Files.createFile(leaf.resolve("F" + f + (f % 2 == 0 ? ".java" : ".txt")));
+        }
+      }
+    }
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        IoContext.discardingWriter(), IoContext.discardingWriter(), EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io, false);
+    ctx.setCwd(dir);
+    evaluator = new Evaluator(ctx, new Builtins());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public int globstar() throws IOException {
+    return evaluator.evaluate("echo src/**/*.java").getExitCode();
+  }
+
+  @Benchmark
+  public int twice() throws IOException {
+    return evaluator.evaluate("echo src/**/*.java src/**/F1?.txt").getExitCode();
+  }
+
+  @Benchmark
+  public int oneDirectory() throws IOException {
+    int status = 0;
+    for (int i = 0; i < 1000; i++) {
+      status |= evaluator.evaluate("echo src/m7/p3/*.java").getExitCode();
+    }
+    return status;
+  }
+
+  @Benchmark
+  public int bash() throws IOException, InterruptedException {
+    return new ProcessBuilder("bash", "-c", "shopt -s globstar; echo src/**/*.java")
+        .directory(dir.toFile())
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
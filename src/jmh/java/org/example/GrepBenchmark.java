@@ -0,0 +1,118 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The grep builtin against the external grep binary, over one large log
+ * and over a directory of many small ones. Matching lines are written to
+ * /dev/null by both, so the output path is measured too. {@code literal}
+ * takes the byte search path and {@code regex} the {@link java.util.regex}
+ * one.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=GrepBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GrepBenchmark {
+  private static final String[] WORDS = { "GET", "POST", "/index.html", "/api/users", "200", "404", "500",
+      "timeout", "ERROR", "INFO", "WARN", "user=alice", "user=bob", "latency=12ms", "latency=340ms" };
+
+  @Param({ "one-large", "many-small" })
+  String layout;
+
+  @Param({ "literal", "regex" })
+  String kind;
+
+  private Path dir;
+  private List<String> files;
+  private String pattern;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("grep-bench");
+    files = new ArrayList<>();
+    Random random = new Random(7);
+    // 512 MiB either way
+    int count = layout.equals("one-large") ? 1 : 512;
+    long bytesPerFile = (512L << 20) / count;
+    for (int f = 0; f < count; f++) {
+      Path file = dir.resolve("access-" + f + ".log");
+      try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+        long written = 0;
+        while (written < bytesPerFile) {
+          StringBuilder line = new StringBuilder();
+          for (int w = 0; w < 8; w++) {
+            line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+          }
+          line.append('\n');
+          writer.write(line.toString());
+          written += line.length();
+        }
+      }
+      files.add(file.toString());
+    }
+    pattern = kind.equals("literal") ? "latency=340ms" : "'ERROR.*user=(alice|bob)'";
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        new PrintWriter(new FileOutputStream("/dev/null")), new PrintWriter(System.err),
+        EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    for (String file : files) {
+      Files.deleteIfExists(Path.of(file));
+    }
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public int builtin() throws IOException {
+    return evaluator.evaluate("grep -E " + pattern + " " + String.join(" ", files) + " > /dev/null").getExitCode();
+  }
+
+  @Benchmark
+  public int external() throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>(List.of("grep", "-E", pattern.replace("'", "")));
+    command.addAll(files);
+    return new ProcessBuilder(command)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Starting {@code jobs} background sleeps and waiting for all of them, against
+ * bash doing the same. The sleeps overlap, so the time is the cost of
+ * starting and reaping the processes plus one sleep; a job that tied up a
+ * thread of the shell would show up in the thread count rather than here, see
+ * JobsTest.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=JobsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JobsBenchmark {
+
+  @Param({ "10", "100", "500" })
+  int jobs;
+
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        IoContext.discardingWriter(), IoContext.discardingWriter(), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+  }
+
+  @Benchmark
+  public int shell() throws IOException {
+    for (int i = 0; i < jobs; i++) {
+      evaluator.evaluate("sleep 0.1 &");
+    }
+    return evaluator.evaluate("wait").getExitCode();
+  }
+
+  @Benchmark
+  public int bash() throws IOException, InterruptedException {
+    return new ProcessBuilder("bash", "-c", "for i in $(seq " + jobs + "); do sleep 0.1 & done; wait")
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
@@ -0,0 +1,75 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.example.lexer.Lexer;
+import org.example.lexer.Token;
+import org.example.lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lexes generated command lines of a few hundred KB, comparing the
+ * table-driven lexer behind {@link Lexer#scan} with the original
+ * {@code LexerState} objects. Run with the GC profiler to see allocation per
+ * line:
+ *
+ * ./gradlew jmh -Pjmh.includes=LexerBenchmark -Pjmh.profilers=gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+  @Param({ "1024", "262144", "524288" })
+  int length;
+
+  private String line;
+  private final TokenBuffer tokens = new TokenBuffer();
+
+  @Setup
+  public void setUp() {
+    // a mix of plain words, quoted words with spaces and redirects, like the
+    // argument lists our scripts generate.
+    StringBuilder sb = new StringBuilder("cmd");
+    int i = 0;
+    while (sb.length() < length) {
+      switch (i++ % 4) {
+        case 0 -> sb.append(" --flag-").append(i);
+        case 1 -> sb.append(" 'quoted value ").append(i).append('\'');
+        case 2 -> sb.append(" src/main/java/File").append(i).append(".java");
+        default -> sb.append(" \"a b\"c");
+      }
+    }
+    sb.append(" > out.txt 2>> err.txt");
+    line = sb.toString();
+  }
+
+  @Benchmark
+  public int scanIntoReusedBuffer() {
+    return Lexer.scan(line, tokens).size();
+  }
+
+  @Benchmark
+  public int scanWithStateObjects() {
+    return Lexer.scanWithStates(line, tokens).size();
+  }
+
+  @Benchmark
+  public List<Token> tokenize() {
+    return Lexer.tokenize(line);
+  }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.lexer.Lexer;
+import org.example.lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lexes machine-generated command lines from 1 KB to 10 MB (long file lists,
+ * base64 blobs) with the Vector API scanner and with the scalar fallback. The
+ * scanner is picked once per JVM, so each variant runs in its own fork:
+ *
+ * ./gradlew jmh -Pjmh.includes=LongLineLexerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LongLineLexerBenchmark {
+
+  @Param({ "1024", "102400", "1048576", "10485760" })
+  int length;
+
+  @Param({ "paths", "blob" })
+  String shape;
+
+  private String line;
+  private final TokenBuffer tokens = new TokenBuffer();
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb = new StringBuilder("cmd");
+    int i = 0;
+    while (sb.length() < length) {
+      if (shape.equals("paths")) {
+        sb.append(" src/main/java/org/example/generated/File").append(i++).append(".java");
+      } else {
+        // one long word, the way an inlined base64 argument looks
+        sb.append(i++ == 0 ? " " : "").append("QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVo0MTIz");
+      }
+    }
+    sb.append(" > out.txt");
+    line = sb.toString();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+  public int vector() {
+    return Lexer.scan(line, tokens).size();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = { "-Djavashell.lexer.vector=false" })
+  public int scalar() {
+    return Lexer.scan(line, tokens).size();
+  }
+}
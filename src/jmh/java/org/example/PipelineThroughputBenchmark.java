@@ -0,0 +1,67 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pushes a multi-GB stream through a 4-stage pipeline, once through the
+ * shell's own pipeline support and once through {@code bash -c} as the
+ * baseline. Throughput is {@code bytes / score}.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=PipelineThroughput
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineThroughputBenchmark {
+
+  @Param({ "1073741824", "4294967296" })
+  long bytes;
+
+  private Evaluator evaluator;
+  private String pipeline;
+  private String bashPipeline;
+
+  @Setup
+  public void setUp() {
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(System.out),
+        new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+
+    String stages = "head -c " + bytes + " /dev/zero | tr '\\0' a | cat | wc -c";
+    pipeline = stages + " > /dev/null";
+    bashPipeline = "bash -c \"" + stages.replace("\\", "\\\\") + "\" > /dev/null";
+  }
+
+  @Benchmark
+  public int shellPipeline() throws IOException {
+    return evaluator.evaluate(pipeline).getExitCode();
+  }
+
+  @Benchmark
+  public int bashCPipeline() throws IOException {
+    return evaluator.evaluate(bashPipeline).getExitCode();
+  }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs one redirected command per operation, external or builtin, so the
+ * system calls spent on redirect setup can be counted per command with the
+ * perf profiler:
+ *
+ * ./gradlew jmh -Pjmh.includes=RedirectBenchmark \
+ *     -Pjmh.profilers=perf:events=syscalls:sys_enter_openat
+ *
+ * The openat count per op should be one per redirect target, plus whatever
+ * the command itself opens. Use {@code raw_syscalls:sys_enter} for the total.
+ * Both need perf access to tracepoints (kernel.perf_event_paranoid).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectBenchmark {
+
+  @Param({ "true", "echo" })
+  String command;
+
+  @Param({ "out", "append", "in+out+err" })
+  String redirects;
+
+  private Evaluator evaluator;
+  private String line;
+
+  @Setup
+  public void setUp() throws IOException {
+    Path dir = Files.createTempDirectory("redirect-bench");
+    Path input = Files.writeString(dir.resolve("in.txt"), "input\n");
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(System.out),
+        new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+
+    String out = dir.resolve("out.txt").toString();
+    line = command + " x " + switch (redirects) {
+      case "out" -> "> " + out;
+      case "append" -> ">> " + out;
+      default -> "< " + input + " > " + out + " 2> " + dir.resolve("err.txt");
+    };
+  }
+
+  @Benchmark
+  public int redirectedCommand() throws IOException {
+    return evaluator.evaluate(line).getExitCode();
+  }
+}
@@ -0,0 +1,88 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a script of builtin commands, once the way it runs today when piped to
+ * the interactive shell's stdin (a prompt and a flush per line) and once
+ * through {@link Shell#runScript}. Output goes to /dev/null, so each flush
+ * still costs a {@code write()}. The score is commands per second.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=ScriptMode
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptModeBenchmark {
+  private static final int COMMANDS = 10_000;
+
+  private String script;
+  private Path scriptFile;
+  private PrintWriter devNull;
+
+  @Setup
+  public void setUp() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < COMMANDS; i++) {
+      sb.append(i % 2 == 0 ? "echo line " + i : "pwd").append('\n');
+    }
+    script = sb.toString();
+    scriptFile = Files.createTempFile("script-mode", ".sh");
+    Files.writeString(scriptFile, script);
+    devNull = new PrintWriter(new FileOutputStream("/dev/null"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    devNull.close();
+    Files.deleteIfExists(scriptFile);
+  }
+
+  private Shell shell(BufferedReader in) {
+    IoContext io = new IoContext(in, devNull, devNull, EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io);
+    return new Shell(ctx, new Evaluator(ctx, new Builtins()));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COMMANDS)
+  public int pipedToInteractiveShell() throws IOException {
+    return shell(new BufferedReader(new StringReader(script))).run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COMMANDS)
+  public int scriptFile() throws IOException {
+    try (BufferedReader reader = ScriptReader.open(scriptFile)) {
+      return shell(reader).runScript(reader);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The sort builtin against the external sort binary on a 512 MiB log, both
+ * held to the same {@code -S} budget, so both spill sorted runs and merge
+ * them: many small runs at 16M, a handful of large ones at 128M.
+ * {@code line} sorts whole lines, {@code numeric} the numeric third field.
+ *
+ * The JVM runs with a heap smaller than the input, so a builtin that held
+ * more than its budget would fail rather than just be slow.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=SortBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx384m" })
+public class SortBenchmark {
+  private static final String[] WORDS = { "GET", "POST", "/index.html", "/api/users", "200", "404", "500",
+      "timeout", "ERROR", "INFO", "WARN", "user=alice", "user=bob" };
+
+  @Param({ "16M", "128M" })
+  String budget;
+
+  @Param({ "line", "numeric" })
+  String key;
+
+  private Path dir;
+  private Path input;
+  private String options;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("sort-bench");
+    input = dir.resolve("access.log");
+    Random random = new Random(7);
+    try (BufferedWriter writer = Files.newBufferedWriter(input)) {
+      long written = 0;
+      while (written < 512L << 20) {
+        StringBuilder line = new StringBuilder();
+        line.append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+            .append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+            .append(random.nextInt(1_000_000)).append(' ')
+            .append(Long.toHexString(random.nextLong())).append('\n');
+        writer.write(line.toString());
+        written += line.length();
+      }
+    }
+    options = "-S " + budget + " -T " + dir + (key.equals("numeric") ? " -k3,3n" : "");
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        new PrintWriter(new FileOutputStream("/dev/null")), new PrintWriter(System.err),
+        EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public int builtin() throws IOException {
+    return evaluator.evaluate("sort " + options + " " + input + " > /dev/null").getExitCode();
+  }
+
+  @Benchmark
+  public int external() throws IOException, InterruptedException {
+    ProcessBuilder sort = new ProcessBuilder(("sort " + options + " " + input).split(" "))
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT);
+    sort.environment().put("LC_ALL", "C");
+    return sort.start().waitFor();
+  }
+}
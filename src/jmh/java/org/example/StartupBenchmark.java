@@ -0,0 +1,86 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Starts javashell.jar the way run.sh does, with and without the AOT cache
+ * built by {@code ./gradlew aotCache}. It measures the time until the first
+ * prompt is printed, plus the exit once stdin is closed, and the time for
+ * {@code -c 'echo hi'} to exit.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=Startup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+  private static final Path JAR = Path.of(System.getProperty("javashell.jar", "/tmp/javashell-build/javashell.jar"));
+  private static final Path AOT = Path.of(System.getProperty("javashell.aot", "/tmp/javashell-build/javashell.aot"));
+
+  @Param({ "none", "aot" })
+  String cache;
+
+  private List<String> java;
+
+  @Setup
+  public void setUp() {
+    if (cache.equals("aot") && !Files.exists(AOT)) {
+      throw new IllegalStateException(AOT + " not found, run ./gradlew aotCache first");
+    }
+    // the flags run.sh starts with by default, which the AOT cache has to match
+    java = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java"),
+        "--enable-preview", "--enable-native-access=ALL-UNNAMED"));
+    if (cache.equals("aot")) {
+      java.add("-XX:AOTCache=" + AOT);
+    }
+    java.addAll(List.of("-jar", JAR.toString()));
+  }
+
+  @Benchmark
+  public int timeToExit() throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>(java);
+    command.addAll(List.of("-c", "echo hi"));
+    return new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT).start().waitFor();
+  }
+
+  @Benchmark
+  public int timeToFirstPrompt() throws IOException, InterruptedException {
+    Process shell = new ProcessBuilder(java).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    try (InputStream out = shell.getInputStream()) {
+      // the prompt ends with "$ " followed by the colour reset
+      int previous = 0;
+      int c;
+      while ((c = out.read()) != -1) {
+        if (previous == '$' && c == ' ') {
+          break;
+        }
+        previous = c;
+      }
+    } finally {
+      shell.getOutputStream().close();
+    }
+    return shell.waitFor();
+  }
+}
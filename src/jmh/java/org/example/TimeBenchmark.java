@@ -0,0 +1,62 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What wrapping a command in {@code time} costs: reading /proc before and
+ * after, and sampling the children while it runs. A builtin shows the fixed
+ * cost, an external the cost next to a process start.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=TimeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeBenchmark {
+
+  @Param({ "pwd", "true" })
+  String command;
+
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // the reports go to stderr, which is thrown away like stdout
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        IoContext.discardingWriter(), IoContext.discardingWriter(), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io, false), new Builtins());
+  }
+
+  @Benchmark
+  public int bare() throws IOException {
+    return evaluator.evaluate(command).getExitCode();
+  }
+
+  @Benchmark
+  public int timed() throws IOException {
+    return evaluator.evaluate("time -j " + command).getExitCode();
+  }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The wc builtin over a 1 GiB log, with the vector counter and with the
+ * scalar fallback, against the external wc binary. {@code -l} only counts
+ * newlines, the default also finds the words. The file is read once before
+ * measuring, so all of them count from the page cache.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=WcBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class WcBenchmark {
+  private static final String[] WORDS = { "GET", "POST", "/index.html", "/api/users", "200", "404", "500",
+      "timeout", "ERROR", "INFO", "WARN", "user=alice", "user=bob", "latency=12ms", "latency=340ms" };
+
+  @Param({ "-l", "-lwc" })
+  String options;
+
+  private Path dir;
+  private Path input;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("wc-bench");
+    input = dir.resolve("access.log");
+    Random random = new Random(7);
+    try (BufferedWriter writer = Files.newBufferedWriter(input)) {
+      long written = 0;
+      while (written < 1L << 30) {
+        StringBuilder line = new StringBuilder();
+        for (int w = 0; w < 8; w++) {
+          line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        line.append('\n');
+        writer.write(line.toString());
+        written += line.length();
+      }
+    }
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        new PrintWriter(new StringWriter()), new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io), new Builtins());
+    evaluator.evaluate("wc " + input);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+  public int vector() throws IOException {
+    return evaluator.evaluate("wc " + options + " " + input).getExitCode();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = { "-Djavashell.wc.vector=false" })
+  public int scalar() throws IOException {
+    return evaluator.evaluate("wc " + options + " " + input).getExitCode();
+  }
+
+  @Benchmark
+  @Fork(1)
+  public int external() throws IOException, InterruptedException {
+    return new ProcessBuilder("wc", options, input.toString())
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
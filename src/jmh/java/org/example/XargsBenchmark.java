@@ -0,0 +1,91 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The xargs builtin against the external xargs binary, starting one short
+ * process per item of a 2000 item list, {@code -P} at a time. With
+ * {@code -n 1} the cost is all process starts and collecting their output;
+ * {@code echo} as a builtin shows what is left without them.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=XargsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XargsBenchmark {
+
+  @Param({ "1", "4", "16" })
+  int procs;
+
+  private Path dir;
+  private Path items;
+  private Evaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("xargs-bench");
+    items = dir.resolve("items.txt");
+    Files.writeString(items, IntStream.range(0, 2000).mapToObj(i -> "item" + i).collect(Collectors.joining("\n")));
+
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)),
+        new PrintWriter(new FileOutputStream("/dev/null")), new PrintWriter(System.err),
+        EnumSet.noneOf(IoContext.Resource.class));
+    evaluator = new Evaluator(new ShellContext(io, false), new Builtins());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(items);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public int builtin() throws IOException {
+    return evaluator.evaluate("xargs -n 1 -P " + procs + " -a " + items + " printf '%s\\n'").getExitCode();
+  }
+
+  @Benchmark
+  public int builtinEcho() throws IOException {
+    return evaluator.evaluate("xargs -n 1 -P " + procs + " -a " + items + " echo").getExitCode();
+  }
+
+  @Benchmark
+  public int external() throws IOException, InterruptedException {
+    return new ProcessBuilder("xargs", "-n", "1", "-P", Integer.toString(procs), "-a", items.toString(), "printf",
+        "%s\\n")
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start().waitFor();
+  }
+}
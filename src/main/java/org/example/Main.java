@@ -1,24 +1,139 @@
 package org.example;
 
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.EnumSet;
 
 import org.example.commands.Builtins;
+import org.example.daemon.ShellClient;
+import org.example.daemon.ShellServer;
+import org.example.evaluator.ChannelBufferedReader;
+import org.example.evaluator.ChannelPrintWriter;
+import org.example.evaluator.CommandUtils;
 import org.example.evaluator.Evaluator;
 import org.example.evaluator.IoContext;
 
+/**
+ * <pre>
+ * javashell                          interactive shell reading from stdin
+ * javashell script.sh                run the commands in script.sh
+ * javashell -c commands              run the given command string
+ * javashell --daemon [socket]        serve sessions on a Unix domain socket
+ * javashell --connect [socket] ...   run a script or -c commands on the daemon
+ * </pre>
+ */
 public class Main {
   public static void main(String[] args) throws IOException {
-    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-    PrintWriter out = new PrintWriter(System.out);
-    PrintWriter err = new PrintWriter(System.err);
+    if (args.length > 0 && args[0].equals("--connect")) {
+      System.exit(connect(Arrays.copyOfRange(args, 1, args.length)));
+    }
+
+    CommandUtils.index().start(CommandUtils.getPathEnv());
+
+    if (args.length > 0 && args[0].equals("--aot-training")) {
+      System.exit(Training.run());
+    }
+
+    if (args.length > 0 && args[0].equals("--daemon")) {
+      Path socket = args.length > 1 ? Path.of(args[1]) : ShellClient.defaultSocket();
+      ShellServer server;
+      try {
+        server = new ShellServer(socket);
+      } catch (IOException e) {
+        System.err.println("javashell: " + e.getMessage());
+        System.exit(1);
+        return;
+      }
+      try (server) {
+        server.serve();
+      }
+      return;
+    }
+
+    BufferedReader in = new ChannelBufferedReader(new InputStreamReader(System.in),
+        new FileInputStream(FileDescriptor.in).getChannel());
+    PrintWriter out = stdioWriter(System.out, FileDescriptor.out, 1);
+    PrintWriter err = stdioWriter(System.err, FileDescriptor.err, 2);
     IoContext stdIO = new IoContext(in, out, err, EnumSet.noneOf(IoContext.Resource.class));
     ShellContext ctx = new ShellContext(stdIO);
     Evaluator evaluator = new Evaluator(ctx, new Builtins());
     Shell shell = new Shell(ctx, evaluator);
-    shell.run();
+
+    if (args.length == 0) {
+      System.exit(shell.run());
+    }
+
+    if (args[0].equals("-c")) {
+      if (args.length < 2) {
+        usage("-c: option requires an argument");
+      }
+      System.exit(shell.runScript(new BufferedReader(new StringReader(args[1]))));
+    }
+
+    Path script = Path.of(args[0]);
+    if (!Files.isReadable(script)) {
+      System.err.println("javashell: " + args[0] + ": No such file or directory");
+      System.exit(127);
+    }
+    try (BufferedReader reader = ScriptReader.open(script)) {
+      System.exit(shell.runScript(reader));
+    }
+  }
+
+  // the channel lets builtins like cat hand whole files to fd 1 or 2 directly,
+  // and where /proc has it, the file lets cat refuse to read what it writes.
+  private static PrintWriter stdioWriter(PrintStream stream, FileDescriptor fd, int number) {
+    Path file = Path.of("/proc/self/fd/" + number);
+    return new ChannelPrintWriter(new OutputStreamWriter(stream, stream.charset()),
+        new FileOutputStream(fd).getChannel(), Files.exists(file) ? file : null);
+  }
+
+  private static int connect(String[] args) throws IOException {
+    Path socket = ShellClient.defaultSocket();
+    int i = 0;
+    if (args.length > 0 && !args[0].equals("-c") && args.length != 1) {
+      socket = Path.of(args[i++]);
+    }
+    if (i >= args.length) {
+      usage("--connect: a script or -c commands is required");
+    }
+
+    String commands;
+    if (args[i].equals("-c")) {
+      if (i + 1 >= args.length) {
+        usage("-c: option requires an argument");
+      }
+      commands = args[i + 1];
+    } else {
+      Path script = Path.of(args[i]);
+      if (!Files.isReadable(script)) {
+        System.err.println("javashell: " + args[i] + ": No such file or directory");
+        return 127;
+      }
+      commands = Files.readString(script);
+    }
+
+    try {
+      return ShellClient.run(socket, Path.of("").toAbsolutePath(), commands, System.out, System.err);
+    } catch (IOException e) {
+      System.err.println("javashell: " + socket + ": " + e.getMessage());
+      return 1;
+    }
+  }
+
+  private static void usage(String message) {
+    System.err.println("javashell: " + message);
+    System.exit(2);
   }
 }
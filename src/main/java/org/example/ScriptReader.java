@@ -0,0 +1,74 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens a script for {@link Shell#runScript}. Small scripts are read through a
+ * large buffer. Scripts of {@link #MMAP_THRESHOLD} bytes or more are mapped
+ * into memory instead, so refilling the reader's buffer is a copy out of the
+ * page cache rather than a {@code read()} call.
+ */
+public final class ScriptReader {
+  public static final int BUFFER_SIZE = 64 * 1024;
+  public static final long MMAP_THRESHOLD = 1024 * 1024;
+
+  private ScriptReader() {
+  }
+
+  public static BufferedReader open(Path script) throws IOException {
+    long size = Files.size(script);
+    if (size < MMAP_THRESHOLD || size > Integer.MAX_VALUE) {
+      return new BufferedReader(new InputStreamReader(Files.newInputStream(script), StandardCharsets.UTF_8),
+          BUFFER_SIZE);
+    }
+
+    MappedByteBuffer mapped;
+    try (FileChannel channel = FileChannel.open(script, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    return new BufferedReader(new InputStreamReader(new MappedInputStream(mapped), StandardCharsets.UTF_8),
+        BUFFER_SIZE);
+  }
+
+  private static final class MappedInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    MappedInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package org.example;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.List;
 
+import org.example.evaluator.CommandResult;
 import org.example.evaluator.Evaluator;
 
 public class Shell {
@@ -14,41 +17,89 @@ public class Shell {
     this.evaluator = evaluator;
   }
 
-  public void run() {
+  /**
+   * Reads commands from the shell's stdin, printing a prompt before each one.
+   * Background jobs are announced when they start, and reported before the
+   * prompt once they have finished.
+   *
+   * @return the exit status of the last command run.
+   */
+  public int run() {
+    ctx.jobs().setReporting(true);
+    return loop(ctx.in(), true);
+  }
+
+  /**
+   * Runs every command in {@code script} without prompting. Output is left in
+   * the buffers between builtins and flushed only before an external command
+   * starts, see {@link Evaluator#flushStdio}, and when the script ends.
+   * After each builtin {@link Evaluator#executeBuiltin} flushes only stderr
+   * and the files appended to.
+   *
+   * @return the exit status of the last command run, or the status given to
+   *         {@code exit}.
+   */
+  public int runScript(BufferedReader script) {
+    return loop(script, false);
+  }
+
+  private int loop(BufferedReader source, boolean interactive) {
+    int status = 0;
     try {
       while (ctx.shouldContinue()) {
-        prompt();
-        String input = readInput();
+        if (interactive) {
+          prompt();
+        }
+        String input = readInput(source);
 
         if (input == null) {
           break;
         }
 
-        if (input.isBlank()) {
+        if (input.isBlank() || input.stripLeading().startsWith("#")) {
           continue;
         }
 
-        evaluator.evaluate(input);
+        try {
+          CommandResult result = evaluator.evaluate(input);
+          status = result.getExitCode();
+          if (result.shouldExit()) {
+            ctx.toggleShouldContinue();
+          }
+        } catch (IOException e) {
+          ctx.err().println("I/O error: " + e.getMessage());
+          status = 1;
+        }
       }
     } catch (IOException e) {
       ctx.err().println("I/O error: " + e.getMessage());
+    } finally {
+      evaluator.close();
+      ctx.out().flush();
+      ctx.err().flush();
     }
+    return status;
   }
 
   private void prompt() {
+    List<String> notices = ctx.jobs().reapFinished();
+    if (!notices.isEmpty()) {
+      notices.forEach(ctx.err()::println);
+      ctx.err().flush();
+    }
     ctx.out().print("\u001B[1;34m");
     ctx.out().print(ctx.getCwd().toString() + " $ ");
     ctx.out().print("\u001B[0m");
     ctx.out().flush();
   }
 
-  private String readInput() throws IOException {
+  private String readInput(BufferedReader source) throws IOException {
     StringBuilder input = new StringBuilder();
     while (true) {
-      String line = ctx.in().readLine();
+      String line = source.readLine();
 
       if (line == null) {
-        return null;
+        return input.isEmpty() ? null : input.toString();
       }
 
       if (line.endsWith("\\")) {
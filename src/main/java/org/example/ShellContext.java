@@ -4,12 +4,26 @@ import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.nio.file.Path;
 
+import org.example.evaluator.CommandRunner;
 import org.example.evaluator.IoContext;
+import org.example.evaluator.JobTable;
+import org.example.evaluator.Variables;
 
 public class ShellContext {
   private final IoContext io;
   private CwdState cwdState = new CwdState(Path.of(System.getProperty("user.dir")));
   private boolean shouldContinue = true;
+  // false when io is not the JVM's own stdin/stdout/stderr, e.g. for a daemon
+  // session. External commands then have their output copied into io rather
+  // than inheriting the JVM's descriptors.
+  private final boolean inheritsStdio;
+  // how builtins such as time run the command they wrap; set by the Evaluator
+  // that owns this context.
+  private CommandRunner runner;
+  // shared with every context made by withIo(), like the cwd.
+  private final JobTable jobs;
+  // shared with every context made by withIo(); a subshell gets a fork.
+  private final Variables variables;
 
   // this allows any IoContext created using withIo() to share the ShellContext's
   // cwd.
@@ -25,25 +39,66 @@ public class ShellContext {
     }
   }
 
-  private ShellContext(IoContext io, CwdState cwdState) {
+  private ShellContext(IoContext io, CwdState cwdState, boolean inheritsStdio, CommandRunner runner,
+      JobTable jobs, Variables variables) {
     this.io = io;
     this.cwdState = cwdState;
+    this.inheritsStdio = inheritsStdio;
+    this.runner = runner;
+    this.jobs = jobs;
+    this.variables = variables;
   }
 
   /***
    * Creates a new {@code ShellContext} with the supplied {@link IoContext}
    * sharing the same current working directory state as this context.
+   * External commands only inherit the JVM's stdio if {@code io} is still this
+   * context's own, so a builtin whose output was redirected passes the
+   * redirect on to the commands it runs.
    * 
    * @param io the {@link IoContext} to use.
    * @return a new context using {@code io} and the same working directory state.
    */
 
   public ShellContext withIo(IoContext io) {
-    return new ShellContext(io, this.cwdState);
+    return new ShellContext(io, this.cwdState, this.inheritsStdio && io == this.io, this.runner,
+        this.jobs, this.variables);
+  }
+
+  /**
+   * Creates a new {@code ShellContext} that is this one with {@code variables}
+   * in place of its own, as a command run with {@code VAR=x} in front of it
+   * sees.
+   */
+  public ShellContext withVariables(Variables variables) {
+    return new ShellContext(this.io, this.cwdState, this.inheritsStdio, this.runner, this.jobs, variables);
+  }
+
+  /**
+   * Creates a context for a subshell, such as the one a command substitution
+   * or a background job runs in. It starts with this context's working
+   * directory and variables but has its own, so a {@code cd} or an assignment
+   * inside does not change this one, and it has its own job table.
+   *
+   * @param io the {@link IoContext} to use.
+   */
+  public ShellContext subshell(IoContext io) {
+    return new ShellContext(io, new CwdState(getCwd()), false, this.runner, new JobTable(), variables.fork());
   }
 
   public ShellContext(IoContext io) {
+    this(io, true);
+  }
+
+  /**
+   * @param inheritsStdio whether {@code io} is the JVM's own stdio, so that
+   *                      external commands can inherit it directly.
+   */
+  public ShellContext(IoContext io, boolean inheritsStdio) {
     this.io = io;
+    this.inheritsStdio = inheritsStdio;
+    this.jobs = new JobTable();
+    this.variables = Variables.fromEnvironment();
   }
 
   public void setCwd(Path newAbsolutePath) {
@@ -70,6 +125,29 @@ public class ShellContext {
     return io;
   }
 
+  public boolean inheritsStdio() {
+    return inheritsStdio;
+  }
+
+  public CommandRunner runner() {
+    if (runner == null) {
+      throw new IllegalStateException("no evaluator is running commands for this shell");
+    }
+    return runner;
+  }
+
+  public void setRunner(CommandRunner runner) {
+    this.runner = runner;
+  }
+
+  public JobTable jobs() {
+    return jobs;
+  }
+
+  public Variables variables() {
+    return variables;
+  }
+
   public boolean shouldContinue() {
     return shouldContinue;
   }
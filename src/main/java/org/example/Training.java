@@ -0,0 +1,124 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+
+/**
+ * The workload for {@code javashell --aot-training}, which the
+ * {@code aotCache} gradle task runs under {@code -XX:AOTCacheOutput} to build
+ * the AOT cache that {@code run.sh} starts with.
+ *
+ * It drives the lexer, parser, redirects, pipelines, lists, substitutions,
+ * globs, background jobs and every builtin through both the interactive loop
+ * and script mode. It works in a scratch directory and discards all output.
+ * The builtin-only lines are repeated so the cache also records profiles for
+ * the hot paths, not just the loaded classes.
+ */
+final class Training {
+  private static final int ROUNDS = 200;
+
+  private Training() {
+  }
+
+  static int run() throws IOException {
+    Path dir = Files.createTempDirectory("javashell-training");
+    try {
+      Builtins builtins = new Builtins();
+      PrintWriter sink = new PrintWriter(OutputStream.nullOutputStream());
+
+      StringBuilder hot = new StringBuilder();
+      for (int i = 0; i < ROUNDS; i++) {
+        hot.append("echo \"round ").append(i).append("\" 'single' back\\ slash\n")
+            .append("pwd\n")
+            .append("type echo type cd\n")
+            .append("N=").append(i).append("; echo $N \"$(pwd)\" && true || echo never\n")
+            .append("echo round ").append(i).append(" >> ").append(dir.resolve("rounds.txt")).append('\n');
+      }
+
+      String out = dir.resolve("out.txt").toString();
+      String err = dir.resolve("err.txt").toString();
+      String all = dir.resolve("all.txt").toString();
+      String data = dir.resolve("data.txt").toString();
+      String once = String.join("\n",
+          "cd " + dir,
+          "cd ..",
+          "cd " + dir,
+          "hash ls",
+          "hash -t ls",
+          "hash",
+          "hash -d ls",
+          "hash -r",
+          "parsecache",
+          "type ls no-such-command",
+          "echo hi > " + out,
+          "echo again 1>> " + out,
+          "ls no-such-file 2> " + err,
+          "ls no-such-file 2>> " + err,
+          "ls " + dir + " &> " + all,
+          "ls " + dir + " &>> " + all,
+          "cat < " + out,
+          "echo a b c | tr a-z A-Z | wc -c",
+          "ls " + dir + " | cat > " + dir.resolve("list.txt"),
+          "echo 'pear 3' > " + data,
+          "echo 'apple 10' >> " + data,
+          "echo 'Fig 1' >> " + data,
+          "grep -n apple " + data,
+          "grep -ciE '^(pear|fig)' " + data + " " + out,
+          "grep -vw pear < " + data + " | grep -F -l 1",
+          "cat " + data + " | grep -ix 'fig 1'",
+          "sort " + data,
+          "sort -r -n -k 2 -t ' ' " + data + " | sort -bu",
+          "wc " + data + " " + out,
+          "cat " + data + " | wc -lw",
+          "time -p echo timed",
+          "time -j sort -n < " + data,
+          "echo a b c d | xargs -n 2 echo",
+          "cat " + data + " | xargs -t -P 2 -n 1 echo",
+          "sleep 0.01 &",
+          "true &",
+          "jobs -l",
+          "wait",
+          "sleep 0.01 &",
+          "fg",
+          "export TRAINING=1 OTHER",
+          "export -p",
+          "unset OTHER",
+          "echo $TRAINING \"${TRAINING}\" '$TRAINING' $?",
+          "TRAINING=2 sh -c 'echo $TRAINING'",
+          "true && echo and || echo or; false || echo or; false && echo never; echo done",
+          "echo $(pwd) `echo back` \"$(echo a b | wc -w)\"",
+          "echo $(ls " + dir + " | sort) $(grep -c a " + data + ")",
+          "echo *.txt [a-o]*.t?t \"*.txt\"",
+          "echo " + dir + "/**/*.txt no-match-*",
+          "no-such-command",
+          "exit",
+          "");
+
+      IoContext io = new IoContext(new BufferedReader(new StringReader(hot + once)), sink, sink,
+          EnumSet.noneOf(IoContext.Resource.class));
+      // not the JVM's stdio, so external commands' output lands in the sink too.
+      ShellContext interactive = new ShellContext(io, false);
+      new Shell(interactive, new Evaluator(interactive, builtins)).run();
+
+      ShellContext script = new ShellContext(io, false);
+      return new Shell(script, new Evaluator(script, builtins))
+          .runScript(new BufferedReader(new StringReader(hot + once)));
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+}
@@ -15,6 +15,19 @@ public class Builtins {
     builtins.put("pwd", new Pwd());
     builtins.put("type", new Type(builtins.keySet()));
     builtins.put("cd", new Cd());
+    builtins.put("hash", new Hash(builtins.keySet()));
+    builtins.put("parsecache", new ParseCacheCommand());
+    builtins.put("cat", new Cat());
+    builtins.put("grep", new Grep());
+    builtins.put("sort", new Sort());
+    builtins.put("wc", new Wc());
+    builtins.put("time", new Time());
+    builtins.put("xargs", new Xargs(builtins.keySet()));
+    builtins.put("jobs", new Jobs());
+    builtins.put("wait", new Wait());
+    builtins.put("fg", new Fg());
+    builtins.put("export", new Export());
+    builtins.put("unset", new Unset());
   }
 
   public boolean isBuiltin(String name) {
@@ -0,0 +1,74 @@
+package org.example.commands;
+
+/**
+ * Counts the newlines and words in a run of bytes for {@code wc}. A word is
+ * a run of bytes other than ASCII whitespace, as in the C locale.
+ */
+interface ByteCounter {
+
+  /**
+   * Adds the newlines in {@code buf[from, to)} to {@code counts}, and the
+   * words too when {@code words} is set, continuing a word that
+   * {@code counts} ended in. Bytes are left to the caller.
+   */
+  void count(byte[] buf, int from, int to, boolean words, Counts counts);
+
+  static boolean isSpace(byte b) {
+    return b == ' ' || (b >= '\t' && b <= '\r');
+  }
+
+  /**
+   * @return the vectorized counter when the {@code jdk.incubator.vector}
+   *         module is available and not disabled with
+   *         {@code -Djavashell.wc.vector=false}, otherwise the scalar one.
+   */
+  static ByteCounter best() {
+    return Holder.BEST;
+  }
+
+  final class Holder {
+    private static final ByteCounter BEST = load();
+
+    private Holder() {
+    }
+
+    private static ByteCounter load() {
+      if (!Boolean.parseBoolean(System.getProperty("javashell.wc.vector", "true"))
+          || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+        return ScalarByteCounter.INSTANCE;
+      }
+      try {
+        return new VectorByteCounter();
+      } catch (LinkageError e) {
+        return ScalarByteCounter.INSTANCE;
+      }
+    }
+  }
+
+  /**
+   * The counts of one input, or of one chunk of it. Chunks are counted
+   * apart and {@link #add added} in order, which joins a word split between
+   * two of them.
+   */
+  final class Counts {
+    long lines;
+    long words;
+    long bytes;
+    // whether the first byte counted, and the last, were part of a word
+    boolean startsInWord;
+    boolean inWord;
+
+    void add(Counts next) {
+      if (next.bytes == 0) {
+        return;
+      }
+      words += next.words - (inWord && next.startsInWord ? 1 : 0);
+      if (bytes == 0) {
+        startsInWord = next.startsInWord;
+      }
+      inWord = next.inWord;
+      lines += next.lines;
+      bytes += next.bytes;
+    }
+  }
+}
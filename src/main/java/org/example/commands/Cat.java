@@ -0,0 +1,180 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.example.ShellContext;
+import org.example.evaluator.ChannelBufferedReader;
+import org.example.evaluator.ChannelPrintWriter;
+import org.example.evaluator.CommandResult;
+
+/**
+ * Concatenates files, or stdin for {@code -} and when no file is given, to
+ * stdout.
+ *
+ * When stdout ends in a channel (a file, the shell's own stdout, a pipe) each
+ * file is handed to {@link FileChannel#transferTo}, which on Linux copies in
+ * the kernel with sendfile or copy_file_range. Stdin is copied as bytes too
+ * when it is still untouched, e.g. after {@code <} or in a pipeline. Anything
+ * else is copied in large chunks through the readers and writers.
+ *
+ * No options are supported beyond POSIX's {@code -u}, which is accepted and
+ * ignored since nothing is held back anyway.
+ */
+public class Cat implements CommandInterface {
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    int start = 0;
+    while (start < args.size() && args.get(start).startsWith("-") && !args.get(start).equals("-")) {
+      String option = args.get(start++);
+      if (option.equals("--")) {
+        break;
+      }
+      if (!option.equals("-u")) {
+        shell.err().println("cat: " + option + ": unsupported option");
+        shell.err().println("usage: cat [-u] [file ...]");
+        return CommandResult.continueWith(2);
+      }
+    }
+
+    List<String> files = args.subList(start, args.size());
+    if (files.isEmpty()) {
+      files = List.of("-");
+    }
+
+    int exitCode = 0;
+    for (String name : files) {
+      try {
+        if (name.equals("-")) {
+          copyStdin(shell);
+        } else if (!copyFile(shell, name)) {
+          exitCode = 1;
+        }
+      } catch (IOException e) {
+        if (isBrokenPipe(e)) {
+          // the reader went away, as `cat big.log | head` does; nothing left to do.
+          return CommandResult.continueWith(1);
+        }
+        shell.err().println("cat: " + name + ": " + e.getMessage());
+        exitCode = 1;
+      }
+    }
+    shell.out().flush();
+    return CommandResult.continueWith(exitCode);
+  }
+
+  private boolean copyFile(ShellContext shell, String name) throws IOException {
+    Path path = shell.getCwd().resolve(name);
+    if (Files.isDirectory(path)) {
+      shell.err().println("cat: " + name + ": Is a directory");
+      return false;
+    }
+    if (isOutput(path, shell.out())) {
+      // copying it would chase its own tail forever
+      shell.err().println("cat: " + name + ": input file is output file");
+      return false;
+    }
+
+    FileChannel in;
+    try {
+      in = FileChannel.open(path, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      shell.err().println("cat: " + name + ": No such file or directory");
+      return false;
+    } catch (AccessDeniedException e) {
+      shell.err().println("cat: " + name + ": Permission denied");
+      return false;
+    }
+
+    try (in) {
+      copy(in, shell.out());
+    }
+    return true;
+  }
+
+  // whether path is the non-empty file stdout writes to, as `cat f >> f` has.
+  private static boolean isOutput(Path path, PrintWriter out) {
+    Optional<Path> file = ChannelPrintWriter.file(out);
+    try {
+      return file.isPresent() && Files.isSameFile(path, file.get()) && Files.size(path) > 0;
+    } catch (IOException e) {
+      // nothing to compare with; opening it reports why
+      return false;
+    }
+  }
+
+  private static void copyStdin(ShellContext shell) throws IOException {
+    Optional<ReadableByteChannel> in = ChannelBufferedReader.channel(shell.in());
+    if (in.isPresent()) {
+      copy(in.get(), shell.out());
+    } else {
+      copy(shell.in(), shell.out());
+    }
+  }
+
+  static void copy(ReadableByteChannel in, PrintWriter writer) throws IOException {
+    Optional<WritableByteChannel> out = ChannelPrintWriter.channel(writer);
+    if (out.isEmpty()) {
+      copy(new InputStreamReader(Channels.newInputStream(in), StandardCharsets.UTF_8), writer);
+      return;
+    }
+
+    // pipes and terminals report a size of 0 and are read like any stream.
+    if (in instanceof FileChannel file && file.size() > 0) {
+      long position = file.position();
+      long size = file.size();
+      while (position < size) {
+        long n = file.transferTo(position, size - position, out.get());
+        if (n <= 0) {
+          break;
+        }
+        position += n;
+      }
+      file.position(position);
+    }
+
+    // whatever transferTo could not see: files that report no size, such as
+    // those under /proc, anything appended while copying, and streams.
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    while (in.read(buffer) != -1) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        out.get().write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  private static void copy(Reader in, PrintWriter out) throws IOException {
+    char[] chunk = new char[CHUNK_SIZE];
+    int n;
+    while ((n = in.read(chunk)) != -1) {
+      out.write(chunk, 0, n);
+      if (out.checkError()) {
+        throw new IOException("Broken pipe");
+      }
+    }
+  }
+
+  private static boolean isBrokenPipe(IOException e) {
+    return "Broken pipe".equals(e.getMessage()) || "Pipe closed".equals(e.getMessage());
+  }
+
+}
@@ -12,7 +12,7 @@ public class Cd implements CommandInterface {
   public CommandResult execute(List<String> args, ShellContext shell) {
 
     String target = "";
-    String home = System.getenv("HOME");
+    String home = shell.variables().get("HOME");
     if (home == null || home.isBlank()) {
       home = System.getProperty("user.home");
     }
@@ -8,6 +8,15 @@ import org.example.ShellContext;
 public class Exit implements CommandInterface {
   @Override
   public CommandResult execute(List<String> args, ShellContext shell) {
-    return CommandResult.exitWith(0);
+    if (args.isEmpty()) {
+      return CommandResult.exitWith(0);
+    }
+    try {
+      // like bash, the status is taken modulo 256
+      return CommandResult.exitWith(Integer.parseInt(args.getFirst()) & 0xff);
+    } catch (NumberFormatException e) {
+      shell.err().println("exit: " + args.getFirst() + ": numeric argument required");
+      return CommandResult.exitWith(2);
+    }
   }
 }
@@ -0,0 +1,83 @@
+package org.example.commands;
+
+import java.util.List;
+import java.util.Map;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.Variables;
+
+/**
+ * Marks variables to be passed to the commands the shell starts, setting
+ * them first if a value is given. With no names, lists the exported
+ * variables in a form that can be read back in.
+ *
+ * <pre>
+ * export [-p] [name[=value] ...]
+ *
+ * -p   list the exported variables
+ * </pre>
+ */
+public class Export implements CommandInterface {
+  private static final String USAGE = "usage: export [-p] [name[=value] ...]";
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        if (c != 'p') {
+          shell.err().println("export: invalid option -- '" + c + "'");
+          shell.err().println(USAGE);
+          return CommandResult.continueWith(2);
+        }
+      }
+    }
+
+    Variables variables = shell.variables();
+    if (i == args.size()) {
+      for (Map.Entry<String, String> e : variables.exported().entrySet()) {
+        shell.out().println("declare -x " + e.getKey() + "=\"" + escape(e.getValue()) + "\"");
+      }
+      return CommandResult.continueWith(0);
+    }
+
+    int exitCode = 0;
+    for (String arg : args.subList(i, args.size())) {
+      int equals = arg.indexOf('=');
+      String name = equals < 0 ? arg : arg.substring(0, equals);
+      if (!Variables.isName(name)) {
+        shell.err().println("export: `" + arg + "': not a valid identifier");
+        exitCode = 1;
+        continue;
+      }
+      if (equals >= 0) {
+        variables.set(name, arg.substring(equals + 1));
+      }
+      variables.export(name);
+    }
+    return CommandResult.continueWith(exitCode);
+  }
+
+  // the characters that are still special inside double quotes
+  private static String escape(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\' || c == '$' || c == '`') {
+        escaped.append('\\');
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+}
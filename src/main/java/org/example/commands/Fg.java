@@ -0,0 +1,43 @@
+package org.example.commands;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.JobTable;
+
+/**
+ * Brings a background job, the current one by default, back to the
+ * foreground: prints its command and waits for it, returning its status.
+ *
+ * <pre>
+ * fg [jobspec]
+ * </pre>
+ *
+ * There is no job control, so the job keeps the streams it was started with
+ * and its stdin stays empty.
+ */
+public class Fg implements CommandInterface {
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    String spec = args.isEmpty() ? "%+" : args.getFirst();
+    Optional<JobTable.Job> job = shell.jobs().find(spec);
+    if (job.isEmpty()) {
+      shell.err().println("fg: " + (args.isEmpty() ? "current" : spec) + ": no such job");
+      return CommandResult.continueWith(1);
+    }
+
+    shell.out().println(job.get().command());
+    shell.out().flush();
+    try {
+      int exitCode = job.get().await();
+      shell.jobs().remove(job.get());
+      return CommandResult.continueWith(exitCode);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CommandResult.continueWith(130);
+    }
+  }
+}
@@ -0,0 +1,617 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.PatternSyntaxException;
+
+import org.example.ShellContext;
+import org.example.evaluator.ChannelBufferedReader;
+import org.example.evaluator.ChannelPrintWriter;
+import org.example.evaluator.CommandResult;
+
+/**
+ * Prints the lines of each file, or of stdin, that match a pattern.
+ *
+ * <pre>
+ * grep [-ivwxcnlqhHFE] [-e] pattern [file ...]
+ * </pre>
+ *
+ * Patterns are Java regular expressions, which read like {@code grep -E}.
+ * One without metacharacters is matched as plain bytes, see
+ * {@link LineMatcher}.
+ *
+ * Files, and a stdin redirected from a file, are cut into line-aligned
+ * chunks of {@link #CHUNK_SIZE}. Each chunk is scanned as its own task on the
+ * common {@link ForkJoinPool}, so one large file, or many small ones, keep
+ * every core busy. The matchers read from arrays, so a chunk is read, not
+ * mapped, into a buffer each pool thread reuses, and only its selected lines
+ * are copied out. Results are written in input order as the chunks at the
+ * head of a bounded window complete, so memory stays at a few chunks however
+ * large the input. Pipes and terminals are scanned in order on the calling
+ * thread, a read's whole lines as soon as it returns.
+ */
+public class Grep implements CommandInterface {
+  static final int CHUNK_SIZE = 1 << 20;
+  private static final int WINDOW = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+  private static final String STDIN = "(standard input)";
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+  private static final class Options {
+    boolean ignoreCase;
+    boolean invert;
+    boolean count;
+    boolean lineNumbers;
+    boolean filesWithMatches;
+    boolean quiet;
+    boolean fixed;
+    // 'w' or 'x' to match whole words or lines only
+    char anchoring;
+    // null until -h or -H picks one, then more than one file decides
+    Boolean withFilename;
+
+    boolean printsLines() {
+      return !count && !filesWithMatches && !quiet;
+    }
+  }
+
+  /**
+   * The selected lines of one chunk, as {@code start, end, line} triples into
+   * {@code buf} with line numbers counted from the start of the chunk.
+   * {@code newlines} is how many lines the chunk holds, to number the next.
+   */
+  private record Matches(byte[] buf, int[] lines, int count, int newlines) {
+  }
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    Options options = new Options();
+    String pattern = null;
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (arg.equals("-e")) {
+        if (i + 1 == args.size()) {
+          return usage(shell, "option requires an argument -- 'e'");
+        }
+        pattern = args.get(++i);
+        continue;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (char c : arg.substring(1).toCharArray()) {
+        switch (c) {
+          case 'i' -> options.ignoreCase = true;
+          case 'v' -> options.invert = true;
+          case 'c' -> options.count = true;
+          case 'n' -> options.lineNumbers = true;
+          case 'l' -> options.filesWithMatches = true;
+          case 'q' -> options.quiet = true;
+          case 'h' -> options.withFilename = false;
+          case 'H' -> options.withFilename = true;
+          case 'F' -> options.fixed = true;
+          case 'w', 'x' -> options.anchoring = c;
+          case 'E' -> {
+            // patterns are extended regular expressions already
+          }
+          default -> {
+            return usage(shell, "invalid option -- '" + c + "'");
+          }
+        }
+      }
+    }
+    if (pattern == null) {
+      if (i == args.size()) {
+        return usage(shell, null);
+      }
+      pattern = args.get(i++);
+    }
+
+    LineMatcher matcher;
+    try {
+      matcher = LineMatcher.compile(pattern, options.fixed, options.ignoreCase, options.anchoring);
+    } catch (PatternSyntaxException e) {
+      shell.err().println("grep: " + e.getDescription() + " in '" + pattern + "'");
+      return CommandResult.continueWith(2);
+    }
+
+    List<String> files = args.subList(i, args.size());
+    if (files.isEmpty()) {
+      files = List.of("-");
+    }
+    boolean withFilename = options.withFilename != null ? options.withFilename : files.size() > 1;
+
+    Search search = new Search(shell, matcher, options, withFilename);
+    for (String name : files) {
+      if (search.stopped) {
+        break;
+      }
+      if (name.equals("-")) {
+        search.stdin();
+      } else {
+        search.file(name);
+      }
+    }
+    search.drain(0);
+    if (!search.stopped) {
+      shell.out().flush();
+    }
+
+    if (search.failed && !(options.quiet && search.matched)) {
+      return CommandResult.continueWith(2);
+    }
+    return CommandResult.continueWith(search.matched ? 0 : 1);
+  }
+
+  private static CommandResult usage(ShellContext shell, String problem) {
+    if (problem != null) {
+      shell.err().println("grep: " + problem);
+    }
+    shell.err().println("usage: grep [-ivwxcnlqhHFE] [-e] pattern [file ...]");
+    return CommandResult.continueWith(2);
+  }
+
+  /**
+   * One run of grep over its inputs: the chunks still in flight, in input
+   * order, and where their output goes.
+   */
+  private static final class Search {
+    private final ShellContext shell;
+    private final LineMatcher matcher;
+    private final Options options;
+    private final boolean withFilename;
+    private final Optional<WritableByteChannel> out;
+    private final Deque<Pending> window = new ArrayDeque<>();
+
+    boolean matched;
+    boolean failed;
+    // the reader went away, or -q has its answer: nothing more is scanned
+    boolean stopped;
+
+    // per input, shared by its chunks and updated as they are written in order
+    private static final class Input {
+      final String name;
+      final FileChannel channel;
+      final boolean close;
+      long count;
+      long lines;
+      // -l has its answer, so the rest of the input is skipped
+      boolean settled;
+
+      Input(String name, FileChannel channel, boolean close) {
+        this.name = name;
+        this.channel = channel;
+        this.close = close;
+      }
+    }
+
+    // a chunk being scanned, or with task null, the end of an input
+    private record Pending(Input input, ForkJoinTask<Matches> task) {
+    }
+
+    Search(ShellContext shell, LineMatcher matcher, Options options, boolean withFilename) {
+      this.shell = shell;
+      this.matcher = matcher;
+      this.options = options;
+      this.withFilename = withFilename;
+      this.out = ChannelPrintWriter.channel(shell.out());
+    }
+
+    void file(String name) {
+      Path path = shell.getCwd().resolve(name);
+      if (Files.isDirectory(path)) {
+        openError(name + ": Is a directory");
+        return;
+      }
+      FileChannel channel;
+      try {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+        openError(name + ": No such file or directory");
+        return;
+      } catch (AccessDeniedException e) {
+        openError(name + ": Permission denied");
+        return;
+      } catch (IOException e) {
+        openError(name + ": " + e.getMessage());
+        return;
+      }
+
+      Input input = new Input(name, channel, true);
+      try {
+        if (channel.size() > 0) {
+          split(input, 0);
+        } else {
+          // /proc and the like report no size and can only be read
+          drain(0);
+          stream(input, channel);
+        }
+      } catch (IOException e) {
+        error(name + ": " + e.getMessage());
+      }
+      window.add(new Pending(input, null));
+      drain(WINDOW);
+    }
+
+    void stdin() {
+      drain(0);
+      Input input = new Input(STDIN, null, false);
+      Optional<ReadableByteChannel> channel = ChannelBufferedReader.channel(shell.in());
+      try {
+        if (channel.isPresent() && channel.get() instanceof FileChannel file && file.size() > 0
+            && file.size() > file.position()) {
+          Input mapped = new Input(STDIN, file, false);
+          long start = file.position();
+          split(mapped, start);
+          window.add(new Pending(mapped, null));
+          drain(0);
+          file.position(file.size());
+          return;
+        }
+        if (channel.isPresent()) {
+          stream(input, channel.get());
+        } else {
+          stream(input, shell.in());
+        }
+      } catch (IOException e) {
+        error(STDIN + ": " + e.getMessage());
+      }
+      finish(input);
+    }
+
+    // queues the chunks of input from start to its end, each ending on a line
+    private void split(Input input, long start) throws IOException {
+      FileChannel channel = input.channel;
+      long size = channel.size();
+      long position = start;
+      while (position < size && !stopped && !input.settled) {
+        long end = position + CHUNK_SIZE >= size ? size : lineAfter(channel, position + CHUNK_SIZE, size);
+        long from = position;
+        window.add(new Pending(input, ForkJoinPool.commonPool().submit(() -> scanChunk(channel, from, end))));
+        drain(WINDOW);
+        position = end;
+      }
+    }
+
+    private Matches scanChunk(FileChannel channel, long from, long to) throws IOException {
+      int length = (int) (to - from);
+      byte[] buf = SCRATCH.get();
+      if (buf.length < length) {
+        // a chunk only runs past CHUNK_SIZE to finish a long line; that one
+        // buffer is not kept.
+        buf = new byte[length];
+      }
+      // positional reads leave the channel's position alone
+      int n = 0;
+      while (n < length) {
+        int read = channel.read(ByteBuffer.wrap(buf, n, length - n), from + n);
+        if (read < 0) {
+          break;
+        }
+        n += read;
+      }
+      return detach(scan(buf, 0, n, matcher, options.invert, options.lineNumbers, options.printsLines()));
+    }
+
+    // scans the whole lines each read brings in as soon as it arrives, so
+    // that `tail -f log | grep x` prints matches as they are written.
+    private void stream(Input input, ReadableByteChannel channel) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+      while (!stopped && !input.settled) {
+        int n = channel.read(buffer);
+        if (n == 0) {
+          continue;
+        }
+        // the bytes kept from the last read hold no newline
+        int read = buffer.position();
+        int end = n == -1 ? read : lastLineEnd(buffer.array(), read - n, read);
+        if (end == 0 && n != -1) {
+          if (!buffer.hasRemaining()) {
+            // one line longer than the buffer
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+          }
+          continue;
+        }
+        write(input, scan(buffer.array(), 0, end, matcher, options.invert, options.lineNumbers,
+            options.printsLines()));
+        if (n == -1) {
+          return;
+        }
+        buffer.flip().position(end);
+        buffer.compact();
+      }
+    }
+
+    private void stream(Input input, BufferedReader reader) throws IOException {
+      ByteArrayOutputStream block = new ByteArrayOutputStream();
+      String line;
+      while (!stopped && !input.settled && (line = reader.readLine()) != null) {
+        block.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+        block.write('\n');
+        if (block.size() >= CHUNK_SIZE || !reader.ready()) {
+          scanBlock(input, block);
+        }
+      }
+      scanBlock(input, block);
+    }
+
+    private void scanBlock(Input input, ByteArrayOutputStream block) {
+      byte[] buf = block.toByteArray();
+      block.reset();
+      write(input, scan(buf, 0, buf.length, matcher, options.invert, options.lineNumbers, options.printsLines()));
+    }
+
+    /**
+     * Writes out the completed chunks at the head of the window until at most
+     * {@code limit} remain in flight.
+     */
+    void drain(int limit) {
+      while (window.size() > limit) {
+        Pending pending = window.poll();
+        if (pending.task == null) {
+          finish(pending.input);
+          continue;
+        }
+        if (stopped || pending.input.settled) {
+          continue;
+        }
+        try {
+          write(pending.input, pending.task.join());
+        } catch (RuntimeException e) {
+          Throwable cause = e.getCause() != null ? e.getCause() : e;
+          error(pending.input.name + ": " + cause.getMessage());
+        }
+      }
+    }
+
+    private void write(Input input, Matches matches) {
+      if (matches.count > 0) {
+        matched = true;
+        if (options.quiet) {
+          stopped = true;
+          cancel(null);
+        } else if (options.filesWithMatches && !options.count) {
+          input.settled = true;
+          cancel(input);
+        }
+      }
+      if (!stopped && options.printsLines() && matches.count > 0) {
+        byte[] prefix = withFilename ? (input.name + ":").getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] lines = matches.lines;
+        for (int i = 0; i < matches.count * 3; i += 3) {
+          bytes.writeBytes(prefix);
+          if (options.lineNumbers) {
+            bytes.writeBytes((input.lines + lines[i + 2] + ":").getBytes(StandardCharsets.US_ASCII));
+          }
+          bytes.write(matches.buf, lines[i], lines[i + 1] - lines[i]);
+          bytes.write('\n');
+        }
+        emit(bytes.toByteArray());
+      }
+      input.count += matches.count;
+      input.lines += matches.newlines;
+    }
+
+    private void finish(Input input) {
+      if (!stopped) {
+        if (options.count && !options.quiet) {
+          emit(((withFilename ? input.name + ":" : "") + input.count + "\n").getBytes(StandardCharsets.UTF_8));
+        } else if (options.filesWithMatches && !options.quiet && input.count > 0) {
+          emit((input.name + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      if (input.close) {
+        try {
+          input.channel.close();
+        } catch (IOException e) {
+          // nothing was written to it
+        }
+      }
+    }
+
+    private void emit(byte[] bytes) {
+      try {
+        if (out.isPresent()) {
+          ByteBuffer buffer = ByteBuffer.wrap(bytes);
+          while (buffer.hasRemaining()) {
+            out.get().write(buffer);
+          }
+        } else {
+          PrintWriter writer = shell.out();
+          writer.write(new String(bytes, StandardCharsets.UTF_8));
+          if (writer.checkError()) {
+            throw new IOException("Broken pipe");
+          }
+        }
+      } catch (IOException e) {
+        // the reader went away, as `grep x big.log | head` does; stop scanning.
+        stopped = true;
+        cancel(null);
+      }
+    }
+
+    // cancels the chunks still in flight of input, or with null of every input
+    private void cancel(Input input) {
+      for (Pending pending : window) {
+        if (pending.task != null && (input == null || pending.input == input)) {
+          pending.task.cancel(false);
+        }
+      }
+    }
+
+    // reported after the output of the inputs before it, as grep does
+    private void openError(String message) {
+      drain(0);
+      error(message);
+    }
+
+    private void error(String message) {
+      failed = true;
+      shell.err().println("grep: " + message);
+      shell.err().flush();
+    }
+  }
+
+  // the offset just past the first newline at or after from, or size.
+  private static long lineAfter(FileChannel channel, long from, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(8192);
+    long position = from;
+    while (position < size) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += n;
+    }
+    return size;
+  }
+
+  // the offset just past the last newline in buf[from, to), or 0.
+  private static int lastLineEnd(byte[] buf, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (buf[i] == '\n') {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Scans {@code buf[from, to)}, which holds whole lines, the last one
+   * possibly without its newline. Line ranges are only collected when
+   * {@code collect} is set, and only numbered when {@code number} is.
+   */
+  private static Matches scan(byte[] buf, int from, int to, LineMatcher matcher, boolean invert, boolean number,
+      boolean collect) {
+    int[] lines = new int[collect ? 48 : 0];
+    int count = 0;
+    int line = 0;
+    int pos = from;
+
+    if (matcher instanceof LineMatcher.Literal literal && !invert) {
+      // jump from one occurrence to the next instead of testing every line
+      while (pos < to) {
+        int hit = literal.find(buf, pos, to);
+        if (hit < 0) {
+          line += number ? countNewlines(buf, pos, to) : 0;
+          pos = to;
+          break;
+        }
+        int start = lineStart(buf, pos, hit);
+        line += number ? countNewlines(buf, pos, start) : 0;
+        int end = lineEnd(buf, hit, to);
+        line++;
+        if (collect) {
+          lines = record(lines, count, start, end, line);
+        }
+        count++;
+        pos = end + 1;
+      }
+    } else {
+      while (pos < to) {
+        int end = lineEnd(buf, pos, to);
+        line++;
+        if (matcher.matches(buf, pos, end) != invert) {
+          if (collect) {
+            lines = record(lines, count, pos, end, line);
+          }
+          count++;
+        }
+        pos = end + 1;
+      }
+    }
+
+    int newlines = number ? countNewlines(buf, from, to) : 0;
+    return new Matches(buf, lines, count, newlines);
+  }
+
+  // copies the selected lines out of a buffer the next chunk will reuse
+  private static Matches detach(Matches matches) {
+    int entries = matches.lines.length == 0 ? 0 : matches.count * 3;
+    int size = 0;
+    for (int i = 0; i < entries; i += 3) {
+      size += matches.lines[i + 1] - matches.lines[i];
+    }
+    byte[] buf = new byte[size];
+    int[] lines = new int[entries];
+    int at = 0;
+    for (int i = 0; i < entries; i += 3) {
+      int length = matches.lines[i + 1] - matches.lines[i];
+      System.arraycopy(matches.buf, matches.lines[i], buf, at, length);
+      lines[i] = at;
+      lines[i + 1] = at + length;
+      lines[i + 2] = matches.lines[i + 2];
+      at += length;
+    }
+    return new Matches(buf, lines, matches.count, matches.newlines);
+  }
+
+  private static int[] record(int[] lines, int count, int start, int end, int line) {
+    int at = count * 3;
+    if (at + 3 > lines.length) {
+      lines = Arrays.copyOf(lines, Math.max(48, lines.length * 2));
+    }
+    lines[at] = start;
+    lines[at + 1] = end;
+    lines[at + 2] = line;
+    return lines;
+  }
+
+  private static int lineStart(byte[] buf, int from, int at) {
+    for (int i = at - 1; i >= from; i--) {
+      if (buf[i] == '\n') {
+        return i + 1;
+      }
+    }
+    return from;
+  }
+
+  private static int lineEnd(byte[] buf, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buf[i] == '\n') {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private static int countNewlines(byte[] buf, int from, int to) {
+    int n = 0;
+    for (int i = from; i < to; i++) {
+      if (buf[i] == '\n') {
+        n++;
+      }
+    }
+    return n;
+  }
+}
@@ -0,0 +1,99 @@
+package org.example.commands;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandCache;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.CommandUtils;
+
+/**
+ * Lists and edits the table of remembered command locations.
+ *
+ * <pre>
+ * hash              list the remembered commands and their hit counts
+ * hash -r           forget every remembered location and rebuild the PATH index
+ * hash -d name...   forget the location of each name
+ * hash -t name...   print the remembered location of each name
+ * hash name...      look up each name on PATH and remember it
+ * </pre>
+ */
+public class Hash implements CommandInterface {
+
+  private Set<String> builtins;
+
+  public Hash(Set<String> builtins) {
+    this.builtins = builtins;
+  }
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    CommandCache cache = CommandUtils.cache();
+    String pathEnv = CommandUtils.getPathEnv(shell);
+
+    if (args.isEmpty()) {
+      return list(cache, pathEnv, shell);
+    }
+
+    switch (args.getFirst()) {
+      case "-r" -> {
+        cache.clear();
+        CommandUtils.index().start(pathEnv);
+        return CommandResult.continueWith(0);
+      }
+      case "-d" -> {
+        int exitCode = 0;
+        for (String name : args.subList(1, args.size())) {
+          if (!cache.forget(name, pathEnv)) {
+            shell.err().println("hash: " + name + ": not found");
+            exitCode = 1;
+          }
+        }
+        return CommandResult.continueWith(exitCode);
+      }
+      case "-t" -> {
+        int exitCode = 0;
+        for (String name : args.subList(1, args.size())) {
+          Optional<String> path = cache.peek(name, pathEnv);
+          if (path.isEmpty() && !cache.seed(name, pathEnv)) {
+            shell.err().println("hash: " + name + ": not found");
+            exitCode = 1;
+          } else {
+            shell.out().println(cache.peek(name, pathEnv).orElseThrow());
+          }
+        }
+        return CommandResult.continueWith(exitCode);
+      }
+      default -> {
+        int exitCode = 0;
+        for (String name : args) {
+          if (builtins.contains(name)) {
+            continue;
+          }
+          if (!cache.seed(name, pathEnv)) {
+            shell.err().println("hash: " + name + ": not found");
+            exitCode = 1;
+          }
+        }
+        return CommandResult.continueWith(exitCode);
+      }
+    }
+  }
+
+  private CommandResult list(CommandCache cache, String pathEnv, ShellContext shell) {
+    List<CommandCache.Entry> entries = cache.entries(pathEnv);
+    if (entries.isEmpty()) {
+      shell.out().println("hash: hash table empty");
+      return CommandResult.continueWith(0);
+    }
+
+    shell.out().println("hits\tcommand");
+    for (CommandCache.Entry entry : entries) {
+      shell.out().printf("%4d\t%s%n", entry.hits(), entry.path());
+    }
+    return CommandResult.continueWith(0);
+  }
+
+}
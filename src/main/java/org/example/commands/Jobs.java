@@ -0,0 +1,79 @@
+package org.example.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.JobTable;
+
+/**
+ * Lists the background jobs, or the ones named, and forgets those that have
+ * finished now that they have been reported.
+ *
+ * <pre>
+ * jobs [-lp] [jobspec ...]
+ *
+ * -l   show each job's process id too
+ * -p   show only the process ids
+ * </pre>
+ */
+public class Jobs implements CommandInterface {
+  private static final String USAGE = "usage: jobs [-lp] [jobspec ...]";
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    boolean withPid = false;
+    boolean pidOnly = false;
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        switch (c) {
+          case 'l' -> withPid = true;
+          case 'p' -> pidOnly = true;
+          default -> {
+            shell.err().println("jobs: invalid option -- '" + c + "'");
+            shell.err().println(USAGE);
+            return CommandResult.continueWith(2);
+          }
+        }
+      }
+    }
+
+    JobTable table = shell.jobs();
+    int exitCode = 0;
+    List<JobTable.Job> jobs = new ArrayList<>();
+    if (i == args.size()) {
+      jobs = table.list();
+    }
+    for (String spec : args.subList(i, args.size())) {
+      Optional<JobTable.Job> job = table.find(spec);
+      if (job.isEmpty()) {
+        shell.err().println("jobs: " + spec + ": no such job");
+        exitCode = 1;
+      } else {
+        jobs.add(job.get());
+      }
+    }
+
+    for (JobTable.Job job : jobs) {
+      shell.out().println(pidOnly ? Long.toString(job.pid()) : table.describe(job, withPid));
+    }
+    for (JobTable.Job job : jobs) {
+      if (job.isDone()) {
+        table.remove(job);
+      }
+    }
+    return CommandResult.continueWith(exitCode);
+  }
+}
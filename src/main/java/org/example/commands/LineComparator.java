@@ -0,0 +1,286 @@
+package org.example.commands;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The order {@code sort} puts lines in: its keys compared in turn, then the
+ * whole line as a last resort, unless {@code -u} asked for lines with equal
+ * keys to count as duplicates.
+ *
+ * Lines are compared as byte slices of whatever buffer holds them, so
+ * neither sorting nor merging decodes a line into a String. Bytes compare
+ * unsigned, which for UTF-8 is code point order, as in the C locale.
+ *
+ * {@link #compare} reuses scratch state and must only be called from one
+ * thread at a time; {@link #prefix} may be called from any number.
+ */
+final class LineComparator {
+  static final int PREFIX_BYTES = 5;
+  static final int PREFIX_BITS = 8 * PREFIX_BYTES;
+  private static final long PREFIX_MASK = (1L << PREFIX_BITS) - 1;
+  private static final long POSITIVE = 1L << (PREFIX_BITS - 1);
+
+  /**
+   * A {@code -k} key, with fields and characters counted from 1 as written.
+   * {@code endField} 0 means the end of the line and {@code endChar} 0 the
+   * end of the field.
+   */
+  record Key(int startField, int startChar, int endField, int endChar, boolean skipStartBlanks,
+      boolean skipEndBlanks, boolean numeric, boolean reverse) {
+
+    static Key wholeLine(boolean skipBlanks, boolean numeric, boolean reverse) {
+      return new Key(1, 1, 0, 0, skipBlanks, skipBlanks, numeric, reverse);
+    }
+  }
+
+  private final Key[] keys;
+  // the field separator, or -1 to split fields at runs of blanks
+  private final int tab;
+  private final boolean lastResort;
+  private final boolean reverse;
+
+  private final Number left = new Number();
+  private final Number right = new Number();
+
+  LineComparator(List<Key> keys, int tab, boolean lastResort, boolean reverse) {
+    this.keys = keys.toArray(new Key[0]);
+    this.tab = tab;
+    this.lastResort = lastResort;
+    this.reverse = reverse;
+  }
+
+  int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+    for (Key key : keys) {
+      int aStart = fieldStart(a, aFrom, aTo, key);
+      int aEnd = Math.max(aStart, fieldEnd(a, aFrom, aTo, key));
+      int bStart = fieldStart(b, bFrom, bTo, key);
+      int bEnd = Math.max(bStart, fieldEnd(b, bFrom, bTo, key));
+      int c;
+      if (key.numeric) {
+        left.parse(a, aStart, aEnd);
+        right.parse(b, bStart, bEnd);
+        c = left.compareTo(a, right, b);
+      } else {
+        c = Arrays.compareUnsigned(a, aStart, aEnd, b, bStart, bEnd);
+      }
+      if (c != 0) {
+        return key.reverse ? -c : c;
+      }
+    }
+    if (!lastResort) {
+      return 0;
+    }
+    int c = Arrays.compareUnsigned(a, aFrom, aTo, b, bFrom, bTo);
+    return reverse ? -c : c;
+  }
+
+  /**
+   * @return {@link #PREFIX_BITS} bits that order lines like the first key
+   *         does, though lines with equal prefixes may still differ. For a
+   *         text key they are the key's bytes from {@code depth} on, so
+   *         lines tied at one depth can be told apart at the next.
+   */
+  long prefix(byte[] buf, int from, int to, int depth) {
+    Key key = keys[0];
+    int start = fieldStart(buf, from, to, key);
+    int end = Math.max(start, fieldEnd(buf, from, to, key));
+    long prefix;
+    if (key.numeric) {
+      Number number = new Number();
+      number.parse(buf, start, end);
+      prefix = number.prefix(buf);
+    } else {
+      prefix = 0;
+      for (int i = start + depth; i < start + depth + PREFIX_BYTES; i++) {
+        prefix = prefix << 8 | (i < end ? buf[i] & 0xff : 0);
+      }
+    }
+    return key.reverse ? PREFIX_MASK - prefix : prefix;
+  }
+
+  /**
+   * @return whether a {@link #prefix} at a greater depth can tell apart
+   *         lines that tie at this one.
+   */
+  boolean refinable() {
+    return !keys[0].numeric;
+  }
+
+  /**
+   * @return how many bytes the first key of the line spans.
+   */
+  int keyLength(byte[] buf, int from, int to) {
+    int start = fieldStart(buf, from, to, keys[0]);
+    return Math.max(0, fieldEnd(buf, from, to, keys[0]) - start);
+  }
+
+  // where the key starts: past startField - 1 fields, then startChar - 1 bytes
+  private int fieldStart(byte[] buf, int from, int to, Key key) {
+    int p = from;
+    int fields = key.startField - 1;
+    if (tab >= 0) {
+      while (p < to && fields-- > 0) {
+        while (p < to && buf[p] != tab) {
+          p++;
+        }
+        if (p < to) {
+          p++;
+        }
+      }
+    } else {
+      while (p < to && fields-- > 0) {
+        p = skipField(buf, p, to);
+      }
+    }
+    if (key.skipStartBlanks) {
+      p = skipBlanks(buf, p, to);
+    }
+    return (int) Math.min(to, (long) p + key.startChar - 1);
+  }
+
+  // where the key ends, with the fields counted from the start of the line
+  private int fieldEnd(byte[] buf, int from, int to, Key key) {
+    if (key.endField == 0) {
+      return to;
+    }
+    int fields = key.endField - 1;
+    if (key.endChar == 0) {
+      // all of the end field
+      fields++;
+    }
+    int p = from;
+    if (tab >= 0) {
+      while (p < to && fields-- > 0) {
+        while (p < to && buf[p] != tab) {
+          p++;
+        }
+        if (p < to && (fields > 0 || key.endChar != 0)) {
+          p++;
+        }
+      }
+    } else {
+      while (p < to && fields-- > 0) {
+        p = skipField(buf, p, to);
+      }
+    }
+    if (key.endChar != 0) {
+      if (key.skipEndBlanks) {
+        p = skipBlanks(buf, p, to);
+      }
+      p = (int) Math.min(to, (long) p + key.endChar);
+    }
+    return p;
+  }
+
+  // without -t a field is a run of blanks and the non-blanks after it
+  private static int skipField(byte[] buf, int p, int to) {
+    p = skipBlanks(buf, p, to);
+    while (p < to && !isBlank(buf[p])) {
+      p++;
+    }
+    return p;
+  }
+
+  private static int skipBlanks(byte[] buf, int p, int to) {
+    while (p < to && isBlank(buf[p])) {
+      p++;
+    }
+    return p;
+  }
+
+  private static boolean isBlank(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  /**
+   * A number as {@code -n} reads it: blanks, an optional minus, digits and
+   * an optional fraction, with anything after that ignored. Leading zeros
+   * and trailing fraction zeros are dropped, so numbers compare digit by
+   * digit at any length.
+   */
+  private static final class Number {
+    boolean negative;
+    int intFrom;
+    int intTo;
+    int fracFrom;
+    int fracTo;
+
+    void parse(byte[] buf, int from, int to) {
+      int p = skipBlanks(buf, from, to);
+      negative = p < to && buf[p] == '-';
+      if (negative) {
+        p++;
+      }
+      intFrom = p;
+      while (p < to && isDigit(buf[p])) {
+        p++;
+      }
+      intTo = p;
+      while (intFrom < intTo && buf[intFrom] == '0') {
+        intFrom++;
+      }
+      fracFrom = fracTo = p;
+      if (p < to && buf[p] == '.') {
+        fracFrom = ++p;
+        while (p < to && isDigit(buf[p])) {
+          p++;
+        }
+        fracTo = p;
+        while (fracTo > fracFrom && buf[fracTo - 1] == '0') {
+          fracTo--;
+        }
+      }
+    }
+
+    private boolean isZero() {
+      return intFrom == intTo && fracFrom == fracTo;
+    }
+
+    private int sign() {
+      return isZero() ? 0 : negative ? -1 : 1;
+    }
+
+    int compareTo(byte[] buf, Number other, byte[] otherBuf) {
+      int sign = sign();
+      int c = Integer.compare(sign, other.sign());
+      if (c != 0 || sign == 0) {
+        return c;
+      }
+      c = Integer.compare(intTo - intFrom, other.intTo - other.intFrom);
+      if (c == 0) {
+        c = Arrays.compare(buf, intFrom, intTo, otherBuf, other.intFrom, other.intTo);
+      }
+      if (c == 0) {
+        c = Arrays.compare(buf, fracFrom, fracTo, otherBuf, other.fracFrom, other.fracTo);
+      }
+      return sign < 0 ? -c : c;
+    }
+
+    // the count of integer digits, then the first six significant digits,
+    // below POSITIVE for negative numbers and at or above it otherwise
+    long prefix(byte[] buf) {
+      if (isZero()) {
+        return POSITIVE;
+      }
+      int digits = intTo - intFrom;
+      long leading = 0;
+      int taken = 0;
+      for (int i = intFrom; i < intTo && taken < 6; i++, taken++) {
+        leading = leading * 10 + (buf[i] - '0');
+      }
+      for (int i = fracFrom; i < fracTo && taken < 6; i++, taken++) {
+        leading = leading * 10 + (buf[i] - '0');
+      }
+      for (; taken < 6; taken++) {
+        leading *= 10;
+      }
+      long magnitude = (long) Math.min(digits, (1 << 15) - 1) << 20 | leading;
+      return negative ? POSITIVE - 1 - magnitude : POSITIVE | magnitude;
+    }
+
+    private static boolean isDigit(byte b) {
+      return b >= '0' && b <= '9';
+    }
+  }
+}
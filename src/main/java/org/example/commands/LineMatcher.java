@@ -0,0 +1,146 @@
+package org.example.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a line of UTF-8 bytes matches a {@code grep} pattern.
+ *
+ * Patterns without regex metacharacters, and any pattern under {@code -F},
+ * are searched for as plain bytes, which is exact for UTF-8 and needs no
+ * decoding. Everything else is a {@link Pattern} run over the decoded line.
+ */
+sealed interface LineMatcher {
+  String METACHARACTERS = ".[]()*+?{}|^$\\";
+
+  boolean matches(byte[] buf, int from, int to);
+
+  /**
+   * @param fixed      match {@code pattern} as a plain string.
+   * @param ignoreCase fold case when comparing.
+   * @param anchoring  0 to match anywhere in the line, {@code 'w'} for whole
+   *                   words only, {@code 'x'} for the whole line.
+   */
+  static LineMatcher compile(String pattern, boolean fixed, boolean ignoreCase, char anchoring) {
+    // a newline separates patterns in grep; it is left to the regex engine,
+    // which will simply never find one inside a line.
+    boolean literal = (fixed || isLiteral(pattern)) && pattern.indexOf('\n') < 0
+        && (!ignoreCase || isAscii(pattern)) && anchoring == 0;
+    if (literal) {
+      byte[] needle = pattern.getBytes(StandardCharsets.UTF_8);
+      if (ignoreCase) {
+        for (int i = 0; i < needle.length; i++) {
+          needle[i] = Literal.lower(needle[i]);
+        }
+      }
+      return new Literal(needle, ignoreCase);
+    }
+    String regex = fixed ? Pattern.quote(pattern) : pattern;
+    regex = switch (anchoring) {
+      case 'w' -> "(?<![\\w])(?:" + regex + ")(?![\\w])";
+      case 'x' -> "^(?:" + regex + ")$";
+      default -> regex;
+    };
+    int flags = Pattern.UNICODE_CHARACTER_CLASS | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    return new Regex(Pattern.compile(regex, flags));
+  }
+
+  private static boolean isLiteral(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      if (METACHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAscii(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      if (pattern.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A fixed string, found with Horspool's skip table so most bytes of the
+   * input are never looked at. With {@code ignoreCase} the needle is stored
+   * lower-cased and only ASCII letters are folded, so it is only used for
+   * ASCII patterns.
+   */
+  record Literal(byte[] needle, boolean ignoreCase, int[] skip) implements LineMatcher {
+
+    Literal(byte[] needle, boolean ignoreCase) {
+      this(needle, ignoreCase, skipTable(needle, ignoreCase));
+    }
+
+    // how far the window may move when its last byte is b
+    private static int[] skipTable(byte[] needle, boolean ignoreCase) {
+      int n = needle.length;
+      int[] skip = new int[256];
+      Arrays.fill(skip, Math.max(n, 1));
+      for (int i = 0; i < n - 1; i++) {
+        skip[needle[i] & 0xff] = n - 1 - i;
+        if (ignoreCase && needle[i] >= 'a' && needle[i] <= 'z') {
+          skip[(needle[i] - ('a' - 'A')) & 0xff] = n - 1 - i;
+        }
+      }
+      return skip;
+    }
+
+    @Override
+    public boolean matches(byte[] buf, int from, int to) {
+      return find(buf, from, to) >= 0;
+    }
+
+    /**
+     * @return where the first occurrence in {@code buf[from, to)} starts, or
+     *         -1. Occurrences never span a newline since the needle has none.
+     */
+    int find(byte[] buf, int from, int to) {
+      int n = needle.length;
+      if (n == 0) {
+        return from;
+      }
+      int last = to - n;
+      byte tail = needle[n - 1];
+      if (!ignoreCase) {
+        for (int i = from; i <= last; i += skip[buf[i + n - 1] & 0xff]) {
+          if (buf[i + n - 1] == tail && Arrays.equals(buf, i, i + n - 1, needle, 0, n - 1)) {
+            return i;
+          }
+        }
+        return -1;
+      }
+      for (int i = from; i <= last; i += skip[buf[i + n - 1] & 0xff]) {
+        if (lower(buf[i + n - 1]) == tail && equalsIgnoreCase(buf, i)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private boolean equalsIgnoreCase(byte[] buf, int at) {
+      for (int j = 0; j < needle.length - 1; j++) {
+        if (lower(buf[at + j]) != needle[j]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    static byte lower(byte b) {
+      return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+  }
+
+  record Regex(Pattern pattern) implements LineMatcher {
+
+    @Override
+    public boolean matches(byte[] buf, int from, int to) {
+      return pattern.matcher(new String(buf, from, to - from, StandardCharsets.UTF_8)).find();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.example.commands;
+
+import java.util.List;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.parser.ParseCache;
+import org.example.parser.Parser;
+
+/**
+ * Shows and tunes the cache of parsed command lines.
+ *
+ * <pre>
+ * parsecache            print the size, capacity, hits and misses
+ * parsecache -c         forget every cached line and reset the counters
+ * parsecache -s size    set the capacity; 0 turns the cache off
+ * </pre>
+ */
+public class ParseCacheCommand implements CommandInterface {
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    ParseCache cache = Parser.cache();
+
+    if (args.isEmpty()) {
+      ParseCache.Stats stats = cache.stats();
+      shell.out().println("size\tcapacity\thits\tmisses");
+      shell.out().printf("%d\t%d\t%d\t%d%n", stats.size(), stats.capacity(), stats.hits(), stats.misses());
+      return CommandResult.continueWith(0);
+    }
+
+    switch (args.getFirst()) {
+      case "-c" -> {
+        cache.clear();
+        return CommandResult.continueWith(0);
+      }
+      case "-s" -> {
+        if (args.size() != 2) {
+          shell.err().println("parsecache: -s: size required");
+          return CommandResult.continueWith(2);
+        }
+        try {
+          cache.setCapacity(Integer.parseInt(args.get(1)));
+          return CommandResult.continueWith(0);
+        } catch (IllegalArgumentException e) {
+          shell.err().println("parsecache: " + args.get(1) + ": invalid size");
+          return CommandResult.continueWith(1);
+        }
+      }
+      default -> {
+        shell.err().println("parsecache: " + args.getFirst() + ": invalid option");
+        shell.err().println("parsecache: usage: parsecache [-c] [-s size]");
+        return CommandResult.continueWith(2);
+      }
+    }
+  }
+
+}
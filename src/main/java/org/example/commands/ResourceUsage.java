@@ -0,0 +1,180 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CPU time and allocation of the shell process, and of the children it has
+ * waited for, at one instant. {@code time} takes one before and one after
+ * the command and reports the difference.
+ *
+ * On Linux everything CPU related comes from {@code /proc/self/stat}: utime
+ * and stime for the shell, cutime and cstime for its children. The kernel
+ * adds a child to the latter when it is reaped, which the JDK does as soon as
+ * the process exits, so by the time {@code waitFor} returns the child's CPU
+ * has been counted. Elsewhere the shell's CPU comes from the
+ * {@link com.sun.management.OperatingSystemMXBean}, which does not split user
+ * from system time, so it is all reported as user time, and children are
+ * left to the {@link ChildSampler}.
+ *
+ * Both are totals for the whole process: other threads of the shell, e.g.
+ * other daemon sessions, are counted too.
+ */
+record ResourceUsage(long userNanos, long sysNanos, long childUserNanos, long childSysNanos, long allocatedBytes) {
+  private static final Path PROC_SELF_STAT = Path.of("/proc/self/stat");
+  // USER_HZ, which is 100 on every Linux the JDK runs on
+  private static final long NANOS_PER_TICK = 10_000_000L;
+  // whether children's CPU time is known exactly, or has to be sampled
+  static final boolean FROM_PROC = Files.isReadable(PROC_SELF_STAT);
+
+  static ResourceUsage now() {
+    long allocated = totalAllocatedBytes();
+    try {
+      String stat = Files.readString(PROC_SELF_STAT);
+      // the command name in parentheses may itself contain spaces
+      String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+      return new ResourceUsage(ticks(fields[11]), ticks(fields[12]), ticks(fields[13]), ticks(fields[14]),
+          allocated);
+    } catch (IOException | RuntimeException e) {
+      long cpu = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+          ? Math.max(0, os.getProcessCpuTime())
+          : 0;
+      return new ResourceUsage(cpu, 0, 0, 0, allocated);
+    }
+  }
+
+  ResourceUsage since(ResourceUsage before) {
+    return new ResourceUsage(userNanos - before.userNanos, sysNanos - before.sysNanos,
+        childUserNanos - before.childUserNanos, childSysNanos - before.childSysNanos,
+        allocatedBytes - before.allocatedBytes);
+  }
+
+  private static long ticks(String field) {
+    return Long.parseLong(field) * NANOS_PER_TICK;
+  }
+
+  // every thread's, not only the caller's: builtins such as grep and wc do
+  // their work on pool threads.
+  private static long totalAllocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemoryEnabled()) {
+      return Math.max(0, threads.getTotalThreadAllocatedBytes());
+    }
+    return 0;
+  }
+
+  /**
+   * Watches the processes the shell starts while a command runs, since a
+   * child's memory is gone by the time it has been waited for. Every
+   * {@link #INTERVAL_MILLIS} ms it records the peak resident set size
+   * ({@code VmHWM}) and the CPU time of each descendant started since, going
+   * by its start time in clock ticks since boot; elsewhere every descendant
+   * is counted. The first sample is only taken after one interval, so a
+   * command that is over by then costs nothing, and a child that exits
+   * between two samples is missed.
+   */
+  static final class ChildSampler implements AutoCloseable {
+    static final long INTERVAL_MILLIS = 10;
+
+    // clock ticks since boot, or -1 without /proc
+    private final long startedTick;
+    private final Map<Long, Duration> cpu = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean stopped;
+    private long maxRssKib;
+
+    ChildSampler() {
+      // a child started within the same tick is counted in
+      startedTick = uptimeTicks() - 1;
+      thread = Thread.ofVirtual().name("time-sampler").start(this::run);
+    }
+
+    private void run() {
+      while (!stopped) {
+        try {
+          Thread.sleep(INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+          return;
+        }
+        sample();
+      }
+    }
+
+    private synchronized void sample() {
+      ProcessHandle.current().descendants().forEach(p -> {
+        if (startedTick >= 0 && startTick(p.pid()) < startedTick) {
+          return;
+        }
+        maxRssKib = Math.max(maxRssKib, peakRssKib(p.pid()));
+        p.info().totalCpuDuration().ifPresent(d -> cpu.put(p.pid(), d));
+      });
+    }
+
+    // Instant.now() and ProcessHandle.Info.startInstant() do not compare:
+    // the latter is worked out from a boot time given in whole seconds.
+    private static long uptimeTicks() {
+      if (!FROM_PROC) {
+        return -1;
+      }
+      try {
+        String uptime = Files.readString(Path.of("/proc/uptime"));
+        return (long) (Double.parseDouble(uptime.substring(0, uptime.indexOf(' '))) * 1e9) / NANOS_PER_TICK;
+      } catch (IOException | RuntimeException e) {
+        return -1;
+      }
+    }
+
+    // or Long.MAX_VALUE if it has gone, as it is too late to sample it.
+    private static long startTick(long pid) {
+      try {
+        String stat = Files.readString(Path.of("/proc", Long.toString(pid), "stat"));
+        return Long.parseLong(stat.substring(stat.lastIndexOf(')') + 2).split(" ")[19]);
+      } catch (IOException | RuntimeException e) {
+        return Long.MAX_VALUE;
+      }
+    }
+
+    private static long peakRssKib(long pid) {
+      try {
+        for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+          if (line.startsWith("VmHWM:")) {
+            return Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        // gone already, or not Linux
+      }
+      return 0;
+    }
+
+    /**
+     * @return the largest peak RSS of any child seen, in KiB, or 0.
+     */
+    synchronized long maxRssKib() {
+      return maxRssKib;
+    }
+
+    /**
+     * @return the CPU time of the children seen, up to their last sample.
+     */
+    synchronized long childCpuNanos() {
+      return cpu.values().stream().mapToLong(Duration::toNanos).sum();
+    }
+
+    @Override
+    public void close() {
+      stopped = true;
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package org.example.commands;
+
+final class ScalarByteCounter implements ByteCounter {
+
+  static final ScalarByteCounter INSTANCE = new ScalarByteCounter();
+
+  private ScalarByteCounter() {
+  }
+
+  @Override
+  public void count(byte[] buf, int from, int to, boolean words, Counts counts) {
+    long lines = 0;
+    if (!words) {
+      for (int i = from; i < to; i++) {
+        if (buf[i] == '\n') {
+          lines++;
+        }
+      }
+      counts.lines += lines;
+      return;
+    }
+
+    long starts = 0;
+    boolean inWord = counts.inWord;
+    for (int i = from; i < to; i++) {
+      byte b = buf[i];
+      if (b == '\n') {
+        lines++;
+      }
+      boolean space = ByteCounter.isSpace(b);
+      if (!space && !inWord) {
+        starts++;
+      }
+      inWord = !space;
+    }
+    counts.lines += lines;
+    counts.words += starts;
+    counts.inWord = inWord;
+  }
+}
@@ -0,0 +1,750 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import org.example.ShellContext;
+import org.example.evaluator.ChannelBufferedReader;
+import org.example.evaluator.ChannelPrintWriter;
+import org.example.evaluator.CommandResult;
+
+/**
+ * Sorts the lines of files, or of stdin, within a fixed memory budget.
+ *
+ * <pre>
+ * sort [-bnru] [-k pos1[,pos2]] [-t char] [-S size] [-T dir] [file ...]
+ * </pre>
+ *
+ * Input is read as bytes into one buffer until the budget ({@code -S}) is
+ * used up. The lines in it are then ordered by a long per line holding a
+ * few bytes of the key and the line's index, sorted with
+ * {@link Arrays#parallelSort(long[], int, int)}, and only lines whose
+ * prefixes tie are compared in full by a {@link LineComparator}. A buffer
+ * that is not the last is written to a temporary file ({@code -T}) as a
+ * sorted run, and the runs are merged through a heap at the end, in several
+ * passes when there are more than a merge can hold buffers for. The lines
+ * held by sort therefore stay within the budget whatever the size of the
+ * input, bar a single line longer than the budget itself.
+ */
+public class Sort implements CommandInterface {
+  private static final String USAGE = "usage: sort [-bnru] [-k pos1[,pos2]] [-t char] [-S size] [-T dir] [file ...]";
+  private static final int IO_BUFFER = 64 * 1024;
+  private static final long MIN_BUDGET = 64 * 1024;
+  private static final long DEFAULT_BUDGET = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4);
+  private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+  private static final int MAX_FAN_IN = 64;
+  // what a line costs besides its bytes: its start, its sort key, the copy
+  // of the keys parallelSort merges through and the indices of tied lines
+  private static final int LINE_OVERHEAD = 32;
+  // the sort key keeps the line's index in the bits the prefix leaves free
+  private static final int INDEX_BITS = 64 - LineComparator.PREFIX_BITS;
+  private static final int MAX_RUN_LINES = 1 << INDEX_BITS;
+  private static final long INDEX_MASK = MAX_RUN_LINES - 1;
+  // ties smaller than this are ordered by comparing lines, not by more prefixes
+  private static final int REFINE_MIN = 32;
+
+  private static final class Options {
+    boolean skipBlanks;
+    boolean numeric;
+    boolean reverse;
+    boolean unique;
+    int tab = -1;
+    long budget = DEFAULT_BUDGET;
+    Path tempDir;
+    final List<String> keys = new ArrayList<>();
+  }
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    Options options = new Options();
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        switch (c) {
+          case 'b' -> options.skipBlanks = true;
+          case 'n' -> options.numeric = true;
+          case 'r' -> options.reverse = true;
+          case 'u' -> options.unique = true;
+          case 'k', 't', 'S', 'T' -> {
+            String value;
+            if (j + 1 < arg.length()) {
+              value = arg.substring(j + 1);
+            } else if (i + 1 < args.size()) {
+              value = args.get(++i);
+            } else {
+              return usage(shell, "option requires an argument -- '" + c + "'");
+            }
+            String problem = option(options, c, value, shell);
+            if (problem != null) {
+              shell.err().println("sort: " + problem);
+              return CommandResult.continueWith(2);
+            }
+            j = arg.length();
+          }
+          default -> {
+            return usage(shell, "invalid option -- '" + c + "'");
+          }
+        }
+      }
+    }
+
+    List<LineComparator.Key> keys = new ArrayList<>();
+    for (String spec : options.keys) {
+      LineComparator.Key key = parseKey(spec, options);
+      if (key == null) {
+        shell.err().println("sort: invalid key '" + spec + "'");
+        return CommandResult.continueWith(2);
+      }
+      keys.add(key);
+    }
+    if (keys.isEmpty()) {
+      keys.add(LineComparator.Key.wholeLine(options.skipBlanks, options.numeric, options.reverse));
+    }
+    LineComparator comparator = new LineComparator(keys, options.tab, !options.unique, options.reverse);
+
+    List<String> files = args.subList(i, args.size());
+    if (files.isEmpty()) {
+      files = List.of("-");
+    }
+
+    try (Sorter sorter = new Sorter(shell, comparator, options)) {
+      for (String name : files) {
+        if (!sorter.read(name)) {
+          return CommandResult.continueWith(2);
+        }
+      }
+      sorter.finish();
+    } catch (IOException e) {
+      if (isBrokenPipe(e)) {
+        // the reader went away, as `sort big.log | head` does
+        return CommandResult.continueWith(1);
+      }
+      shell.err().println("sort: " + e.getMessage());
+      return CommandResult.continueWith(2);
+    }
+    shell.out().flush();
+    return CommandResult.continueWith(0);
+  }
+
+  private static CommandResult usage(ShellContext shell, String problem) {
+    shell.err().println("sort: " + problem);
+    shell.err().println(USAGE);
+    return CommandResult.continueWith(2);
+  }
+
+  // applies an option that takes a value, returning what is wrong with it
+  private static String option(Options options, char option, String value, ShellContext shell) {
+    switch (option) {
+      case 'k' -> options.keys.add(value);
+      case 't' -> {
+        if (value.length() != 1 || value.charAt(0) >= 0x80) {
+          return "multi-character tab '" + value + "'";
+        }
+        options.tab = value.charAt(0);
+      }
+      case 'S' -> {
+        long budget = parseSize(value);
+        if (budget < 0) {
+          return "invalid -S argument '" + value + "'";
+        }
+        options.budget = Math.min(Math.max(budget, MIN_BUDGET), Runtime.getRuntime().maxMemory() / 2);
+      }
+      default -> {
+        Path dir = shell.getCwd().resolve(value);
+        if (!Files.isDirectory(dir)) {
+          return "cannot create temporary file in '" + value + "': No such file or directory";
+        }
+        options.tempDir = dir;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the size in bytes, with a suffix of b, K, M, G or T, or % of the
+   *         heap, and KiB without one, as GNU sort reads it; or -1.
+   */
+  private static long parseSize(String value) {
+    int digits = 0;
+    while (digits < value.length() && Character.isDigit(value.charAt(digits))) {
+      digits++;
+    }
+    if (digits == 0 || digits < value.length() - 1 || digits > 12) {
+      return -1;
+    }
+    long n = Long.parseLong(value.substring(0, digits));
+    char suffix = digits < value.length() ? value.charAt(digits) : 'K';
+    if (suffix == '%') {
+      return n > 100 ? -1 : Runtime.getRuntime().maxMemory() / 100 * n;
+    }
+    int shift = "BKMGT".indexOf(Character.toUpperCase(suffix)) * 10;
+    if (shift < 0) {
+      return -1;
+    }
+    // anything this large is capped to the heap anyway
+    return n > Long.MAX_VALUE >> shift ? Long.MAX_VALUE : n << shift;
+  }
+
+  /**
+   * Parses {@code F[.C][bnr][,F[.C][bnr]]}. A key without any of the
+   * letters takes -b, -n and -r from the command line, as in POSIX.
+   */
+  private static LineComparator.Key parseKey(String spec, Options options) {
+    int comma = spec.indexOf(',');
+    String start = comma < 0 ? spec : spec.substring(0, comma);
+    String end = comma < 0 ? null : spec.substring(comma + 1);
+
+    int[] startPos = parsePosition(start, 1);
+    int[] endPos = end == null ? new int[] { 0, 0 } : parsePosition(end, 0);
+    if (startPos == null || endPos == null || startPos[0] == 0 || startPos[1] == 0
+        || (end != null && endPos[0] == 0)) {
+      return null;
+    }
+    String letters = letters(start) + (end == null ? "" : letters(end));
+    if (letters.isEmpty()) {
+      return new LineComparator.Key(startPos[0], startPos[1], endPos[0], endPos[1], options.skipBlanks,
+          options.skipBlanks, options.numeric, options.reverse);
+    }
+    return new LineComparator.Key(startPos[0], startPos[1], endPos[0], endPos[1], letters(start).contains("b"),
+        end != null && letters(end).contains("b"), letters.contains("n"), letters.contains("r"));
+  }
+
+  // {field, char}, with char defaulting to 1 for a start and 0 for an end
+  private static int[] parsePosition(String position, int defaultChar) {
+    String numbers = position.substring(0, position.length() - letters(position).length());
+    if (!letters(position).matches("[bnr]*") || !numbers.matches("\\d{1,9}(\\.\\d{1,9})?")) {
+      return null;
+    }
+    int dot = numbers.indexOf('.');
+    if (dot < 0) {
+      return new int[] { Integer.parseInt(numbers), defaultChar };
+    }
+    return new int[] { Integer.parseInt(numbers.substring(0, dot)), Integer.parseInt(numbers.substring(dot + 1)) };
+  }
+
+  private static String letters(String position) {
+    int i = position.length();
+    while (i > 0 && Character.isLetter(position.charAt(i - 1))) {
+      i--;
+    }
+    return position.substring(i);
+  }
+
+  private static boolean isBrokenPipe(IOException e) {
+    return "Broken pipe".equals(e.getMessage()) || "Pipe closed".equals(e.getMessage());
+  }
+
+  /**
+   * One run of sort: the buffer of lines being filled, and the runs already
+   * written out.
+   */
+  private static final class Sorter implements Closeable {
+    private final ShellContext shell;
+    private final LineComparator comparator;
+    private final Options options;
+
+    // lines read so far, line i in arena[starts[i], starts[i + 1] - 1)
+    // without its newline; bytes from starts[lines] to used are a line
+    // still being read
+    private byte[] arena;
+    private int used;
+    private int[] starts = new int[1024];
+    private int lines;
+
+    private Path spillDir;
+    private final List<Path> runs = new ArrayList<>();
+
+    Sorter(ShellContext shell, LineComparator comparator, Options options) {
+      this.shell = shell;
+      this.comparator = comparator;
+      this.options = options;
+      this.arena = new byte[(int) Math.min(IO_BUFFER, options.budget)];
+    }
+
+    /**
+     * @return false if the input could not be opened, which has been
+     *         reported.
+     */
+    boolean read(String name) throws IOException {
+      if (name.equals("-")) {
+        Optional<ReadableByteChannel> channel = ChannelBufferedReader.channel(shell.in());
+        if (channel.isPresent()) {
+          read(channel.get());
+        } else {
+          read(shell.in());
+        }
+        return true;
+      }
+
+      Path path = shell.getCwd().resolve(name);
+      if (Files.isDirectory(path)) {
+        shell.err().println("sort: read failed: " + name + ": Is a directory");
+        return false;
+      }
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        read(channel);
+      } catch (NoSuchFileException e) {
+        shell.err().println("sort: cannot read: " + name + ": No such file or directory");
+        return false;
+      } catch (AccessDeniedException e) {
+        shell.err().println("sort: cannot read: " + name + ": Permission denied");
+        return false;
+      }
+      return true;
+    }
+
+    private void read(ReadableByteChannel in) throws IOException {
+      while (true) {
+        if (used == arena.length) {
+          makeRoom();
+        }
+        int n = in.read(ByteBuffer.wrap(arena, used, Math.min(IO_BUFFER, arena.length - used)));
+        if (n == -1) {
+          break;
+        }
+        index(used, used + n);
+        used += n;
+        spillIfFull();
+      }
+      endLine();
+    }
+
+    private void read(BufferedReader in) throws IOException {
+      String line;
+      while ((line = in.readLine()) != null) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int copied = 0;
+        while (copied < bytes.length) {
+          if (used == arena.length) {
+            makeRoom();
+          }
+          int n = Math.min(bytes.length - copied, arena.length - used);
+          System.arraycopy(bytes, copied, arena, used, n);
+          used += n;
+          copied += n;
+        }
+        newline();
+        spillIfFull();
+      }
+    }
+
+    // every input ends with a whole line, newline or not
+    private void endLine() throws IOException {
+      if (used > starts[lines]) {
+        newline();
+      }
+    }
+
+    private void newline() throws IOException {
+      if (used == arena.length) {
+        makeRoom();
+      }
+      arena[used++] = '\n';
+      index(used - 1, used);
+    }
+
+    private void index(int from, int to) {
+      byte[] arena = this.arena;
+      for (int i = from; i < to; i++) {
+        if (arena[i] == '\n') {
+          if (lines + 1 == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+          }
+          starts[++lines] = i + 1;
+        }
+      }
+    }
+
+    private void spillIfFull() throws IOException {
+      if (lines > 0 && (used + (long) LINE_OVERHEAD * lines > options.budget || lines >= MAX_RUN_LINES - IO_BUFFER)) {
+        spill();
+      }
+    }
+
+    // called with the arena full: grows it while the old and the new array
+    // together fit the budget, and spills the lines in it otherwise
+    private void makeRoom() throws IOException {
+      long target = Math.min(2L * arena.length, options.budget - arena.length - (long) LINE_OVERHEAD * (lines + 1));
+      if (target > arena.length) {
+        arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARRAY, target));
+        return;
+      }
+      if (lines > 0) {
+        spill();
+        return;
+      }
+      // a single line longer than the budget, which has to be held whole
+      if (arena.length == MAX_ARRAY) {
+        throw new IOException("line too long");
+      }
+      arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARRAY, 2L * arena.length));
+    }
+
+    // writes the lines read so far to a new run, keeping the line being read
+    private void spill() throws IOException {
+      if (spillDir == null) {
+        Path root = options.tempDir != null ? options.tempDir : Path.of(System.getProperty("java.io.tmpdir"));
+        spillDir = Files.createTempDirectory(root, "javashell-sort");
+      }
+      Path run = spillDir.resolve("run" + runs.size());
+      runs.add(run);
+      try (LineSink sink = LineSink.create(run)) {
+        writeSorted(sink);
+      }
+
+      int partial = starts[lines];
+      used -= partial;
+      System.arraycopy(arena, partial, arena, 0, used);
+      lines = 0;
+    }
+
+    void finish() throws IOException {
+      endLine();
+      Optional<WritableByteChannel> channel = ChannelPrintWriter.channel(shell.out());
+      LineSink out = new LineSink(channel.orElse(null), shell.out(), false);
+      if (runs.isEmpty()) {
+        writeSorted(out);
+        out.flush();
+        return;
+      }
+      if (lines > 0) {
+        spill();
+      }
+      arena = null;
+      starts = null;
+
+      // each merge reads its runs through buffers that together fill the budget
+      int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, options.budget / (2 * IO_BUFFER)));
+      int bufferSize = (int) Math.max(4096, Math.min(MAX_ARRAY, options.budget / (fanIn + 1)));
+      List<Path> pending = new ArrayList<>(runs);
+      while (pending.size() > fanIn) {
+        // merging neighbours keeps runs in input order, so equal lines do too
+        List<Path> merged = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i += fanIn) {
+          List<Path> group = pending.subList(i, Math.min(pending.size(), i + fanIn));
+          if (group.size() == 1) {
+            merged.add(group.get(0));
+            continue;
+          }
+          Path run = spillDir.resolve("run" + runs.size());
+          runs.add(run);
+          try (LineSink sink = LineSink.create(run)) {
+            merge(group, bufferSize, sink);
+          }
+          for (Path done : group) {
+            Files.delete(done);
+          }
+          merged.add(run);
+        }
+        pending = merged;
+      }
+      merge(pending, bufferSize, out);
+      out.flush();
+    }
+
+    // sorts the whole lines in the arena and writes them out
+    private void writeSorted(LineSink sink) throws IOException {
+      int n = lines;
+      long[] keys = new long[n];
+      IntStream.range(0, n).parallel().forEach(i -> keys[i] = key(i, 0));
+      Arrays.parallelSort(keys);
+      resolveTies(keys, 0, n, 0);
+
+      int last = -1;
+      for (long key : keys) {
+        int line = (int) (key & INDEX_MASK);
+        if (options.unique && last >= 0 && compareLines(last, line) == 0) {
+          continue;
+        }
+        sink.line(arena, starts[line], starts[line + 1] - 1);
+        last = line;
+      }
+    }
+
+    // the prefix in the high bits, signed so that parallelSort orders them
+    // unsigned, and the line's index below it to keep equal prefixes stable
+    private long key(int line, int depth) {
+      long prefix = comparator.prefix(arena, starts[line], starts[line + 1] - 1, depth);
+      return (prefix << INDEX_BITS | line) ^ Long.MIN_VALUE;
+    }
+
+    // orders each run of keys[from, to) whose prefixes are equal
+    private void resolveTies(long[] keys, int from, int to, int depth) {
+      int i = from;
+      while (i < to) {
+        int j = i + 1;
+        while (j < to && keys[j] >>> INDEX_BITS == keys[i] >>> INDEX_BITS) {
+          j++;
+        }
+        if (j - i > 1) {
+          resolveTie(keys, i, j, depth);
+        }
+        i = j;
+      }
+    }
+
+    private void resolveTie(long[] keys, int from, int to, int depth) {
+      int next = depth + LineComparator.PREFIX_BYTES;
+      if (to - from >= REFINE_MIN && comparator.refinable() && anyKeyLonger(keys, from, to, next)) {
+        // the next few bytes of the key, as many times as it takes
+        for (int i = from; i < to; i++) {
+          keys[i] = key((int) (keys[i] & INDEX_MASK), next);
+        }
+        Arrays.parallelSort(keys, from, to);
+        resolveTies(keys, from, to, next);
+        return;
+      }
+
+      int[] order = new int[to - from];
+      for (int i = from; i < to; i++) {
+        order[i - from] = (int) (keys[i] & INDEX_MASK);
+      }
+      mergeSort(order, new int[order.length], 0, order.length);
+      for (int i = from; i < to; i++) {
+        keys[i] = keys[i] & ~INDEX_MASK | order[i - from];
+      }
+    }
+
+    private boolean anyKeyLonger(long[] keys, int from, int to, int length) {
+      for (int i = from; i < to; i++) {
+        int line = (int) (keys[i] & INDEX_MASK);
+        if (comparator.keyLength(arena, starts[line], starts[line + 1] - 1) > length) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // a stable sort of line indices by the comparator
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+      if (to - from <= 16) {
+        for (int i = from + 1; i < to; i++) {
+          int line = a[i];
+          int j = i;
+          while (j > from && compareLines(a[j - 1], line) > 0) {
+            a[j] = a[j - 1];
+            j--;
+          }
+          a[j] = line;
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      mergeSort(a, tmp, from, mid);
+      mergeSort(a, tmp, mid, to);
+      if (compareLines(a[mid - 1], a[mid]) <= 0) {
+        return;
+      }
+      System.arraycopy(a, from, tmp, from, to - from);
+      int i = from;
+      int j = mid;
+      for (int k = from; k < to; k++) {
+        if (j == to || (i < mid && compareLines(tmp[i], tmp[j]) <= 0)) {
+          a[k] = tmp[i++];
+        } else {
+          a[k] = tmp[j++];
+        }
+      }
+    }
+
+    private int compareLines(int a, int b) {
+      return comparator.compare(arena, starts[a], starts[a + 1] - 1, arena, starts[b], starts[b + 1] - 1);
+    }
+
+    private void merge(List<Path> group, int bufferSize, LineSink sink) throws IOException {
+      PriorityQueue<Run> heap = new PriorityQueue<>((x, y) -> {
+        int c = comparator.compare(x.buf, x.start, x.end, y.buf, y.start, y.end);
+        return c != 0 ? c : Integer.compare(x.rank, y.rank);
+      });
+      List<Run> open = new ArrayList<>();
+      try {
+        for (Path path : group) {
+          Run run = new Run(FileChannel.open(path, StandardOpenOption.READ), bufferSize, open.size());
+          open.add(run);
+          if (run.next()) {
+            heap.add(run);
+          }
+        }
+
+        byte[] last = new byte[0];
+        int lastLength = -1;
+        while (!heap.isEmpty()) {
+          Run run = heap.poll();
+          int length = run.end - run.start;
+          if (!options.unique || lastLength < 0
+              || comparator.compare(last, 0, lastLength, run.buf, run.start, run.end) != 0) {
+            sink.line(run.buf, run.start, run.end);
+            if (options.unique) {
+              if (last.length < length) {
+                last = new byte[Math.max(length, 2 * last.length)];
+              }
+              System.arraycopy(run.buf, run.start, last, 0, length);
+              lastLength = length;
+            }
+          }
+          if (run.next()) {
+            heap.add(run);
+          }
+        }
+      } finally {
+        for (Run run : open) {
+          run.channel.close();
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (spillDir == null) {
+        return;
+      }
+      for (Path run : runs) {
+        Files.deleteIfExists(run);
+      }
+      Files.deleteIfExists(spillDir);
+    }
+  }
+
+  /**
+   * A sorted run being merged, positioned on its current line
+   * {@code buf[start, end)}. {@code rank} is the run's place in the input,
+   * which orders equal lines from different runs.
+   */
+  private static final class Run {
+    final FileChannel channel;
+    final int rank;
+    byte[] buf;
+    int start;
+    int end = -1;
+    int limit;
+
+    Run(FileChannel channel, int bufferSize, int rank) {
+      this.channel = channel;
+      this.buf = new byte[bufferSize];
+      this.rank = rank;
+    }
+
+    // moves to the next line, reading more of the run when needed
+    boolean next() throws IOException {
+      int from = end + 1;
+      int i = from;
+      while (true) {
+        while (i < limit && buf[i] != '\n') {
+          i++;
+        }
+        if (i < limit) {
+          start = from;
+          end = i;
+          return true;
+        }
+        if (from > 0) {
+          System.arraycopy(buf, from, buf, 0, limit - from);
+          limit -= from;
+          i -= from;
+          from = 0;
+        } else if (limit == buf.length) {
+          buf = Arrays.copyOf(buf, (int) Math.min(MAX_ARRAY, 2L * buf.length));
+        }
+        int n = channel.read(ByteBuffer.wrap(buf, limit, buf.length - limit));
+        if (n == -1) {
+          // runs are written by sort and every line in them ends in a newline
+          return false;
+        }
+        limit += n;
+      }
+    }
+  }
+
+  /**
+   * Collects lines in a buffer and writes them to a channel, or decoded to
+   * a writer when stdout has no channel. Only whole lines are decoded, so
+   * no character is split between two writes.
+   */
+  private static final class LineSink implements Closeable {
+    private final WritableByteChannel channel;
+    private final PrintWriter writer;
+    private final boolean owned;
+    private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+
+    LineSink(WritableByteChannel channel, PrintWriter writer, boolean owned) {
+      this.channel = channel;
+      this.writer = writer;
+      this.owned = owned;
+    }
+
+    static LineSink create(Path run) throws IOException {
+      return new LineSink(FileChannel.open(run, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), null, true);
+    }
+
+    void line(byte[] buf, int from, int to) throws IOException {
+      int length = to - from;
+      if (buffer.remaining() <= length) {
+        flush();
+        if (length >= buffer.capacity()) {
+          write(ByteBuffer.wrap(buf, from, length));
+          write(ByteBuffer.wrap(new byte[] { '\n' }));
+          return;
+        }
+      }
+      buffer.put(buf, from, length).put((byte) '\n');
+    }
+
+    void flush() throws IOException {
+      write(buffer.flip());
+      buffer.clear();
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+      if (channel != null) {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        return;
+      }
+      writer.write(new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+          StandardCharsets.UTF_8));
+      bytes.position(bytes.limit());
+      if (writer.checkError()) {
+        throw new IOException("Broken pipe");
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        if (owned) {
+          channel.close();
+        }
+      }
+    }
+  }
+}
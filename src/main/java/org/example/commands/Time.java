@@ -0,0 +1,221 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.parser.Command;
+
+/**
+ * Runs a command, builtin or external, and reports how long it took and what
+ * it used, split between the shell itself and the processes it started.
+ *
+ * <pre>
+ * time [-p | -j] [-a] [-o file] [command [arg ...]]
+ * </pre>
+ *
+ * By default the report looks like bash's, with the shell/children split and
+ * the memory figures added:
+ *
+ * <pre>
+ * real	0m1.204s
+ * user	0m0.850s	(shell 0m0.050s, children 0m0.800s)
+ * sys	0m0.120s	(shell 0m0.020s, children 0m0.100s)
+ * maxrss	10240k	(children)
+ * alloc	12.0M	(shell)
+ * </pre>
+ *
+ * {@code -p} prints POSIX's three lines instead, and {@code -j} a single JSON
+ * object per command, e.g. for {@code time -j -a -o times.jsonl} in a script
+ * and summing the lines afterwards. The report goes to stderr, or to the
+ * {@code -o} file, truncated unless {@code -a} is given. Nanosecond figures
+ * in the JSON are as exact as the source: CPU time has a resolution of 10ms.
+ *
+ * See {@link ResourceUsage} for where the figures come from. {@code maxrss}
+ * is only known for children that ran long enough to be sampled. Redirects
+ * apply to {@code time} and so to the command, and {@code |} ends the
+ * command, so only the first stage of {@code time a | b} is timed.
+ */
+public class Time implements CommandInterface {
+  private static final String USAGE = "usage: time [-p | -j] [-a] [-o file] [command [arg ...]]";
+
+  private enum Format {
+    DEFAULT,
+    POSIX,
+    JSON,
+  }
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    Format format = Format.DEFAULT;
+    boolean append = false;
+    String output = null;
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        switch (c) {
+          case 'p' -> format = Format.POSIX;
+          case 'j' -> format = Format.JSON;
+          case 'a' -> append = true;
+          case 'o' -> {
+            if (j + 1 < arg.length()) {
+              output = arg.substring(j + 1);
+            } else if (i + 1 < args.size()) {
+              output = args.get(++i);
+            } else {
+              return usage(shell, "option requires an argument -- 'o'");
+            }
+            j = arg.length();
+          }
+          default -> {
+            return usage(shell, "invalid option -- '" + c + "'");
+          }
+        }
+      }
+    }
+    List<String> command = args.subList(i, args.size());
+
+    PrintWriter report = shell.err();
+    if (output != null) {
+      try {
+        report = new PrintWriter(Files.newBufferedWriter(shell.getCwd().resolve(output), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING));
+      } catch (NoSuchFileException e) {
+        shell.err().println("time: " + output + ": No such file or directory");
+        return CommandResult.continueWith(1);
+      } catch (IOException e) {
+        shell.err().println("time: " + output + ": " + e.getMessage());
+        return CommandResult.continueWith(1);
+      }
+    }
+
+    ResourceUsage before = ResourceUsage.now();
+    long start = System.nanoTime();
+    CommandResult result;
+    long real;
+    ResourceUsage.ChildSampler sampler = new ResourceUsage.ChildSampler();
+    try {
+      result = run(command, shell);
+    } finally {
+      real = System.nanoTime() - start;
+      sampler.close();
+    }
+    ResourceUsage used = ResourceUsage.now().since(before);
+    if (!ResourceUsage.FROM_PROC) {
+      used = new ResourceUsage(used.userNanos(), used.sysNanos(), sampler.childCpuNanos(), 0, used.allocatedBytes());
+    }
+
+    shell.out().flush();
+    switch (format) {
+      case DEFAULT -> printDefault(report, real, used, sampler.maxRssKib());
+      case POSIX -> report.printf(Locale.ROOT, "real %.2f%nuser %.2f%nsys %.2f%n", seconds(real),
+          seconds(used.userNanos() + used.childUserNanos()), seconds(used.sysNanos() + used.childSysNanos()));
+      case JSON -> printJson(report, command, result.getExitCode(), real, used, sampler.maxRssKib());
+    }
+    if (output != null) {
+      report.close();
+    } else {
+      report.flush();
+    }
+    return result;
+  }
+
+  private static CommandResult run(List<String> command, ShellContext shell) {
+    if (command.isEmpty()) {
+      return CommandResult.continueWith(0);
+    }
+    try {
+      return shell.runner().run(new Command(command, List.of()), shell);
+    } catch (IOException e) {
+      shell.err().println("time: " + e.getMessage());
+      return CommandResult.continueWith(126);
+    }
+  }
+
+  private static CommandResult usage(ShellContext shell, String problem) {
+    shell.err().println("time: " + problem);
+    shell.err().println(USAGE);
+    return CommandResult.continueWith(2);
+  }
+
+  private static void printDefault(PrintWriter report, long real, ResourceUsage used, long maxRssKib) {
+    report.println();
+    report.println("real\t" + minutes(real));
+    report.println("user\t" + minutes(used.userNanos() + used.childUserNanos()) + "\t(shell "
+        + minutes(used.userNanos()) + ", children " + minutes(used.childUserNanos()) + ")");
+    report.println("sys\t" + minutes(used.sysNanos() + used.childSysNanos()) + "\t(shell "
+        + minutes(used.sysNanos()) + ", children " + minutes(used.childSysNanos()) + ")");
+    if (maxRssKib > 0) {
+      report.println("maxrss\t" + maxRssKib + "k\t(children)");
+    }
+    report.println("alloc\t" + bytes(used.allocatedBytes()) + "\t(shell)");
+  }
+
+  private static void printJson(PrintWriter report, List<String> command, int status, long real, ResourceUsage used,
+      long maxRssKib) {
+    report.println("{\"command\":" + jsonString(String.join(" ", command))
+        + ",\"status\":" + status
+        + ",\"real_ns\":" + real
+        + ",\"shell_user_ns\":" + used.userNanos()
+        + ",\"shell_sys_ns\":" + used.sysNanos()
+        + ",\"child_user_ns\":" + used.childUserNanos()
+        + ",\"child_sys_ns\":" + used.childSysNanos()
+        + ",\"child_max_rss_kib\":" + maxRssKib
+        + ",\"alloc_bytes\":" + used.allocatedBytes() + "}");
+  }
+
+  private static String jsonString(String s) {
+    StringBuilder json = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"' -> json.append("\\\"");
+        case '\\' -> json.append("\\\\");
+        case '\n' -> json.append("\\n");
+        case '\t' -> json.append("\\t");
+        case '\r' -> json.append("\\r");
+        default -> {
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+        }
+      }
+    }
+    return json.append('"').toString();
+  }
+
+  private static double seconds(long nanos) {
+    return nanos / 1e9;
+  }
+
+  // bash's %3lR: 0m1.204s
+  private static String minutes(long nanos) {
+    long millis = Math.max(0, nanos) / 1_000_000;
+    return String.format(Locale.ROOT, "%dm%d.%03ds", millis / 60_000, millis / 1000 % 60, millis % 1000);
+  }
+
+  private static String bytes(long n) {
+    if (n < 1024) {
+      return n + "B";
+    }
+    int unit = (63 - Long.numberOfLeadingZeros(n)) / 10;
+    return String.format(Locale.ROOT, "%.1f%c", n / (double) (1L << unit * 10), "BKMGTPE".charAt(unit));
+  }
+}
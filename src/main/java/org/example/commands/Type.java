@@ -23,7 +23,7 @@ public class Type implements CommandInterface {
         shell.out().println(arg + " is a shell builtin");
       } else {
 
-        Optional<String> filepath = CommandUtils.getCommandFilepath(arg);
+        Optional<String> filepath = CommandUtils.getCommandFilepath(arg, shell);
         if (filepath.isEmpty()) {
           shell.err().println(arg + " not found");
         } else {
@@ -0,0 +1,55 @@
+package org.example.commands;
+
+import java.util.List;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.Variables;
+
+/**
+ * Removes variables, so they are neither set nor passed to the commands the
+ * shell starts. Names that are not set are ignored.
+ *
+ * <pre>
+ * unset [-v] name ...
+ *
+ * -v   the names are variables, which is all they can be here
+ * </pre>
+ */
+public class Unset implements CommandInterface {
+  private static final String USAGE = "usage: unset [-v] name ...";
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        if (c != 'v') {
+          shell.err().println("unset: invalid option -- '" + c + "'");
+          shell.err().println(USAGE);
+          return CommandResult.continueWith(2);
+        }
+      }
+    }
+
+    int exitCode = 0;
+    for (String name : args.subList(i, args.size())) {
+      if (!Variables.isName(name)) {
+        shell.err().println("unset: `" + name + "': not a valid identifier");
+        exitCode = 1;
+        continue;
+      }
+      shell.variables().unset(name);
+    }
+    return CommandResult.continueWith(exitCode);
+  }
+}
@@ -0,0 +1,54 @@
+package org.example.commands;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Classifies a whole vector of bytes (16 to 64 depending on the CPU) at
+ * once. Newlines are counted straight off the comparison mask. For words
+ * the whitespace mask is turned into a bit per byte, and a word starts at
+ * every non-space bit whose lower neighbour, or the last bit of the
+ * previous vector, is a space. Only loaded when the
+ * {@code jdk.incubator.vector} module is present, see
+ * {@link ByteCounter#best()}.
+ */
+final class VectorByteCounter implements ByteCounter {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+  private static final long LANE_BITS = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+  @Override
+  public void count(byte[] buf, int from, int to, boolean words, Counts counts) {
+    int i = from;
+    int bound = from + SPECIES.loopBound(to - from);
+    long lines = 0;
+
+    if (!words) {
+      for (; i < bound; i += LANES) {
+        lines += ByteVector.fromArray(SPECIES, buf, i).eq((byte) '\n').trueCount();
+      }
+      counts.lines += lines;
+      ScalarByteCounter.INSTANCE.count(buf, i, to, false, counts);
+      return;
+    }
+
+    long starts = 0;
+    // 1 when the byte before the next vector is a space
+    long spaceBefore = counts.inWord ? 0 : 1;
+    for (; i < bound; i += LANES) {
+      ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+      lines += v.eq((byte) '\n').trueCount();
+      long space = v.eq((byte) ' ')
+          .or(v.compare(VectorOperators.GE, (byte) '\t').and(v.compare(VectorOperators.LE, (byte) '\r')))
+          .toLong();
+      starts += Long.bitCount(~space & LANE_BITS & (space << 1 | spaceBefore));
+      spaceBefore = space >>> (LANES - 1) & 1;
+    }
+    counts.lines += lines;
+    counts.words += starts;
+    counts.inWord = spaceBefore == 0;
+    ScalarByteCounter.INSTANCE.count(buf, i, to, true, counts);
+  }
+}
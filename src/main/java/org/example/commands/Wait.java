@@ -0,0 +1,68 @@
+package org.example.commands;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.JobTable;
+
+/**
+ * Waits for background jobs to finish and removes them from the job table.
+ *
+ * <pre>
+ * wait              wait for every job, then return 0
+ * wait id ...       wait for each job, by %jobspec or process id, and return
+ *                   the status of the last one
+ * </pre>
+ */
+public class Wait implements CommandInterface {
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    JobTable table = shell.jobs();
+    try {
+      if (args.isEmpty()) {
+        for (JobTable.Job job : table.list()) {
+          job.await();
+          table.remove(job);
+        }
+        return CommandResult.continueWith(0);
+      }
+
+      int exitCode = 0;
+      for (String id : args) {
+        Optional<JobTable.Job> job;
+        if (id.startsWith("%")) {
+          job = table.find(id);
+          if (job.isEmpty()) {
+            shell.err().println("wait: " + id + ": no such job");
+            exitCode = 127;
+            continue;
+          }
+        } else {
+          long pid;
+          try {
+            pid = Long.parseLong(id);
+          } catch (NumberFormatException e) {
+            shell.err().println("wait: `" + id + "': not a pid or valid job spec");
+            exitCode = 2;
+            continue;
+          }
+          job = table.findByPid(pid);
+          if (job.isEmpty()) {
+            shell.err().println("wait: pid " + id + " is not a child of this shell");
+            exitCode = 127;
+            continue;
+          }
+        }
+        exitCode = job.get().await();
+        table.remove(job.get());
+      }
+      return CommandResult.continueWith(exitCode);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CommandResult.continueWith(130);
+    }
+  }
+}
@@ -0,0 +1,409 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.example.ShellContext;
+import org.example.commands.ByteCounter.Counts;
+import org.example.evaluator.ChannelBufferedReader;
+import org.example.evaluator.CommandResult;
+
+/**
+ * Prints the newline, word and byte counts of each file, or of stdin, and
+ * their total when there is more than one.
+ *
+ * <pre>
+ * wc [-clw] [file ...]
+ * </pre>
+ *
+ * Files, and a stdin redirected from a file, are cut into chunks of
+ * {@link #CHUNK_SIZE} that are memory-mapped and counted as tasks on the
+ * common {@link ForkJoinPool}, so one large file, or many files, keep every
+ * core busy. Counting is done by {@link ByteCounter#best()}, which uses the
+ * Vector API when it is available. The vector loads read from arrays, so a
+ * mapping is copied a slice at a time into a per-thread buffer small enough
+ * to stay in cache. With {@code -c} alone a regular file is not read at all.
+ *
+ * Columns are as wide as GNU wc makes them: wide enough for the total size
+ * of the regular files, and at least 7 when an input is not a regular file.
+ */
+public class Wc implements CommandInterface {
+  static final int CHUNK_SIZE = 8 << 20;
+  private static final int SLICE = 64 * 1024;
+  private static final int WINDOW = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+  private static final ByteCounter COUNTER = ByteCounter.best();
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SLICE]);
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    boolean lines = false;
+    boolean words = false;
+    boolean bytes = false;
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (char c : arg.substring(1).toCharArray()) {
+        switch (c) {
+          case 'l' -> lines = true;
+          case 'w' -> words = true;
+          case 'c' -> bytes = true;
+          default -> {
+            shell.err().println("wc: invalid option -- '" + c + "'");
+            shell.err().println("usage: wc [-clw] [file ...]");
+            return CommandResult.continueWith(1);
+          }
+        }
+      }
+    }
+    if (!lines && !words && !bytes) {
+      lines = words = bytes = true;
+    }
+
+    List<String> files = args.subList(i, args.size());
+    Count count = new Count(shell, lines, words, bytes);
+    if (files.isEmpty()) {
+      count.width = count.columns() == 1 ? 1 : width(shell, List.of("-"));
+      count.stdin(null);
+    } else {
+      count.width = count.columns() == 1 && files.size() == 1 ? 1 : width(shell, files);
+      for (String name : files) {
+        if (name.equals("-")) {
+          count.stdin(name);
+        } else {
+          count.file(name);
+        }
+      }
+    }
+    count.drain(0);
+    if (files.size() > 1) {
+      count.print(count.totalLines, count.totalWords, count.totalBytes, "total");
+    }
+    shell.out().flush();
+    return CommandResult.continueWith(count.failed ? 1 : 0);
+  }
+
+  // the digits of the regular files' total size, and at least 7 when an
+  // input is not a regular file, decided before anything is counted
+  private static int width(ShellContext shell, List<String> files) {
+    long total = 0;
+    int minimum = 1;
+    for (int i = 0; i < files.size(); i++) {
+      String name = files.get(i);
+      if (name.equals("-")) {
+        Optional<ReadableByteChannel> channel = ChannelBufferedReader.channel(shell.in());
+        try {
+          if (channel.isPresent() && channel.get() instanceof FileChannel file) {
+            total += Math.max(0, file.size() - file.position());
+            continue;
+          }
+        } catch (IOException e) {
+          // counted as not regular
+        }
+        minimum = 7;
+        continue;
+      }
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(shell.getCwd().resolve(name),
+            BasicFileAttributes.class);
+        if (attributes.isRegularFile()) {
+          total += attributes.size();
+        } else {
+          minimum = 7;
+        }
+      } catch (IOException e) {
+        if (i == 0) {
+          return 1;
+        }
+      }
+    }
+    return Math.max(minimum, Long.toString(total).length());
+  }
+
+  /**
+   * One run of wc over its inputs: the inputs still being counted, in
+   * order, and the totals of those printed.
+   */
+  private static final class Count {
+    private final ShellContext shell;
+    private final boolean lines;
+    private final boolean words;
+    private final boolean bytes;
+    private final Deque<Input> window = new ArrayDeque<>();
+
+    int width;
+    long totalLines;
+    long totalWords;
+    long totalBytes;
+    boolean failed;
+
+    // an input whose chunks are counted, or whose counts are known
+    private static final class Input {
+      final String label;
+      final List<ForkJoinTask<Counts>> chunks = new ArrayList<>();
+      Counts counts = new Counts();
+      FileChannel channel;
+      String error;
+
+      Input(String label) {
+        this.label = label;
+      }
+    }
+
+    Count(ShellContext shell, boolean lines, boolean words, boolean bytes) {
+      this.shell = shell;
+      this.lines = lines;
+      this.words = words;
+      this.bytes = bytes;
+    }
+
+    int columns() {
+      return (lines ? 1 : 0) + (words ? 1 : 0) + (bytes ? 1 : 0);
+    }
+
+    void file(String name) {
+      Path path = shell.getCwd().resolve(name);
+      Input input = new Input(name);
+      if (Files.isDirectory(path)) {
+        // printed with zero counts, as GNU wc does
+        input.error = name + ": Is a directory";
+        window.add(input);
+        drain(WINDOW);
+        return;
+      }
+      try {
+        input.channel = FileChannel.open(path, StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+        openError(name + ": No such file or directory");
+        return;
+      } catch (AccessDeniedException e) {
+        openError(name + ": Permission denied");
+        return;
+      } catch (IOException e) {
+        openError(name + ": " + e.getMessage());
+        return;
+      }
+
+      try {
+        long size = input.channel.size();
+        if (size > 0) {
+          split(input, input.channel, 0, size);
+        } else {
+          // /proc and the like report no size and can only be read
+          drain(0);
+          stream(input.counts, input.channel);
+        }
+      } catch (IOException e) {
+        input.error = name + ": " + e.getMessage();
+      }
+      window.add(input);
+      drain(WINDOW);
+    }
+
+    void stdin(String label) {
+      drain(0);
+      Input input = new Input(label);
+      Optional<ReadableByteChannel> channel = ChannelBufferedReader.channel(shell.in());
+      try {
+        if (channel.isPresent() && channel.get() instanceof FileChannel file && file.size() > 0
+            && file.size() > file.position()) {
+          long size = file.size();
+          split(input, file, file.position(), size);
+          file.position(size);
+        } else if (channel.isPresent()) {
+          stream(input.counts, channel.get());
+        } else {
+          stream(input.counts, shell.in());
+        }
+      } catch (IOException e) {
+        input.error = (label != null ? label : "-") + ": " + e.getMessage();
+      }
+      window.add(input);
+      drain(0);
+    }
+
+    // queues the chunks of input from start to end, or with -c alone just
+    // takes the size
+    private void split(Input input, FileChannel channel, long start, long end) {
+      if (!lines && !words) {
+        input.counts.bytes = end - start;
+        return;
+      }
+      for (long position = start; position < end; position += CHUNK_SIZE) {
+        long from = position;
+        long to = Math.min(end, position + CHUNK_SIZE);
+        input.chunks.add(ForkJoinPool.commonPool().submit(() -> countRegion(channel, from, to, words)));
+      }
+    }
+
+    /**
+     * Prints the inputs at the head of the window, waiting for their chunks,
+     * until at most {@code limit} remain.
+     */
+    void drain(int limit) {
+      while (window.size() > limit) {
+        Input input = window.poll();
+        try {
+          for (ForkJoinTask<Counts> chunk : input.chunks) {
+            input.counts.add(chunk.join());
+          }
+        } catch (RuntimeException e) {
+          Throwable cause = e.getCause() != null ? e.getCause() : e;
+          input.error = input.label + ": " + cause.getMessage();
+          input.counts = null;
+        } finally {
+          if (input.channel != null) {
+            try {
+              input.channel.close();
+            } catch (IOException e) {
+              // only read from
+            }
+          }
+        }
+        if (input.error != null) {
+          error(input.error);
+        }
+        if (input.counts != null) {
+          print(input.counts.lines, input.counts.words, input.counts.bytes, input.label);
+          totalLines += input.counts.lines;
+          totalWords += input.counts.words;
+          totalBytes += input.counts.bytes;
+        }
+      }
+    }
+
+    private void stream(Counts counts, ReadableByteChannel channel) throws IOException {
+      byte[] scratch = SCRATCH.get();
+      ByteBuffer buffer = ByteBuffer.wrap(scratch);
+      int n;
+      while ((n = channel.read(buffer.clear())) != -1) {
+        countSlice(scratch, n, words, counts);
+      }
+    }
+
+    private void stream(Counts counts, BufferedReader reader) throws IOException {
+      char[] chars = new char[SLICE];
+      int carried = 0;
+      int n;
+      while ((n = reader.read(chars, carried, chars.length - carried)) != -1) {
+        int end = carried + n;
+        // a surrogate pair split between two reads is encoded as a whole
+        carried = Character.isHighSurrogate(chars[end - 1]) ? 1 : 0;
+        byte[] encoded = new String(chars, 0, end - carried).getBytes(StandardCharsets.UTF_8);
+        countSlice(encoded, encoded.length, words, counts);
+        if (carried == 1) {
+          chars[0] = chars[end - 1];
+        }
+      }
+      if (carried == 1) {
+        byte[] encoded = new String(chars, 0, 1).getBytes(StandardCharsets.UTF_8);
+        countSlice(encoded, encoded.length, words, counts);
+      }
+    }
+
+    void print(long lineCount, long wordCount, long byteCount, String label) {
+      StringBuilder line = new StringBuilder();
+      if (lines) {
+        pad(line, lineCount);
+      }
+      if (words) {
+        pad(line, wordCount);
+      }
+      if (bytes) {
+        pad(line, byteCount);
+      }
+      if (label != null) {
+        line.append(' ').append(label);
+      }
+      shell.out().println(line);
+    }
+
+    private void pad(StringBuilder line, long n) {
+      if (!line.isEmpty()) {
+        line.append(' ');
+      }
+      String digits = Long.toString(n);
+      line.append(" ".repeat(Math.max(0, width - digits.length()))).append(digits);
+    }
+
+    // reported after the counts of the inputs before it
+    private void openError(String message) {
+      drain(0);
+      error(message);
+    }
+
+    private void error(String message) {
+      failed = true;
+      shell.out().flush();
+      shell.err().println("wc: " + message);
+      shell.err().flush();
+    }
+  }
+
+  // counts file[from, to), mapping regions larger than one slice
+  private static Counts countRegion(FileChannel channel, long from, long to, boolean words) {
+    Counts counts = new Counts();
+    byte[] scratch = SCRATCH.get();
+    try {
+      if (to - from <= SLICE) {
+        // not worth a mapping; positional reads leave the channel's position alone
+        int length = (int) (to - from);
+        int n = 0;
+        while (n < length) {
+          int read = channel.read(ByteBuffer.wrap(scratch, n, length - n), from + n);
+          if (read < 0) {
+            break;
+          }
+          n += read;
+        }
+        countSlice(scratch, n, words, counts);
+        return counts;
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+      while (mapped.hasRemaining()) {
+        int n = Math.min(SLICE, mapped.remaining());
+        mapped.get(scratch, 0, n);
+        countSlice(scratch, n, words, counts);
+      }
+      return counts;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void countSlice(byte[] buf, int n, boolean words, Counts counts) {
+    if (n <= 0) {
+      return;
+    }
+    if (counts.bytes == 0) {
+      counts.startsInWord = !ByteCounter.isSpace(buf[0]);
+    }
+    COUNTER.count(buf, 0, n, words, counts);
+    counts.bytes += n;
+  }
+}
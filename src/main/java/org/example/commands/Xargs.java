@@ -0,0 +1,581 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.example.ShellContext;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.CommandUtils;
+import org.example.evaluator.IoContext;
+import org.example.parser.Command;
+
+/**
+ * Builds command lines from the items read from stdin, or a file, and runs
+ * them, several at a time.
+ *
+ * <pre>
+ * xargs [-0rt] [-a file] [-n max-args] [-P max-procs] [-s max-chars] [command [initial-args]]
+ * </pre>
+ *
+ * Items are separated by blanks and newlines, with quotes and backslashes as
+ * GNU xargs reads them, or by NULs with {@code -0}. As many items as fit are
+ * appended to each command line: at most {@code -n} of them and
+ * {@code -s} bytes, 128 KiB by default, as with GNU. That is well within
+ * what the kernel allows, a quarter of the stack limit less the
+ * environment, which {@code -s} cannot go beyond.
+ *
+ * Up to {@code -P} commands run at once, one per core by default and as many
+ * as there are command lines with {@code -P 0}. External commands are
+ * resolved once, like at the prompt, and started directly, their stdout and
+ * stderr each going to a temporary file, and stdin reading nothing. No
+ * thread waits for them: {@link Process#onExit()} copies a job's files to
+ * the shell's stdout and stderr in one piece once it has exited, so the
+ * output of parallel jobs never interleaves. A builtin, such as the default
+ * {@code echo}, runs in-process on a virtual thread with its output
+ * collected the same way. With {@code -P 1} on the shell's own terminal,
+ * children simply inherit it.
+ *
+ * The exit status is GNU's: 123 if any command failed, 124 if one exited
+ * with 255, after which no more are started, 126 or 127 if the command could
+ * not be run or was not found, and 1 for a problem with the input.
+ */
+public class Xargs implements CommandInterface {
+  private static final String USAGE =
+      "usage: xargs [-0rt] [-a file] [-n max-args] [-P max-procs] [-s max-chars] [command [initial-args]]";
+  static final int DEFAULT_MAX_CHARS = 128 * 1024;
+  // kept free below the kernel's limit, as GNU xargs does
+  private static final int HEADROOM = 2048;
+
+  private final Set<String> builtins;
+
+  public Xargs(Set<String> builtins) {
+    this.builtins = builtins;
+  }
+
+  private static final class Options {
+    boolean nul;
+    boolean noRunIfEmpty;
+    boolean trace;
+    String file;
+    int maxArgs = Integer.MAX_VALUE;
+    int maxProcs = Runtime.getRuntime().availableProcessors();
+    long maxChars = DEFAULT_MAX_CHARS;
+    // what execve has room for, the argument pointers included
+    long argMax;
+  }
+
+  @Override
+  public CommandResult execute(List<String> args, ShellContext shell) {
+    Options options = new Options();
+    int i = 0;
+    for (; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--")) {
+        i++;
+        break;
+      }
+      if (!arg.startsWith("-") || arg.equals("-")) {
+        break;
+      }
+      for (int j = 1; j < arg.length(); j++) {
+        char c = arg.charAt(j);
+        switch (c) {
+          case '0' -> options.nul = true;
+          case 'r' -> options.noRunIfEmpty = true;
+          case 't' -> options.trace = true;
+          case 'a', 'n', 'P', 's' -> {
+            String value;
+            if (j + 1 < arg.length()) {
+              value = arg.substring(j + 1);
+            } else if (i + 1 < args.size()) {
+              value = args.get(++i);
+            } else {
+              return usage(shell, "option requires an argument -- '" + c + "'");
+            }
+            String problem = option(options, c, value);
+            if (problem != null) {
+              shell.err().println("xargs: " + problem);
+              return CommandResult.continueWith(1);
+            }
+            j = arg.length();
+          }
+          default -> {
+            return usage(shell, "invalid option -- '" + c + "'");
+          }
+        }
+      }
+    }
+    List<String> command = i < args.size() ? args.subList(i, args.size()) : List.of("echo");
+
+    options.argMax = argMax() - environmentSize(shell) - HEADROOM;
+    if (options.maxChars > options.argMax) {
+      shell.err().println("xargs: value for -s option should be <= " + options.argMax);
+      options.maxChars = options.argMax;
+    }
+
+    BufferedReader input = shell.in();
+    if (options.file != null) {
+      try {
+        input = Files.newBufferedReader(shell.getCwd().resolve(options.file), StandardCharsets.UTF_8);
+      } catch (NoSuchFileException e) {
+        shell.err().println("xargs: " + options.file + ": No such file or directory");
+        return CommandResult.continueWith(1);
+      } catch (IOException e) {
+        shell.err().println("xargs: " + options.file + ": " + e.getMessage());
+        return CommandResult.continueWith(1);
+      }
+    }
+
+    int status;
+    try (Fanout fanout = new Fanout(shell, command, options)) {
+      status = fanout.run(new ItemReader(input, options.nul), options);
+    } finally {
+      if (options.file != null) {
+        try {
+          input.close();
+        } catch (IOException e) {
+          // only read from
+        }
+      }
+    }
+    shell.out().flush();
+    return CommandResult.continueWith(status);
+  }
+
+  private static CommandResult usage(ShellContext shell, String problem) {
+    shell.err().println("xargs: " + problem);
+    shell.err().println(USAGE);
+    return CommandResult.continueWith(1);
+  }
+
+  // applies an option that takes a value, returning what is wrong with it
+  private static String option(Options options, char option, String value) {
+    if (option == 'a') {
+      options.file = value;
+      return null;
+    }
+    long n;
+    try {
+      n = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return "invalid number \"" + value + "\" for -" + option + " option";
+    }
+    switch (option) {
+      case 'n' -> {
+        if (n < 1) {
+          return "value " + value + " for -n option should be >= 1";
+        }
+        options.maxArgs = (int) Math.min(n, Integer.MAX_VALUE);
+      }
+      case 'P' -> {
+        if (n < 0) {
+          return "value " + value + " for -P option should be >= 0";
+        }
+        options.maxProcs = n == 0 ? Integer.MAX_VALUE : (int) Math.min(n, Integer.MAX_VALUE);
+      }
+      default -> {
+        if (n < 1) {
+          return "value " + value + " for -s option should be >= 1";
+        }
+        options.maxChars = n;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the bytes of arguments and environment, pointers included, that
+   *         execve accepts: a quarter of the stack limit, between 128 KiB and
+   *         6 MiB, as Linux works it out.
+   */
+  static long argMax() {
+    long stack = 8 << 20;
+    try {
+      for (String line : Files.readAllLines(Path.of("/proc/self/limits"))) {
+        if (line.startsWith("Max stack size")) {
+          String soft = line.substring("Max stack size".length()).trim().split("\\s+")[0];
+          stack = soft.equals("unlimited") ? Long.MAX_VALUE : Long.parseLong(soft);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // not Linux; the default stack limit is as good a guess as any
+    }
+    return Math.max(Math.min(stack / 4, 6 << 20), 128 * 1024);
+  }
+
+  private static long environmentSize(ShellContext shell) {
+    long size = 0;
+    for (Map.Entry<String, String> e : shell.variables().exported().entrySet()) {
+      size += bytes(e.getKey()) + bytes(e.getValue()) + 2 + Long.BYTES;
+    }
+    return size;
+  }
+
+  // encoded, with its NUL
+  private static int bytes(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) >= 0x80) {
+        return s.getBytes(StandardCharsets.UTF_8).length + 1;
+      }
+    }
+    return s.length() + 1;
+  }
+
+  /**
+   * Splits the input into items. By default blanks and newlines separate
+   * them, and quotes and a backslash make them part of an item; with
+   * {@code -0} only NULs do and nothing else is special.
+   */
+  static final class ItemReader {
+    private final BufferedReader in;
+    private final boolean nul;
+
+    ItemReader(BufferedReader in, boolean nul) {
+      this.in = in;
+      this.nul = nul;
+    }
+
+    /**
+     * @return the next item, or null at the end of the input.
+     * @throws IOException on an unmatched quote, or if reading fails.
+     */
+    String next() throws IOException {
+      StringBuilder item = new StringBuilder();
+      int c;
+      if (nul) {
+        while ((c = in.read()) != -1 && c != 0) {
+          item.append((char) c);
+        }
+        return c == -1 && item.isEmpty() ? null : item.toString();
+      }
+
+      do {
+        c = in.read();
+      } while (c == ' ' || c == '\t' || c == '\n');
+      if (c == -1) {
+        return null;
+      }
+      for (; c != -1 && c != ' ' && c != '\t' && c != '\n'; c = in.read()) {
+        if (c == '\'' || c == '"') {
+          int quote = c;
+          while ((c = in.read()) != quote) {
+            if (c == -1 || c == '\n') {
+              throw new IOException("unmatched " + (quote == '"' ? "double" : "single")
+                  + " quote; by default quotes are special to xargs unless you use the -0 option");
+            }
+            item.append((char) c);
+          }
+        } else if (c == '\\') {
+          c = in.read();
+          if (c != -1) {
+            item.append((char) c);
+          }
+        } else {
+          item.append((char) c);
+        }
+      }
+      return item.toString();
+    }
+  }
+
+  // the files a job's stdout and stderr go to until it has exited
+  private record Spool(Path out, Path err) {
+  }
+
+  /**
+   * One xargs invocation: batches the items into command lines and keeps up
+   * to {@code -P} of them running.
+   */
+  private final class Fanout implements AutoCloseable {
+    private final ShellContext shell;
+    private final List<String> command;
+    private final boolean builtin;
+    private final boolean direct;
+    private final boolean trace;
+    private final Semaphore slots;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<CompletableFuture<Void>> jobs = new ArrayList<>();
+    private final List<Spool> spools = new ArrayList<>();
+    private final Deque<Spool> spare = new ArrayDeque<>();
+    // guards the shell's writers and everything below
+    private final Object lock = new Object();
+    private String filepath;
+    private int status;
+    private volatile boolean aborted;
+
+    Fanout(ShellContext shell, List<String> command, Options options) {
+      this.shell = shell;
+      this.command = List.copyOf(command);
+      this.builtin = builtins.contains(command.get(0));
+      this.direct = options.maxProcs == 1 && shell.inheritsStdio() && !builtin;
+      this.trace = options.trace;
+      this.slots = new Semaphore(options.maxProcs);
+    }
+
+    /**
+     * @return the exit status of the whole run.
+     */
+    int run(ItemReader items, Options options) {
+      long baseChars = 0;
+      for (String arg : command) {
+        baseChars += bytes(arg);
+      }
+      long baseArgBytes = baseChars + (long) command.size() * Long.BYTES;
+      List<String> batch = new ArrayList<>(command);
+      long chars = baseChars;
+      long argBytes = baseArgBytes;
+      boolean ran = false;
+
+      try {
+        for (String item = items.next(); item != null && !aborted; item = items.next()) {
+          long size = bytes(item);
+          if (baseChars + size > options.maxChars) {
+            shell.err().println("xargs: argument line too long");
+            setStatus(1);
+            break;
+          }
+          if (chars + size > options.maxChars || argBytes + size + Long.BYTES > options.argMax
+              || batch.size() - command.size() == options.maxArgs) {
+            launch(batch);
+            ran = true;
+            batch = new ArrayList<>(command);
+            chars = baseChars;
+            argBytes = baseArgBytes;
+          }
+          batch.add(item);
+          chars += size;
+          argBytes += size + Long.BYTES;
+        }
+      } catch (IOException e) {
+        shell.err().println("xargs: " + e.getMessage());
+        setStatus(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        shell.err().println("xargs: interrupted");
+        return 130;
+      }
+
+      try {
+        if (!aborted && (batch.size() > command.size() || !ran && !options.noRunIfEmpty)) {
+          launch(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        shell.err().println("xargs: interrupted");
+        return 130;
+      }
+      CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).join();
+      synchronized (lock) {
+        return status;
+      }
+    }
+
+    private void launch(List<String> args) throws InterruptedException {
+      slots.acquire();
+      if (aborted) {
+        slots.release();
+        return;
+      }
+      if (trace) {
+        synchronized (lock) {
+          shell.err().println(String.join(" ", args));
+          shell.err().flush();
+        }
+      }
+      jobs.add(builtin ? runBuiltin(args) : start(args));
+    }
+
+    private CompletableFuture<Void> runBuiltin(List<String> args) {
+      return CompletableFuture.runAsync(() -> {
+        StringWriter out = new StringWriter();
+        StringWriter err = new StringWriter();
+        IoContext io = new IoContext(IoContext.emptyReader(), new PrintWriter(out), new PrintWriter(err),
+            EnumSet.noneOf(IoContext.Resource.class));
+        int exitCode;
+        try {
+          exitCode = shell.runner().run(new Command(args, List.of()), shell.withIo(io)).getExitCode();
+        } catch (IOException e) {
+          err.write(args.get(0) + ": " + e.getMessage() + "\n");
+          exitCode = 1;
+        }
+        io.out().flush();
+        io.err().flush();
+        synchronized (lock) {
+          shell.out().write(out.toString());
+          shell.out().flush();
+          shell.err().write(err.toString());
+          shell.err().flush();
+          finished(args, exitCode);
+        }
+      }, threads);
+    }
+
+    private CompletableFuture<Void> start(List<String> args) {
+      Spool spool = null;
+      try {
+        if (filepath == null) {
+          Optional<String> resolved = CommandUtils.getCommandFilepath(command.get(0), shell);
+          if (resolved.isEmpty()) {
+            return failed(127, command.get(0) + ": No such file or directory");
+          }
+          filepath = resolved.get();
+        }
+        ProcessBuilder builder = new ProcessBuilder(CommandUtils.withFilepath(args, filepath))
+            .directory(shell.getCwd().toFile());
+        shell.variables().applyTo(builder);
+        // everything is inherited but stdin, which is where the items came from
+        builder.inheritIO().redirectInput(ProcessBuilder.Redirect.PIPE);
+        if (!direct) {
+          spool = spool();
+          builder.redirectOutput(spool.out().toFile()).redirectError(spool.err().toFile());
+        } else {
+          synchronized (lock) {
+            shell.out().flush();
+            shell.err().flush();
+          }
+        }
+
+        Process process = builder.start();
+        process.getOutputStream().close();
+        Spool jobSpool = spool;
+        return process.onExit().thenAcceptAsync(p -> collect(args, p.exitValue(), jobSpool), threads);
+      } catch (IOException e) {
+        if (spool != null) {
+          synchronized (lock) {
+            spare.push(spool);
+          }
+        }
+        // "Cannot run program "...": error=13, Permission denied"
+        String message = e.getMessage() != null && e.getMessage().contains(", ")
+            ? e.getMessage().substring(e.getMessage().lastIndexOf(", ") + 2)
+            : String.valueOf(e.getMessage());
+        return failed(126, command.get(0) + ": " + message);
+      }
+    }
+
+    private CompletableFuture<Void> failed(int exitCode, String message) {
+      synchronized (lock) {
+        shell.err().println("xargs: " + message);
+        shell.err().flush();
+        setStatus(exitCode);
+        aborted = true;
+      }
+      slots.release();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // copies a finished job's output, all of it at once.
+    private void collect(List<String> args, int exitCode, Spool spool) {
+      synchronized (lock) {
+        try {
+          if (spool != null) {
+            copy(spool.out(), shell.out());
+            copy(spool.err(), shell.err());
+          }
+        } catch (IOException e) {
+          // the reader went away, as `xargs ... | head` does; stop starting more.
+          setStatus(1);
+          aborted = true;
+        } finally {
+          if (spool != null) {
+            spare.push(spool);
+          }
+        }
+        finished(args, exitCode);
+      }
+    }
+
+    // one per running job at most; the next job's redirect truncates them.
+    private Spool spool() throws IOException {
+      synchronized (lock) {
+        if (!spare.isEmpty()) {
+          return spare.pop();
+        }
+      }
+      Spool spool = new Spool(Files.createTempFile("xargs", ".out"), Files.createTempFile("xargs", ".err"));
+      synchronized (lock) {
+        spools.add(spool);
+      }
+      return spool;
+    }
+
+    private static void copy(Path file, PrintWriter to) throws IOException {
+      if (Files.size(file) > 0) {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+          Cat.copy(in, to);
+        }
+        to.flush();
+        if (to.checkError()) {
+          throw new IOException("Broken pipe");
+        }
+      }
+    }
+
+    // called holding the lock
+    private void finished(List<String> args, int exitCode) {
+      if (exitCode == 255) {
+        shell.err().println("xargs: " + args.get(0) + ": exited with status 255; aborting");
+        shell.err().flush();
+        setStatus(124);
+        aborted = true;
+      } else if (exitCode != 0) {
+        setStatus(123);
+      }
+      slots.release();
+    }
+
+    // the most serious status wins: not run at all, aborted, failed, input
+    // problems.
+    private void setStatus(int exitCode) {
+      synchronized (lock) {
+        if (rank(exitCode) > rank(status)) {
+          status = exitCode;
+        }
+      }
+    }
+
+    private static int rank(int exitCode) {
+      return switch (exitCode) {
+        case 0 -> 0;
+        case 1 -> 1;
+        case 123 -> 2;
+        case 124 -> 3;
+        default -> 4;
+      };
+    }
+
+    @Override
+    public void close() {
+      threads.close();
+      for (Spool spool : spools) {
+        for (Path file : List.of(spool.out(), spool.err())) {
+          try {
+            Files.deleteIfExists(file);
+          } catch (IOException e) {
+            // left in the temp directory
+          }
+        }
+      }
+    }
+  }
+}
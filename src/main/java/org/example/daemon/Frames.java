@@ -0,0 +1,111 @@
+package org.example.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The wire format between {@link ShellClient} and {@link ShellServer}. Every
+ * message is a frame: a one byte type, a four byte big-endian length and that
+ * many bytes of payload.
+ *
+ * <pre>
+ * client to server:  CWD  the directory the session starts in (UTF-8)
+ *                    RUN  the commands to run, one per line (UTF-8)
+ * server to client:  OUT  bytes written to stdout
+ *                    ERR  bytes written to stderr
+ *                    EXIT the exit status as a four byte int, always last
+ * </pre>
+ */
+public final class Frames {
+  public static final byte CWD = 'C';
+  public static final byte RUN = 'R';
+  public static final byte OUT = 'O';
+  public static final byte ERR = 'E';
+  public static final byte EXIT = 'X';
+
+  // a command line or script larger than this is almost certainly garbage.
+  static final int MAX_REQUEST_LENGTH = 64 * 1024 * 1024;
+
+  public record Frame(byte type, byte[] payload) {
+    public String text() {
+      return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public int status() {
+      return (payload[0] & 0xff) << 24 | (payload[1] & 0xff) << 16 | (payload[2] & 0xff) << 8 | (payload[3] & 0xff);
+    }
+  }
+
+  private Frames() {
+  }
+
+  public static void write(DataOutputStream out, byte type, byte[] payload, int off, int len) throws IOException {
+    synchronized (out) {
+      out.writeByte(type);
+      out.writeInt(len);
+      out.write(payload, off, len);
+      out.flush();
+    }
+  }
+
+  public static void writeText(DataOutputStream out, byte type, String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    write(out, type, bytes, 0, bytes.length);
+  }
+
+  public static void writeStatus(DataOutputStream out, int status) throws IOException {
+    byte[] bytes = { (byte) (status >>> 24), (byte) (status >>> 16), (byte) (status >>> 8), (byte) status };
+    write(out, EXIT, bytes, 0, bytes.length);
+  }
+
+  /**
+   * @return the next frame, or null at a clean end of stream.
+   */
+  public static Frame read(DataInputStream in, int maxLength) throws IOException {
+    int type = in.read();
+    if (type == -1) {
+      return null;
+    }
+    int length = in.readInt();
+    if (length < 0 || length > maxLength) {
+      throw new IOException("frame too large: " + length + " bytes");
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    if (type == EXIT && length != 4) {
+      throw new EOFException("malformed exit frame");
+    }
+    return new Frame((byte) type, payload);
+  }
+
+  /**
+   * An output stream that sends everything written to it as frames of one
+   * type. Nothing is buffered here; wrap it in a writer that is flushed at
+   * sensible points.
+   */
+  static final class FrameOutputStream extends OutputStream {
+    private final DataOutputStream out;
+    private final byte type;
+
+    FrameOutputStream(DataOutputStream out, byte type) {
+      this.out = out;
+      this.type = type;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len > 0) {
+        Frames.write(out, type, b, off, len);
+      }
+    }
+  }
+}
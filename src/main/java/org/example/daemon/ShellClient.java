@@ -0,0 +1,74 @@
+package org.example.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Sends commands to a {@link ShellServer} and streams back what they print.
+ * Only uses the JDK and {@link Frames}, so running it loads none of the
+ * shell itself.
+ */
+public final class ShellClient {
+
+  private ShellClient() {
+  }
+
+  /**
+   * @return the socket used when none is given, one per user in a directory
+   *         of its own under the temp directory, which the daemon creates
+   *         for its owner only.
+   */
+  public static Path defaultSocket() {
+    return Path.of(System.getProperty("java.io.tmpdir"), "javashell-" + System.getProperty("user.name"),
+        "daemon.sock");
+  }
+
+  /**
+   * Runs {@code commands} in a new session starting in {@code cwd}, copying
+   * the session's stdout and stderr to {@code out} and {@code err} as they
+   * arrive.
+   *
+   * @return the exit status of the session.
+   */
+  public static int run(Path socket, Path cwd, String commands, OutputStream out, OutputStream err)
+      throws IOException {
+    try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(socket));
+      DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      Frames.writeText(request, Frames.CWD, cwd.toString());
+      Frames.writeText(request, Frames.RUN, commands);
+
+      DataInputStream response = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      while (true) {
+        Frames.Frame frame = Frames.read(response, Integer.MAX_VALUE);
+        if (frame == null) {
+          throw new EOFException("javashell daemon closed the connection without an exit status");
+        }
+        switch (frame.type()) {
+          case Frames.OUT -> {
+            out.write(frame.payload());
+            out.flush();
+          }
+          case Frames.ERR -> {
+            err.write(frame.payload());
+            err.flush();
+          }
+          case Frames.EXIT -> {
+            return frame.status();
+          }
+          default -> throw new IOException("unexpected frame type: " + frame.type());
+        }
+      }
+    }
+  }
+}
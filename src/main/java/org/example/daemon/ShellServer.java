@@ -0,0 +1,195 @@
+package org.example.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.example.Shell;
+import org.example.ShellContext;
+import org.example.commands.Builtins;
+import org.example.evaluator.ChannelPrintWriter;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.example.evaluator.JobTable;
+
+/**
+ * Keeps one warm JVM listening on a Unix domain socket and runs the commands
+ * each {@link ShellClient} sends, so short-lived invocations skip JVM startup,
+ * class loading and building the PATH index.
+ *
+ * Every connection is served on its own virtual thread with its own
+ * {@link ShellContext}, so a {@code cd} in one session does not move another.
+ * The command location cache, the PATH index and the parse cache are static
+ * and shared by all sessions. A session's stdin is empty; its stdout and
+ * stderr, including those of external commands, are sent back as
+ * {@link Frames}, followed by the exit status once the session's background
+ * jobs have finished too.
+ *
+ * Anyone who can connect can run commands as the daemon's user, so the socket
+ * is made owner-only before the first connection is accepted, and a missing
+ * directory for it is created owner-only too. A daemon already listening on
+ * the socket is left alone rather than having its socket unlinked.
+ */
+public class ShellServer implements AutoCloseable {
+  private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+  private static final Set<PosixFilePermission> OWNER_ONLY_SOCKET = PosixFilePermissions.fromString("rw-------");
+
+  private final Path socket;
+  private final Builtins builtins = new Builtins();
+  private final ServerSocketChannel server;
+
+  /**
+   * @throws IOException if another daemon is listening on {@code socket}.
+   */
+  public ShellServer(Path socket) throws IOException {
+    this.socket = socket;
+    checkDirectory(socket.toAbsolutePath().getParent());
+    if (isListening(socket)) {
+      throw new IOException(socket + ": a daemon is already listening on it");
+    }
+    // a socket file left behind by a daemon that died would make bind fail.
+    Files.deleteIfExists(socket);
+    server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    try {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      Files.setPosixFilePermissions(socket, OWNER_ONLY_SOCKET);
+    } catch (IOException | RuntimeException e) {
+      server.close();
+      throw e;
+    }
+  }
+
+  private static void checkDirectory(Path dir) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+      return;
+    }
+    // someone else could have made the default one first, to swap the socket
+    // for theirs
+    if (dir.equals(ShellClient.defaultSocket().toAbsolutePath().getParent())
+        && (!Files.getOwner(dir).getName().equals(System.getProperty("user.name"))
+            || !Files.getPosixFilePermissions(dir).equals(OWNER_ONLY_DIRECTORY))) {
+      throw new IOException(dir + ": not a directory only its owner can use");
+    }
+  }
+
+  private static boolean isListening(Path socket) {
+    if (!Files.exists(socket)) {
+      return false;
+    }
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+      // the daemon sees a session that ends before it sends anything
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  public Path socket() {
+    return socket;
+  }
+
+  /**
+   * Accepts connections until {@link #close} is called.
+   */
+  public void serve() throws IOException {
+    while (true) {
+      SocketChannel channel;
+      try {
+        channel = server.accept();
+      } catch (ClosedChannelException e) {
+        return;
+      }
+      Thread.ofVirtual().name("javashell-session").start(() -> session(channel));
+    }
+  }
+
+  private void session(SocketChannel channel) {
+    try (channel) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+      String cwd = null;
+      String commands = null;
+      while (commands == null) {
+        Frames.Frame frame = Frames.read(in, Frames.MAX_REQUEST_LENGTH);
+        if (frame == null) {
+          return;
+        }
+        switch (frame.type()) {
+          case Frames.CWD -> cwd = frame.text();
+          case Frames.RUN -> commands = frame.text();
+          default -> throw new IOException("unexpected frame type: " + frame.type());
+        }
+      }
+
+      PrintWriter stdout = writer(out, Frames.OUT);
+      PrintWriter stderr = writer(out, Frames.ERR);
+      IoContext io = new IoContext(new BufferedReader(Reader.nullReader()), stdout, stderr,
+          EnumSet.noneOf(IoContext.Resource.class));
+      ShellContext ctx = new ShellContext(io, false);
+      if (cwd != null && Files.isDirectory(Path.of(cwd))) {
+        ctx.setCwd(Path.of(cwd));
+      }
+
+      int status;
+      try {
+        status = new Shell(ctx, new Evaluator(ctx, builtins))
+            .runScript(new BufferedReader(new StringReader(commands)));
+      } catch (RuntimeException e) {
+        // a bug of ours; the client still gets an answer rather than EOF
+        stderr.println("javashell: " + e);
+        status = 1;
+      }
+      awaitJobs(ctx);
+      stdout.flush();
+      stderr.flush();
+      Frames.writeStatus(out, status);
+    } catch (IOException e) {
+      // the client hung up or sent garbage; there is no one left to tell.
+    }
+  }
+
+  // as with a pipe, the session's output only ends once nothing started in
+  // it can still write there.
+  private static void awaitJobs(ShellContext ctx) {
+    try {
+      for (JobTable.Job job : ctx.jobs().list()) {
+        job.await();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static PrintWriter writer(DataOutputStream out, byte type) {
+    Frames.FrameOutputStream frames = new Frames.FrameOutputStream(out, type);
+    return new ChannelPrintWriter(new OutputStreamWriter(frames, StandardCharsets.UTF_8), Channels.newChannel(frames));
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    Files.deleteIfExists(socket);
+  }
+}
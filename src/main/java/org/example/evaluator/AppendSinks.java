@@ -0,0 +1,92 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The files builtins append to ({@code >>}, {@code 2>>}, {@code &>>}), kept
+ * open between commands so a loop of {@code echo ... >> log} opens the log
+ * once rather than once per line.
+ *
+ * The owner flushes every handle at the end of each command, so nothing is
+ * left buffered while another command, or another program, reads or writes
+ * the same file. A handle is reopened when its path no longer names the file
+ * it was opened on, e.g. after the log was removed or rotated. At most
+ * {@link #MAX_OPEN} handles are kept, closing the least recently used one.
+ *
+ * Not thread safe; each {@link Evaluator} has its own, which only the thread
+ * running its command lines uses. Background jobs open their targets anew.
+ */
+final class AppendSinks {
+  static final int MAX_OPEN = 16;
+
+  private record Sink(Object fileKey, PrintWriter writer) {
+  }
+
+  private final Map<Path, Sink> open = new LinkedHashMap<>(MAX_OPEN, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, Sink> eldest) {
+      if (size() > MAX_OPEN) {
+        eldest.getValue().writer().close();
+        return true;
+      }
+      return false;
+    }
+  };
+
+  /**
+   * @param path the target, already resolved against the shell's cwd, so
+   *             that the same name in two directories is two files.
+   * @return a writer appending to {@code path}, owned by this and not to be
+   *         closed by the caller, or null if the file system cannot identify
+   *         the file and the caller has to open it itself.
+   */
+  PrintWriter get(Path path) throws IOException {
+    Path key = path.toAbsolutePath().normalize();
+    Sink sink = open.get(key);
+    if (sink != null) {
+      if (sink.fileKey().equals(fileKey(key))) {
+        return sink.writer();
+      }
+      open.remove(key);
+      sink.writer().close();
+    }
+
+    PrintWriter writer = new ChannelPrintWriter(ChannelWriter.open(key, true));
+    Object fileKey = fileKey(key);
+    if (fileKey == null) {
+      // nothing to tell a rotated file apart by, so it is not kept open
+      writer.close();
+      return null;
+    }
+    open.put(key, new Sink(fileKey, writer));
+    return writer;
+  }
+
+  void flush() {
+    for (Sink sink : open.values()) {
+      sink.writer().flush();
+    }
+  }
+
+  void close() {
+    for (Sink sink : open.values()) {
+      sink.writer().close();
+    }
+    open.clear();
+  }
+
+  private static Object fileKey(Path path) throws IOException {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.example.evaluator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * The reading side of {@link ChannelPrintWriter}: a {@link BufferedReader}
+ * that gives access to the byte channel it decodes, so {@code cat} can copy
+ * its stdin without decoding it.
+ *
+ * The channel is only handed out while nothing has been read through the
+ * reader, since after that some of its bytes may already sit decoded in the
+ * buffer.
+ */
+public class ChannelBufferedReader extends BufferedReader {
+  private final ReadableByteChannel channel;
+  private volatile boolean touched;
+
+  /**
+   * @param channel the bytes {@code in} decodes, not yet read from.
+   */
+  public ChannelBufferedReader(Reader in, ReadableByteChannel channel) {
+    super(in);
+    this.channel = channel;
+  }
+
+  ChannelBufferedReader(InputStream in) {
+    this(new InputStreamReader(in, StandardCharsets.UTF_8), Channels.newChannel(in));
+  }
+
+  ChannelBufferedReader(ReadableByteChannel channel) {
+    this(Channels.newReader(channel, StandardCharsets.UTF_8), channel);
+  }
+
+  /**
+   * @return the channel behind {@code reader}, or empty if it is not a
+   *         {@link ChannelBufferedReader} or has already been read from.
+   */
+  public static Optional<ReadableByteChannel> channel(BufferedReader reader) {
+    if (reader instanceof ChannelBufferedReader channelReader && !channelReader.touched) {
+      return Optional.of(channelReader.channel);
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public int read() throws IOException {
+    touched = true;
+    return super.read();
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    touched = true;
+    return super.read(cbuf, off, len);
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    touched = true;
+    return super.readLine();
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    touched = true;
+    return super.skip(n);
+  }
+}
@@ -0,0 +1,67 @@
+package org.example.evaluator;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A {@link PrintWriter} that also gives access to the byte channel its
+ * characters end up in, so a builtin that only moves bytes around, like
+ * {@code cat}, can skip decoding and encoding and hand the copy to
+ * {@link java.nio.channels.FileChannel#transferTo}.
+ *
+ * The shell's own stdout and stderr, redirect targets, pipeline pipes and
+ * daemon session streams are all written through one of these.
+ */
+public class ChannelPrintWriter extends PrintWriter {
+  private final WritableByteChannel channel;
+  private final Path file;
+
+  /**
+   * @param channel where {@code out} writes its encoded bytes to. Bytes
+   *                written to it directly after a {@link #flush} land after
+   *                everything printed so far.
+   */
+  public ChannelPrintWriter(Writer out, WritableByteChannel channel) {
+    this(out, channel, null);
+  }
+
+  /**
+   * @param file the file {@code channel} writes to, or null if it is not
+   *             known to be one.
+   */
+  public ChannelPrintWriter(Writer out, WritableByteChannel channel, Path file) {
+    super(out);
+    this.channel = channel;
+    this.file = file;
+  }
+
+  ChannelPrintWriter(ChannelWriter out) {
+    this(out, out.channel(), out.path());
+  }
+
+  /**
+   * @return the channel behind {@code writer} with everything printed to it so
+   *         far flushed, or empty if it is not a {@link ChannelPrintWriter}.
+   */
+  public static Optional<WritableByteChannel> channel(PrintWriter writer) {
+    if (writer instanceof ChannelPrintWriter channelWriter) {
+      channelWriter.flush();
+      return Optional.of(channelWriter.channel);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return the file {@code writer} writes to, if it is known, so that a
+   *         builtin can tell it is about to read its own output.
+   */
+  public static Optional<Path> file(PrintWriter writer) {
+    if (writer instanceof ChannelPrintWriter channelWriter) {
+      return Optional.ofNullable(channelWriter.file);
+    }
+    return Optional.empty();
+  }
+}
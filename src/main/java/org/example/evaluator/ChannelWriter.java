@@ -0,0 +1,201 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link Writer} for redirect targets that encodes UTF-8 by hand into a
+ * direct buffer and writes it to a {@link FileChannel} only when the buffer
+ * fills or on {@link #flush}. ASCII, which is nearly all shell output, is
+ * copied a byte per char without going through a {@code CharsetEncoder}.
+ *
+ * Buffers are handed back to a small shared pool on close, so a redirect per
+ * command does not allocate a fresh direct buffer each time.
+ */
+final class ChannelWriter extends Writer {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int POOLED_BUFFERS = 8;
+  private static final Queue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+
+  // what CharsetEncoder writes for a lone surrogate
+  private static final byte REPLACEMENT = '?';
+
+  private final FileChannel channel;
+  private final Path path;
+  private ByteBuffer buffer;
+  // the first half of a surrogate pair split across two writes
+  private char pendingHigh;
+
+  private ChannelWriter(FileChannel channel, Path path) {
+    this.channel = channel;
+    this.path = path;
+    ByteBuffer pooled = FREE.poll();
+    this.buffer = pooled != null ? pooled : ByteBuffer.allocateDirect(BUFFER_SIZE);
+  }
+
+  static ChannelWriter open(Path path, boolean append) throws IOException {
+    OpenOption[] options = append
+        ? new OpenOption[] { StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND }
+        : new OpenOption[] { StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING };
+    return new ChannelWriter(FileChannel.open(path, options), path);
+  }
+
+  FileChannel channel() {
+    return channel;
+  }
+
+  Path path() {
+    return path;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    ensureOpen();
+    encode((char) c);
+  }
+
+  @Override
+  public void write(char[] chars, int off, int len) throws IOException {
+    ensureOpen();
+    int end = off + len;
+    int i = off;
+    while (i < end) {
+      i = putAscii(chars, i, end);
+      if (i < end) {
+        encode(chars[i++]);
+      }
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    ensureOpen();
+    int end = off + len;
+    int i = off;
+    while (i < end) {
+      i = putAscii(str, i, end);
+      if (i < end) {
+        encode(str.charAt(i++));
+      }
+    }
+  }
+
+  // copies the run of ASCII starting at i, stopping at the first other char or
+  // when the buffer is full. Returns where it stopped.
+  private int putAscii(char[] chars, int i, int end) throws IOException {
+    if (pendingHigh != 0) {
+      return i;
+    }
+    ensureRoom(1);
+    int stop = Math.min(end, i + buffer.remaining());
+    while (i < stop && chars[i] < 0x80) {
+      buffer.put((byte) chars[i++]);
+    }
+    return i;
+  }
+
+  private int putAscii(String str, int i, int end) throws IOException {
+    if (pendingHigh != 0) {
+      return i;
+    }
+    ensureRoom(1);
+    int stop = Math.min(end, i + buffer.remaining());
+    while (i < stop && str.charAt(i) < 0x80) {
+      buffer.put((byte) str.charAt(i++));
+    }
+    return i;
+  }
+
+  private void encode(char c) throws IOException {
+    ensureRoom(4);
+    if (pendingHigh != 0) {
+      char high = pendingHigh;
+      pendingHigh = 0;
+      if (Character.isLowSurrogate(c)) {
+        int cp = Character.toCodePoint(high, c);
+        buffer.put((byte) (0xf0 | (cp >> 18)))
+            .put((byte) (0x80 | ((cp >> 12) & 0x3f)))
+            .put((byte) (0x80 | ((cp >> 6) & 0x3f)))
+            .put((byte) (0x80 | (cp & 0x3f)));
+        return;
+      }
+      buffer.put(REPLACEMENT);
+    }
+
+    if (c < 0x80) {
+      buffer.put((byte) c);
+    } else if (c < 0x800) {
+      buffer.put((byte) (0xc0 | (c >> 6)))
+          .put((byte) (0x80 | (c & 0x3f)));
+    } else if (Character.isHighSurrogate(c)) {
+      pendingHigh = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.put(REPLACEMENT);
+    } else {
+      buffer.put((byte) (0xe0 | (c >> 12)))
+          .put((byte) (0x80 | ((c >> 6) & 0x3f)))
+          .put((byte) (0x80 | (c & 0x3f)));
+    }
+  }
+
+  private void ensureRoom(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      drain();
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (buffer == null) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * Writes out everything buffered. A high surrogate still waiting for its
+   * pair stays buffered.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    drain();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      if (pendingHigh != 0) {
+        pendingHigh = 0;
+        ensureRoom(1);
+        buffer.put(REPLACEMENT);
+      }
+      drain();
+    } finally {
+      ByteBuffer released = buffer;
+      buffer = null;
+      released.clear();
+      if (FREE.size() < POOLED_BUFFERS) {
+        FREE.offer(released);
+      }
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package org.example.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers where commands were found on PATH, like bash's {@code hash} table.
+ *
+ * Entries are keyed by the command name and the PATH value they were
+ * resolved against, so changing PATH never returns a stale location. An entry
+ * is dropped when its binary is no longer executable, or when any PATH
+ * directory searched before the match (including the one it was found in)
+ * has a new mtime, since that is how a command added earlier on PATH would
+ * shadow it.
+ *
+ * Directory mtimes are shared between entries and re-read at most once per
+ * recheck interval (one second by default), so a cache hit normally costs one
+ * {@code access()} call on the binary.
+ */
+public class CommandCache {
+  public static final Duration DEFAULT_DIR_RECHECK_INTERVAL = Duration.ofSeconds(1);
+
+  public record Entry(String command, String path, int hits) {
+  }
+
+  private record Key(String command, String pathEnv) {
+  }
+
+  private record Resolved(String path, long[] generations, AtomicInteger hits) {
+  }
+
+  private final class DirStamp {
+    private final Path dir;
+    private FileTime mtime;
+    private long checkedAt;
+    private long generation;
+
+    DirStamp(Path dir) {
+      this.dir = dir;
+      this.mtime = readMtime(dir);
+      this.checkedAt = System.nanoTime();
+    }
+
+    synchronized long generation() {
+      long now = System.nanoTime();
+      if (now - checkedAt >= dirRecheckNanos) {
+        checkedAt = now;
+        FileTime current = readMtime(dir);
+        if (!current.equals(mtime)) {
+          mtime = current;
+          generation++;
+        }
+      }
+      return generation;
+    }
+
+    private FileTime readMtime(Path dir) {
+      try {
+        return Files.getLastModifiedTime(dir);
+      } catch (IOException e) {
+        return FileTime.fromMillis(0);
+      }
+    }
+  }
+
+  private final Map<Key, Resolved> entries = new ConcurrentHashMap<>();
+  private final Map<Path, DirStamp> dirs = new ConcurrentHashMap<>();
+  private final long dirRecheckNanos;
+
+  public CommandCache() {
+    this(DEFAULT_DIR_RECHECK_INTERVAL);
+  }
+
+  public CommandCache(Duration dirRecheckInterval) {
+    this.dirRecheckNanos = dirRecheckInterval.toNanos();
+  }
+
+  /**
+   * Resolves {@code command} against {@code pathEnv}, using the cached location
+   * while it is still valid.
+   *
+   * @return the path of the executable, or empty if it is not on PATH.
+   */
+  public Optional<String> lookup(String command, String pathEnv) {
+    if (command == null || command.trim().isEmpty() || pathEnv == null) {
+      return Optional.empty();
+    }
+
+    Key key = new Key(command, pathEnv);
+    Resolved cached = entries.get(key);
+    if (cached != null && isValid(cached, pathEnv)) {
+      cached.hits().incrementAndGet();
+      return Optional.of(cached.path());
+    }
+
+    entries.remove(key);
+    Resolved resolved = resolve(command, pathEnv);
+    if (resolved == null) {
+      return Optional.empty();
+    }
+    resolved.hits().incrementAndGet();
+    entries.put(key, resolved);
+    return Optional.of(resolved.path());
+  }
+
+  /**
+   * Records a location found by another resolver, such as the
+   * {@link PathIndex}, and counts it as a hit. Touches no files.
+   */
+  public void remember(String command, String pathEnv, String path) {
+    entries.compute(new Key(command, pathEnv),
+        (key, cached) -> cached != null && cached.path().equals(path)
+            ? cached
+            : new Resolved(path, new long[0], new AtomicInteger()))
+        .hits().incrementAndGet();
+  }
+
+  /**
+   * Adds {@code command} to the table without counting it as a hit.
+   *
+   * @return false if the command could not be found on PATH.
+   */
+  public boolean seed(String command, String pathEnv) {
+    if (command == null || command.trim().isEmpty() || pathEnv == null) {
+      return false;
+    }
+    Resolved resolved = resolve(command, pathEnv);
+    if (resolved == null) {
+      return false;
+    }
+    entries.put(new Key(command, pathEnv), resolved);
+    return true;
+  }
+
+  /**
+   * @return the cached location of {@code command} without validating it.
+   */
+  public Optional<String> peek(String command, String pathEnv) {
+    Resolved cached = entries.get(new Key(command, pathEnv));
+    return cached == null ? Optional.empty() : Optional.of(cached.path());
+  }
+
+  public boolean forget(String command, String pathEnv) {
+    return entries.remove(new Key(command, pathEnv)) != null;
+  }
+
+  public void clear() {
+    entries.clear();
+    dirs.clear();
+  }
+
+  /**
+   * @return the entries resolved against {@code pathEnv}, sorted by command
+   *         name.
+   */
+  public List<Entry> entries(String pathEnv) {
+    List<Entry> result = new ArrayList<>();
+    entries.forEach((key, resolved) -> {
+      if (key.pathEnv().equals(pathEnv)) {
+        result.add(new Entry(key.command(), resolved.path(), resolved.hits().get()));
+      }
+    });
+    result.sort(Comparator.comparing(Entry::command));
+    return result;
+  }
+
+  private boolean isValid(Resolved cached, String pathEnv) {
+    String[] pathDirs = pathEnv.split(File.pathSeparator);
+    for (int i = 0; i < cached.generations().length; i++) {
+      if (stampFor(pathDirs[i]).generation() != cached.generations()[i]) {
+        return false;
+      }
+    }
+    return Files.isExecutable(Path.of(cached.path()));
+  }
+
+  private Resolved resolve(String command, String pathEnv) {
+    String[] pathDirs = pathEnv.split(File.pathSeparator);
+
+    for (int i = 0; i < pathDirs.length; i++) {
+      Path commandPath = Paths.get(pathDirs[i], command);
+      File commandFile = commandPath.toFile();
+
+      if (commandFile.isFile() && commandFile.canExecute()) {
+        long[] generations = new long[i + 1];
+        for (int j = 0; j <= i; j++) {
+          generations[j] = stampFor(pathDirs[j]).generation();
+        }
+        return new Resolved(commandPath.toAbsolutePath().toString(), generations, new AtomicInteger());
+      }
+    }
+    return null;
+  }
+
+  private DirStamp stampFor(String dir) {
+    Path path = Paths.get(dir);
+    return dirs.computeIfAbsent(path, DirStamp::new);
+  }
+}
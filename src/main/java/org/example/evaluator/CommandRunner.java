@@ -0,0 +1,16 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+
+import org.example.ShellContext;
+import org.example.parser.Command;
+
+/**
+ * Runs a single parsed command, builtin or external, the way the shell would
+ * at the prompt. Builtins that wrap another command, such as {@code time},
+ * reach the evaluator through this via {@link ShellContext#runner()}.
+ */
+@FunctionalInterface
+public interface CommandRunner {
+  CommandResult run(Command cmd, ShellContext shell) throws IOException;
+}
@@ -1,33 +1,71 @@
 package org.example.evaluator;
 
-import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import org.example.ShellContext;
+
 public class CommandUtils {
-  
+
+  private static final CommandCache CACHE = new CommandCache();
+  private static final PathIndex INDEX = new PathIndex();
+
+  /**
+   * @return the table of resolved command locations shared by the whole shell.
+   */
+  public static CommandCache cache() {
+    return CACHE;
+  }
+
+  /**
+   * @return the background index of every executable on PATH.
+   */
+  public static PathIndex index() {
+    return INDEX;
+  }
+
+  /**
+   * @return the JVM's own PATH, which the shell's starts as.
+   */
+  public static String getPathEnv() {
+    return System.getenv("PATH");
+  }
+
+  /**
+   * @return the PATH of {@code shell}, which {@code export} and
+   *         {@code unset} can change.
+   */
+  public static String getPathEnv(ShellContext shell) {
+    return shell.variables().get("PATH");
+  }
+
   public static Optional<String> getCommandFilepath(String command) {
-    if (command == null || command.trim().isEmpty()) {
-      return Optional.empty();
-    }
-    
-    String pathEnv = System.getenv("PATH");
-    if (pathEnv == null) {
-      return Optional.empty();
-    }
-    
-    String[] pathDirs = pathEnv.split(File.pathSeparator);
-    
-    for (String pathDir : pathDirs) {
-      Path commandPath = Paths.get(pathDir, command);
-      File commandFile = commandPath.toFile();
-      
-      if (commandFile.isFile() && commandFile.canExecute()) {
-        return Optional.of(commandPath.toString());
-      }
+    return getCommandFilepath(command, getPathEnv());
+  }
+
+  public static Optional<String> getCommandFilepath(String command, ShellContext shell) {
+    return getCommandFilepath(command, getPathEnv(shell));
+  }
+
+  public static Optional<String> getCommandFilepath(String command, String pathEnv) {
+    if (INDEX.isReady(pathEnv)) {
+      Optional<String> filepath = INDEX.lookup(command);
+      filepath.ifPresent(path -> CACHE.remember(command, pathEnv, path));
+      return filepath;
     }
-    
-    return Optional.empty();
+    // still warming up, or asked about a different PATH.
+    return CACHE.lookup(command, pathEnv);
+  }
+
+  /**
+   * Replaces the command name in {@code args} with its resolved location, so
+   * that {@link ProcessBuilder} executes it directly instead of searching PATH
+   * a second time.
+   */
+  public static List<String> withFilepath(List<String> args, String filepath) {
+    List<String> resolved = new ArrayList<>(args);
+    resolved.set(0, filepath);
+    return resolved;
   }
-}
\ No newline at end of file
+}
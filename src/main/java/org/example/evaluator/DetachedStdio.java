@@ -0,0 +1,92 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Connects external processes to a shell whose {@link IoContext} is not the
+ * JVM's own stdio (see {@link org.example.ShellContext#inheritsStdio}).
+ *
+ * Streams a process would have inherited are turned into pipes instead. Its
+ * stdout and stderr are copied into the shell's writers by virtual threads,
+ * flushing after every chunk so the output is seen as it is produced. Its
+ * stdin is closed straight after start, so it reads an empty input.
+ */
+final class DetachedStdio {
+  private static final int CHUNK_SIZE = 8192;
+
+  private DetachedStdio() {
+  }
+
+  static void pipeInheritedInput(ProcessBuilder builder) {
+    if (builder.redirectInput() == ProcessBuilder.Redirect.INHERIT) {
+      builder.redirectInput(ProcessBuilder.Redirect.PIPE);
+    }
+  }
+
+  /**
+   * @return true if stdout was inherited and is now a pipe to be copied.
+   */
+  static boolean pipeInheritedOutput(ProcessBuilder builder) {
+    if (builder.redirectOutput() == ProcessBuilder.Redirect.INHERIT) {
+      builder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if stderr was inherited and is now a pipe to be copied.
+   */
+  static boolean pipeInheritedError(ProcessBuilder builder) {
+    if (!builder.redirectErrorStream() && builder.redirectError() == ProcessBuilder.Redirect.INHERIT) {
+      builder.redirectError(ProcessBuilder.Redirect.PIPE);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Copies {@code from} into {@code to} on one of {@code threads} until end of
+   * file. The caller waits for the copy by closing the executor, or through
+   * the returned future when the executor is shared.
+   */
+  static Future<?> copy(InputStream from, PrintWriter to, ExecutorService threads) {
+    return threads.submit(() -> {
+      try (Reader reader = new InputStreamReader(from, StandardCharsets.UTF_8)) {
+        char[] chunk = new char[CHUNK_SIZE];
+        int n;
+        while ((n = reader.read(chunk)) != -1) {
+          to.write(chunk, 0, n);
+          to.flush();
+        }
+      } catch (IOException e) {
+        // the process went away; whatever it wrote has been copied.
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Waits for a copy started by {@link #copy}, if there is one.
+   */
+  static void await(Future<?> copy) {
+    if (copy == null) {
+      return;
+    }
+    try {
+      copy.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // copy() catches its own I/O errors, so there is nothing to report.
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The directories read while expanding the pathname patterns of one command
+ * line, so that {@code *.c *.h}, or a {@code src/**} pattern given twice,
+ * reads each directory once.
+ *
+ * A listing is reused only while its directory's mtime is unchanged, so a
+ * command earlier on the line that creates or removes a file is seen by the
+ * patterns after it. Filesystems keep mtimes to as coarse as two seconds, and
+ * a change within the same tick would not move it, so a directory changed
+ * less than that before it was read is read again every time.
+ *
+ * Many directories asked for at once, one level of a {@code **} walk, are
+ * read in parallel on virtual threads, along with the stat of each entry
+ * that tells whether it is a directory, when the walk needs it.
+ */
+final class DirectoryListings {
+
+  // how many directories asked for at once are worth reading in parallel.
+  private static final int PARALLEL_THRESHOLD = 16;
+  private static final long RACY_MILLIS = 2000;
+  static final Listing EMPTY = new Listing(null, -1, -1, new String[0]);
+
+  /**
+   * The names in one directory, in no particular order, and whether each is
+   * a directory, looked up the first time it is asked.
+   */
+  static final class Listing {
+    private static final byte UNKNOWN = 0;
+    private static final byte DIRECTORY = 1;
+    private static final byte LINKED_DIRECTORY = 2;
+    private static final byte OTHER = 3;
+
+    private final Path dir;
+    private final long modified;
+    private final long listed;
+    private final String[] names;
+    // filled in lazily; a race only looks up the same answer twice.
+    private final byte[] kinds;
+
+    private Listing(Path dir, long modified, long listed, String[] names) {
+      this.dir = dir;
+      this.modified = modified;
+      this.listed = listed;
+      this.names = names;
+      this.kinds = new byte[names.length];
+    }
+
+    int size() {
+      return names.length;
+    }
+
+    String name(int i) {
+      return names[i];
+    }
+
+    /**
+     * @param followLinks whether a symbolic link to a directory counts.
+     */
+    boolean isDirectory(int i, boolean followLinks) {
+      byte kind = kinds[i];
+      if (kind == UNKNOWN) {
+        kind = kindOf(dir.resolve(names[i]));
+        kinds[i] = kind;
+      }
+      return kind == DIRECTORY || (followLinks && kind == LINKED_DIRECTORY);
+    }
+
+    private void lookUpKinds() {
+      for (int i = 0; i < names.length; i++) {
+        isDirectory(i, false);
+      }
+    }
+
+    private static byte kindOf(Path path) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+        if (attributes.isDirectory()) {
+          return DIRECTORY;
+        }
+        return attributes.isSymbolicLink() && Files.isDirectory(path) ? LINKED_DIRECTORY : OTHER;
+      } catch (IOException e) {
+        return OTHER;
+      }
+    }
+  }
+
+  private final Map<Path, Listing> listings = new ConcurrentHashMap<>();
+
+  /**
+   * @return the names in {@code dir}, or none if it is not a directory that
+   *         can be read.
+   */
+  Listing list(Path dir) {
+    long modified;
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(dir, BasicFileAttributes.class);
+      if (!attributes.isDirectory()) {
+        return EMPTY;
+      }
+      modified = attributes.lastModifiedTime().toMillis();
+    } catch (IOException e) {
+      return EMPTY;
+    }
+
+    Listing cached = listings.get(dir);
+    if (cached != null && cached.modified == modified && cached.listed - modified >= RACY_MILLIS) {
+      return cached;
+    }
+
+    long listed = System.currentTimeMillis();
+    List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        names.add(entry.getFileName().toString());
+      }
+    } catch (IOException | DirectoryIteratorException e) {
+      return EMPTY;
+    }
+    Listing listing = new Listing(dir, modified, listed, names.toArray(new String[0]));
+    listings.put(dir, listing);
+    return listing;
+  }
+
+  /**
+   * @param kinds whether to look up which entries are directories as well.
+   * @return the listing of each of {@code dirs}, in the same order.
+   */
+  List<Listing> listAll(List<Path> dirs, boolean kinds) {
+    List<Listing> all = new ArrayList<>(dirs.size());
+    if (dirs.size() < PARALLEL_THRESHOLD) {
+      for (Path dir : dirs) {
+        all.add(list(dir));
+      }
+      return all;
+    }
+
+    try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<Listing>> pending = new ArrayList<>(dirs.size());
+      for (Path dir : dirs) {
+        pending.add(threads.submit(() -> {
+          Listing listing = list(dir);
+          if (kinds) {
+            listing.lookUpKinds();
+          }
+          return listing;
+        }));
+      }
+      for (Future<Listing> listing : pending) {
+        all.add(listing.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // an interrupted expansion just matches less
+      while (all.size() < dirs.size()) {
+        all.add(EMPTY);
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+    return all;
+  }
+}
@@ -2,20 +2,42 @@ package org.example.evaluator;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.text.ParseException;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.example.ShellContext;
 import org.example.commands.Builtins;
+import org.example.parser.AndOrList;
 import org.example.parser.Command;
+import org.example.parser.CommandList;
 import org.example.parser.Parser;
+import org.example.parser.Pipeline;
 
-public class Evaluator {
+public final class Evaluator {
   private final ShellContext ctx;
   private final Builtins builtins;
+  private final PipelineExecutor pipelineExecutor;
+  // >> targets of builtins, kept open from one command to the next. Only the
+  // thread running the evaluator's own command lines uses them.
+  private final AppendSinks appendSinks = new AppendSinks();
+  private volatile Thread foreground;
+  // background builtins and pipelines, and the copies of background output
+  // into a shell that does not own the JVM's stdio.
+  private final ExecutorService jobThreads = Executors.newVirtualThreadPerTaskExecutor();
+  private final WordExpander expander;
 
   public Evaluator(ShellContext ctx, Builtins builtins) {
     this.ctx = ctx;
     this.builtins = builtins;
+    this.pipelineExecutor = new PipelineExecutor(ctx, builtins);
+    this.expander = new WordExpander(this, builtins);
+    ctx.setRunner(this::execute);
   }
 
   public CommandResult evaluate(String line) throws IOException {
@@ -24,42 +46,287 @@ public class Evaluator {
     }
 
     try {
-      Command cmd = Parser.parse(line);
-
-      if (builtins.isBuiltin(cmd.commandName())) {
-        return executeBuiltin(cmd);
-      } else if (CommandUtils.getCommandFilepath(cmd.commandName()).isPresent()) {
-        return executeExternal(cmd);
-      } else {
-        ctx.err().println(cmd.commandName() + ": command not found");
-        return CommandResult.continueWith(127);
-      }
+      CommandList list = Parser.cache().parse(line);
+      foreground = Thread.currentThread();
+      expander.beginLine();
+      return run(list, ctx);
     } catch (ParseException e) {
       ctx.err().println(e.getMessage());
       ctx.err().flush();
+      ctx.variables().setStatus(1);
       return CommandResult.continueWith(1);
     }
   }
 
-  private CommandResult executeBuiltin(Command cmd) throws IOException {
-    IoContext context = RedirectHandler.applyAllToIoContext(cmd.redirects(), ctx.stdio());
+  /**
+   * Runs a parsed command line with {@code shell}'s streams and working
+   * directory: the evaluator's own context, or a subshell's.
+   */
+  CommandResult run(CommandList list, ShellContext shell) throws IOException {
+    if (list.isSinglePipeline()) {
+      return execute(list.first(), shell);
+    }
+
+    CommandResult result = CommandResult.continueWith(0);
+    for (CommandList.Entry entry : list.entries()) {
+      if (entry.background()) {
+        startJob(entry, shell);
+        result = CommandResult.continueWith(0);
+      } else {
+        result = execute(entry.commands(), pipeline -> execute(pipeline, shell));
+        if (result.shouldExit()) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  // runs one pipeline and records its status for $?.
+  private CommandResult execute(Pipeline pipeline, ShellContext shell) throws IOException {
+    CommandResult result;
+    if (!pipeline.isSingleCommand()) {
+      Pipeline expanded = expander.expand(pipeline, shell);
+      flushStdio(shell);
+      result = (shell == ctx ? pipelineExecutor : new PipelineExecutor(shell, builtins)).execute(expanded);
+    } else {
+      result = execute(pipeline.first(), shell);
+    }
+    shell.variables().setStatus(result.getExitCode());
+    return result;
+  }
+
+  @FunctionalInterface
+  private interface PipelineRunner {
+    CommandResult run(Pipeline pipeline) throws IOException;
+  }
+
+  // runs the pipelines left to right, skipping each one whose && or || does
+  // not match the status so far.
+  private static CommandResult execute(AndOrList commands, PipelineRunner runner) throws IOException {
+    CommandResult result = runner.run(commands.first());
+    for (AndOrList.Branch branch : commands.rest()) {
+      if (result.shouldExit()) {
+        break;
+      }
+      if (branch.condition().runsAfter(result.getExitCode())) {
+        result = runner.run(branch.pipeline());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Starts {@code entry} in the background and adds it to the job table.
+   *
+   * A lone external command is started here and tracked through its
+   * {@link Process#onExit()}, so nothing of ours waits for it. Anything else
+   * runs its pipelines through a {@link PipelineExecutor} on a virtual
+   * thread, where, as in a subshell, {@code exit} only ends the job. Without
+   * job control a background job cannot read the terminal, so its stdin is
+   * empty. Command substitutions are made in the job, not before it starts.
+   */
+  private void startJob(CommandList.Entry entry, ShellContext shell) throws IOException {
+    AndOrList commands = entry.commands();
+    Command cmd = commands.first().first();
+    Optional<String> filepath = commands.isSinglePipeline() && commands.first().isSingleCommand()
+        && !cmd.hasSubstitutions() && cmd.assignments().isEmpty() && !builtins.isBuiltin(cmd.commandName())
+        ? CommandUtils.getCommandFilepath(cmd.commandName(), shell)
+        : Optional.empty();
+
+    JobTable.Job job;
+    if (filepath.isPresent()) {
+      flushStdio(shell);
+      job = startBackground(cmd, filepath.get(), entry.text(), shell);
+    } else {
+      IoContext io = new IoContext(IoContext.emptyReader(), shell.out(), shell.err(),
+          EnumSet.noneOf(IoContext.Resource.class));
+      ShellContext jobShell = shell.subshell(io);
+      PipelineExecutor executor = new PipelineExecutor(jobShell, builtins);
+      CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> {
+        try {
+          return execute(commands, pipeline -> executor.execute(expander.expand(pipeline, jobShell)))
+              .getExitCode();
+        } catch (IOException | RuntimeException e) {
+          // nothing waits on the job to see an exception, so it ends like a
+          // failed command.
+          shell.err().println(cmd.commandName() + ": " + (e.getMessage() != null ? e.getMessage() : e));
+          shell.err().flush();
+          return 1;
+        }
+      }, jobThreads);
+      job = shell.jobs().add(ProcessHandle.current().pid(), entry.text(), status);
+    }
+
+    if (shell.jobs().isReporting()) {
+      shell.err().println("[" + job.id() + "] " + job.pid());
+      shell.err().flush();
+    }
+  }
+
+  private JobTable.Job startBackground(Command cmd, String filepath, String text, ShellContext shell)
+      throws IOException {
+    ProcessBuilder builder = new ProcessBuilder(CommandUtils.withFilepath(cmd.args(), filepath))
+        .directory(new File(shell.getCwd().toString()));
+    shell.variables().applyTo(builder);
+    RedirectHandler.Copies copies = RedirectHandler.applyAllToProcess(cmd.redirects(), builder, shell.stdio());
+    PrintWriter copyOut = copies.stdout();
+    PrintWriter copyErr = copies.stderr();
+    if (builder.redirectInput() == ProcessBuilder.Redirect.INHERIT) {
+      builder.redirectInput(ProcessBuilder.Redirect.PIPE);
+    }
+    if (!shell.inheritsStdio()) {
+      if (DetachedStdio.pipeInheritedOutput(builder)) {
+        copyOut = shell.out();
+      }
+      if (DetachedStdio.pipeInheritedError(builder)) {
+        copyErr = shell.err();
+      }
+    }
+
+    Process process = closeEmptyStdin(start(builder, cmd), builder);
+    if (copyOut == null && copyErr == null) {
+      return shell.jobs().add(process.pid(), text, process.onExit().thenApply(Process::exitValue));
+    }
+
+    // the job is done once everything it wrote has been copied.
+    Future<?> outCopy = copyOut != null ? DetachedStdio.copy(process.getInputStream(), copyOut, jobThreads) : null;
+    Future<?> errCopy = copyErr != null ? DetachedStdio.copy(process.getErrorStream(), copyErr, jobThreads) : null;
+    return shell.jobs().add(process.pid(), text, process.onExit().thenApplyAsync(exited -> {
+      DetachedStdio.await(outCopy);
+      DetachedStdio.await(errCopy);
+      return exited.exitValue();
+    }, jobThreads));
+  }
+
+  /**
+   * Runs a single command with {@code shell}'s streams and working directory.
+   * This is also the {@link ShellContext#runner()} that builtins wrapping
+   * another command go through, in which case {@code shell} is the wrapping
+   * builtin's context rather than the evaluator's own.
+   */
+  public CommandResult execute(Command cmd, ShellContext shell) throws IOException {
+    int status = 0;
+    if (cmd.hasSubstitutions()) {
+      WordExpander.Expanded expanded = expander.expand(cmd, shell);
+      if (expanded.command() == null) {
+        // a line of substitutions that all came out empty runs nothing
+        return CommandResult.continueWith(expanded.status());
+      }
+      cmd = expanded.command();
+      status = expanded.status();
+    }
+    if (!cmd.assignments().isEmpty()) {
+      if (cmd.args().isEmpty()) {
+        shell.variables().assign(cmd.assignments());
+        return CommandResult.continueWith(status);
+      }
+      shell = shell.withVariables(shell.variables().forkWith(cmd.assignments()));
+    }
+    if (builtins.isBuiltin(cmd.commandName())) {
+      return executeBuiltin(cmd, shell);
+    }
+
+    Optional<String> filepath = CommandUtils.getCommandFilepath(cmd.commandName(), shell);
+    if (filepath.isPresent()) {
+      flushStdio(shell);
+      return executeExternal(cmd, filepath.get(), shell);
+    } else {
+      shell.err().println(cmd.commandName() + ": command not found");
+      return CommandResult.continueWith(127);
+    }
+  }
+
+  // builtins write into the shell's buffered writers while externals write
+  // straight to the inherited descriptors, so anything buffered has to go out
+  // before a process starts or the output comes out of order.
+  static void flushStdio(ShellContext shell) {
+    shell.out().flush();
+    shell.err().flush();
+  }
+
+  private CommandResult executeBuiltin(Command cmd, ShellContext shell) throws IOException {
+    // background jobs get here too, through substitutions and the runner;
+    // they open their own >> targets rather than share the foreground's.
+    AppendSinks sinks = Thread.currentThread() == foreground ? appendSinks : null;
+    IoContext context = RedirectHandler.applyAllToIoContext(cmd.redirects(), shell.stdio(), shell.getCwd(),
+        sinks);
     try {
-      return builtins.get(cmd.commandName()).execute(cmd.arguments(), ctx.withIo(context));
+      return builtins.get(cmd.commandName()).execute(cmd.arguments(), shell.withIo(context));
     } finally {
-      context.closeResources();
+      context.err().flush();
+      // without redirects this is the caller's own context, whose streams are
+      // not ours to close.
+      if (context != shell.stdio()) {
+        context.closeResources();
+      }
+      if (sinks != null) {
+        sinks.flush();
+      }
     }
   }
 
-  private CommandResult executeExternal(Command cmd) throws IOException {
+  /**
+   * Closes the files builtins have been appending to. They are flushed after
+   * every command anyway; this only gives back the descriptors. The evaluator
+   * can still be used afterwards and reopens them as needed.
+   */
+  public void close() {
+    appendSinks.close();
+  }
+
+  private CommandResult executeExternal(Command cmd, String filepath, ShellContext shell) throws IOException {
     try {
-      ProcessBuilder builder = new ProcessBuilder(cmd.args())
-          .directory(new File(ctx.getCwd().toString()));
-      RedirectHandler.applyAllToProcess(cmd.redirects(), builder, ctx.stdio());
-      return CommandResult.continueWith(builder.start().waitFor());
+      ProcessBuilder builder = new ProcessBuilder(CommandUtils.withFilepath(cmd.args(), filepath))
+          .directory(new File(shell.getCwd().toString()));
+      shell.variables().applyTo(builder);
+      RedirectHandler.Copies copies = RedirectHandler.applyAllToProcess(cmd.redirects(), builder, shell.stdio());
+      PrintWriter copyOut = copies.stdout();
+      PrintWriter copyErr = copies.stderr();
+      if (!shell.inheritsStdio()) {
+        DetachedStdio.pipeInheritedInput(builder);
+        if (DetachedStdio.pipeInheritedOutput(builder)) {
+          copyOut = shell.out();
+        }
+        if (DetachedStdio.pipeInheritedError(builder)) {
+          copyErr = shell.err();
+        }
+      }
+
+      if (copyOut == null && copyErr == null) {
+        return CommandResult.continueWith(closeEmptyStdin(start(builder, cmd), builder).waitFor());
+      }
+      try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+        Process process = closeEmptyStdin(start(builder, cmd), builder);
+        if (copyOut != null) {
+          DetachedStdio.copy(process.getInputStream(), copyOut, threads);
+        }
+        if (copyErr != null) {
+          DetachedStdio.copy(process.getErrorStream(), copyErr, threads);
+        }
+        return CommandResult.continueWith(process.waitFor());
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      ctx.err().println(cmd.commandName() + ": interrupted");
+      shell.err().println(cmd.commandName() + ": interrupted");
       return CommandResult.continueWith(130);
     }
   }
+
+  // a stdin left as a pipe has nothing to feed it, so the process reads an
+  // empty input.
+  static Process closeEmptyStdin(Process process, ProcessBuilder builder) throws IOException {
+    if (builder.redirectInput() == ProcessBuilder.Redirect.PIPE) {
+      process.getOutputStream().close();
+    }
+    return process;
+  }
+
+  static Process start(ProcessBuilder builder, Command cmd) throws IOException {
+    try {
+      return builder.start();
+    } catch (IOException e) {
+      throw RedirectHandler.describeStartFailure(e, cmd.redirects());
+    }
+  }
 }
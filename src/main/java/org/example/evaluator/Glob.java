@@ -0,0 +1,354 @@
+package org.example.evaluator;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A pathname pattern, such as {@code *.txt} or {@code src/**}{@code /*.java},
+ * compiled into one matcher per {@code /}-separated segment, and the walk
+ * that expands it into the names of the files it matches.
+ *
+ * In the pattern {@code *} matches any run of characters, {@code ?} any one
+ * and {@code [...]} any one of those listed, with ranges, {@code !} or
+ * {@code ^} to negate and classes such as {@code [:digit:]}. A backslash
+ * makes the next character stand for itself. A segment that is exactly
+ * {@code **} matches any number of directories, including none. Names
+ * starting with a {@code .} are only matched by a segment that starts with
+ * one, and {@code **} does not go into them or follow symbolic links. A
+ * pattern ending in {@code /} only matches directories, and keeps the
+ * {@code /}.
+ *
+ * Patterns are compiled once and kept in a small LRU cache, since a script
+ * runs the same few over and over. Segments of the usual shapes,
+ * {@code *.java}, {@code Test*} or {@code *}, are matched with
+ * {@code startsWith} and {@code endsWith}, the rest with a regex; a segment
+ * with no pattern characters is not listed at all, only looked up.
+ */
+final class Glob {
+
+  private static final int CACHE_CAPACITY = 256;
+  private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+  private static final Map<String, Glob> COMPILED = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Glob> eldest) {
+      return size() > CACHE_CAPACITY;
+    }
+  };
+
+  private sealed interface Segment permits Literal, Match, Globstar {
+  }
+
+  private record Literal(String name) implements Segment {
+  }
+
+  private record Match(Predicate<String> matcher, boolean matchesHidden) implements Segment {
+  }
+
+  private record Globstar() implements Segment {
+  }
+
+  private final boolean absolute;
+  private final boolean directories;
+  private final List<Segment> segments;
+  private final boolean hasWildcards;
+
+  private Glob(String pattern) {
+    absolute = pattern.startsWith("/");
+    directories = pattern.endsWith("/");
+    List<Segment> segments = new ArrayList<>();
+    for (String text : pattern.split("/")) {
+      if (!text.isEmpty()) {
+        segments.add(compileSegment(text));
+      }
+    }
+    this.segments = List.copyOf(segments);
+    this.hasWildcards = segments.stream().anyMatch(segment -> !(segment instanceof Literal));
+  }
+
+  /**
+   * @return {@code pattern} compiled, from the cache if it has been before.
+   */
+  static Glob compile(String pattern) {
+    synchronized (COMPILED) {
+      return COMPILED.computeIfAbsent(pattern, Glob::new);
+    }
+  }
+
+  /**
+   * @return the paths that match, relative to {@code cwd} unless the pattern
+   *         is absolute, sorted. None if nothing matches, or if the pattern
+   *         turned out to have nothing to match with, such as a {@code [}
+   *         that is never closed.
+   */
+  List<String> expand(Path cwd, DirectoryListings listings) {
+    if (!hasWildcards) {
+      return List.of();
+    }
+    List<String> paths = List.of(absolute ? "/" : "");
+    for (int i = 0; i < segments.size() && !paths.isEmpty(); i++) {
+      boolean last = i == segments.size() - 1 && !directories;
+      Segment segment = segments.get(i);
+      if (segment instanceof Literal literal) {
+        paths = lookUp(literal.name(), last, paths, cwd);
+      } else if (segment instanceof Match match) {
+        paths = match(match, last, paths, cwd, listings);
+      } else {
+        paths = descend(last, paths, cwd, listings);
+      }
+    }
+    if (directories) {
+      paths = paths.stream().map(path -> path + "/").toList();
+    }
+    return sorted(paths);
+  }
+
+  private static List<String> lookUp(String name, boolean last, List<String> paths, Path cwd) {
+    List<String> found = new ArrayList<>();
+    for (String path : paths) {
+      String child = child(path, name);
+      Path file = resolve(cwd, child);
+      if (last ? Files.exists(file, LinkOption.NOFOLLOW_LINKS) : Files.isDirectory(file)) {
+        found.add(child);
+      }
+    }
+    return found;
+  }
+
+  private static List<String> match(Match match, boolean last, List<String> paths, Path cwd,
+      DirectoryListings listings) {
+    List<DirectoryListings.Listing> read = listings.listAll(resolveAll(cwd, paths), false);
+    List<String> found = new ArrayList<>();
+    for (int p = 0; p < paths.size(); p++) {
+      DirectoryListings.Listing listing = read.get(p);
+      for (int i = 0; i < listing.size(); i++) {
+        String name = listing.name(i);
+        if ((match.matchesHidden() || name.charAt(0) != '.') && match.matcher().test(name)
+            && (last || listing.isDirectory(i, true))) {
+          found.add(child(paths.get(p), name));
+        }
+      }
+    }
+    return found;
+  }
+
+  // ** walks the tree a level at a time, so that each level's directories can
+  // be read together. It stands for the directories, itself included, or for
+  // everything under them when it is the last segment.
+  private static List<String> descend(boolean last, List<String> paths, Path cwd, DirectoryListings listings) {
+    List<String> found = new ArrayList<>(last ? List.of() : paths);
+    List<String> level = paths;
+    while (!level.isEmpty()) {
+      List<DirectoryListings.Listing> read = listings.listAll(resolveAll(cwd, level), true);
+      List<String> next = new ArrayList<>();
+      for (int p = 0; p < level.size(); p++) {
+        DirectoryListings.Listing listing = read.get(p);
+        for (int i = 0; i < listing.size(); i++) {
+          String name = listing.name(i);
+          if (name.charAt(0) == '.') {
+            continue;
+          }
+          String child = child(level.get(p), name);
+          boolean directory = listing.isDirectory(i, false);
+          if (directory) {
+            next.add(child);
+          }
+          if (last || directory) {
+            found.add(child);
+          }
+        }
+      }
+      level = next;
+    }
+    return found;
+  }
+
+  // sorted as in the C locale, without the duplicates a pattern such as
+  // **/** finds.
+  private static List<String> sorted(List<String> paths) {
+    String[] sorted = paths.toArray(new String[0]);
+    if (sorted.length >= PARALLEL_SORT_THRESHOLD) {
+      Arrays.parallelSort(sorted);
+    } else {
+      Arrays.sort(sorted);
+    }
+    List<String> distinct = new ArrayList<>(sorted.length);
+    for (String path : sorted) {
+      if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(path)) {
+        distinct.add(path);
+      }
+    }
+    return distinct;
+  }
+
+  private static String child(String path, String name) {
+    if (path.isEmpty()) {
+      return name;
+    }
+    return path.endsWith("/") ? path + name : path + "/" + name;
+  }
+
+  private static Path resolve(Path cwd, String path) {
+    return path.isEmpty() ? cwd : cwd.resolve(path);
+  }
+
+  private static List<Path> resolveAll(Path cwd, List<String> paths) {
+    List<Path> dirs = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      dirs.add(resolve(cwd, path));
+    }
+    return dirs;
+  }
+
+  private static Segment compileSegment(String text) {
+    if (text.equals("**")) {
+      return new Globstar();
+    }
+
+    // the segment's characters with escapes removed, and where its
+    // wildcards are.
+    StringBuilder literal = new StringBuilder(text.length());
+    int stars = 0;
+    int star = -1;
+    boolean other = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        literal.append(text.charAt(++i));
+      } else if (c == '*') {
+        stars++;
+        star = literal.length();
+      } else if (c == '?' || (c == '[' && bracketEnd(text, i) >= 0)) {
+        other = true;
+        break;
+      } else {
+        literal.append(c);
+      }
+    }
+    if (stars == 0 && !other) {
+      return new Literal(literal.toString());
+    }
+
+    boolean matchesHidden = text.charAt(0) == '.' || text.startsWith("\\.");
+    if (stars == 1 && !other) {
+      String prefix = literal.substring(0, star);
+      String suffix = literal.substring(star);
+      int length = prefix.length() + suffix.length();
+      Predicate<String> matcher = prefix.isEmpty() && suffix.isEmpty() ? name -> true
+          : prefix.isEmpty() ? name -> name.endsWith(suffix)
+          : suffix.isEmpty() ? name -> name.startsWith(prefix)
+          : name -> name.length() >= length && name.startsWith(prefix) && name.endsWith(suffix);
+      return new Match(matcher, matchesHidden);
+    }
+    return new Match(toRegex(text).asMatchPredicate(), matchesHidden);
+  }
+
+  private static Pattern toRegex(String text) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      int end = c == '[' ? bracketEnd(text, i) : -1;
+      if (c == '*' || c == '?' || end >= 0) {
+        if (!literal.isEmpty()) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        if (c == '*') {
+          regex.append(".*");
+        } else if (c == '?') {
+          regex.append('.');
+        } else {
+          appendBracket(text, i, end, regex);
+          i = end - 1;
+        }
+      } else if (c == '\\' && i + 1 < text.length()) {
+        literal.append(text.charAt(++i));
+      } else {
+        literal.append(c);
+      }
+    }
+    if (!literal.isEmpty()) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  // the offset just past the ] closing the bracket expression at start, or -1
+  // if it is not closed.
+  private static int bracketEnd(String text, int start) {
+    int i = start + 1;
+    if (i < text.length() && (text.charAt(i) == '!' || text.charAt(i) == '^')) {
+      i++;
+    }
+    if (i < text.length() && text.charAt(i) == ']') {
+      i++;
+    }
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      if (c == ']') {
+        return i + 1;
+      }
+      int classEnd = c == '[' && i + 1 < text.length() && text.charAt(i + 1) == ':' ? text.indexOf(":]", i + 2) : -1;
+      i = classEnd >= 0 ? classEnd + 2 : c == '\\' ? i + 2 : i + 1;
+    }
+    return -1;
+  }
+
+  // [!a-z_[:digit:]] becomes the regex class [^a-z_\p{Digit}].
+  private static void appendBracket(String text, int start, int end, StringBuilder regex) {
+    regex.append('[');
+    int i = start + 1;
+    if (text.charAt(i) == '!' || text.charAt(i) == '^') {
+      regex.append('^');
+      i++;
+    }
+    int first = i;
+    for (; i < end - 1; i++) {
+      char c = text.charAt(i);
+      int classEnd = c == '[' && text.charAt(i + 1) == ':' ? text.indexOf(":]", i + 2) : -1;
+      if (classEnd >= 0 && classEnd < end) {
+        regex.append(characterClass(text.substring(i + 2, classEnd)));
+        i = classEnd + 1;
+        continue;
+      }
+      if (c == '-' && i > first && i + 1 < end - 1) {
+        // a range, such as a-z
+        regex.append('-');
+        continue;
+      }
+      if (c == '\\' && i + 1 < end - 1) {
+        c = text.charAt(++i);
+      }
+      if ("\\[]^&-".indexOf(c) >= 0) {
+        regex.append('\\');
+      }
+      regex.append(c);
+    }
+    regex.append(']');
+  }
+
+  private static String characterClass(String name) {
+    return switch (name) {
+      case "alnum" -> "\\p{Alnum}";
+      case "alpha" -> "\\p{Alpha}";
+      case "blank" -> "\\p{Blank}";
+      case "digit" -> "\\p{Digit}";
+      case "lower" -> "\\p{Lower}";
+      case "punct" -> "\\p{Punct}";
+      case "space" -> "\\s";
+      case "upper" -> "\\p{Upper}";
+      case "xdigit" -> "\\p{XDigit}";
+      // an unknown class matches nothing
+      default -> "[^\\s\\S]";
+    };
+  }
+}
@@ -1,10 +1,22 @@
 package org.example.evaluator;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.EnumSet;
 
+/**
+ * The streams a builtin runs with. {@code in}, {@code out} and {@code err}
+ * are the file descriptor table for descriptors 0, 1 and 2.
+ *
+ * {@link #dup} makes one descriptor share another's reader or writer, so a
+ * file is never opened twice, and {@link #close} swaps in an empty reader or
+ * a discarding writer. Replacing a descriptor closes the stream it held if
+ * this context owns it and no other descriptor still uses it.
+ */
 public record IoContext(BufferedReader in, PrintWriter out, PrintWriter err, EnumSet<Resource> ownedResources) {
   public enum Resource {
     IN,
@@ -20,4 +32,90 @@ public record IoContext(BufferedReader in, PrintWriter out, PrintWriter err, Enu
     if (ownedResources.contains(Resource.ERR))
       err.close();
   }
+
+  public static BufferedReader emptyReader() {
+    return new BufferedReader(Reader.nullReader());
+  }
+
+  public static PrintWriter discardingWriter() {
+    return new PrintWriter(Writer.nullWriter());
+  }
+
+  public IoContext withIn(BufferedReader newIn, boolean owned) throws IOException {
+    EnumSet<Resource> resources = release(Resource.IN, owned);
+    return new IoContext(newIn, out, err, resources);
+  }
+
+  public IoContext withOut(PrintWriter newOut, boolean owned) throws IOException {
+    EnumSet<Resource> resources = release(Resource.OUT, owned);
+    return new IoContext(in, newOut, err, resources);
+  }
+
+  public IoContext withErr(PrintWriter newErr, boolean owned) throws IOException {
+    EnumSet<Resource> resources = release(Resource.ERR, owned);
+    return new IoContext(in, out, newErr, resources);
+  }
+
+  /**
+   * Points descriptor {@code fd} at whatever {@code target} currently uses, as
+   * {@code fd>&target} does. Only 0 can be duplicated for input and only 1 and
+   * 2 for output.
+   */
+  public IoContext dup(int fd, int target) throws IOException {
+    switch (fd) {
+      case 0 -> {
+        if (target != 0) {
+          throw badDescriptor(target);
+        }
+        return this;
+      }
+      case 1, 2 -> {
+        PrintWriter writer = switch (target) {
+          case 1 -> out;
+          case 2 -> err;
+          default -> throw badDescriptor(target);
+        };
+        boolean owned = ownedResources.contains(target == 1 ? Resource.OUT : Resource.ERR);
+        return fd == 1 ? withOut(writer, owned) : withErr(writer, owned);
+      }
+      default -> throw badDescriptor(fd);
+    }
+  }
+
+  /**
+   * Closes descriptor {@code fd}, as {@code fd>&-} does. Reads from it then see
+   * end of file and writes to it are discarded.
+   */
+  public IoContext close(int fd) throws IOException {
+    return switch (fd) {
+      case 0 -> withIn(emptyReader(), false);
+      case 1 -> withOut(discardingWriter(), false);
+      case 2 -> withErr(discardingWriter(), false);
+      default -> throw badDescriptor(fd);
+    };
+  }
+
+  private EnumSet<Resource> release(Resource slot, boolean ownNew) throws IOException {
+    EnumSet<Resource> resources = EnumSet.copyOf(ownedResources);
+    if (resources.remove(slot)) {
+      Closeable old = switch (slot) {
+        case IN -> in;
+        case OUT -> out;
+        case ERR -> err;
+      };
+      // a duplicated descriptor may still be writing to it
+      boolean shared = (slot == Resource.OUT && old == err) || (slot == Resource.ERR && old == out);
+      if (!shared) {
+        old.close();
+      }
+    }
+    if (ownNew) {
+      resources.add(slot);
+    }
+    return resources;
+  }
+
+  private static IOException badDescriptor(int fd) {
+    return new IOException(fd + ": Bad file descriptor");
+  }
 }
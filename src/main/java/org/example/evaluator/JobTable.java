@@ -0,0 +1,187 @@
+package org.example.evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The shell's background jobs, numbered from 1 in the order they were
+ * started.
+ *
+ * Nothing waits on a job. Each one carries a future that completes with its
+ * exit status: for an external command this is the process's own
+ * {@link Process#onExit()}, so a job costs no thread of ours while it runs,
+ * only the JDK's small-stack reaper. Builtins and pipelines run on a virtual
+ * thread. Finished jobs stay in the table until they are reported, by
+ * {@code jobs} or at the next prompt, or collected by {@code wait} or
+ * {@code fg}.
+ *
+ * The most recently started job is the current one, marked {@code +}, and
+ * the one before it is marked {@code -}.
+ */
+public final class JobTable {
+
+  public static final class Job {
+    private final int id;
+    private final long pid;
+    private final String command;
+    private final CompletableFuture<Integer> status;
+
+    private Job(int id, long pid, String command, CompletableFuture<Integer> status) {
+      this.id = id;
+      this.pid = pid;
+      this.command = command;
+      this.status = status;
+    }
+
+    public int id() {
+      return id;
+    }
+
+    /**
+     * @return the process id of an external job, or the shell's own for one
+     *         that runs inside it.
+     */
+    public long pid() {
+      return pid;
+    }
+
+    public String command() {
+      return command;
+    }
+
+    public CompletableFuture<Integer> status() {
+      return status;
+    }
+
+    public boolean isDone() {
+      return status.isDone();
+    }
+
+    /**
+     * Blocks until the job has finished.
+     *
+     * @return its exit status.
+     */
+    public int await() throws InterruptedException {
+      try {
+        return status.get();
+      } catch (ExecutionException e) {
+        // the evaluator completes every job with a status, never an exception
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  private final TreeMap<Integer, Job> jobs = new TreeMap<>();
+  // whether starting and finishing jobs is announced, as an interactive shell
+  // does.
+  private volatile boolean reporting;
+
+  public synchronized Job add(long pid, String command, CompletableFuture<Integer> status) {
+    int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
+    Job job = new Job(id, pid, command, status);
+    jobs.put(id, job);
+    return job;
+  }
+
+  public synchronized void remove(Job job) {
+    jobs.remove(job.id(), job);
+  }
+
+  public synchronized List<Job> list() {
+    return new ArrayList<>(jobs.values());
+  }
+
+  public synchronized boolean isEmpty() {
+    return jobs.isEmpty();
+  }
+
+  /**
+   * Finds a job by its spec: {@code %n} or {@code n} for job n, {@code %%},
+   * {@code %+} or {@code %} for the current job and {@code %-} for the
+   * previous one.
+   */
+  public synchronized Optional<Job> find(String spec) {
+    String id = spec.startsWith("%") ? spec.substring(1) : spec;
+    switch (id) {
+      case "", "%", "+":
+        return current();
+      case "-": {
+        Map.Entry<Integer, Job> last = jobs.lastEntry();
+        Map.Entry<Integer, Job> previous = last == null ? null : jobs.lowerEntry(last.getKey());
+        return Optional.ofNullable(previous != null ? previous : last).map(Map.Entry::getValue);
+      }
+      default:
+        try {
+          return Optional.ofNullable(jobs.get(Integer.parseInt(id)));
+        } catch (NumberFormatException e) {
+          return Optional.empty();
+        }
+    }
+  }
+
+  public synchronized Optional<Job> findByPid(long pid) {
+    return jobs.values().stream().filter(job -> job.pid() == pid).findFirst();
+  }
+
+  public synchronized Optional<Job> current() {
+    return Optional.ofNullable(jobs.lastEntry()).map(Map.Entry::getValue);
+  }
+
+  /**
+   * Removes every finished job.
+   *
+   * @return the line {@link #describe} gives for each, for the shell to
+   *         report.
+   */
+  public synchronized List<String> reapFinished() {
+    List<String> notices = new ArrayList<>();
+    for (Job job : jobs.values()) {
+      if (job.isDone()) {
+        notices.add(describe(job, false));
+      }
+    }
+    jobs.values().removeIf(Job::isDone);
+    return notices;
+  }
+
+  /**
+   * @return the job as {@code jobs} lists it, e.g.
+   *         {@code [2]+  Running                 sleep 10 &}, with the pid
+   *         after the mark if {@code withPid}.
+   */
+  public synchronized String describe(Job job, boolean withPid) {
+    char mark = ' ';
+    if (!jobs.isEmpty() && jobs.lastKey() == job.id()) {
+      mark = '+';
+    } else if (jobs.size() > 1 && jobs.lowerKey(jobs.lastKey()) == job.id()) {
+      mark = '-';
+    }
+
+    String state;
+    String command = job.command();
+    if (!job.isDone()) {
+      state = "Running";
+      command += " &";
+    } else {
+      int status = job.status().join();
+      state = status == 0 ? "Done" : "Exit " + status;
+    }
+    return withPid
+        ? String.format("[%d]%c %d %-24s%s", job.id(), mark, job.pid(), state, command)
+        : String.format("[%d]%c  %-24s%s", job.id(), mark, state, command);
+  }
+
+  public boolean isReporting() {
+    return reporting;
+  }
+
+  public void setReporting(boolean reporting) {
+    this.reporting = reporting;
+  }
+}
@@ -0,0 +1,225 @@
+package org.example.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of every executable on PATH.
+ *
+ * The index is built on a background virtual thread so the prompt is never
+ * blocked, then kept current by a {@link WatchService} registered on each
+ * PATH directory. Until it has finished warming up, or when asked about a
+ * PATH value other than the one it was built for, {@link #isReady(String)}
+ * returns false and callers fall back to a direct scan.
+ */
+public class PathIndex implements AutoCloseable {
+
+  // everything belonging to one PATH value, replaced as a whole on restart so
+  // a previous watcher can never write into a newer index.
+  private static final class Snapshot {
+    final String pathEnv;
+    final List<Path> dirs = new ArrayList<>();
+    final List<Set<String>> contents = new ArrayList<>();
+    final Map<String, String> commands = new ConcurrentHashMap<>();
+    final Map<WatchKey, Integer> keys = new HashMap<>();
+    final WatchService watcher;
+
+    Snapshot(String pathEnv, WatchService watcher) {
+      this.pathEnv = pathEnv;
+      this.watcher = watcher;
+    }
+  }
+
+  private volatile Snapshot ready;
+  private Snapshot building;
+
+  /**
+   * Starts (or restarts) indexing {@code pathEnv} in the background.
+   */
+  public synchronized void start(String pathEnv) {
+    close();
+    if (pathEnv == null) {
+      return;
+    }
+
+    WatchService watcher;
+    try {
+      watcher = Paths.get("").getFileSystem().newWatchService();
+    } catch (IOException e) {
+      return;
+    }
+    Snapshot snapshot = new Snapshot(pathEnv, watcher);
+    building = snapshot;
+    Thread.ofVirtual().name("path-index").start(() -> run(snapshot));
+  }
+
+  /**
+   * @return true once the index has been built for exactly this PATH value.
+   */
+  public boolean isReady(String pathEnv) {
+    Snapshot snapshot = ready;
+    return snapshot != null && snapshot.pathEnv.equals(pathEnv);
+  }
+
+  /**
+   * @return the location of {@code command}, or empty if it is not on PATH.
+   *         Only meaningful once {@link #isReady(String)} returns true.
+   */
+  public Optional<String> lookup(String command) {
+    Snapshot snapshot = ready;
+    if (snapshot == null || command == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(snapshot.commands.get(command));
+  }
+
+  /**
+   * @return a live view of every command name on PATH, for completion.
+   */
+  public Set<String> commandNames() {
+    Snapshot snapshot = ready;
+    return snapshot == null ? Set.of() : Collections.unmodifiableSet(snapshot.commands.keySet());
+  }
+
+  @Override
+  public synchronized void close() {
+    Snapshot snapshot = building;
+    ready = null;
+    building = null;
+    if (snapshot != null) {
+      try {
+        snapshot.watcher.close();
+      } catch (IOException e) {
+        // nothing left to clean up.
+      }
+    }
+  }
+
+  private void run(Snapshot snapshot) {
+    try {
+      // register before scanning so nothing that changes during the scan is missed.
+      for (String dir : snapshot.pathEnv.split(File.pathSeparator)) {
+        Path path = Paths.get(dir).toAbsolutePath();
+        int index = snapshot.dirs.size();
+        snapshot.dirs.add(path);
+        snapshot.contents.add(ConcurrentHashMap.newKeySet());
+        if (Files.isDirectory(path)) {
+          WatchKey key = path.register(snapshot.watcher, StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+          snapshot.keys.put(key, index);
+        }
+      }
+
+      // scan from the back so the earliest directory on PATH wins.
+      for (int i = snapshot.dirs.size() - 1; i >= 0; i--) {
+        scanDirectory(snapshot, i);
+        for (String name : snapshot.contents.get(i)) {
+          snapshot.commands.put(name, snapshot.dirs.get(i).resolve(name).toString());
+        }
+      }
+
+      synchronized (this) {
+        if (building != snapshot) {
+          return;
+        }
+        ready = snapshot;
+      }
+      watch(snapshot);
+    } catch (IOException | ClosedWatchServiceException e) {
+      // the index stays cold and lookups keep falling back to a direct scan.
+    }
+  }
+
+  private void watch(Snapshot snapshot) {
+    while (true) {
+      WatchKey key;
+      try {
+        key = snapshot.watcher.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Integer index = snapshot.keys.get(key);
+      if (index != null) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            rescanDirectory(snapshot, index);
+          } else {
+            update(snapshot, index, event.context().toString());
+          }
+        }
+      }
+      key.reset();
+    }
+  }
+
+  private void update(Snapshot snapshot, int index, String name) {
+    Set<String> contents = snapshot.contents.get(index);
+    if (isExecutable(snapshot.dirs.get(index).resolve(name))) {
+      contents.add(name);
+    } else {
+      contents.remove(name);
+    }
+    resolve(snapshot, name);
+  }
+
+  private void rescanDirectory(Snapshot snapshot, int index) {
+    Set<String> affected = new HashSet<>(snapshot.contents.get(index));
+    scanDirectory(snapshot, index);
+    affected.addAll(snapshot.contents.get(index));
+    for (String name : affected) {
+      resolve(snapshot, name);
+    }
+  }
+
+  // recomputes which directory provides `name` after one of them changed.
+  private static void resolve(Snapshot snapshot, String name) {
+    for (int i = 0; i < snapshot.dirs.size(); i++) {
+      if (snapshot.contents.get(i).contains(name)) {
+        snapshot.commands.put(name, snapshot.dirs.get(i).resolve(name).toString());
+        return;
+      }
+    }
+    snapshot.commands.remove(name);
+  }
+
+  private static void scanDirectory(Snapshot snapshot, int index) {
+    Path dir = snapshot.dirs.get(index);
+    Set<String> contents = snapshot.contents.get(index);
+    contents.clear();
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        if (isExecutable(entry)) {
+          contents.add(entry.getFileName().toString());
+        }
+      }
+    } catch (IOException e) {
+      // an unreadable directory contributes nothing, the same as a direct scan.
+    }
+  }
+
+  private static boolean isExecutable(Path file) {
+    return Files.isRegularFile(file) && Files.isExecutable(file);
+  }
+}
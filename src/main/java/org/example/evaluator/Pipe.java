@@ -0,0 +1,286 @@
+package org.example.evaluator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory pipe between two pipeline stages backed by a fixed size ring
+ * buffer. Writers block while the buffer is full and readers block while it is
+ * empty, so memory use stays bounded no matter how much data is streamed.
+ *
+ * Each pipe has a single reader and a single writer. Closing the read end
+ * makes any further write fail with "Broken pipe", the same way a process
+ * writing to a pipe whose reader has exited gets {@code EPIPE}.
+ *
+ * Uses a {@link ReentrantLock} rather than {@code synchronized} so that stages
+ * running on virtual threads unmount while they wait.
+ */
+public final class Pipe {
+  public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+  private final byte[] buffer;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  private int readPos = 0;
+  private int count = 0;
+  private boolean writeClosed = false;
+  private boolean readClosed = false;
+
+  private final InputStream source = new Source();
+  private final OutputStream sink = new Sink();
+
+  public Pipe() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public Pipe(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Pipe capacity must be positive");
+    }
+    this.buffer = new byte[capacity];
+  }
+
+  /**
+   * @return the read end of this pipe. Closing it closes the read end.
+   */
+  public InputStream source() {
+    return source;
+  }
+
+  /**
+   * @return the write end of this pipe. Closing it signals end of file to the
+   *         reader once the buffered bytes have been consumed.
+   */
+  public OutputStream sink() {
+    return sink;
+  }
+
+  public void closeWrite() {
+    lock.lock();
+    try {
+      writeClosed = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void closeRead() {
+    lock.lock();
+    try {
+      readClosed = true;
+      count = 0;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drains this pipe into {@code out} until the write end is closed, writing
+   * straight from the ring buffer in contiguous chunks.
+   *
+   * @return the number of bytes transferred.
+   */
+  public long transferTo(OutputStream out) throws IOException {
+    long transferred = 0;
+    while (true) {
+      int start;
+      int n;
+      lock.lock();
+      try {
+        awaitReadable();
+        if (count == 0) {
+          return transferred;
+        }
+        start = readPos;
+        n = Math.min(count, buffer.length - readPos);
+      } finally {
+        lock.unlock();
+      }
+
+      // the writer only ever fills free space, so this region is stable until
+      // it is released below.
+      out.write(buffer, start, n);
+      release(n);
+      transferred += n;
+    }
+  }
+
+  /**
+   * Fills this pipe from {@code in} until it reaches end of file, reading
+   * straight into the ring buffer, then closes the write end.
+   *
+   * @return the number of bytes transferred.
+   */
+  public long transferFrom(InputStream in) throws IOException {
+    long transferred = 0;
+    try {
+      while (true) {
+        int start;
+        int n;
+        lock.lock();
+        try {
+          awaitWritable();
+          start = (readPos + count) % buffer.length;
+          n = Math.min(buffer.length - count, buffer.length - start);
+        } finally {
+          lock.unlock();
+        }
+
+        int read = in.read(buffer, start, n);
+        if (read < 0) {
+          return transferred;
+        }
+        commit(read);
+        transferred += read;
+      }
+    } finally {
+      closeWrite();
+    }
+  }
+
+  private int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    lock.lock();
+    try {
+      awaitReadable();
+      if (count == 0) {
+        return -1;
+      }
+      int n = Math.min(len, Math.min(count, buffer.length - readPos));
+      System.arraycopy(buffer, readPos, b, off, n);
+      readPos = (readPos + n) % buffer.length;
+      count -= n;
+      notFull.signal();
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void write(byte[] b, int off, int len) throws IOException {
+    lock.lock();
+    try {
+      while (len > 0) {
+        awaitWritable();
+        int writePos = (readPos + count) % buffer.length;
+        int n = Math.min(len, Math.min(buffer.length - count, buffer.length - writePos));
+        System.arraycopy(b, off, buffer, writePos, n);
+        count += n;
+        off += n;
+        len -= n;
+        notEmpty.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(int n) {
+    lock.lock();
+    try {
+      if (!readClosed) {
+        readPos = (readPos + n) % buffer.length;
+        count -= n;
+      }
+      notFull.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void commit(int n) throws IOException {
+    lock.lock();
+    try {
+      if (readClosed) {
+        throw new IOException("Broken pipe");
+      }
+      count += n;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // must be called holding the lock. Returns with count > 0, or count == 0 once
+  // the write end has been closed.
+  private void awaitReadable() throws IOException {
+    try {
+      while (count == 0 && !writeClosed) {
+        if (readClosed) {
+          throw new IOException("Pipe closed");
+        }
+        notEmpty.await();
+      }
+      if (readClosed) {
+        throw new IOException("Pipe closed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading from pipe");
+    }
+  }
+
+  // must be called holding the lock. Returns once there is free space.
+  private void awaitWritable() throws IOException {
+    try {
+      while (count == buffer.length && !readClosed) {
+        notFull.await();
+      }
+      if (readClosed) {
+        throw new IOException("Broken pipe");
+      }
+      if (writeClosed) {
+        throw new IOException("Pipe closed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing to pipe");
+    }
+  }
+
+  private final class Source extends InputStream {
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      int n = Pipe.this.read(one, 0, 1);
+      return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return Pipe.this.read(b, off, len);
+    }
+
+    @Override
+    public void close() {
+      closeRead();
+    }
+  }
+
+  private final class Sink extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      Pipe.this.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      Pipe.this.write(b, off, len);
+    }
+
+    @Override
+    public void close() {
+      closeWrite();
+    }
+  }
+}
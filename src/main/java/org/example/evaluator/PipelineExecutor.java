@@ -0,0 +1,382 @@
+package org.example.evaluator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.example.ShellContext;
+import org.example.commands.Builtins;
+import org.example.parser.Command;
+import org.example.parser.Pipeline;
+import org.example.parser.Redirect;
+import org.example.parser.RedirectType;
+
+/**
+ * Runs a {@link Pipeline}.
+ *
+ * Runs of adjacent external stages are started with
+ * {@link ProcessBuilder#startPipeline(List)}, so the kernel moves the data
+ * directly between the children and none of it passes through the JVM.
+ * Builtin stages run in-process, each on its own virtual thread, and are
+ * connected to their neighbours through a bounded {@link Pipe}. Where a pipe
+ * meets an external process a virtual thread pumps whole buffer-sized chunks
+ * between the ring buffer and the process stream.
+ *
+ * A stage whose own redirect overrides its pipe breaks the connection: the
+ * writer's output is discarded and the reader sees an immediate end of file.
+ */
+class PipelineExecutor {
+  private final ShellContext ctx;
+  private final Builtins builtins;
+
+  PipelineExecutor(ShellContext ctx, Builtins builtins) {
+    this.ctx = ctx;
+    this.builtins = builtins;
+  }
+
+  private static final class Stage {
+    final Command cmd;
+    final boolean builtin;
+    final boolean first;
+    final boolean last;
+    // the shell's, or a fork with the stage's own VAR=x assignments.
+    final Variables variables;
+    String filepath;
+    ProcessBuilder builder;
+    Process process;
+    Future<CommandResult> result;
+
+    // true when the stage reads from / writes to its neighbour rather than
+    // its own redirect or the shell's stdio.
+    boolean inPiped;
+    boolean outPiped;
+
+    // the shell writers this stage's stdout / stderr are copied into, when a
+    // duplicate crossed them over or the shell does not own the JVM's stdio.
+    PrintWriter copyOut;
+    PrintWriter copyErr;
+
+    // set on the edge leading into / out of this stage when a neighbour is a
+    // builtin. Stays null for edges between two external stages.
+    Pipe inPipe;
+    Pipe outPipe;
+
+    Stage(Command cmd, boolean builtin, boolean first, boolean last, Variables variables) {
+      this.cmd = cmd;
+      this.builtin = builtin;
+      this.first = first;
+      this.last = last;
+      this.variables = cmd.assignments().isEmpty() ? variables : variables.forkWith(cmd.assignments());
+    }
+  }
+
+  CommandResult execute(Pipeline pipeline) throws IOException {
+    List<Command> commands = pipeline.commands();
+    List<Stage> stages = new ArrayList<>(commands.size());
+    for (int i = 0; i < commands.size(); i++) {
+      Command cmd = commands.get(i);
+      boolean builtin = builtins.isBuiltin(cmd.commandName());
+      Stage stage = new Stage(cmd, builtin, i == 0, i == commands.size() - 1, ctx.variables());
+      if (!builtin) {
+        Optional<String> filepath = CommandUtils.getCommandFilepath(cmd.commandName(), ctx);
+        if (filepath.isEmpty()) {
+          ctx.err().println(cmd.commandName() + ": command not found");
+          ctx.err().flush();
+          return CommandResult.continueWith(127);
+        }
+        stage.filepath = filepath.get();
+      }
+      stages.add(stage);
+    }
+
+    prepareStages(stages);
+    connectStages(stages);
+
+    try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+      try {
+        startExternalSegments(stages, threads);
+      } catch (IOException e) {
+        abort(stages);
+        throw e;
+      }
+      for (Stage stage : stages) {
+        if (stage.builtin) {
+          stage.result = threads.submit(() -> runBuiltin(stage));
+        }
+      }
+      return waitForAll(stages);
+    }
+  }
+
+  private void prepareStages(List<Stage> stages) throws IOException {
+    File cwd = new File(ctx.getCwd().toString());
+    int last = stages.size() - 1;
+
+    for (int i = 0; i <= last; i++) {
+      Stage stage = stages.get(i);
+      if (stage.builtin) {
+        stage.inPiped = i > 0 && !redirectsInput(stage.cmd);
+        stage.outPiped = i < last && !redirectsOutput(stage.cmd);
+        continue;
+      }
+
+      stage.builder = new ProcessBuilder(CommandUtils.withFilepath(stage.cmd.args(), stage.filepath)).directory(cwd);
+      stage.variables.applyTo(stage.builder);
+      RedirectHandler.Copies copies = RedirectHandler.applyAllToProcess(stage.cmd.redirects(), stage.builder,
+          ctx.stdio());
+      stage.copyOut = copies.stdout();
+      stage.copyErr = copies.stderr();
+
+      // anything still inherited after the redirects have been applied is
+      // connected to the neighbouring stage instead.
+      stage.inPiped = i > 0 && stage.builder.redirectInput() == ProcessBuilder.Redirect.INHERIT;
+      stage.outPiped = i < last && stage.builder.redirectOutput() == ProcessBuilder.Redirect.INHERIT;
+      if (stage.inPiped) {
+        stage.builder.redirectInput(ProcessBuilder.Redirect.PIPE);
+      }
+      if (stage.outPiped) {
+        stage.builder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+      }
+
+      if (!ctx.inheritsStdio()) {
+        if (i == 0) {
+          DetachedStdio.pipeInheritedInput(stage.builder);
+        }
+        if (i == last && DetachedStdio.pipeInheritedOutput(stage.builder)) {
+          stage.copyOut = ctx.out();
+        }
+        if (DetachedStdio.pipeInheritedError(stage.builder)) {
+          stage.copyErr = ctx.err();
+        }
+      }
+    }
+  }
+
+  private static void connectStages(List<Stage> stages) {
+    for (int i = 0; i < stages.size() - 1; i++) {
+      Stage left = stages.get(i);
+      Stage right = stages.get(i + 1);
+
+      if (left.outPiped && right.inPiped) {
+        if (left.builtin || right.builtin) {
+          Pipe pipe = new Pipe();
+          left.outPipe = pipe;
+          right.inPipe = pipe;
+        }
+        continue;
+      }
+
+      // one side redirected away from the pipe, so there is nothing to connect.
+      if (left.outPiped) {
+        left.outPiped = false;
+        if (!left.builtin) {
+          left.builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        }
+      }
+      if (right.inPiped) {
+        right.inPiped = false;
+        if (!right.builtin) {
+          // left as a pipe and closed straight after start, giving an empty stdin.
+          right.builder.redirectInput(ProcessBuilder.Redirect.PIPE);
+        }
+      }
+    }
+  }
+
+  private void startExternalSegments(List<Stage> stages, ExecutorService threads) throws IOException {
+    int i = 0;
+    while (i < stages.size()) {
+      if (stages.get(i).builtin) {
+        i++;
+        continue;
+      }
+
+      // extend the segment for as long as the next stage is an external
+      // process reading this one's output through a kernel pipe.
+      int end = i;
+      while (end + 1 < stages.size() && stages.get(end).outPiped && !stages.get(end + 1).builtin) {
+        end++;
+      }
+
+      List<Stage> segment = stages.subList(i, end + 1);
+      List<ProcessBuilder> builders = segment.stream().map(s -> s.builder).toList();
+      List<Process> processes;
+      try {
+        processes = builders.size() == 1
+            ? List.of(builders.get(0).start())
+            : ProcessBuilder.startPipeline(builders);
+      } catch (IOException e) {
+        List<Redirect> redirects = segment.stream().flatMap(s -> s.cmd.redirects().stream()).toList();
+        throw RedirectHandler.describeStartFailure(e, redirects);
+      }
+      for (int j = 0; j < segment.size(); j++) {
+        Stage stage = segment.get(j);
+        stage.process = processes.get(j);
+        if (stage.copyOut != null) {
+          DetachedStdio.copy(stage.process.getInputStream(), stage.copyOut, threads);
+        }
+        if (stage.copyErr != null) {
+          DetachedStdio.copy(stage.process.getErrorStream(), stage.copyErr, threads);
+        }
+      }
+      startPumps(segment.get(0), segment.get(segment.size() - 1), threads);
+      i = end + 1;
+    }
+  }
+
+  private static void startPumps(Stage first, Stage last, ExecutorService threads) throws IOException {
+    if (first.inPipe != null) {
+      Pipe pipe = first.inPipe;
+      OutputStream stdin = first.process.getOutputStream();
+      threads.submit(() -> {
+        try (stdin) {
+          pipe.transferTo(stdin);
+        } catch (IOException e) {
+          // the process stopped reading; unblock the builtin writing to us.
+        } finally {
+          pipe.closeRead();
+        }
+        return null;
+      });
+    } else if (first.builder.redirectInput() == ProcessBuilder.Redirect.PIPE) {
+      first.process.getOutputStream().close();
+    }
+
+    if (last.outPipe != null) {
+      Pipe pipe = last.outPipe;
+      InputStream stdout = last.process.getInputStream();
+      threads.submit(() -> {
+        try (stdout) {
+          pipe.transferFrom(stdout);
+        } catch (IOException e) {
+          // the builtin downstream stopped reading.
+        }
+        return null;
+      });
+    }
+  }
+
+  private CommandResult runBuiltin(Stage stage) {
+    IoContext base = ctx.stdio();
+
+    // only the ends of the pipeline are attached to the shell's own stdio. A
+    // stage whose neighbour redirected away from the pipe gets an empty input
+    // or a discarding output instead.
+    BufferedReader in = base.in();
+    if (stage.inPipe != null) {
+      in = reader(stage.inPipe.source());
+    } else if (!stage.first) {
+      in = reader(InputStream.nullInputStream());
+    }
+
+    PrintWriter out = base.out();
+    if (stage.outPipe != null) {
+      out = writer(stage.outPipe.sink());
+    } else if (!stage.last) {
+      out = writer(OutputStream.nullOutputStream());
+    }
+
+    IoContext io = new IoContext(in, out, base.err(), EnumSet.noneOf(IoContext.Resource.class));
+    try {
+      IoContext redirected = RedirectHandler.applyAllToIoContext(stage.cmd.redirects(), io, ctx.getCwd());
+      try {
+        // pipeline stages behave like subshells, so an `exit` only ends the stage.
+        return CommandResult.continueWith(
+            builtins.get(stage.cmd.commandName())
+                .execute(stage.cmd.arguments(), ctx.withIo(redirected).withVariables(stage.variables))
+                .getExitCode());
+      } finally {
+        redirected.out().flush();
+        redirected.closeResources();
+      }
+    } catch (IOException e) {
+      base.err().println(stage.cmd.commandName() + ": " + e.getMessage());
+      base.err().flush();
+      return CommandResult.continueWith(1);
+    } finally {
+      out.flush();
+      if (stage.outPipe != null) {
+        stage.outPipe.closeWrite();
+      }
+      if (stage.inPipe != null) {
+        stage.inPipe.closeRead();
+      }
+    }
+  }
+
+  private CommandResult waitForAll(List<Stage> stages) {
+    int exitCode = 0;
+    try {
+      for (Stage stage : stages) {
+        exitCode = stage.builtin ? stage.result.get().getExitCode() : stage.process.waitFor();
+      }
+      return CommandResult.continueWith(exitCode);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(stages);
+      ctx.err().println(stages.get(stages.size() - 1).cmd.commandName() + ": interrupted");
+      return CommandResult.continueWith(130);
+    } catch (ExecutionException e) {
+      abort(stages);
+      ctx.err().println(e.getCause().getMessage());
+      return CommandResult.continueWith(1);
+    }
+  }
+
+  private static void abort(List<Stage> stages) {
+    for (Stage stage : stages) {
+      if (stage.process != null) {
+        stage.process.destroy();
+      }
+      if (stage.inPipe != null) {
+        stage.inPipe.closeRead();
+      }
+      if (stage.outPipe != null) {
+        stage.outPipe.closeWrite();
+      }
+    }
+  }
+
+  private static boolean redirectsInput(Command cmd) {
+    for (Redirect r : cmd.redirects()) {
+      if (r.type() == RedirectType.INPUT) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean redirectsOutput(Command cmd) {
+    for (Redirect r : cmd.redirects()) {
+      switch (r.type()) {
+        case OUTPUT, OUTPUT_APPEND, ALL_OUTPUT, ALL_APPEND:
+          return true;
+        default:
+          break;
+      }
+    }
+    return false;
+  }
+
+  private static BufferedReader reader(InputStream in) {
+    return new ChannelBufferedReader(in);
+  }
+
+  private static PrintWriter writer(OutputStream out) {
+    return new ChannelPrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), Channels.newChannel(out));
+  }
+}
@@ -2,150 +2,306 @@ package org.example.evaluator;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 
-import org.example.evaluator.IoContext.Resource;
 import org.example.parser.Redirect;
+import org.example.parser.RedirectType;
 
 public class RedirectHandler {
+  private static final Path DEV_NULL = Path.of("/dev/null");
+
+  // what descriptors 0, 1 and 2 of a process point at before any redirect, and
+  // after >&- / <&-.
+  private static final Redirect STDIN = new Redirect(RedirectType.INPUT_DUP, "0");
+  private static final Redirect STDOUT = new Redirect(RedirectType.OUTPUT_DUP, "1");
+  private static final Redirect STDERR = new Redirect(RedirectType.ERROR_DUP, "2");
+  private static final Redirect CLOSED = new Redirect(RedirectType.OUTPUT_DUP, "-");
+
+  /**
+   * The shell writers a process's stdout and stderr have to be copied into,
+   * because a duplicate crossed them over (e.g. {@code >&2}) and a process
+   * cannot inherit the JVM's stderr as its stdout. Null where nothing needs
+   * copying.
+   */
+  public record Copies(PrintWriter stdout, PrintWriter stderr) {
+    public static final Copies NONE = new Copies(null, null);
+  }
 
   public static IoContext applyAllToIoContext(List<Redirect> redirects, IoContext io) throws IOException {
+    return applyAllToIoContext(redirects, io, Path.of(""));
+  }
+
+  /**
+   * @param cwd what relative targets are resolved against, the shell's cwd
+   *            rather than the JVM's.
+   */
+  public static IoContext applyAllToIoContext(List<Redirect> redirects, IoContext io, Path cwd)
+      throws IOException {
+    return applyAllToIoContext(redirects, io, cwd, null);
+  }
+
+  /**
+   * As {@link #applyAllToIoContext(List, IoContext, Path)}, but appends go to
+   * the handles kept open in {@code sinks}. Those writers are not owned by the
+   * returned context, so closing it leaves them open.
+   */
+  static IoContext applyAllToIoContext(List<Redirect> redirects, IoContext io, Path cwd, AppendSinks sinks)
+      throws IOException {
     if (redirects.isEmpty()) {
       return io;
     }
 
-    BufferedReader in = io.in();
-    PrintWriter out = io.out();
-    PrintWriter err = io.err();
-    EnumSet<IoContext.Resource> ownedResources = EnumSet.noneOf(IoContext.Resource.class);
+    IoContext result = new IoContext(io.in(), io.out(), io.err(), EnumSet.noneOf(IoContext.Resource.class));
+    try {
+      for (Redirect r : redirects) {
+        result = apply(r, result, cwd, sinks);
+      }
+      return result;
+    } catch (IOException e) {
+      result.closeResources();
+      throw e;
+    }
+  }
 
-    for (Redirect r : redirects) {
-      switch (r.type()) {
-        case INPUT -> {
-          if (ownedResources.contains(Resource.IN)) {
-            in.close();
-          }
-          in = new BufferedReader(new FileReader(r.target()));
-          ownedResources.add(Resource.IN);
-        }
-        case OUTPUT, OUTPUT_APPEND -> {
-          if (ownedResources.contains(Resource.OUT)) {
-            out.close();
-          }
-          out = createWriter(r);
-          ownedResources.add(Resource.OUT);
-        }
-        case ERROR, ERROR_APPEND -> {
-          if (ownedResources.contains(Resource.ERR)) {
-            err.close();
-          }
-          err = createWriter(r);
-          ownedResources.add(Resource.ERR);
+  private static IoContext apply(Redirect r, IoContext io, Path cwd, AppendSinks sinks) throws IOException {
+    // writes to /dev/null never reach the filesystem
+    boolean devNull = isDevNull(r, cwd);
+    switch (r.type()) {
+      case INPUT -> {
+        return devNull
+            ? io.withIn(IoContext.emptyReader(), false)
+            : io.withIn(createReader(r, cwd), true);
+      }
+      case OUTPUT, OUTPUT_APPEND, ERROR, ERROR_APPEND, ALL_OUTPUT, ALL_APPEND -> {
+        PrintWriter pw = devNull ? IoContext.discardingWriter() : null;
+        if (pw == null && r.isAppendMode() && sinks != null) {
+          pw = appendSink(r, cwd, sinks);
         }
-        case ALL_OUTPUT, ALL_APPEND -> {
-          if (ownedResources.contains(Resource.OUT)) {
-            out.close();
-          }
-          if (ownedResources.contains(Resource.ERR)) {
-            err.close();
-          }
-          PrintWriter pw = createWriter(r);
-          out = err = pw;
-          ownedResources.add(Resource.OUT);
-          ownedResources.add(Resource.ERR);
+        boolean owned = pw == null;
+        if (owned) {
+          pw = createWriter(r, cwd);
         }
-        default -> throw new IOException("Invalid RedirectType: " + r.type());
+        return switch (r.type()) {
+          case OUTPUT, OUTPUT_APPEND -> io.withOut(pw, owned);
+          case ERROR, ERROR_APPEND -> io.withErr(pw, owned);
+          default -> io.withOut(pw, owned).withErr(pw, owned);
+        };
+      }
+      case OUTPUT_DUP, ERROR_DUP, INPUT_DUP -> {
+        checkDescriptor(r);
+        return r.closesDescriptor() ? io.close(r.descriptor()) : io.dup(r.descriptor(), r.duplicatedDescriptor());
       }
+      default -> throw new IOException("Invalid RedirectType: " + r.type());
     }
-    return new IoContext(in, out, err, ownedResources);
   }
 
-  private static PrintWriter createWriter(Redirect r) throws IOException {
-    boolean append = r.isAppendMode();
-    return new PrintWriter(new FileWriter(r.target(), append), append);
+  private static BufferedReader createReader(Redirect r, Path cwd) throws IOException {
+    try {
+      return new ChannelBufferedReader(FileChannel.open(cwd.resolve(r.target()), StandardOpenOption.READ));
+    } catch (IOException e) {
+      throw accessError(r);
+    }
+  }
+
+  private static PrintWriter createWriter(Redirect r, Path cwd) throws IOException {
+    try {
+      return new ChannelPrintWriter(ChannelWriter.open(cwd.resolve(r.target()), r.isAppendMode()));
+    } catch (IOException e) {
+      throw accessError(r);
+    }
+  }
+
+  private static PrintWriter appendSink(Redirect r, Path cwd, AppendSinks sinks) throws IOException {
+    try {
+      return sinks.get(cwd.resolve(r.target()));
+    } catch (IOException e) {
+      throw accessError(r);
+    }
   }
 
-  public static void applyAllToProcess(List<Redirect> redirects, ProcessBuilder builder, IoContext io)
+  /**
+   * Points {@code builder}'s streams at the redirect targets. The last
+   * redirect of each stream is left for the process to open when it starts, so
+   * nothing here touches those files. A redirect that a later one replaces is
+   * still opened once here, because it still creates or truncates its target.
+   * Duplicates reuse the target of the descriptor they copy rather than
+   * opening it again, and /dev/null and closed descriptors are discarded
+   * without going through the filesystem. A process given an empty stdin gets
+   * a pipe that the caller closes after start.
+   *
+   * Opening the targets is deferred to {@link ProcessBuilder#start}, so a
+   * start failure should be passed through {@link #describeStartFailure} to
+   * get the same message an unwritable target has always produced.
+   *
+   * Relative targets are resolved against {@code builder}'s directory, where
+   * the process starts, as the shell's cwd is passed on to it.
+   *
+   * @return the streams the caller has to copy into {@code io}'s writers.
+   */
+  public static Copies applyAllToProcess(List<Redirect> redirects, ProcessBuilder builder, IoContext io)
       throws IOException {
 
+    Path cwd = builder.directory() != null ? builder.directory().toPath() : Path.of("");
     builder.inheritIO();
+    builder.redirectErrorStream(false);
+
+    Redirect in = STDIN;
+    Redirect out = STDOUT;
+    Redirect err = STDERR;
+    List<Redirect> replaced = new ArrayList<>();
 
     for (Redirect r : redirects) {
-      File f = checkAndPrepareFile(r);
-      updateBuilderForRedirect(r, builder, f);
+      switch (r.type()) {
+        case INPUT -> in = replace(in, r, replaced);
+        case OUTPUT, OUTPUT_APPEND -> out = replace(out, r, replaced);
+        case ERROR, ERROR_APPEND -> err = replace(err, r, replaced);
+        case ALL_OUTPUT, ALL_APPEND -> {
+          out = replace(out, r, replaced);
+          err = replace(err, r, replaced);
+        }
+        case INPUT_DUP -> {
+          checkDescriptor(r);
+          if (r.closesDescriptor()) {
+            in = replace(in, CLOSED, replaced);
+          } else if (r.duplicatedDescriptor() != 0) {
+            throw new IOException(r.target() + ": Bad file descriptor");
+          }
+        }
+        case OUTPUT_DUP, ERROR_DUP -> {
+          checkDescriptor(r);
+          Redirect target = switch (r.closesDescriptor() ? -1 : r.duplicatedDescriptor()) {
+            case -1 -> CLOSED;
+            case 1 -> out;
+            case 2 -> err;
+            default -> throw new IOException(r.target() + ": Bad file descriptor");
+          };
+          if (r.type() == RedirectType.OUTPUT_DUP) {
+            out = replace(out, target, replaced);
+          } else {
+            err = replace(err, target, replaced);
+          }
+        }
+        default -> throw new IOException("Invalid Redirect");
+      }
     }
 
-  }
+    for (Redirect r : replaced) {
+      // a target replaced on one descriptor may still be used by another
+      if (r != in && r != out && r != err) {
+        openOnce(r, cwd);
+      }
+    }
 
-  private static void updateBuilderForRedirect(Redirect r, ProcessBuilder builder, File f) throws IOException {
+    if (in == CLOSED || isDevNull(in, cwd)) {
+      builder.redirectInput(ProcessBuilder.Redirect.PIPE);
+    } else if (in != STDIN) {
+      builder.redirectInput(cwd.resolve(in.target()).toFile());
+    }
 
-    switch (r.type()) {
-      case INPUT -> builder.redirectInput(f);
-      case OUTPUT -> builder.redirectOutput(f);
-      case OUTPUT_APPEND -> builder.redirectOutput(ProcessBuilder.Redirect.appendTo(f));
-      case ERROR -> builder.redirectError(f);
-      case ERROR_APPEND -> builder.redirectError(ProcessBuilder.Redirect.appendTo(f));
-      case ALL_OUTPUT -> {
-        builder.redirectOutput(f);
-        builder.redirectError(f);
-      }
-      case ALL_APPEND -> {
-        builder.redirectOutput(ProcessBuilder.Redirect.appendTo(f));
-        builder.redirectError(ProcessBuilder.Redirect.appendTo(f));
-      }
-      default -> throw new IOException("Invalid Redirect");
+    PrintWriter copyOut = null;
+    if (out == STDERR) {
+      builder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+      copyOut = io.err();
+    } else if (out != STDOUT) {
+      builder.redirectOutput(processRedirect(out, cwd));
+    }
+
+    PrintWriter copyErr = null;
+    if (err == out) {
+      // one target shared by both streams, as &> and 2>&1 mean
+      builder.redirectErrorStream(true);
+    } else if (err == STDOUT) {
+      builder.redirectError(ProcessBuilder.Redirect.PIPE);
+      copyErr = io.out();
+    } else if (err != STDERR) {
+      builder.redirectError(processRedirect(err, cwd));
     }
+
+    return copyOut == null && copyErr == null ? Copies.NONE : new Copies(copyOut, copyErr);
   }
 
-  private static File checkAndPrepareFile(Redirect r) throws IOException {
-    Path p = Path.of(r.target());
-    switch (r.type()) {
-      case INPUT: {
-        return checkFileExistsAndReturn(p);
-      }
-      case OUTPUT, ERROR, ALL_OUTPUT: {
-        return checkForWriteAndTruncate(p);
-      }
-      case OUTPUT_APPEND, ERROR_APPEND, ALL_APPEND: {
-        return checkForWriteAndAppend(p);
-      }
-      default: {
-        throw new IOException("Invalid Redirect");
+  /**
+   * Turns the exception {@link ProcessBuilder#start} throws when it cannot open
+   * one of the redirect targets into the message {@code redirects} report for
+   * that target. Any other failure is returned unchanged.
+   */
+  public static IOException describeStartFailure(IOException e, List<Redirect> redirects) {
+    // the JDK opens the targets with FileInputStream / FileOutputStream, whose
+    // messages read "<path> (<reason>)", with the target resolved against the
+    // process's directory.
+    if (e.getCause() instanceof FileNotFoundException notFound && notFound.getMessage() != null
+        && notFound.getMessage().contains(" (")) {
+      Path failed = Path.of(notFound.getMessage().substring(0, notFound.getMessage().lastIndexOf(" (")));
+      for (Redirect r : redirects) {
+        if (!r.isDuplicate() && !r.target().isEmpty() && failed.endsWith(r.target())) {
+          return accessError(r);
+        }
       }
     }
+    return e;
   }
 
-  private static File checkFileExistsAndReturn(Path p) throws IOException {
-    if (Files.exists(p)) {
-      return p.toFile();
+  // only 0, 1 and 2 are ever open; this also keeps a descriptor too long for an
+  // int, such as 2>&99999999999, from reaching duplicatedDescriptor.
+  private static void checkDescriptor(Redirect r) throws IOException {
+    if (!r.closesDescriptor() && (r.target().length() != 1 || r.target().charAt(0) > '2')) {
+      throw new IOException(r.target() + ": Bad file descriptor");
     }
-    throw new IOException("file: " + p.toString() + " does not have read access");
   }
 
-  private static File checkForWriteAndTruncate(Path p) throws IOException {
-    try {
-      Files.write(p, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-      return p.toFile();
-    } catch (IOException e) {
-      throw new IOException("file: " + p.toString() + " does not have write access");
+  private static Redirect replace(Redirect previous, Redirect next, List<Redirect> replaced) {
+    if (!isStandard(previous)) {
+      replaced.add(previous);
     }
+    return next;
   }
 
-  private static File checkForWriteAndAppend(Path p) throws IOException {
+  private static boolean isStandard(Redirect r) {
+    return r == STDIN || r == STDOUT || r == STDERR || r == CLOSED;
+  }
+
+  private static boolean isDevNull(Redirect r, Path cwd) {
+    return !r.isDuplicate() && cwd.resolve(r.target()).normalize().equals(DEV_NULL);
+  }
+
+  private static ProcessBuilder.Redirect processRedirect(Redirect r, Path cwd) {
+    if (r == CLOSED || isDevNull(r, cwd)) {
+      return ProcessBuilder.Redirect.DISCARD;
+    }
+    File f = cwd.resolve(r.target()).toFile();
+    return r.isAppendMode() ? ProcessBuilder.Redirect.appendTo(f) : ProcessBuilder.Redirect.to(f);
+  }
+
+  private static void openOnce(Redirect r, Path cwd) throws IOException {
+    if (isDevNull(r, cwd)) {
+      return;
+    }
+    Path p = cwd.resolve(r.target());
+    OpenOption[] options = switch (r.type()) {
+      case INPUT -> new OpenOption[] { StandardOpenOption.READ };
+      case OUTPUT, ERROR, ALL_OUTPUT -> new OpenOption[] { StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING };
+      default -> new OpenOption[] { StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND };
+    };
     try {
-      Files.write(p, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-      return p.toFile();
+      FileChannel.open(p, options).close();
     } catch (IOException e) {
-      throw new IOException("file: " + p.toString() + " does not have write access");
+      throw accessError(r);
     }
   }
 
+  private static IOException accessError(Redirect r) {
+    String access = r.type() == RedirectType.INPUT ? "read" : "write";
+    return new IOException("file: " + Path.of(r.target()).toString() + " does not have " + access + " access");
+  }
+
 }
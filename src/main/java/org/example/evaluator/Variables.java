@@ -0,0 +1,219 @@
+package org.example.evaluator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.example.lexer.ParameterState;
+
+/**
+ * The shell's variables, and which of them are exported to the commands it
+ * starts. It begins as a copy of the JVM's environment, all exported.
+ *
+ * A subshell or a command's {@code VAR=x} prefix gets a {@link #fork()},
+ * which shares this store's maps until one side first writes to them, so
+ * making one costs nothing for the usual command substitution that only
+ * reads.
+ *
+ * Children are given their environment by {@link #applyTo}. While the
+ * exported variables are still the JVM's own environment the child simply
+ * inherits it and nothing is copied. Otherwise only the differences from
+ * the JVM's environment are applied, and these are worked out once after
+ * each change rather than on every start.
+ */
+public final class Variables {
+
+  // the changes export and unset made to the JVM's environment.
+  private record Environment(Map<String, String> changed, List<String> removed) {
+    boolean isInherited() {
+      return changed.isEmpty() && removed.isEmpty();
+    }
+  }
+
+  private static final Map<String, String> JVM_ENVIRONMENT = System.getenv();
+
+  private Map<String, String> values;
+  private Set<String> exported;
+  // whether values and exported are also used by a fork, or by the store
+  // this was forked from, and must be copied before they are changed.
+  private boolean shared;
+  // null whenever an exported variable has changed since it was worked out.
+  private Environment environment;
+  // the status of the last command, for $?.
+  private int status;
+
+  private Variables(Map<String, String> values, Set<String> exported, Environment environment, int status) {
+    this.values = values;
+    this.exported = exported;
+    this.environment = environment;
+    this.status = status;
+  }
+
+  /**
+   * @return a store holding the JVM's environment, every variable exported.
+   */
+  public static Variables fromEnvironment() {
+    return new Variables(new HashMap<>(JVM_ENVIRONMENT), new HashSet<>(JVM_ENVIRONMENT.keySet()),
+        new Environment(Map.of(), List.of()), 0);
+  }
+
+  /**
+   * @return whether {@code name} can be the name of a variable: a letter or
+   *         underscore, then letters, digits and underscores.
+   */
+  public static boolean isName(String name) {
+    if (name.isEmpty() || !ParameterState.isNameStart(name.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      if (!ParameterState.isNameChar(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a copy of this store. Neither sees what the other sets or
+   *         exports afterwards.
+   */
+  public synchronized Variables fork() {
+    shared = true;
+    Variables fork = new Variables(values, exported, environment, status);
+    fork.shared = true;
+    return fork;
+  }
+
+  /**
+   * @return the value of {@code name}, or null if it is not set. The special
+   *         parameters {@code ?} and {@code $} are the last command's status
+   *         and the shell's pid.
+   */
+  public synchronized String get(String name) {
+    return switch (name) {
+      case "?" -> Integer.toString(status);
+      case "$" -> Long.toString(ProcessHandle.current().pid());
+      default -> values.get(name);
+    };
+  }
+
+  public synchronized void set(String name, String value) {
+    unshare();
+    values.put(name, value);
+    if (exported.contains(name)) {
+      environment = null;
+    }
+  }
+
+  /**
+   * Marks {@code name} to be passed to child processes, whether or not it is
+   * set yet.
+   */
+  public synchronized void export(String name) {
+    unshare();
+    if (exported.add(name) && values.containsKey(name)) {
+      environment = null;
+    }
+  }
+
+  public synchronized void unset(String name) {
+    unshare();
+    values.remove(name);
+    if (exported.remove(name)) {
+      environment = null;
+    }
+  }
+
+  public synchronized boolean isExported(String name) {
+    return exported.contains(name);
+  }
+
+  /**
+   * @return the variables child processes get, sorted by name.
+   */
+  public synchronized Map<String, String> exported() {
+    Map<String, String> environment = new TreeMap<>();
+    for (String name : exported) {
+      String value = values.get(name);
+      if (value != null) {
+        environment.put(name, value);
+      }
+    }
+    return environment;
+  }
+
+  /**
+   * Sets each {@code NAME=value} of {@code assignments}, as a command of
+   * only assignments does.
+   */
+  public synchronized void assign(List<String> assignments) {
+    for (String assignment : assignments) {
+      int equals = assignment.indexOf('=');
+      set(assignment.substring(0, equals), assignment.substring(equals + 1));
+    }
+  }
+
+  /**
+   * @return a fork with each {@code NAME=value} of {@code assignments} set
+   *         and exported, for the command they were written in front of.
+   */
+  public Variables forkWith(List<String> assignments) {
+    Variables fork = fork();
+    fork.assign(assignments);
+    for (String assignment : assignments) {
+      fork.export(assignment.substring(0, assignment.indexOf('=')));
+    }
+    return fork;
+  }
+
+  public synchronized void setStatus(int status) {
+    this.status = status;
+  }
+
+  /**
+   * Gives the process {@code builder} starts the exported variables as its
+   * environment.
+   */
+  public void applyTo(ProcessBuilder builder) {
+    Environment environment = environment();
+    if (environment.isInherited()) {
+      return;
+    }
+    // the JDK makes its copy of the JVM's environment here
+    Map<String, String> target = builder.environment();
+    target.keySet().removeAll(environment.removed());
+    target.putAll(environment.changed());
+  }
+
+  private synchronized Environment environment() {
+    if (environment == null) {
+      Map<String, String> changed = new HashMap<>();
+      for (String name : exported) {
+        String value = values.get(name);
+        if (value != null && !value.equals(JVM_ENVIRONMENT.get(name))) {
+          changed.put(name, value);
+        }
+      }
+      List<String> removed = new ArrayList<>();
+      for (String name : JVM_ENVIRONMENT.keySet()) {
+        if (!exported.contains(name) || !values.containsKey(name)) {
+          removed.add(name);
+        }
+      }
+      environment = new Environment(Map.copyOf(changed), List.copyOf(removed));
+    }
+    return environment;
+  }
+
+  private void unshare() {
+    if (shared) {
+      values = new HashMap<>(values);
+      exported = new HashSet<>(exported);
+      shared = false;
+    }
+  }
+}
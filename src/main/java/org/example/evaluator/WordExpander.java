@@ -0,0 +1,338 @@
+package org.example.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.example.ShellContext;
+import org.example.commands.Builtins;
+import org.example.parser.Command;
+import org.example.parser.CommandList;
+import org.example.parser.Parser;
+import org.example.parser.Pipeline;
+import org.example.parser.Redirect;
+import org.example.parser.RedirectType;
+import org.example.parser.Substitution;
+
+/**
+ * Makes the substitutions of a {@link Command} just before it runs: its
+ * parameters, from the shell's {@link Variables}, its command substitutions
+ * and then its pathname patterns.
+ *
+ * A substituted command runs inside the shell, in a subshell whose stdout
+ * is an in-memory buffer, so builtins such as {@code pwd} or {@code echo}
+ * start no process at all. A lone external command is started with its
+ * stdout as a pipe that is drained in one bulk read. Either way the output
+ * loses its trailing newlines.
+ *
+ * Outside double quotes a result is split into words at blanks, and one
+ * that is empty leaves no word behind. Assignments and redirect targets are
+ * never split.
+ *
+ * An argument with an unquoted {@code *}, {@code ?} or {@code [...]} in it,
+ * written or substituted, is then a {@link Glob} and is replaced by the
+ * sorted names of the files it matches, or left as it is if none do. The
+ * directories read are kept in {@link DirectoryListings} for the rest of the
+ * command line.
+ */
+final class WordExpander {
+
+  /**
+   * @param command the command with its substitutions made, or null if
+   *                neither words nor assignments were left.
+   * @param status  the exit status of the last command substitution, or 0.
+   */
+  record Expanded(Command command, int status) {
+  }
+
+  private record Output(String text, int status) {
+  }
+
+  // what a pipeline stage whose words all came out empty is replaced with: it
+  // reads and writes nothing, but still takes its place in the pipeline.
+  private static final List<String> EMPTY_STAGE = List.of("cat");
+  private static final Redirect NO_INPUT = new Redirect(RedirectType.INPUT, "/dev/null");
+
+  private final Evaluator evaluator;
+  private final Builtins builtins;
+  private volatile DirectoryListings listings = new DirectoryListings();
+
+  WordExpander(Evaluator evaluator, Builtins builtins) {
+    this.evaluator = evaluator;
+    this.builtins = builtins;
+  }
+
+  /**
+   * Forgets the directories read for the previous command line.
+   */
+  void beginLine() {
+    listings = new DirectoryListings();
+  }
+
+  Expanded expand(Command cmd, ShellContext shell) throws IOException {
+    Pass pass = new Pass(shell, cmd.substitutions());
+    List<String> assignments = new ArrayList<>(cmd.assignments().size());
+    for (int i = 0; i < cmd.assignments().size(); i++) {
+      pass.expandWord(cmd.assignments().get(i), i, false, assignments);
+    }
+    List<String> args = new ArrayList<>(cmd.args().size());
+    for (int i = 0; i < cmd.args().size(); i++) {
+      pass.expandWord(cmd.args().get(i), cmd.assignments().size() + i, true, args);
+    }
+
+    List<Redirect> redirects = new ArrayList<>(cmd.redirects().size());
+    for (Redirect redirect : cmd.redirects()) {
+      if (!redirect.hasSubstitutions()) {
+        redirects.add(redirect);
+        continue;
+      }
+      List<String> target = new ArrayList<>(1);
+      new Pass(shell, redirect.substitutions()).expandWord(redirect.target(), 0, false, target);
+      redirects.add(new Redirect(redirect.type(), target.isEmpty() ? "" : target.get(0)));
+    }
+
+    if (args.isEmpty() && assignments.isEmpty()) {
+      return new Expanded(null, pass.status);
+    }
+    return new Expanded(new Command(args, redirects, List.of(), assignments), pass.status);
+  }
+
+  /**
+   * @return {@code pipeline} with the substitutions of every stage made, or
+   *         {@code pipeline} itself if it has none. A stage that is left
+   *         with no words reads and writes nothing; as in bash, its
+   *         assignments do not reach the shell.
+   */
+  Pipeline expand(Pipeline pipeline, ShellContext shell) throws IOException {
+    if (pipeline.commands().stream().noneMatch(cmd -> cmd.hasSubstitutions() || !cmd.assignments().isEmpty())) {
+      return pipeline;
+    }
+    List<Command> commands = new ArrayList<>(pipeline.commands().size());
+    for (Command cmd : pipeline.commands()) {
+      Command expanded = cmd.hasSubstitutions() ? expand(cmd, shell).command() : cmd;
+      if (expanded == null || expanded.args().isEmpty()) {
+        List<Redirect> redirects = new ArrayList<>(expanded != null ? expanded.redirects() : cmd.redirects());
+        redirects.add(0, NO_INPUT);
+        expanded = new Command(EMPTY_STAGE, redirects);
+      }
+      commands.add(expanded);
+    }
+    return new Pipeline(commands);
+  }
+
+  // one command's, or one redirect's, substitutions, made in order.
+  private final class Pass {
+    private final ShellContext shell;
+    private final List<Substitution> substitutions;
+    private int next = 0;
+    private int status = 0;
+
+    Pass(ShellContext shell, List<Substitution> substitutions) {
+      this.shell = shell;
+      this.substitutions = substitutions;
+    }
+
+    void expandWord(String word, int index, boolean split, List<String> into) throws IOException {
+      if (next == substitutions.size() || substitutions.get(next).word() != index) {
+        into.add(word);
+        return;
+      }
+
+      Fields fields = split ? new Fields(into, shell.getCwd(), listings) : new Fields(into, null, null);
+      int from = 0;
+      for (; next < substitutions.size() && substitutions.get(next).word() == index; next++) {
+        Substitution substitution = substitutions.get(next);
+        fields.appendLiteral(word.substring(from, substitution.start()));
+        if (substitution.kind() == Substitution.Kind.GLOB) {
+          fields.appendPattern(substitution.source());
+          from = substitution.end();
+          continue;
+        }
+        String value = valueOf(substitution);
+        if (split && !substitution.quoted()) {
+          fields.appendSplit(value);
+        } else {
+          fields.appendQuoted(value);
+        }
+        from = substitution.end();
+      }
+      fields.appendLiteral(word.substring(from));
+      fields.finish();
+    }
+
+    private String valueOf(Substitution substitution) throws IOException {
+      if (substitution.kind() == Substitution.Kind.PARAMETER) {
+        String value = shell.variables().get(substitution.source());
+        return value != null ? value : "";
+      }
+      Output output = capture(substitution.source(), shell);
+      status = output.status();
+      return output.text();
+    }
+  }
+
+  private Output capture(String source, ShellContext shell) throws IOException {
+    if (source.isBlank()) {
+      return new Output("", 0);
+    }
+    CommandList list;
+    try {
+      list = Parser.cache().parse(source);
+    } catch (ParseException e) {
+      shell.err().println(e.getMessage());
+      shell.err().flush();
+      return new Output("", 1);
+    }
+
+    Optional<String> filepath = Optional.empty();
+    Command cmd = list.first().first();
+    if (list.isSinglePipeline() && list.first().isSingleCommand() && cmd.redirects().isEmpty()
+        && !cmd.hasSubstitutions() && cmd.assignments().isEmpty() && !builtins.isBuiltin(cmd.commandName())) {
+      filepath = CommandUtils.getCommandFilepath(cmd.commandName(), shell);
+    }
+    if (filepath.isPresent()) {
+      return captureExternal(cmd, filepath.get(), shell);
+    }
+
+    StringWriter buffer = new StringWriter();
+    PrintWriter out = new PrintWriter(buffer);
+    IoContext io = new IoContext(shell.in(), out, shell.err(), EnumSet.noneOf(IoContext.Resource.class));
+    int status = evaluator.run(list, shell.subshell(io)).getExitCode();
+    out.flush();
+    return new Output(stripTrailingNewlines(buffer.getBuffer()), status);
+  }
+
+  private static Output captureExternal(Command cmd, String filepath, ShellContext shell) throws IOException {
+    ProcessBuilder builder = new ProcessBuilder(CommandUtils.withFilepath(cmd.args(), filepath))
+        .directory(new File(shell.getCwd().toString()))
+        .redirectInput(ProcessBuilder.Redirect.INHERIT)
+        .redirectOutput(ProcessBuilder.Redirect.PIPE)
+        .redirectError(ProcessBuilder.Redirect.INHERIT);
+    shell.variables().applyTo(builder);
+    boolean copyErr = false;
+    if (!shell.inheritsStdio()) {
+      DetachedStdio.pipeInheritedInput(builder);
+      copyErr = DetachedStdio.pipeInheritedError(builder);
+    }
+
+    Evaluator.flushStdio(shell);
+    try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+      Process process = Evaluator.closeEmptyStdin(Evaluator.start(builder, cmd), builder);
+      if (copyErr) {
+        DetachedStdio.copy(process.getErrorStream(), shell.err(), threads);
+      }
+      byte[] output = process.getInputStream().readAllBytes();
+      int status = process.waitFor();
+      return new Output(stripTrailingNewlines(new String(output, StandardCharsets.UTF_8)), status);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      shell.err().println(cmd.commandName() + ": interrupted");
+      return new Output("", 130);
+    }
+  }
+
+  private static String stripTrailingNewlines(CharSequence output) {
+    int end = output.length();
+    while (end > 0 && output.charAt(end - 1) == '\n') {
+      end--;
+    }
+    return output.subSequence(0, end).toString();
+  }
+
+  // builds the words one argument turns into. A word is only produced once
+  // something, if only an empty quoted substitution, has been put in it.
+  // Alongside each word it builds the word as a Glob pattern, with the
+  // characters that were quoted escaped, when there is a cwd to match in.
+  private static final class Fields {
+    private final List<String> words;
+    private final Path cwd;
+    private final DirectoryListings listings;
+    private final StringBuilder word = new StringBuilder();
+    private final StringBuilder pattern = new StringBuilder();
+    private boolean started = false;
+    private boolean globbed = false;
+
+    Fields(List<String> words, Path cwd, DirectoryListings listings) {
+      this.words = words;
+      this.cwd = cwd;
+      this.listings = listings;
+    }
+
+    void appendLiteral(String text) {
+      if (!text.isEmpty()) {
+        appendQuoted(text);
+      }
+    }
+
+    void appendQuoted(String text) {
+      word.append(text);
+      if (cwd != null) {
+        for (int i = 0; i < text.length(); i++) {
+          appendEscaped(text.charAt(i));
+        }
+      }
+      started = true;
+    }
+
+    // text is an unquoted *, ? or [...] as written in the command.
+    void appendPattern(String text) {
+      word.append(text);
+      pattern.append(text);
+      globbed = true;
+      started = true;
+    }
+
+    // an unquoted substitution's result is split, and a *, ? or [ in it
+    // makes its word a pattern, as if it had been written there.
+    void appendSplit(String text) {
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (c == ' ' || c == '\t' || c == '\n') {
+          finish();
+          continue;
+        }
+        word.append(c);
+        if (c == '*' || c == '?' || c == '[' || c == ']') {
+          pattern.append(c);
+          globbed |= c != ']';
+        } else {
+          appendEscaped(c);
+        }
+        started = true;
+      }
+    }
+
+    void finish() {
+      if (started) {
+        List<String> matches = globbed && cwd != null ? Glob.compile(pattern.toString()).expand(cwd, listings)
+            : List.of();
+        if (matches.isEmpty()) {
+          words.add(word.toString());
+        } else {
+          words.addAll(matches);
+        }
+        word.setLength(0);
+        pattern.setLength(0);
+        started = false;
+        globbed = false;
+      }
+    }
+
+    private void appendEscaped(char c) {
+      if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+        pattern.append('\\');
+      }
+      pattern.append(c);
+    }
+  }
+}
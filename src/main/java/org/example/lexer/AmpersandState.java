@@ -0,0 +1,37 @@
+package org.example.lexer;
+
+import org.example.lexer.Token.TokenType;
+
+/**
+ * Follows an unquoted {@code &}. A {@code >} next makes it the {@code &>}
+ * redirect and another {@code &} the {@code &&} operator; anything else ends
+ * the commands before it, which are to run in the background.
+ */
+public final class AmpersandState implements LexerState {
+
+  public static final AmpersandState INSTANCE = new AmpersandState();
+
+  private AmpersandState() {
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    if (c == '>') {
+      context.appendToToken(c);
+      return RedirectState.INSTANCE;
+    }
+    if (c == '&') {
+      context.appendToToken(c);
+      context.saveTokenIfNotEmpty(TokenType.AND);
+      return UnquotedState.INSTANCE;
+    }
+    context.saveTokenIfNotEmpty(TokenType.BACKGROUND);
+    return UnquotedState.INSTANCE.processChar(c, context);
+  }
+
+  @Override
+  public void finalise(LexerContext context) {
+    context.saveTokenIfNotEmpty(TokenType.BACKGROUND);
+  }
+
+}
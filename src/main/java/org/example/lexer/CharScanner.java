@@ -0,0 +1,48 @@
+package org.example.lexer;
+
+/**
+ * Finds the next character that can end a run of plain unquoted text: a
+ * space, a quote, a backslash, {@code <}, {@code >}, {@code &}, {@code |} or
+ * {@code ;}.
+ */
+interface CharScanner {
+
+  /**
+   * @return the index of the first special character in
+   *         {@code chars[from, to)}, or {@code to} if there is none.
+   */
+  int indexOfSpecial(char[] chars, int from, int to);
+
+  static boolean isSpecial(char c) {
+    return c == ' ' || c == '\'' || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '|'
+        || c == ';';
+  }
+
+  /**
+   * @return the vectorized scanner when the {@code jdk.incubator.vector}
+   *         module is available and not disabled with
+   *         {@code -Djavashell.lexer.vector=false}, otherwise the scalar one.
+   */
+  static CharScanner best() {
+    return Holder.BEST;
+  }
+
+  final class Holder {
+    private static final CharScanner BEST = load();
+
+    private Holder() {
+    }
+
+    private static CharScanner load() {
+      if (!Boolean.parseBoolean(System.getProperty("javashell.lexer.vector", "true"))
+          || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+        return ScalarCharScanner.INSTANCE;
+      }
+      try {
+        return new VectorCharScanner();
+      } catch (LinkageError e) {
+        return ScalarCharScanner.INSTANCE;
+      }
+    }
+  }
+}
@@ -0,0 +1,346 @@
+package org.example.lexer;
+
+import java.util.Arrays;
+
+import org.example.lexer.Token.TokenType;
+import org.example.parser.RedirectType;
+
+/**
+ * A table-driven version of the {@link LexerState} machine.
+ *
+ * The grammar implemented by {@link UnquotedState}, {@link SingleQuotedState},
+ * {@link DoubleQuotedState}, {@link RedirectState}, {@link RedirectTargetState},
+ * {@link AmpersandState} and {@link PipeState} is compiled once into a
+ * character class x state transition table. The parts of the token text that
+ * the state objects inspect at run time (is the token empty, is it a single
+ * redirect prefix character, which redirect operator has been read so far)
+ * are folded into the states themselves, so lexing a character is one array
+ * lookup instead of an interface call and, for redirects, a map lookup.
+ *
+ * Tokens are written through a {@link LexerContext}, so both lexers produce
+ * identical {@link TokenBuffer} contents.
+ */
+final class DfaLexer {
+
+  // character classes. Anything outside ASCII is OTHER.
+  private static final int SPACE = 0;
+  private static final int SINGLE_QUOTE = 1;
+  private static final int DOUBLE_QUOTE = 2;
+  private static final int BACKSLASH = 3;
+  private static final int LESS = 4;
+  private static final int GREATER = 5;
+  private static final int PIPE = 6;
+  private static final int ONE = 7;
+  private static final int TWO = 8;
+  private static final int AMPERSAND = 9;
+  private static final int SEMICOLON = 10;
+  // characters a backslash escapes inside double quotes, apart from " and \.
+  private static final int DQ_ESCAPABLE = 11;
+  private static final int OTHER = 12;
+  private static final int CLASS_COUNT = 13;
+
+  private static final char[] REPRESENTATIVE = { ' ', '\'', '"', '\\', '<', '>', '|', '1', '2', '&', ';', '$', 'x' };
+
+  // what is known about the text of the current token.
+  private static final int EMPTY = 0;
+  private static final int PREFIX_GREATER = 1;
+  private static final int PREFIX_LESS = 2;
+  private static final int PREFIX_ONE = 3;
+  private static final int PREFIX_TWO = 4;
+  private static final int PREFIX_AMPERSAND = 5;
+  private static final int WORD = 6;
+  private static final int SHAPE_COUNT = 7;
+
+  // the redirect operators that can be read in RedirectState, in the order
+  // the R_ states are numbered.
+  private static final String[] OPERATORS = { ">", ">>", "<>", "1>", "1>>", "2>", "2>>", "&>", "&>>" };
+
+  private static final int UNQUOTED = 0;
+  private static final int SINGLE_QUOTED = UNQUOTED + SHAPE_COUNT * 2;
+  private static final int DOUBLE_QUOTED = SINGLE_QUOTED + SHAPE_COUNT;
+  private static final int REDIRECT = DOUBLE_QUOTED + SHAPE_COUNT * 2;
+  private static final int BACKGROUND = REDIRECT + OPERATORS.length;
+  private static final int REDIRECT_TARGET = BACKGROUND + 1;
+  private static final int PIPE_OPERATOR = REDIRECT_TARGET + 1;
+  private static final int STATE_COUNT = PIPE_OPERATOR + 1;
+
+  // actions, applied in this order.
+  private static final int SAVE_BACKGROUND = 1;
+  private static final int SAVE_PIPE = 1 << 1;
+  private static final int SAVE_WORD = 1 << 2;
+  private static final int SAVE_REDIRECT = 1 << 3;
+  private static final int APPEND_BACKSLASH = 1 << 4;
+  private static final int APPEND = 1 << 5;
+  private static final int EMIT_REDIRECT = 1 << 6;
+  private static final int EMIT_SEMICOLON = 1 << 7;
+  private static final int EMIT_AND = 1 << 8;
+  private static final int EMIT_OR = 1 << 9;
+
+  private static final int ACTION_SHIFT = 8;
+  private static final int STATE_MASK = (1 << ACTION_SHIFT) - 1;
+
+  private static final int UNQUOTED_WORD = unquoted(WORD, false);
+  private static final CharScanner SCANNER = CharScanner.best();
+
+  private static final byte[] CLASSES = new byte[128];
+  private static final int[] TRANSITIONS = new int[STATE_COUNT * CLASS_COUNT];
+  private static final TokenType[] FINAL_TYPE = new TokenType[STATE_COUNT];
+
+  static {
+    Arrays.fill(CLASSES, (byte) OTHER);
+    for (int cls = 0; cls < CLASS_COUNT - 1; cls++) {
+      CLASSES[REPRESENTATIVE[cls]] = (byte) cls;
+    }
+    CLASSES['`'] = DQ_ESCAPABLE;
+    CLASSES['\n'] = DQ_ESCAPABLE;
+
+    for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+      for (int cls = 0; cls < CLASS_COUNT; cls++) {
+        char c = REPRESENTATIVE[cls];
+        set(unquoted(shape, false), cls, unquotedTransition(shape, c));
+        set(unquoted(shape, true), cls, APPEND, unquoted(grow(shape, c), false));
+        set(singleQuoted(shape), cls, singleQuotedTransition(shape, c));
+        set(doubleQuoted(shape, false), cls, doubleQuotedTransition(shape, c));
+        set(doubleQuoted(shape, true), cls, escapedDoubleQuotedTransition(shape, c));
+      }
+      FINAL_TYPE[unquoted(shape, false)] = TokenType.WORD;
+      FINAL_TYPE[unquoted(shape, true)] = TokenType.WORD;
+      FINAL_TYPE[singleQuoted(shape)] = TokenType.WORD;
+      FINAL_TYPE[doubleQuoted(shape, false)] = TokenType.WORD;
+      FINAL_TYPE[doubleQuoted(shape, true)] = TokenType.WORD;
+    }
+    for (int op = 0; op < OPERATORS.length; op++) {
+      for (int cls = 0; cls < CLASS_COUNT; cls++) {
+        set(REDIRECT + op, cls, redirectTransition(OPERATORS[op], REPRESENTATIVE[cls]));
+      }
+      FINAL_TYPE[REDIRECT + op] = TokenType.REDIRECT;
+    }
+    for (int cls = 0; cls < CLASS_COUNT; cls++) {
+      set(BACKGROUND, cls, backgroundTransition(REPRESENTATIVE[cls]));
+      set(REDIRECT_TARGET, cls, redirectTargetTransition(REPRESENTATIVE[cls]));
+      set(PIPE_OPERATOR, cls, pipeTransition(REPRESENTATIVE[cls]));
+    }
+    FINAL_TYPE[BACKGROUND] = TokenType.BACKGROUND;
+    FINAL_TYPE[REDIRECT_TARGET] = TokenType.WORD;
+    FINAL_TYPE[PIPE_OPERATOR] = TokenType.PIPE;
+  }
+
+  private DfaLexer() {
+  }
+
+  static void scan(CharSequence input, TokenBuffer tokens) {
+    LexerContext context = new LexerContext(input, tokens);
+    char[] chars = tokens.inputChars();
+    int n = input.length();
+    int state = unquoted(EMPTY, false);
+
+    int i = 0;
+    while (i < n) {
+      // inside a plain unquoted word, everything up to the next special
+      // character is appended as-is, so find it a vector at a time and take
+      // the whole run in one step.
+      if (state == UNQUOTED_WORD) {
+        int special = SCANNER.indexOfSpecial(chars, i, n);
+        if (special > i) {
+          context.appendRun(i, special);
+          i = special;
+          continue;
+        }
+      }
+
+      char c = chars[i];
+      int entry = TRANSITIONS[state * CLASS_COUNT + (c < 128 ? CLASSES[c] : OTHER)];
+      int actions = entry >>> ACTION_SHIFT;
+      if (actions != 0) {
+        context.setPosition(i);
+        apply(actions, c, context);
+      }
+      state = entry & STATE_MASK;
+      i++;
+    }
+
+    context.setPosition(n);
+    context.saveTokenIfNotEmpty(FINAL_TYPE[state]);
+  }
+
+  private static void apply(int actions, char c, LexerContext context) {
+    if ((actions & SAVE_BACKGROUND) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.BACKGROUND);
+    }
+    if ((actions & SAVE_PIPE) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.PIPE);
+    }
+    if ((actions & SAVE_WORD) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.WORD);
+    }
+    if ((actions & SAVE_REDIRECT) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.REDIRECT);
+    }
+    if ((actions & APPEND_BACKSLASH) != 0) {
+      context.appendToToken('\\');
+    }
+    if ((actions & APPEND) != 0) {
+      context.appendToToken(c);
+    }
+    if ((actions & EMIT_REDIRECT) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.REDIRECT);
+    }
+    if ((actions & EMIT_SEMICOLON) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.SEMICOLON);
+    }
+    if ((actions & EMIT_AND) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.AND);
+    }
+    if ((actions & EMIT_OR) != 0) {
+      context.saveTokenIfNotEmpty(TokenType.OR);
+    }
+  }
+
+  // table construction. Each method mirrors the processChar of the matching
+  // LexerState and returns the packed (actions, next state) entry.
+
+  private static int unquotedTransition(int shape, char c) {
+    return switch (c) {
+      case '\'' -> entry(0, singleQuoted(shape));
+      case '"' -> entry(0, doubleQuoted(shape, false));
+      case '>' -> {
+        boolean isValidRedirectPrefix = shape != WORD;
+        int before = isValidRedirectPrefix ? shape : EMPTY;
+        yield entry(isValidRedirectPrefix ? APPEND : SAVE_WORD | APPEND, REDIRECT + operatorIndex(before));
+      }
+      case '<' -> entry(SAVE_WORD | APPEND | EMIT_REDIRECT, REDIRECT_TARGET);
+      case '&' -> entry(SAVE_WORD | APPEND, BACKGROUND);
+      case '|' -> entry(SAVE_WORD | APPEND, PIPE_OPERATOR);
+      case ';' -> entry(SAVE_WORD | APPEND | EMIT_SEMICOLON, unquoted(EMPTY, false));
+      case '\\' -> entry(0, unquoted(shape, true));
+      case ' ' -> entry(SAVE_WORD, unquoted(EMPTY, false));
+      default -> entry(APPEND, unquoted(grow(shape, c), false));
+    };
+  }
+
+  private static int singleQuotedTransition(int shape, char c) {
+    if (c == '\'') {
+      return entry(0, unquoted(shape, false));
+    }
+    return entry(APPEND, singleQuoted(grow(shape, c)));
+  }
+
+  private static int doubleQuotedTransition(int shape, char c) {
+    return switch (c) {
+      case '"' -> entry(0, unquoted(shape, false));
+      case '\\' -> entry(0, doubleQuoted(shape, true));
+      default -> entry(APPEND, doubleQuoted(grow(shape, c), false));
+    };
+  }
+
+  private static int escapedDoubleQuotedTransition(int shape, char c) {
+    if ("\"\\$`\n".indexOf(c) >= 0) {
+      return entry(APPEND, doubleQuoted(grow(shape, c), false));
+    }
+    return entry(APPEND_BACKSLASH | APPEND, doubleQuoted(grow(grow(shape, '\\'), c), false));
+  }
+
+  private static int redirectTransition(String operator, char c) {
+    String extended = operator + c;
+    for (int op = 0; op < OPERATORS.length; op++) {
+      if (OPERATORS[op].equals(extended) && RedirectType.isValidRedirectType(extended)) {
+        return entry(APPEND, REDIRECT + op);
+      }
+    }
+
+    return switch (c) {
+      case ' ' -> entry(SAVE_REDIRECT, REDIRECT_TARGET);
+      case '\'' -> entry(SAVE_REDIRECT, singleQuoted(EMPTY));
+      case '"' -> entry(SAVE_REDIRECT, doubleQuoted(EMPTY, false));
+      case '<' -> entry(SAVE_REDIRECT | APPEND | EMIT_REDIRECT, REDIRECT_TARGET);
+      case '>' -> entry(SAVE_REDIRECT | APPEND, REDIRECT + operatorIndex(EMPTY));
+      case '|' -> entry(SAVE_REDIRECT | APPEND, PIPE_OPERATOR);
+      case ';' -> entry(SAVE_REDIRECT | APPEND | EMIT_SEMICOLON, unquoted(EMPTY, false));
+      default -> entry(SAVE_REDIRECT | APPEND, unquoted(grow(EMPTY, c), false));
+    };
+  }
+
+  // AmpersandState and PipeState save their operator before handing the
+  // next character to UnquotedState, which is why SAVE_BACKGROUND and
+  // SAVE_PIPE come first.
+  private static int backgroundTransition(char c) {
+    return switch (c) {
+      case '>' -> entry(APPEND, REDIRECT + operatorIndex(PREFIX_AMPERSAND));
+      case '&' -> entry(APPEND | EMIT_AND, unquoted(EMPTY, false));
+      default -> entry(SAVE_BACKGROUND, 0) | unquotedTransition(EMPTY, c);
+    };
+  }
+
+  private static int pipeTransition(char c) {
+    if (c == '|') {
+      return entry(APPEND | EMIT_OR, unquoted(EMPTY, false));
+    }
+    return entry(SAVE_PIPE, 0) | unquotedTransition(EMPTY, c);
+  }
+
+  private static int redirectTargetTransition(char c) {
+    return switch (c) {
+      case ' ' -> entry(0, REDIRECT_TARGET);
+      case '&' -> entry(APPEND, unquoted(PREFIX_AMPERSAND, false));
+      default -> unquotedTransition(EMPTY, c);
+    };
+  }
+
+  // the shape of the token after appending c to a token of the given shape.
+  private static int grow(int shape, char c) {
+    if (shape != EMPTY) {
+      return WORD;
+    }
+    return switch (c) {
+      case '>' -> PREFIX_GREATER;
+      case '<' -> PREFIX_LESS;
+      case '1' -> PREFIX_ONE;
+      case '2' -> PREFIX_TWO;
+      case '&' -> PREFIX_AMPERSAND;
+      default -> WORD;
+    };
+  }
+
+  // the operator read after appending '>' to a token of the given shape.
+  private static int operatorIndex(int shape) {
+    String operator = switch (shape) {
+      case EMPTY -> ">";
+      case PREFIX_GREATER -> ">>";
+      case PREFIX_LESS -> "<>";
+      case PREFIX_ONE -> "1>";
+      case PREFIX_TWO -> "2>";
+      case PREFIX_AMPERSAND -> "&>";
+      default -> throw new IllegalStateException("Not a redirect prefix: " + shape);
+    };
+    for (int op = 0; op < OPERATORS.length; op++) {
+      if (OPERATORS[op].equals(operator)) {
+        return op;
+      }
+    }
+    throw new IllegalStateException("Unknown operator: " + operator);
+  }
+
+  private static int unquoted(int shape, boolean escaped) {
+    return UNQUOTED + shape * 2 + (escaped ? 1 : 0);
+  }
+
+  private static int singleQuoted(int shape) {
+    return SINGLE_QUOTED + shape;
+  }
+
+  private static int doubleQuoted(int shape, boolean escaped) {
+    return DOUBLE_QUOTED + shape * 2 + (escaped ? 1 : 0);
+  }
+
+  private static int entry(int actions, int next) {
+    return (actions << ACTION_SHIFT) | next;
+  }
+
+  private static void set(int state, int cls, int entry) {
+    TRANSITIONS[state * CLASS_COUNT + cls] = entry;
+  }
+
+  private static void set(int state, int cls, int actions, int next) {
+    set(state, cls, entry(actions, next));
+  }
+}
@@ -0,0 +1,50 @@
+package org.example.lexer;
+
+/**
+ * Follows a {@code $} outside single quotes. A {@code (} next starts a
+ * command substitution, and a {@code {}, a name or one of the special
+ * parameters {@code ?} and {@code $} a parameter. Anything else leaves the
+ * {@code $} as a plain character of the word.
+ */
+public final class DollarState implements LexerState {
+
+  public static final DollarState UNQUOTED = new DollarState(UnquotedState.INSTANCE, false);
+  public static final DollarState DOUBLE_QUOTED = new DollarState(DoubleQuotedState.INSTANCE, true);
+
+  private final LexerState returnTo;
+  private final boolean doubleQuoted;
+  private final ParameterState name;
+  private final ParameterState braced;
+
+  private DollarState(LexerState returnTo, boolean doubleQuoted) {
+    this.returnTo = returnTo;
+    this.doubleQuoted = doubleQuoted;
+    this.name = new ParameterState(returnTo, false);
+    this.braced = new ParameterState(returnTo, true);
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    if (c == '(') {
+      context.beginSubstitution(context.currentTokenLength() - 1, false, doubleQuoted);
+      context.appendToToken(c);
+      return new SubstitutionState(returnTo, false);
+    }
+    if (c == '{' || c == '?' || c == '$' || ParameterState.isNameStart(c)) {
+      context.beginParameter(context.currentTokenLength() - 1, doubleQuoted);
+      context.appendToToken(c);
+      if (c == '?' || c == '$') {
+        context.endSubstitution();
+        return returnTo;
+      }
+      return c == '{' ? braced : name;
+    }
+    return returnTo.processChar(c, context);
+  }
+
+  @Override
+  public void finalise(LexerContext context) {
+    returnTo.finalise(context);
+  }
+
+}
@@ -25,6 +25,13 @@ public class DoubleQuotedState implements LexerState {
     switch (c) {
       case '"':
         return UnquotedState.INSTANCE;
+      case '$':
+        context.appendToToken(c);
+        return DollarState.DOUBLE_QUOTED;
+      case '`':
+        context.beginSubstitution(context.currentTokenLength(), true, true);
+        context.appendToToken(c);
+        return new SubstitutionState(this, true);
       case '\\':
         context.setNextCharEscaped(true);
         return this;
@@ -10,18 +10,64 @@ public class Lexer {
     this.context = new LexerContext(input);
   }
 
+  private Lexer(CharSequence input, TokenBuffer tokens) {
+    this.context = new LexerContext(input, tokens);
+  }
+
   public static List<Token> tokenize(String input) {
-    return new Lexer(input).tokenize();
+    return scan(input, new TokenBuffer()).toTokens();
+  }
+
+  /**
+   * Tokenizes {@code input} into {@code tokens}, reusing its storage. No
+   * strings are created; use {@link TokenBuffer#text(int)} to materialize the
+   * tokens that are needed.
+   *
+   * Uses the table-driven {@link DfaLexer}, unless the input may hold a
+   * command substitution, a parameter or a pathname pattern. The table knows
+   * nothing of those, so lines with a {@code $}, a backquote, {@code *},
+   * {@code ?} or {@code [} go through the state objects, which record where
+   * each one is.
+   *
+   * @return {@code tokens}, for chaining.
+   */
+  public static TokenBuffer scan(CharSequence input, TokenBuffer tokens) {
+    if (mayHaveSubstitution(input)) {
+      return scanWithStates(input, tokens);
+    }
+    DfaLexer.scan(input, tokens);
+    return tokens;
+  }
+
+  /**
+   * Same as {@link #scan(CharSequence, TokenBuffer)} but runs the
+   * {@link LexerState} objects directly. This is the reference implementation
+   * the transition table is compiled from.
+   */
+  public static TokenBuffer scanWithStates(CharSequence input, TokenBuffer tokens) {
+    new Lexer(input, tokens).run();
+    return tokens;
+  }
+
+  private static boolean mayHaveSubstitution(CharSequence input) {
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c == '`' || c == '$' || c == '*' || c == '?' || c == '[') {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private List<Token> tokenize() {
-    String input = context.getInput();
+  private void run() {
+    CharSequence input = context.getInput();
 
     for (int i = 0; i < input.length(); i++) {
+      context.setPosition(i);
       state = state.processChar(input.charAt(i), context);
     }
 
+    context.setPosition(input.length());
     state.finalise(context);
-    return context.getTokens();
   }
 }
@@ -1,65 +1,198 @@
 package org.example.lexer;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.example.lexer.Token.TokenType;
 
+/**
+ * Tracks the token currently being built and writes finished tokens into a
+ * {@link TokenBuffer}.
+ *
+ * The current token is kept as offsets rather than a {@code StringBuilder}:
+ * while every appended character is the next character of the input it is
+ * just a growing slice. The first time something else is appended (quotes or
+ * escapes were dropped, or a character was synthesised) the slice is copied
+ * into the buffer's scratch space and the rest of the token is built there.
+ */
 public class LexerContext {
-  private String input;
-  private List<Token> tokens = new ArrayList<>();
-  private StringBuilder tokenBuilder = new StringBuilder();
+  private CharSequence input;
+  private final TokenBuffer tokens;
   private boolean nextCharEscaped = false;
 
+  // the offset of the character currently being processed.
+  private int position = 0;
+
+  private int tokenStart = 0;
+  private int tokenEnd = 0;
+  private int tokenLength = 0;
+  private boolean cooked = false;
+  private int scratchStart = 0;
+
+  private final CharSequence currentToken = new CurrentToken();
+
   public LexerContext(String input) {
+    this(input, new TokenBuffer());
+  }
+
+  public LexerContext(CharSequence input, TokenBuffer tokens) {
     this.input = input;
+    this.tokens = tokens;
+    tokens.reset(input);
   }
 
-  public String getInput() {
+  public CharSequence getInput() {
     return input;
   }
 
-  public void setInput(String input) {
-    this.input = input;
+  public TokenBuffer getTokenBuffer() {
+    return tokens;
   }
 
   public List<Token> getTokens() {
-    return tokens;
+    return tokens.toTokens();
   }
 
-  public void setTokens(List<Token> tokens) {
-    this.tokens = tokens;
+  public boolean isNextCharEscaped() {
+    return nextCharEscaped;
   }
 
-  public StringBuilder getTokenBuilder() {
-    return tokenBuilder;
+  public void setNextCharEscaped(boolean charIsEscaped) {
+    this.nextCharEscaped = charIsEscaped;
   }
 
-  public void setTokenBuilder(StringBuilder tokenBuilder) {
-    this.tokenBuilder = tokenBuilder;
+  public void setPosition(int position) {
+    this.position = position;
   }
 
-  public boolean isNextCharEscaped() {
-    return nextCharEscaped;
+  public void appendToToken(char c) {
+    if (tokenLength == 0) {
+      tokenStart = position;
+      cooked = false;
+    }
+    tokenEnd = position + 1;
+
+    if (!cooked) {
+      if (tokenStart + tokenLength == position && input.charAt(position) == c) {
+        tokenLength++;
+        return;
+      }
+      scratchStart = tokens.scratchLength();
+      tokens.appendScratch(input, tokenStart, tokenStart + tokenLength);
+      cooked = true;
+    }
+    tokens.appendScratch(c);
+    tokenLength++;
   }
 
-  public void setNextCharEscaped(boolean charIsEscaped) {
-    this.nextCharEscaped = charIsEscaped;
+  /**
+   * Appends the input characters {@code [start, end)} to the current token in
+   * one step. They must need no quote or escape processing.
+   */
+  public void appendRun(int start, int end) {
+    if (start == end) {
+      return;
+    }
+    if (tokenLength == 0) {
+      tokenStart = start;
+      cooked = false;
+    }
+    tokenEnd = end;
+
+    if (!cooked) {
+      if (tokenStart + tokenLength == start) {
+        tokenLength += end - start;
+        return;
+      }
+      scratchStart = tokens.scratchLength();
+      tokens.appendScratch(input, tokenStart, tokenStart + tokenLength);
+      cooked = true;
+    }
+    tokens.appendScratch(input, start, end);
+    tokenLength += end - start;
   }
 
-  public void appendToToken(char c) {
-    tokenBuilder.append(c);
+  /**
+   * @return a view of the current token's text. It is only valid until the
+   *         token changes and must not be kept.
+   */
+  public CharSequence currentToken() {
+    return currentToken;
   }
 
-  public String getCurrentTokenContent() {
-    return tokenBuilder.toString();
+  public int currentTokenLength() {
+    return tokenLength;
   }
 
   public void saveTokenIfNotEmpty(TokenType type) {
-    if (tokenBuilder.isEmpty()) {
+    if (tokenLength == 0) {
       return;
     }
-    tokens.add(new Token(type, tokenBuilder.toString()));
-    tokenBuilder.setLength(0);
+    if (cooked) {
+      tokens.addCooked(type, tokenStart, tokenEnd, scratchStart, scratchStart + tokenLength);
+    } else {
+      tokens.add(type, tokenStart, tokenEnd);
+    }
+    tokenLength = 0;
+    cooked = false;
+  }
+
+  /**
+   * Records that a command substitution starts at offset {@code start} of the
+   * current token's text.
+   */
+  public void beginSubstitution(int start, boolean backquoted, boolean doubleQuoted) {
+    tokens.beginSubstitution(start, backquoted, doubleQuoted);
+  }
+
+  /**
+   * Records that a parameter, {@code $NAME} or {@code ${NAME}}, starts at
+   * offset {@code start} of the current token's text.
+   */
+  public void beginParameter(int start, boolean doubleQuoted) {
+    tokens.beginParameter(start, doubleQuoted);
+  }
+
+  /**
+   * Appends {@code c}, an unquoted {@code *}, {@code ?} or {@code [}, to the
+   * current token and records where it is, for pathname expansion.
+   */
+  public void appendGlob(char c) {
+    tokens.beginGlob(tokenLength);
+    appendToToken(c);
+    tokens.endSubstitution(tokenLength);
+  }
+
+  /**
+   * Records that the open command substitution or parameter ends with the last character
+   * appended to the current token.
+   */
+  public void endSubstitution() {
+    tokens.endSubstitution(tokenLength);
+  }
+
+  private final class CurrentToken implements CharSequence {
+    @Override
+    public int length() {
+      return tokenLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return cooked ? tokens.scratchAt(scratchStart + index) : input.charAt(tokenStart + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder(tokenLength);
+      for (int i = 0; i < tokenLength; i++) {
+        text.append(charAt(i));
+      }
+      return text.toString();
+    }
   }
 }
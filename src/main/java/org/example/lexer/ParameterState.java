@@ -0,0 +1,55 @@
+package org.example.lexer;
+
+/**
+ * Inside a parameter, {@code $NAME} or {@code ${NAME}}, after its first
+ * character. Like a command substitution it is kept in the word as written
+ * and recorded in the {@link TokenBuffer}, since its value is only known
+ * when the command runs. An unbraced name ends at the first character that
+ * cannot be part of one, which is then processed as usual.
+ */
+public final class ParameterState implements LexerState {
+
+  private final LexerState returnTo;
+  private final boolean braced;
+
+  ParameterState(LexerState returnTo, boolean braced) {
+    this.returnTo = returnTo;
+    this.braced = braced;
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    if (braced) {
+      context.appendToToken(c);
+      if (c == '}') {
+        context.endSubstitution();
+        return returnTo;
+      }
+      return this;
+    }
+    if (isNameChar(c)) {
+      context.appendToToken(c);
+      return this;
+    }
+    context.endSubstitution();
+    return returnTo.processChar(c, context);
+  }
+
+  // an unterminated ${ is left open for the parser to report.
+  @Override
+  public void finalise(LexerContext context) {
+    if (!braced) {
+      context.endSubstitution();
+    }
+    returnTo.finalise(context);
+  }
+
+  public static boolean isNameStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  public static boolean isNameChar(char c) {
+    return isNameStart(c) || (c >= '0' && c <= '9');
+  }
+
+}
@@ -0,0 +1,32 @@
+package org.example.lexer;
+
+import org.example.lexer.Token.TokenType;
+
+/**
+ * Follows an unquoted {@code |}, which is a pipe unless a second {@code |}
+ * makes it the {@code ||} operator.
+ */
+public final class PipeState implements LexerState {
+
+  public static final PipeState INSTANCE = new PipeState();
+
+  private PipeState() {
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    if (c == '|') {
+      context.appendToToken(c);
+      context.saveTokenIfNotEmpty(TokenType.OR);
+      return UnquotedState.INSTANCE;
+    }
+    context.saveTokenIfNotEmpty(TokenType.PIPE);
+    return UnquotedState.INSTANCE.processChar(c, context);
+  }
+
+  @Override
+  public void finalise(LexerContext context) {
+    context.saveTokenIfNotEmpty(TokenType.PIPE);
+  }
+
+}
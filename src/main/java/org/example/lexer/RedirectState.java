@@ -12,9 +12,7 @@ public final class RedirectState implements LexerState {
 
   @Override
   public LexerState processChar(char c, LexerContext context) {
-    String potentialRedirect = context.getCurrentTokenContent() + c;
-
-    if (RedirectType.isValidRedirectType(potentialRedirect)) {
+    if (RedirectType.isValidRedirectType(context.currentToken(), c)) {
       context.appendToToken(c);
       return this;
     } else {
@@ -23,7 +21,7 @@ public final class RedirectState implements LexerState {
 
     switch (c) {
       case ' ':
-        return UnquotedState.INSTANCE;
+        return RedirectTargetState.INSTANCE;
       case '\'':
         return SingleQuotedState.INSTANCE;
       case '"':
@@ -31,10 +29,17 @@ public final class RedirectState implements LexerState {
       case '<':
         context.appendToToken(c);
         context.saveTokenIfNotEmpty(TokenType.REDIRECT);
-        return UnquotedState.INSTANCE;
+        return RedirectTargetState.INSTANCE;
       case '>':
         context.appendToToken(c);
         return this;
+      case '|':
+        context.appendToToken(c);
+        return PipeState.INSTANCE;
+      case ';':
+        context.appendToToken(c);
+        context.saveTokenIfNotEmpty(TokenType.SEMICOLON);
+        return UnquotedState.INSTANCE;
       default:
         context.appendToToken(c);
         return UnquotedState.INSTANCE;
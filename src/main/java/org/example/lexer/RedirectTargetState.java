@@ -0,0 +1,35 @@
+package org.example.lexer;
+
+import org.example.lexer.Token.TokenType;
+
+/**
+ * Between a redirect operator and its target. An {@code &} here starts the
+ * target word, as in {@code 2>&1} or {@code > &2}, instead of sending the
+ * command to the background.
+ */
+public final class RedirectTargetState implements LexerState {
+
+  public static final RedirectTargetState INSTANCE = new RedirectTargetState();
+
+  private RedirectTargetState() {
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    switch (c) {
+      case ' ':
+        return this;
+      case '&':
+        context.appendToToken(c);
+        return UnquotedState.INSTANCE;
+      default:
+        return UnquotedState.INSTANCE.processChar(c, context);
+    }
+  }
+
+  @Override
+  public void finalise(LexerContext context) {
+    context.saveTokenIfNotEmpty(TokenType.WORD);
+  }
+
+}
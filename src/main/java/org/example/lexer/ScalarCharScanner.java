@@ -0,0 +1,19 @@
+package org.example.lexer;
+
+final class ScalarCharScanner implements CharScanner {
+
+  static final ScalarCharScanner INSTANCE = new ScalarCharScanner();
+
+  private ScalarCharScanner() {
+  }
+
+  @Override
+  public int indexOfSpecial(char[] chars, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (CharScanner.isSpecial(chars[i])) {
+        return i;
+      }
+    }
+    return to;
+  }
+}
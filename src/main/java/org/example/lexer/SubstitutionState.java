@@ -0,0 +1,86 @@
+package org.example.lexer;
+
+import org.example.lexer.Token.TokenType;
+
+/**
+ * Inside a command substitution, {@code $(...)} or {@code `...`}. Its text is
+ * kept as written, including the delimiters, and recorded in the
+ * {@link TokenBuffer} so the parser can cut it back out.
+ *
+ * Only enough of the inner command is understood to find where it ends:
+ * quotes and backslashes hide a {@code )}, and nested parentheses are
+ * counted. A backquoted command ends at the first unescaped backquote.
+ * Unlike the other states this one is not a singleton, because it carries
+ * that nesting.
+ */
+public final class SubstitutionState implements LexerState {
+
+  private final LexerState returnTo;
+  private final boolean backquoted;
+  private int depth = 0;
+  // the quote the inner command is in, or 0.
+  private char quote = 0;
+  private boolean escaped = false;
+
+  SubstitutionState(LexerState returnTo, boolean backquoted) {
+    this.returnTo = returnTo;
+    this.backquoted = backquoted;
+  }
+
+  @Override
+  public LexerState processChar(char c, LexerContext context) {
+    context.appendToToken(c);
+    if (escaped) {
+      escaped = false;
+      return this;
+    }
+    if (quote == '\'') {
+      if (c == '\'') {
+        quote = 0;
+      }
+      return this;
+    }
+    if (c == '\\') {
+      escaped = true;
+      return this;
+    }
+    if (backquoted) {
+      return c == '`' ? end(context) : this;
+    }
+    if (quote == '"') {
+      if (c == '"') {
+        quote = 0;
+      }
+      return this;
+    }
+
+    switch (c) {
+      case '\'', '"':
+        quote = c;
+        return this;
+      case '(':
+        depth++;
+        return this;
+      case ')':
+        if (depth == 0) {
+          return end(context);
+        }
+        depth--;
+        return this;
+      default:
+        return this;
+    }
+  }
+
+  private LexerState end(LexerContext context) {
+    context.endSubstitution();
+    return returnTo;
+  }
+
+  // an unterminated substitution is left open for the parser to report.
+  @Override
+  public void finalise(LexerContext context) {
+    context.saveTokenIfNotEmpty(TokenType.WORD);
+  }
+
+}
@@ -4,5 +4,10 @@ public record Token(TokenType type, String value) {
   public enum TokenType {
     WORD,
     REDIRECT,
+    PIPE,
+    BACKGROUND,
+    SEMICOLON,
+    AND,
+    OR,
   }
 }
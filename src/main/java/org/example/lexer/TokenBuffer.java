@@ -0,0 +1,332 @@
+package org.example.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.example.lexer.Token.TokenType;
+
+/**
+ * Reusable storage for the tokens of one input line.
+ *
+ * Tokens are recorded as a type plus start/end offsets into the input, held
+ * in primitive arrays that are only grown, never reallocated per line. A
+ * token whose text is a plain slice of the input (the common case, including
+ * simply quoted words) costs no copying at all. Only tokens whose text differs
+ * from the input, because quotes or escapes were removed from the middle of
+ * them, are copied into a shared scratch {@code char[]}.
+ *
+ * Strings are only created by {@link #text(int)}, when a caller actually needs
+ * one.
+ */
+public final class TokenBuffer {
+  private static final TokenType[] TYPES = TokenType.values();
+  private static final int COOKED = 1 << 16;
+  private static final int TYPE_MASK = COOKED - 1;
+  private static final int SUBSTITUTION_BACKQUOTED = 1;
+  private static final int SUBSTITUTION_DOUBLE_QUOTED = 2;
+  private static final int SUBSTITUTION_PARAMETER = 4;
+  private static final int SUBSTITUTION_GLOB = 8;
+
+  private CharSequence input = "";
+  private int count = 0;
+
+  // kinds hold the TokenType ordinal, plus COOKED when the text lives in scratch.
+  private int[] kinds = new int[16];
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int[] textStarts = new int[16];
+  private int[] textEnds = new int[16];
+
+  private char[] scratch = new char[64];
+  private int scratchLength = 0;
+
+  // command substitutions, parameters and unquoted pattern characters, in the
+  // order they appear: the token each is part of and the offsets of its
+  // $(...), `...`, $NAME, ${NAME}, *, ? or [ within that token's text.
+  private int substitutionCount = 0;
+  private int[] substitutionTokens = new int[4];
+  private int[] substitutionStarts = new int[4];
+  private int[] substitutionEnds = new int[4];
+  private int[] substitutionFlags = new int[4];
+
+  // a reusable copy of the input for lexers that scan a char[] directly.
+  private char[] chars = new char[0];
+
+  /**
+   * Clears this buffer so it can hold the tokens of {@code input}.
+   */
+  public void reset(CharSequence input) {
+    this.input = input;
+    this.count = 0;
+    this.scratchLength = 0;
+    this.substitutionCount = 0;
+  }
+
+  public CharSequence input() {
+    return input;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public TokenType type(int i) {
+    return TYPES[kinds[checkIndex(i)] & TYPE_MASK];
+  }
+
+  /**
+   * @return the offset in the input of the first character of token
+   *         {@code i}.
+   */
+  public int start(int i) {
+    return starts[checkIndex(i)];
+  }
+
+  /**
+   * @return the offset in the input just past the last character of token
+   *         {@code i}.
+   */
+  public int end(int i) {
+    return ends[checkIndex(i)];
+  }
+
+  /**
+   * @return the length of the text of token {@code i}, after quote removal.
+   */
+  public int length(int i) {
+    checkIndex(i);
+    return isCooked(i) ? textEnds[i] - textStarts[i] : ends[i] - starts[i];
+  }
+
+  public char charAt(int i, int index) {
+    checkIndex(i);
+    return isCooked(i) ? scratch[textStarts[i] + index] : input.charAt(starts[i] + index);
+  }
+
+  /**
+   * Materializes the text of token {@code i}.
+   */
+  public String text(int i) {
+    checkIndex(i);
+    if (isCooked(i)) {
+      return new String(scratch, textStarts[i], textEnds[i] - textStarts[i]);
+    }
+    return input.subSequence(starts[i], ends[i]).toString();
+  }
+
+  public Token token(int i) {
+    return new Token(type(i), text(i));
+  }
+
+  public List<Token> toTokens() {
+    List<Token> tokens = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      tokens.add(token(i));
+    }
+    return tokens;
+  }
+
+  /**
+   * @return the number of command substitutions, {@code $(...)} or
+   *         {@code `...`}, and parameters, {@code $NAME} or {@code ${NAME}},
+   *         outside single quotes, plus the unquoted {@code *}, {@code ?} and
+   *         {@code [} that may start a pathname pattern.
+   */
+  public int substitutionCount() {
+    return substitutionCount;
+  }
+
+  /**
+   * @return the index of the token command substitution {@code s} is part of.
+   */
+  public int substitutionToken(int s) {
+    return substitutionTokens[checkSubstitution(s)];
+  }
+
+  /**
+   * @return the offset in its token's text of the {@code $} or opening
+   *         backquote of substitution {@code s}.
+   */
+  public int substitutionStart(int s) {
+    return substitutionStarts[checkSubstitution(s)];
+  }
+
+  /**
+   * @return the offset in its token's text just past the end of substitution
+   *         {@code s}, or -1 if the input ended before its closing {@code )},
+   *         backquote or {@code }}.
+   */
+  public int substitutionEnd(int s) {
+    return substitutionEnds[checkSubstitution(s)];
+  }
+
+  /**
+   * @return whether substitution {@code s} is a parameter rather than a
+   *         command.
+   */
+  public boolean isParameter(int s) {
+    return (substitutionFlags[checkSubstitution(s)] & SUBSTITUTION_PARAMETER) != 0;
+  }
+
+  /**
+   * @return whether substitution {@code s} is a single unquoted {@code *},
+   *         {@code ?} or {@code [}. The parser decides whether it really is
+   *         part of a pattern.
+   */
+  public boolean isGlob(int s) {
+    return (substitutionFlags[checkSubstitution(s)] & SUBSTITUTION_GLOB) != 0;
+  }
+
+  public boolean isBackquoted(int s) {
+    return (substitutionFlags[checkSubstitution(s)] & SUBSTITUTION_BACKQUOTED) != 0;
+  }
+
+  /**
+   * @return whether substitution {@code s} is inside double quotes, so that
+   *         its output is not split into words.
+   */
+  public boolean isDoubleQuoted(int s) {
+    return (substitutionFlags[checkSubstitution(s)] & SUBSTITUTION_DOUBLE_QUOTED) != 0;
+  }
+
+  // the following are used by the lexer to fill the buffer.
+
+  void beginSubstitution(int start, boolean backquoted, boolean doubleQuoted) {
+    addSubstitution(start, (backquoted ? SUBSTITUTION_BACKQUOTED : 0)
+        | (doubleQuoted ? SUBSTITUTION_DOUBLE_QUOTED : 0));
+  }
+
+  void beginParameter(int start, boolean doubleQuoted) {
+    addSubstitution(start, SUBSTITUTION_PARAMETER | (doubleQuoted ? SUBSTITUTION_DOUBLE_QUOTED : 0));
+  }
+
+  void beginGlob(int start) {
+    addSubstitution(start, SUBSTITUTION_GLOB);
+  }
+
+  private void addSubstitution(int start, int flags) {
+    if (substitutionCount == substitutionTokens.length) {
+      int capacity = substitutionTokens.length * 2;
+      substitutionTokens = Arrays.copyOf(substitutionTokens, capacity);
+      substitutionStarts = Arrays.copyOf(substitutionStarts, capacity);
+      substitutionEnds = Arrays.copyOf(substitutionEnds, capacity);
+      substitutionFlags = Arrays.copyOf(substitutionFlags, capacity);
+    }
+    // the token being built is the next one to be added.
+    substitutionTokens[substitutionCount] = count;
+    substitutionStarts[substitutionCount] = start;
+    substitutionEnds[substitutionCount] = -1;
+    substitutionFlags[substitutionCount] = flags;
+    substitutionCount++;
+  }
+
+  void endSubstitution(int end) {
+    substitutionEnds[substitutionCount - 1] = end;
+  }
+
+  void add(TokenType type, int start, int end) {
+    ensureCapacity();
+    kinds[count] = type.ordinal();
+    starts[count] = start;
+    ends[count] = end;
+    count++;
+  }
+
+  void addCooked(TokenType type, int start, int end, int textStart, int textEnd) {
+    ensureCapacity();
+    kinds[count] = type.ordinal() | COOKED;
+    starts[count] = start;
+    ends[count] = end;
+    textStarts[count] = textStart;
+    textEnds[count] = textEnd;
+    count++;
+  }
+
+  /**
+   * @return the characters of the current input, copied into a reusable
+   *         array that may be longer than the input.
+   */
+  char[] inputChars() {
+    int length = input.length();
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    if (input instanceof String s) {
+      s.getChars(0, length, chars, 0);
+    } else {
+      for (int i = 0; i < length; i++) {
+        chars[i] = input.charAt(i);
+      }
+    }
+    return chars;
+  }
+
+  int scratchLength() {
+    return scratchLength;
+  }
+
+  char scratchAt(int index) {
+    return scratch[index];
+  }
+
+  void truncateScratch(int length) {
+    scratchLength = length;
+  }
+
+  void appendScratch(char c) {
+    if (scratchLength == scratch.length) {
+      scratch = Arrays.copyOf(scratch, scratch.length * 2);
+    }
+    scratch[scratchLength++] = c;
+  }
+
+  void appendScratch(CharSequence source, int start, int end) {
+    int needed = scratchLength + (end - start);
+    if (needed > scratch.length) {
+      scratch = Arrays.copyOf(scratch, Math.max(needed, scratch.length * 2));
+    }
+    if (source instanceof String s) {
+      s.getChars(start, end, scratch, scratchLength);
+      scratchLength = needed;
+    } else {
+      for (int i = start; i < end; i++) {
+        scratch[scratchLength++] = source.charAt(i);
+      }
+    }
+  }
+
+  private boolean isCooked(int i) {
+    return (kinds[i] & COOKED) != 0;
+  }
+
+  private int checkIndex(int i) {
+    if (i < 0 || i >= count) {
+      throw new IndexOutOfBoundsException("Token index " + i + " out of bounds for " + count + " tokens");
+    }
+    return i;
+  }
+
+  private int checkSubstitution(int s) {
+    if (s < 0 || s >= substitutionCount) {
+      throw new IndexOutOfBoundsException(
+          "Substitution index " + s + " out of bounds for " + substitutionCount + " substitutions");
+    }
+    return s;
+  }
+
+  private void ensureCapacity() {
+    if (count == kinds.length) {
+      int capacity = kinds.length * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      textStarts = Arrays.copyOf(textStarts, capacity);
+      textEnds = Arrays.copyOf(textEnds, capacity);
+    }
+  }
+}
@@ -28,6 +28,31 @@ public final class UnquotedState implements LexerState {
         context.saveTokenIfNotEmpty(TokenType.WORD);
         context.appendToToken(c);
         context.saveTokenIfNotEmpty(TokenType.REDIRECT);
+        return RedirectTargetState.INSTANCE;
+      case '&':
+        context.saveTokenIfNotEmpty(TokenType.WORD);
+        context.appendToToken(c);
+        return AmpersandState.INSTANCE;
+      case '|':
+        context.saveTokenIfNotEmpty(TokenType.WORD);
+        context.appendToToken(c);
+        return PipeState.INSTANCE;
+      case ';':
+        context.saveTokenIfNotEmpty(TokenType.WORD);
+        context.appendToToken(c);
+        context.saveTokenIfNotEmpty(TokenType.SEMICOLON);
+        return this;
+      case '$':
+        context.appendToToken(c);
+        return DollarState.UNQUOTED;
+      case '`':
+        context.beginSubstitution(context.currentTokenLength(), true, false);
+        context.appendToToken(c);
+        return new SubstitutionState(this, true);
+      case '*':
+      case '?':
+      case '[':
+        context.appendGlob(c);
         return this;
       case '\\':
         context.setNextCharEscaped(true);
@@ -47,7 +72,7 @@ public final class UnquotedState implements LexerState {
   }
 
   private LexerState checkRedirectPrefix(char c, LexerContext context) {
-    String currentToken = context.getCurrentTokenContent();
+    CharSequence currentToken = context.currentToken();
 
     boolean isValidRedirectPrefix = currentToken.isEmpty()
         || (currentToken.length() == 1 && RedirectType.isRedirectPrefix(currentToken.charAt(0)));
@@ -0,0 +1,50 @@
+package org.example.lexer;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a whole vector of characters (16 to 64 depending on the CPU)
+ * against every special character at once. Only loaded when the
+ * {@code jdk.incubator.vector} module is present, see
+ * {@link CharScanner#best()}.
+ */
+final class VectorCharScanner implements CharScanner {
+
+  private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+  // most words are short, and for those a few scalar compares are cheaper than
+  // setting up a vector, so only switch over once a run gets this long.
+  private static final int SCALAR_PROBE = 16;
+
+  @Override
+  public int indexOfSpecial(char[] chars, int from, int to) {
+    int probeEnd = Math.min(to, from + SCALAR_PROBE);
+    for (int i = from; i < probeEnd; i++) {
+      if (CharScanner.isSpecial(chars[i])) {
+        return i;
+      }
+    }
+
+    int i = probeEnd;
+    int bound = i + SPECIES.loopBound(to - i);
+
+    for (; i < bound; i += SPECIES.length()) {
+      ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+      VectorMask<Short> special = v.eq((short) ' ')
+          .or(v.eq((short) '\''))
+          .or(v.eq((short) '"'))
+          .or(v.eq((short) '\\'))
+          .or(v.eq((short) '<'))
+          .or(v.eq((short) '>'))
+          .or(v.eq((short) '&'))
+          .or(v.eq((short) '|'))
+          .or(v.eq((short) ';'));
+      if (special.anyTrue()) {
+        return i + special.firstTrue();
+      }
+    }
+    return ScalarCharScanner.INSTANCE.indexOfSpecial(chars, i, to);
+  }
+}
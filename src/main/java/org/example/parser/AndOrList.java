@@ -0,0 +1,43 @@
+package org.example.parser;
+
+import java.util.List;
+
+/**
+ * Pipelines joined by {@code &&} and {@code ||}. The two bind equally tightly
+ * and are evaluated left to right: each pipeline after the first runs only if
+ * the exit status so far is 0 for {@code &&}, or not 0 for {@code ||}.
+ * Otherwise it is skipped and the status carries on to the next operator.
+ *
+ * make && ./run || notify
+ * result: notify runs if either make or ./run failed
+ */
+public record AndOrList(Pipeline first, List<Branch> rest) {
+
+  public enum Condition {
+    AND,
+    OR;
+
+    /**
+     * @return whether a pipeline behind this operator runs after a command
+     *         that exited with {@code status}.
+     */
+    public boolean runsAfter(int status) {
+      return (status == 0) == (this == AND);
+    }
+  }
+
+  public record Branch(Condition condition, Pipeline pipeline) {
+  }
+
+  public AndOrList {
+    if (first == null) {
+      throw new IllegalArgumentException("And-or list must start with a pipeline");
+    }
+    rest = List.copyOf(rest != null ? rest : List.of());
+  }
+
+  public boolean isSinglePipeline() {
+    return rest.isEmpty();
+  }
+
+}
@@ -2,16 +2,49 @@ package org.example.parser;
 
 import java.util.List;
 
-public record Command(List<String> args, List<Redirect> redirects) {
+/**
+ * One simple command: its words, its redirects, the substitutions still to
+ * be made in those words, in the order they appear, and the
+ * {@code NAME=value} assignments written before its name. A command of only
+ * assignments sets them in the shell; otherwise they are only exported to
+ * the command itself.
+ *
+ * LANG=C sort names.txt
+ * result: sort runs with LANG set to C, and the shell's LANG is unchanged
+ */
+public record Command(List<String> args, List<Redirect> redirects, List<Substitution> substitutions,
+    List<String> assignments) {
   public Command {
     args = List.copyOf(args != null ? args : List.of());
     redirects = List.copyOf(redirects != null ? redirects : List.of());
+    substitutions = List.copyOf(substitutions != null ? substitutions : List.of());
+    assignments = List.copyOf(assignments != null ? assignments : List.of());
 
-    if (args.isEmpty()) {
+    if (args.isEmpty() && assignments.isEmpty()) {
       throw new IllegalArgumentException("Command must have at least one argument (the name of the command to run)");
     }
   }
 
+  public Command(List<String> args, List<Redirect> redirects) {
+    this(args, redirects, List.of(), List.of());
+  }
+
+  /**
+   * @return whether any substitutions are still to be made in the words or
+   *         the redirect targets.
+   */
+  public boolean hasSubstitutions() {
+    if (!substitutions.isEmpty()) {
+      return true;
+    }
+    for (Redirect redirect : redirects) {
+      if (redirect.hasSubstitutions()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public String commandName() {
     return args.get(0);
   }
@@ -0,0 +1,37 @@
+package org.example.parser;
+
+import java.util.List;
+
+/**
+ * A whole command line: the and-or lists in it, in order, separated by
+ * {@code ;} or {@code &}. Each runs to completion before the next starts,
+ * unless it is followed by {@code &}, which starts it in the background.
+ *
+ * sleep 5 & make > build.log; tail build.log
+ * result: a job, then make and tail in the foreground, one after the other
+ */
+public record CommandList(List<Entry> entries) {
+
+  /**
+   * @param text the and-or list as it was written, for {@code jobs} to show.
+   */
+  public record Entry(AndOrList commands, boolean background, String text) {
+  }
+
+  public CommandList {
+    entries = List.copyOf(entries != null ? entries : List.of());
+
+    if (entries.isEmpty()) {
+      throw new IllegalArgumentException("Command list must contain at least one pipeline");
+    }
+  }
+
+  public boolean isSinglePipeline() {
+    return entries.size() == 1 && !entries.get(0).background() && entries.get(0).commands().isSinglePipeline();
+  }
+
+  public Pipeline first() {
+    return entries.get(0).commands().first();
+  }
+
+}
@@ -0,0 +1,111 @@
+package org.example.parser;
+
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded LRU cache of parsed command lines, so loops and scripts that run
+ * the same line over and over only lex and parse it once.
+ *
+ * {@link CommandList}, {@link Pipeline}, {@link Command} and {@link Redirect}
+ * are immutable records, so a cached line can be handed to any number of
+ * callers. The cache holds what {@link Parser#parse} returns for the literal
+ * line; anything that depends on shell state at run time has to happen after
+ * the lookup. Lines that fail to parse are not cached.
+ *
+ * The default capacity comes from {@code -Djavashell.parsecache.size} (256
+ * when unset). A capacity of 0 turns the cache off, and lines are then parsed
+ * without taking the cache's lock at all.
+ */
+public final class ParseCache {
+  public static final int DEFAULT_CAPACITY = 256;
+
+  public record Stats(int size, int capacity, long hits, long misses) {
+  }
+
+  private final LinkedHashMap<String, CommandList> entries = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CommandList> eldest) {
+      return size() > capacity;
+    }
+  };
+
+  // read without the lock by parse, to skip it when the cache is off
+  private volatile int capacity;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ParseCache() {
+    this(Integer.getInteger("javashell.parsecache.size", DEFAULT_CAPACITY));
+  }
+
+  public ParseCache(int capacity) {
+    this.capacity = checkCapacity(capacity);
+  }
+
+  /**
+   * Returns the cached command list for {@code line}, parsing and remembering it
+   * on a miss.
+   */
+  public CommandList parse(String line) throws ParseException {
+    if (capacity == 0) {
+      misses.increment();
+      return Parser.parse(line);
+    }
+    synchronized (this) {
+      CommandList cached = entries.get(line);
+      if (cached != null) {
+        hits.increment();
+        return cached;
+      }
+    }
+    misses.increment();
+
+    // parse outside the lock; two threads missing on the same line just
+    // parse it twice.
+    CommandList list = Parser.parse(line);
+    synchronized (this) {
+      if (capacity > 0) {
+        entries.put(line, list);
+      }
+    }
+    return list;
+  }
+
+  public synchronized void setCapacity(int capacity) {
+    this.capacity = checkCapacity(capacity);
+    if (entries.size() > capacity) {
+      var it = entries.entrySet().iterator();
+      while (entries.size() > capacity) {
+        it.next();
+        it.remove();
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * Forgets every cached line and resets the counters.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    hits.reset();
+    misses.reset();
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(entries.size(), capacity, hits.sum(), misses.sum());
+  }
+
+  private static int checkCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Parse cache capacity must not be negative: " + capacity);
+    }
+    return capacity;
+  }
+}
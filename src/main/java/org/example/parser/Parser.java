@@ -4,32 +4,124 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.example.lexer.Token;
 import org.example.lexer.Lexer;
+import org.example.lexer.ParameterState;
+import org.example.lexer.Token;
+import org.example.lexer.TokenBuffer;
 
 public class Parser {
-  private List<Token> tokenList;
+  private static final ParseCache CACHE = new ParseCache();
+
+  // tokens are read straight from the lexer's buffer; only the words that end
+  // up in a Command are turned into strings.
+  private final String input;
+  private TokenBuffer tokens;
   private int currentIndex = 0;
+  // the next of the lexer's command substitutions to be given to a command.
+  private int nextSubstitution = 0;
 
   public Parser(String input) {
-    tokenList = Lexer.tokenize(input.trim());
+    this.input = input.trim();
+    tokens = Lexer.scan(this.input, new TokenBuffer());
   }
 
-  public static Command parse(String input) throws ParseException {
+  public static CommandList parse(String input) throws ParseException {
     Parser parser = new Parser(input);
-    return parser.parseCommand();
+    return parser.parseList();
+  }
+
+  /**
+   * @return the parse cache shared by every evaluator in this JVM.
+   */
+  public static ParseCache cache() {
+    return CACHE;
+  }
+
+  private CommandList parseList() throws ParseException {
+    List<CommandList.Entry> entries = new ArrayList<>();
+    // the text of each and-or list runs from the end of the previous ; or &
+    // to the start of its own, so that quotes are kept.
+    int textStart = 0;
+    do {
+      AndOrList commands = parseAndOr();
+      int textEnd = input.length();
+      boolean background = false;
+      // an and-or list only ends at the end of the line, a ; or a &.
+      if (currentIndex < tokens.size()) {
+        textEnd = tokens.start(currentIndex);
+        background = tokens.type(currentIndex) == Token.TokenType.BACKGROUND;
+        currentIndex++;
+      }
+      entries.add(new CommandList.Entry(commands, background, input.substring(textStart, textEnd).strip()));
+      textStart = textEnd + 1;
+    } while (currentIndex < tokens.size());
+    return new CommandList(entries);
+  }
+
+  private AndOrList parseAndOr() throws ParseException {
+    Pipeline first = parsePipeline();
+    List<AndOrList.Branch> rest = new ArrayList<>();
+
+    while (currentIndex < tokens.size()) {
+      Token.TokenType type = tokens.type(currentIndex);
+      if (type != Token.TokenType.AND && type != Token.TokenType.OR) {
+        break;
+      }
+      currentIndex++;
+      if (currentIndex >= tokens.size()) {
+        throw new ParseException("syntax error: unexpected end of file", currentIndex);
+      }
+      AndOrList.Condition condition = type == Token.TokenType.AND ? AndOrList.Condition.AND : AndOrList.Condition.OR;
+      rest.add(new AndOrList.Branch(condition, parsePipeline()));
+    }
+    return new AndOrList(first, rest);
+  }
+
+  private Pipeline parsePipeline() throws ParseException {
+    List<Command> commands = new ArrayList<>();
+    commands.add(parseCommand());
+
+    while (currentIndex < tokens.size() && tokens.type(currentIndex) == Token.TokenType.PIPE) {
+      currentIndex++;
+      if (currentIndex >= tokens.size()) {
+        throw new ParseException("syntax error: pipe requires a command on both sides", currentIndex);
+      }
+      commands.add(parseCommand());
+    }
+    return new Pipeline(commands);
   }
 
   private Command parseCommand() throws ParseException {
     List<String> args = new ArrayList<>();
     List<Redirect> redirects = new ArrayList<>();
+    List<Substitution> substitutions = new ArrayList<>();
+    List<String> assignments = new ArrayList<>();
+
+    while (currentIndex < tokens.size()) {
+      Token.TokenType type = tokens.type(currentIndex);
 
-    while (currentIndex < tokenList.size()) {
-      Token t = tokenList.get(currentIndex);
+      if (type != Token.TokenType.WORD && type != Token.TokenType.REDIRECT) {
+        if (args.isEmpty() && assignments.isEmpty()) {
+          throw new ParseException("syntax error near unexpected token `" + tokens.text(currentIndex) + "'",
+              currentIndex);
+        }
+        break;
+      }
 
-      switch (t.type()) {
+      switch (type) {
         case WORD: {
-          args.add(t.value());
+          String word = tokens.text(currentIndex);
+          while (hasSubstitutionIn(currentIndex)) {
+            Substitution substitution = parseSubstitution(assignments.size() + args.size(), word);
+            if (substitution != null) {
+              substitutions.add(substitution);
+            }
+          }
+          if (args.isEmpty() && isAssignment(currentIndex)) {
+            assignments.add(word);
+          } else {
+            args.add(word);
+          }
           currentIndex++;
           break;
         }
@@ -39,32 +131,209 @@ public class Parser {
           break;
         }
         default:
-          throw new ParseException("Unexpected token: " + t, currentIndex);
+          throw new ParseException("Unexpected token: " + tokens.token(currentIndex), currentIndex);
+      }
+    }
+    return new Command(args, redirects, substitutions, assignments);
+  }
+
+  // a NAME= at the very start of the word, unquoted, makes it an assignment.
+  private boolean isAssignment(int token) {
+    int start = tokens.start(token);
+    if (!ParameterState.isNameStart(input.charAt(start))) {
+      return false;
+    }
+    int i = start + 1;
+    while (i < tokens.end(token) && ParameterState.isNameChar(input.charAt(i))) {
+      i++;
+    }
+    return i < tokens.end(token) && input.charAt(i) == '=';
+  }
+
+  private boolean hasSubstitutionIn(int token) throws ParseException {
+    if (nextSubstitution >= tokens.substitutionCount() || tokens.substitutionToken(nextSubstitution) != token) {
+      return false;
+    }
+    if (tokens.substitutionEnd(nextSubstitution) < 0) {
+      String closing = tokens.isParameter(nextSubstitution) ? "}"
+          : tokens.isBackquoted(nextSubstitution) ? "`" : ")";
+      throw new ParseException("syntax error: unexpected end of file while looking for matching `" + closing + "'",
+          token);
+    }
+    return true;
+  }
+
+  // returns null for a [ that does not start a bracket expression.
+  private Substitution parseSubstitution(int index, String word) throws ParseException {
+    int s = nextSubstitution++;
+    int start = tokens.substitutionStart(s);
+    int end = tokens.substitutionEnd(s);
+    boolean quoted = tokens.isDoubleQuoted(s);
+    if (tokens.isGlob(s)) {
+      return parseGlob(index, word, start, end);
+    }
+    if (tokens.isParameter(s)) {
+      boolean braced = word.charAt(start + 1) == '{';
+      String name = braced ? word.substring(start + 2, end - 1) : word.substring(start + 1, end);
+      if (!isParameterName(name)) {
+        throw new ParseException(word.substring(start, end) + ": bad substitution", currentIndex);
+      }
+      return new Substitution(Substitution.Kind.PARAMETER, index, start, end, name, quoted);
+    }
+    String command = tokens.isBackquoted(s)
+        ? unescapeBackquoted(word.substring(start + 1, end - 1), quoted)
+        : word.substring(start + 2, end - 1);
+    return new Substitution(Substitution.Kind.COMMAND, index, start, end, command, quoted);
+  }
+
+  private Substitution parseGlob(int index, String word, int start, int end) {
+    if (word.charAt(start) == '[') {
+      end = bracketEnd(word, start);
+      if (end < 0 || startsBefore(end)) {
+        return null;
+      }
+      // a * or ? inside the brackets is just one of the characters listed
+      while (nextSubstitution < tokens.substitutionCount() && tokens.substitutionToken(nextSubstitution) == currentIndex
+          && tokens.substitutionStart(nextSubstitution) < end) {
+        nextSubstitution++;
+      }
+    }
+    return new Substitution(Substitution.Kind.GLOB, index, start, end, word.substring(start, end), false);
+  }
+
+  // whether a command substitution or parameter of the current word starts
+  // before offset end.
+  private boolean startsBefore(int end) {
+    for (int s = nextSubstitution; s < tokens.substitutionCount() && tokens.substitutionToken(s) == currentIndex; s++) {
+      if (tokens.substitutionStart(s) >= end) {
+        return false;
+      }
+      if (!tokens.isGlob(s)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the offset just past the ] closing the bracket expression at start, or -1
+  // if it is not closed. A ] straight after the [ or its ! or ^ is one of the
+  // characters listed, as is each [:class:].
+  private static int bracketEnd(String word, int start) {
+    int i = start + 1;
+    if (i < word.length() && (word.charAt(i) == '!' || word.charAt(i) == '^')) {
+      i++;
+    }
+    if (i < word.length() && word.charAt(i) == ']') {
+      i++;
+    }
+    while (i < word.length()) {
+      char c = word.charAt(i);
+      if (c == ']') {
+        return i + 1;
+      }
+      if (c == '/') {
+        return -1;
+      }
+      int classEnd = c == '[' && i + 1 < word.length() && word.charAt(i + 1) == ':' ? word.indexOf(":]", i + 2) : -1;
+      i = classEnd >= 0 ? classEnd + 2 : i + 1;
+    }
+    return -1;
+  }
+
+  private static boolean isParameterName(String name) {
+    if (name.equals("?") || name.equals("$")) {
+      return true;
+    }
+    if (name.isEmpty() || !ParameterState.isNameStart(name.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      if (!ParameterState.isNameChar(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // inside backquotes a backslash only escapes \, ` and $, and " as well
+  // within double quotes; any other backslash is kept.
+  private static String unescapeBackquoted(String text, boolean quoted) {
+    if (text.indexOf('\\') < 0) {
+      return text;
+    }
+    StringBuilder command = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        char next = text.charAt(i + 1);
+        if (next == '\\' || next == '`' || next == '$' || (quoted && next == '"')) {
+          c = next;
+          i++;
+        }
       }
+      command.append(c);
     }
-    return new Command(args, redirects);
+    return command.toString();
   }
 
   private Redirect parseRedirect() throws ParseException {
-    Token t = tokenList.get(currentIndex);
+    String operator = tokens.text(currentIndex);
+    int operatorEnd = tokens.end(currentIndex);
     currentIndex++;
 
-    if (currentIndex >= tokenList.size()) {
+    if (currentIndex >= tokens.size()) {
       throw new ParseException("Redirect operator requires a target file", currentIndex);
     }
 
     try {
-      RedirectType type = RedirectType.fromString(t.value());
-      Token targetToken = tokenList.get(currentIndex);
+      RedirectType type = RedirectType.fromString(operator);
+      Token.TokenType targetType = tokens.type(currentIndex);
 
-      if (targetToken.type() != Token.TokenType.WORD) {
-        throw new ParseException("Redirect target must be a word, got: TokenType." + targetToken.type(), currentIndex);
+      if (targetType != Token.TokenType.WORD) {
+        throw new ParseException("Redirect target must be a word, got: TokenType." + targetType, currentIndex);
       }
 
+      if (type.duplicating() != null && isDescriptorWord(currentIndex, operatorEnd)) {
+        // 2>&01 is 2>&1
+        String descriptor = tokens.text(currentIndex).substring(1).replaceFirst("^0+(?=.)", "");
+        currentIndex++;
+        return new Redirect(type.duplicating(), descriptor);
+      }
+
+      String target = tokens.text(currentIndex);
+      List<Substitution> substitutions = new ArrayList<>();
+      while (hasSubstitutionIn(currentIndex)) {
+        Substitution substitution = parseSubstitution(0, target);
+        if (substitution != null) {
+          substitutions.add(substitution);
+        }
+      }
       currentIndex++;
-      return new Redirect(type, targetToken.value());
+      return new Redirect(type, target, substitutions);
     } catch (IllegalArgumentException e) {
-      throw new ParseException("Invalid redirect: " + t.value(), currentIndex);
+      throw new ParseException("Invalid redirect: " + operator, currentIndex);
+    }
+  }
+
+  // an &m or &- written straight after the operator, with no quoting, so that
+  // 2>&1 duplicates a descriptor while 2> '&1' still names a file. m may have
+  // any number of digits; one that is not open is rejected when the redirect
+  // is applied, rather than becoming a file named &12.
+  private boolean isDescriptorWord(int i, int operatorEnd) {
+    int length = tokens.length(i);
+    if (tokens.start(i) != operatorEnd || length < 2 || tokens.end(i) - tokens.start(i) != length
+        || tokens.charAt(i, 0) != '&') {
+      return false;
+    }
+    if (length == 2 && tokens.charAt(i, 1) == '-') {
+      return true;
+    }
+    for (int c = 1; c < length; c++) {
+      char digit = tokens.charAt(i, c);
+      if (digit < '0' || digit > '9') {
+        return false;
+      }
     }
+    return true;
   }
 }
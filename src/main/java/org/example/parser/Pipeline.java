@@ -2,19 +2,37 @@ package org.example.parser;
 
 import java.util.List;
 
+/**
+ * A sequence of commands joined by {@code |}. A single command is represented
+ * as a pipeline of length one.
+ *
+ * The stdout of each command feeds the stdin of the next one, but a command's
+ * own redirects always take precedence over its pipe. If the left command has
+ * a redirected output then the pipe is basically bypassed:
+ *
+ * printf "%s\n" "hello this is a test" "and another" "one final test" >
+ * test.txt | grep 'this'
+ * result: blank
+ *
+ * printf "%s\n" "hello this is a test" "and another" "one final test" | grep
+ * 'this'
+ * result: hello this is a test
+ */
 public record Pipeline(List<Command> commands) {
-  // TODO: need to implement this at some point.
-  //
-  // pipe Nodes need to redirect the content of stdout from the left command into
-  // the stdin of the right command.
-  // that means that if the left command has a redirected output then the pipeline
-  // basically gets bypassed:
-  //
-  // printf "%s\n" "hello this is a test" "and another" "one final test" >
-  // test.txt | grep 'this'
-  // result: blank
-  //
-  // printf "%s\n" "hello this is a test" "and another" "one final test" | grep
-  // 'this'
-  // result: hello this is a test
+  public Pipeline {
+    commands = List.copyOf(commands != null ? commands : List.of());
+
+    if (commands.isEmpty()) {
+      throw new IllegalArgumentException("Pipeline must contain at least one command");
+    }
+  }
+
+  public boolean isSingleCommand() {
+    return commands.size() == 1;
+  }
+
+  public Command first() {
+    return commands.get(0);
+  }
+
 }
@@ -1,13 +1,56 @@
 package org.example.parser;
 
-public record Redirect(RedirectType type, String target) {
+import java.util.List;
+
+/**
+ * @param substitutions the substitutions still to be made in {@code target}.
+ */
+public record Redirect(RedirectType type, String target, List<Substitution> substitutions) {
   public Redirect {
     if (type == null || target == null) {
       throw new IllegalArgumentException("Redirect type and target cannot be null");
     }
+    substitutions = List.copyOf(substitutions != null ? substitutions : List.of());
+  }
+
+  public Redirect(RedirectType type, String target) {
+    this(type, target, List.of());
+  }
+
+  public boolean hasSubstitutions() {
+    return !substitutions.isEmpty();
   }
 
   public boolean isAppendMode() {
     return (type == RedirectType.OUTPUT_APPEND || type == RedirectType.ERROR_APPEND || type == RedirectType.ALL_APPEND);
   }
+
+  public boolean isDuplicate() {
+    return type == RedirectType.OUTPUT_DUP || type == RedirectType.ERROR_DUP || type == RedirectType.INPUT_DUP;
+  }
+
+  /**
+   * @return for a duplicate, whether it closes its descriptor ({@code >&-}).
+   */
+  public boolean closesDescriptor() {
+    return isDuplicate() && target.equals("-");
+  }
+
+  /**
+   * @return the descriptor a duplicate copies, e.g. 1 for {@code 2>&1}.
+   */
+  public int duplicatedDescriptor() {
+    return Integer.parseInt(target);
+  }
+
+  /**
+   * @return the descriptor this redirect replaces.
+   */
+  public int descriptor() {
+    return switch (type) {
+      case INPUT, INPUT_DUP -> 0;
+      case ERROR, ERROR_APPEND, ERROR_DUP -> 2;
+      default -> 1;
+    };
+  }
 }
@@ -10,10 +10,17 @@ public enum RedirectType {
   ERROR_APPEND("2>>"),
   ALL_OUTPUT("&>"),
   ALL_APPEND("&>>"),
-  INPUT("<");
+  INPUT("<"),
+  // n>&m, n<&m and n>&-. These have no operator of their own: the parser
+  // builds them from >, 1>, 2> or < followed directly by an unquoted &m or &-,
+  // and the target is m or -.
+  OUTPUT_DUP,
+  ERROR_DUP,
+  INPUT_DUP;
 
   private final String[] symbols;
   private static final Map<String, RedirectType> LOOKUP = new HashMap<>();
+  private static final RedirectType[] VALUES = values();
 
   static {
     for (RedirectType type : values()) {
@@ -27,6 +34,18 @@ public enum RedirectType {
     this.symbols = symbols;
   }
 
+  /**
+   * @return the duplicating form of this operator, or null if it has none.
+   */
+  public RedirectType duplicating() {
+    return switch (this) {
+      case OUTPUT -> OUTPUT_DUP;
+      case ERROR -> ERROR_DUP;
+      case INPUT -> INPUT_DUP;
+      default -> null;
+    };
+  }
+
   public static RedirectType fromString(String value) {
     RedirectType type = LOOKUP.get(value);
     if (type == null) {
@@ -43,4 +62,29 @@ public enum RedirectType {
     return LOOKUP.containsKey(redirect);
   }
 
+  /**
+   * Checks whether {@code prefix} followed by {@code next} is a redirect
+   * operator, without building the combined string.
+   */
+  public static boolean isValidRedirectType(CharSequence prefix, char next) {
+    int length = prefix.length() + 1;
+    for (RedirectType type : VALUES) {
+      for (String symbol : type.symbols) {
+        if (symbol.length() == length && symbol.charAt(length - 1) == next && startsWith(symbol, prefix)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(String symbol, CharSequence prefix) {
+    for (int i = 0; i < prefix.length(); i++) {
+      if (symbol.charAt(i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
 }
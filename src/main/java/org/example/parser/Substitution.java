@@ -0,0 +1,31 @@
+package org.example.parser;
+
+/**
+ * A command substitution, a parameter or a pathname pattern in one of a
+ * {@link Command}'s words, made each time the command runs. Characters
+ * {@code [start, end)} of the word are the substitution as it was written. A
+ * command substitution is replaced by what {@code source} writes to stdout,
+ * less any trailing newlines, and a parameter by the value of the variable
+ * {@code source} names, or nothing if it is not set. Outside double quotes
+ * the result is also split into words at blanks, except in an assignment or
+ * a redirect target.
+ *
+ * A glob is an unquoted {@code *}, {@code ?} or {@code [...]}. It stays as
+ * it is, but once the other substitutions are made it turns the argument it
+ * is in into a pattern, replaced by the names of the files it matches.
+ *
+ * echo "today is $(date +%A)" $HOME `ls` *.txt
+ * result: date +%A's output stays inside argument 1, HOME becomes argument 2,
+ * and ls's output and the .txt files one argument per file
+ *
+ * @param word the word's index in the command's assignments followed by its
+ *             args, or 0 in a redirect's target.
+ */
+public record Substitution(Kind kind, int word, int start, int end, String source, boolean quoted) {
+
+  public enum Kind {
+    COMMAND,
+    PARAMETER,
+    GLOB,
+  }
+}
@@ -0,0 +1,130 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppendRedirectTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Evaluator evaluator;
+
+  @BeforeEach
+  void setUp() {
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(System.out),
+        new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io);
+    ctx.setCwd(tempDir);
+    evaluator = new Evaluator(ctx, new Builtins());
+  }
+
+  @AfterEach
+  void tearDown() {
+    evaluator.close();
+  }
+
+  @Test
+  void repeatedAppends_areOnDiskAfterEachCommand() throws IOException {
+    Path log = tempDir.resolve("log.txt");
+
+    evaluator.evaluate("echo one >> " + log);
+    assertEquals("one\n", Files.readString(log));
+
+    evaluator.evaluate("echo two >> " + log);
+    evaluator.evaluate("echo three 2>> " + log + " >> " + log);
+    assertEquals("one\ntwo\nthree\n", Files.readString(log));
+  }
+
+  @Test
+  void append_interleavesWithTruncatingAndExternalWrites() throws IOException {
+    Path log = tempDir.resolve("log.txt");
+
+    evaluator.evaluate("echo one >> " + log);
+    evaluator.evaluate("echo reset > " + log);
+    evaluator.evaluate("echo two >> " + log);
+    evaluator.evaluate("printf 'external\\n' >> " + log);
+    evaluator.evaluate("echo three >> " + log);
+
+    assertEquals("reset\ntwo\nexternal\nthree\n", Files.readString(log));
+  }
+
+  @Test
+  void append_afterTargetRemoved_recreatesIt() throws IOException {
+    Path log = tempDir.resolve("log.txt");
+
+    evaluator.evaluate("echo old >> " + log);
+    Files.delete(log);
+    evaluator.evaluate("echo new >> " + log);
+
+    assertEquals("new\n", Files.readString(log));
+  }
+
+  @Test
+  void append_afterTargetRotated_writesToTheNewFile() throws IOException {
+    Path log = tempDir.resolve("log.txt");
+    Path rotated = tempDir.resolve("log.txt.1");
+
+    evaluator.evaluate("echo before >> " + log);
+    Files.move(log, rotated);
+    Files.writeString(log, "");
+    evaluator.evaluate("echo after >> " + log);
+
+    assertEquals("before\n", Files.readString(rotated));
+    assertEquals("after\n", Files.readString(log));
+  }
+
+  @Test
+  void relativeTargets_areResolvedAgainstTheShellsCwd() throws IOException {
+    Files.createDirectories(tempDir.resolve("a"));
+    Files.createDirectories(tempDir.resolve("b"));
+
+    evaluator.evaluate("cd " + tempDir.resolve("a"));
+    evaluator.evaluate("echo one >> log; echo first > out");
+    evaluator.evaluate("cd ../b");
+    evaluator.evaluate("echo two >> log; sh -c 'echo three' >> log; cat < log > copy; sh -c 'cat log' &> both");
+
+    assertEquals("one\n", Files.readString(tempDir.resolve("a/log")));
+    assertEquals("first\n", Files.readString(tempDir.resolve("a/out")));
+    assertEquals("two\nthree\n", Files.readString(tempDir.resolve("b/log")));
+    assertEquals("two\nthree\n", Files.readString(tempDir.resolve("b/copy")));
+    assertEquals("two\nthree\n", Files.readString(tempDir.resolve("b/both")));
+  }
+
+  @Test
+  void redirectedOutput_isEncodedAsUtf8() throws IOException {
+    Path out = tempDir.resolve("out.txt");
+    String text = "ascii é € 😀";
+
+    evaluator.evaluate("echo '" + text + "' > " + out);
+    evaluator.evaluate("echo '" + text + "' >> " + out);
+
+    assertEquals(text + "\n" + text + "\n", Files.readString(out, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void append_toUnwritableTarget_reportsAccessError() throws IOException {
+    Path target = tempDir.resolve("missing").resolve("log.txt");
+
+    IOException e = assertThrows(IOException.class, () -> evaluator.evaluate("echo x >> " + target));
+
+    assertEquals("file: " + target + " does not have write access", e.getMessage());
+  }
+}
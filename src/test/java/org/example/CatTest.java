@@ -0,0 +1,113 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+  private byte[] binary;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    shell = new ShellFixture(tempDir, "from stdin\n");
+
+    // larger than one copy chunk, and not valid UTF-8
+    binary = new byte[300_000];
+    new Random(42).nextBytes(binary);
+    Files.write(tempDir.resolve("binary"), binary);
+    Files.writeString(tempDir.resolve("a.txt"), "alpha\n");
+    Files.writeString(tempDir.resolve("b.txt"), "beta\n");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void cat_printsFilesInOrder_relativeToCwd() throws IOException {
+    assertEquals(0, shell.eval("cat a.txt b.txt a.txt"));
+    assertEquals("alpha\nbeta\nalpha\n", shell.out());
+  }
+
+  @Test
+  void cat_withoutFiles_copiesStdin() throws IOException {
+    assertEquals(0, shell.eval("cat a.txt - b.txt"));
+    assertEquals("alpha\nfrom stdin\nbeta\n", shell.out());
+  }
+
+  @Test
+  void cat_intoRedirects_copiesBytesExactly() throws IOException {
+    Path copy = tempDir.resolve("copy");
+    Path appended = tempDir.resolve("appended");
+
+    shell.eval("cat " + tempDir.resolve("binary") + " > " + copy);
+    shell.eval("cat < " + tempDir.resolve("binary") + " > " + appended);
+    shell.eval("cat " + tempDir.resolve("binary") + " >> " + appended);
+
+    assertArrayEquals(binary, Files.readAllBytes(copy));
+    byte[] twice = new byte[binary.length * 2];
+    System.arraycopy(binary, 0, twice, 0, binary.length);
+    System.arraycopy(binary, 0, twice, binary.length, binary.length);
+    assertArrayEquals(twice, Files.readAllBytes(appended));
+  }
+
+  @Test
+  void cat_throughPipeline_copiesBytesExactly() throws IOException {
+    Path copy = tempDir.resolve("copy");
+
+    shell.eval("cat " + tempDir.resolve("binary") + " | cat | cat > " + copy);
+
+    assertArrayEquals(binary, Files.readAllBytes(copy));
+  }
+
+  @Test
+  void cat_keepsOrderWithOutputAroundIt() throws IOException {
+    Path log = tempDir.resolve("log");
+
+    shell.eval("echo before >> " + log);
+    shell.eval("cat " + tempDir.resolve("a.txt") + " >> " + log);
+    shell.eval("echo after >> " + log);
+
+    assertEquals("before\nalpha\nafter\n", Files.readString(log));
+  }
+
+  @Test
+  void cat_fileIntoItself_isRefused() throws IOException {
+    Path log = tempDir.resolve("log");
+    Files.writeString(log, "line\n");
+
+    assertEquals(1, shell.eval("cat " + tempDir.resolve("a.txt") + " " + log + " >> " + log));
+
+    assertEquals("line\nalpha\n", Files.readString(log));
+    assertEquals("cat: " + log + ": input file is output file\n", shell.err());
+  }
+
+  @Test
+  void cat_missingFileOrDirectory_reportsAndContinues() throws IOException {
+    assertEquals(1, shell.eval("cat missing.txt a.txt ."));
+    assertEquals("alpha\n", shell.out());
+    assertEquals("cat: missing.txt: No such file or directory\ncat: .: Is a directory\n", shell.err());
+  }
+
+  @Test
+  void cat_unsupportedOption_isAUsageError() throws IOException {
+    assertEquals(2, shell.eval("cat -n a.txt"));
+    assertEquals("", shell.out());
+    assertEquals("cat: -n: unsupported option\nusage: cat [-u] [file ...]\n", shell.err());
+  }
+}
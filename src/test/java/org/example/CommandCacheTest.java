@@ -0,0 +1,110 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.example.evaluator.CommandCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommandCacheTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Path first;
+  private Path second;
+  private String pathEnv;
+  private CommandCache cache;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    first = Files.createDirectory(tempDir.resolve("first"));
+    second = Files.createDirectory(tempDir.resolve("second"));
+    pathEnv = first + File.pathSeparator + second;
+    cache = new CommandCache(Duration.ZERO);
+  }
+
+  private Path createExecutable(Path dir, String name) throws IOException {
+    Path file = dir.resolve(name);
+    Files.writeString(file, "#!/bin/sh\n");
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+    return file;
+  }
+
+  @Test
+  void lookup_findsExecutableAndCountsHits() throws IOException {
+    Path tool = createExecutable(second, "tool");
+
+    assertEquals(Optional.of(tool.toString()), cache.lookup("tool", pathEnv));
+    assertEquals(Optional.of(tool.toString()), cache.lookup("tool", pathEnv));
+
+    assertEquals(List.of(new CommandCache.Entry("tool", tool.toString(), 2)), cache.entries(pathEnv));
+  }
+
+  @Test
+  void lookup_missingCommand_isNotCached() {
+    assertEquals(Optional.empty(), cache.lookup("missing", pathEnv));
+    assertTrue(cache.entries(pathEnv).isEmpty());
+  }
+
+  @Test
+  void lookup_binaryDisappears_invalidatesEntry() throws IOException {
+    Path tool = createExecutable(second, "tool");
+    cache.lookup("tool", pathEnv);
+
+    Files.delete(tool);
+
+    assertEquals(Optional.empty(), cache.lookup("tool", pathEnv));
+    assertTrue(cache.entries(pathEnv).isEmpty());
+  }
+
+  @Test
+  void lookup_earlierDirectoryChanges_picksUpShadowingCommand() throws IOException {
+    createExecutable(second, "tool");
+    cache.lookup("tool", pathEnv);
+
+    Path shadow = createExecutable(first, "tool");
+    Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+    assertEquals(Optional.of(shadow.toString()), cache.lookup("tool", pathEnv));
+  }
+
+  @Test
+  void lookup_differentPath_resolvesSeparately() throws IOException {
+    Path inSecond = createExecutable(second, "tool");
+    Path inFirst = createExecutable(first, "tool");
+
+    assertEquals(Optional.of(inFirst.toString()), cache.lookup("tool", pathEnv));
+    assertEquals(Optional.of(inSecond.toString()), cache.lookup("tool", second.toString()));
+  }
+
+  @Test
+  void seedForgetAndClear_editTheTable() throws IOException {
+    createExecutable(first, "a");
+    createExecutable(first, "b");
+
+    assertTrue(cache.seed("a", pathEnv));
+    assertTrue(cache.seed("b", pathEnv));
+    assertFalse(cache.seed("c", pathEnv));
+    assertEquals(0, cache.entries(pathEnv).get(0).hits());
+
+    assertTrue(cache.forget("a", pathEnv));
+    assertEquals(1, cache.entries(pathEnv).size());
+
+    cache.clear();
+    assertTrue(cache.entries(pathEnv).isEmpty());
+  }
+}
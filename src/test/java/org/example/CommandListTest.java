@@ -0,0 +1,103 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.example.evaluator.CommandResult;
+import org.example.parser.ParseCache;
+import org.example.parser.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommandListTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() {
+    shell = new ShellFixture(tempDir);
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void semicolon_runsEachCommandInTurn() throws IOException {
+    assertEquals(0, shell.eval("echo a; sh -c 'echo b; exit 3'; echo c"));
+    assertEquals("a\nb\nc\n", shell.out());
+    assertEquals(3, shell.eval("echo d;sh -c 'exit 3';"));
+  }
+
+  @Test
+  void and_runsOnlyAfterSuccess() throws IOException {
+    assertEquals(0, shell.eval("echo a && echo b"));
+    assertEquals(1, shell.eval("sh -c 'exit 1' && echo skipped"));
+    assertEquals("a\nb\n", shell.out());
+  }
+
+  @Test
+  void or_runsOnlyAfterFailure() throws IOException {
+    assertEquals(0, shell.eval("echo a || echo skipped"));
+    assertEquals(0, shell.eval("nosuchcommand || echo fallback"));
+    assertEquals("a\nfallback\n", shell.out());
+    assertEquals("nosuchcommand: command not found\n", shell.err());
+  }
+
+  @Test
+  void skippedPipelines_passTheStatusOn() throws IOException {
+    // bash: false && a || b runs b; true || a && b runs b
+    assertEquals(0, shell.eval("sh -c 'exit 2' && echo a || echo b"));
+    assertEquals(0, shell.eval("echo c || echo a && echo d"));
+    assertEquals(2, shell.eval("sh -c 'exit 2' || sh -c 'exit 4' && echo a || sh -c 'exit 2'"));
+    assertEquals("b\nc\nd\n", shell.out());
+  }
+
+  @Test
+  void pipelinesAndRedirects_bindTighterThanTheOperators() throws IOException {
+    Path n = tempDir.resolve("n.txt");
+    assertEquals(0, shell.eval("echo x y | wc -w > " + n + " && cat " + n + " | wc -l; echo done"));
+    assertEquals("2\n", Files.readString(n));
+    assertEquals("1\ndone\n", shell.out());
+  }
+
+  @Test
+  void exit_endsTheRestOfTheLine() throws IOException {
+    CommandResult result = shell.evaluator().evaluate("echo a; exit 4 && echo b; echo c");
+    shell.context().out().flush();
+    assertTrue(result.shouldExit());
+    assertEquals(4, result.getExitCode());
+    assertEquals("a\n", shell.out());
+  }
+
+  @Test
+  void syntaxError_runsNothing() throws IOException {
+    assertEquals(1, shell.eval("echo a; && echo b"));
+    assertEquals("", shell.out());
+    assertEquals("syntax error near unexpected token `&&'\n", shell.err());
+  }
+
+  @Test
+  void wholeLine_isParsedOnce() throws IOException {
+    ParseCache cache = Parser.cache();
+    cache.clear();
+    String line = "echo 1 && echo 2 || echo 3; echo 4 | wc -c; echo 5";
+    shell.eval(line);
+    shell.eval(line);
+
+    assertEquals(1, cache.stats().misses());
+    assertEquals(1, cache.stats().hits());
+    assertFalse(shell.err().contains("error"), shell.err());
+  }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommandSubstitutionTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() {
+    shell = new ShellFixture(tempDir);
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void builtinOutput_replacesTheSubstitution() throws IOException {
+    assertEquals(0, shell.eval("echo \"in $(pwd)\" `echo x`y"));
+    assertEquals("in " + tempDir + " xy\n", shell.out());
+  }
+
+  @Test
+  void externalOutput_losesItsTrailingNewlines() throws IOException {
+    assertEquals(0, shell.eval("echo [$(printf 'a\\nb\\n\\n\\n')]"));
+    assertEquals("[a b]\n", shell.out());
+  }
+
+  @Test
+  void unquotedOutput_isSplitIntoWords() throws IOException {
+    Files.writeString(tempDir.resolve("f.txt"), "one  two\tthree\n");
+    assertEquals(0, shell.eval("sh -c 'echo $#' $(cat f.txt) \"$(cat f.txt)\" $(echo) \"$(echo)\""));
+    assertEquals("4\n", shell.out());
+  }
+
+  @Test
+  void substitutions_nestAndTakeWholeCommandLines() throws IOException {
+    assertEquals(0, shell.eval("echo $(echo $(echo a) | wc -c; sh -c 'exit 1' || echo b)"));
+    assertEquals("2 b\n", shell.out());
+  }
+
+  @Test
+  void subshell_keepsItsCdToItself() throws IOException {
+    Files.createDirectory(tempDir.resolve("sub"));
+    assertEquals(0, shell.eval("echo $(cd sub; pwd) $(pwd)"));
+    assertEquals(tempDir.resolve("sub") + " " + tempDir + "\n", shell.out());
+    assertEquals(tempDir, shell.context().getCwd());
+  }
+
+  @Test
+  void emptyCommand_takesTheSubstitutionsStatus() throws IOException {
+    assertEquals(3, shell.eval("$(sh -c 'exit 3')"));
+    assertEquals(0, shell.eval("$(sh -c 'exit 3') | echo piped"));
+    assertEquals("piped\n", shell.out());
+  }
+
+  @Test
+  void pipelinesAndBackgroundJobs_expandTheirCommands() throws IOException {
+    assertEquals(0, shell.eval("echo $(echo a b) | wc -w; echo $(echo c) > " + tempDir.resolve("c.txt") + " & wait"));
+    assertEquals("2\n", shell.out());
+    assertEquals("c\n", Files.readString(tempDir.resolve("c.txt")));
+  }
+
+  @Test
+  void errorsOfTheInnerCommand_goToTheShell() throws IOException {
+    assertEquals(0, shell.eval("echo a$(nosuchcommand)b $(ls missing)"));
+    assertEquals("ab\n", shell.out());
+    assertTrue(shell.err().startsWith("nosuchcommand: command not found\n"), shell.err());
+    assertTrue(shell.err().contains("missing"), shell.err());
+  }
+}
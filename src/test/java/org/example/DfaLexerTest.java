@@ -0,0 +1,90 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.example.lexer.Lexer;
+import org.example.lexer.Token;
+import org.example.lexer.TokenBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the table-driven lexer behind {@link Lexer#scan} produces
+ * exactly the same tokens as the {@code LexerState} objects it is compiled
+ * from.
+ */
+class DfaLexerTest {
+
+  private static void assertSameTokens(String input) {
+    List<Token> expected = Lexer.scanWithStates(input, new TokenBuffer()).toTokens();
+    List<Token> actual = Lexer.scan(input, new TokenBuffer()).toTokens();
+    assertEquals(expected, actual, "tokens differ for input: " + input);
+  }
+
+  @Test
+  void matchesStateLexer_onHandWrittenCases() {
+    List<String> inputs = List.of(
+        "echo hello world",
+        "cmd 1>>> file",
+        "cmd &>> all.txt < in.txt",
+        "a2>b",
+        "\"2\">f",
+        "'>'> f",
+        "\\>> f",
+        "echo \"a \\\"b\\\" \\$c \\d\"",
+        "echo 'it''s' \"\"",
+        "ls|grep x >|wc",
+        "sleep 1 & ls& cmd&>f &",
+        "cmd 2>&1 > &2 < &0&",
+        "a&&b & '&' \\& \"&\"",
+        "make && ./run || notify|wc; x;;y",
+        "a &&& b >||c >;d |||e",
+        "echo $HOME $ \"$\" a$>f $|b '$('",
+        "trailing\\",
+        "unterminated \"quote",
+        "ünïcödé wörds > fïlé");
+
+    for (String input : inputs) {
+      assertSameTokens(input);
+    }
+  }
+
+  @Test
+  void matchesStateLexer_onRandomInput() {
+    String alphabet = " ab12&><|;'\"\\$`\n";
+    Random random = new Random(1234);
+
+    for (int n = 0; n < 100_000; n++) {
+      StringBuilder input = new StringBuilder();
+      int length = random.nextInt(16);
+      for (int i = 0; i < length; i++) {
+        input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSameTokens(input.toString());
+    }
+  }
+
+  @Test
+  void matchesStateLexer_onLongUnquotedRuns() {
+    String alphabet = " ab12&><|;'\"\\$`\n";
+    Random random = new Random(99);
+
+    for (int n = 0; n < 5_000; n++) {
+      StringBuilder input = new StringBuilder();
+      int parts = random.nextInt(12);
+      for (int p = 0; p < parts; p++) {
+        if (random.nextBoolean()) {
+          int run = random.nextInt(200);
+          for (int i = 0; i < run; i++) {
+            input.append((char) ('a' + random.nextInt(26)));
+          }
+        } else {
+          input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+      }
+      assertSameTokens(input.toString());
+    }
+  }
+}
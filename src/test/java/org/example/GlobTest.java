@@ -0,0 +1,86 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GlobTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    shell = new ShellFixture(tempDir);
+
+    for (String file : new String[] { "b.txt", "a.txt", "c.md", ".hidden.txt", "src/Main.java", "src/x/y/Deep.java",
+        "src/x/Notes.txt", "src/.cache/Old.java" }) {
+      Path path = tempDir.resolve(file);
+      Files.createDirectories(path.getParent());
+      Files.createFile(path);
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void star_matchesSortedNamesButNotHiddenOnes() throws IOException {
+    assertEquals(0, shell.eval("echo *.txt; echo .*.txt; echo *"));
+    assertEquals("a.txt b.txt\n.hidden.txt\na.txt b.txt c.md src\n", shell.out());
+  }
+
+  @Test
+  void questionMarkAndBrackets_matchOneCharacter() throws IOException {
+    assertEquals(0, shell.eval("echo ?.md [ab].txt [!a].txt [[:alpha:]].*"));
+    assertEquals("c.md a.txt b.txt b.txt a.txt b.txt c.md\n", shell.out());
+  }
+
+  @Test
+  void quotedOrEscaped_staysLiteral() throws IOException {
+    assertEquals(0, shell.eval("echo \"*.txt\" '?.md' \\*.txt [ a[b"));
+    assertEquals("*.txt ?.md *.txt [ a[b\n", shell.out());
+  }
+
+  @Test
+  void noMatch_leavesThePatternAsItIs() throws IOException {
+    assertEquals(0, shell.eval("echo *.java src/*/*.md"));
+    assertEquals("*.java src/*/*.md\n", shell.out());
+  }
+
+  @Test
+  void globstar_walksEveryDirectoryButHiddenOnes() throws IOException {
+    assertEquals(0, shell.eval("echo src/**/*.java; echo src/**/; echo s*/x/**"));
+    assertEquals("src/Main.java src/x/y/Deep.java\nsrc/ src/x/ src/x/y/\nsrc/x/Notes.txt src/x/y src/x/y/Deep.java\n",
+        shell.out());
+  }
+
+  @Test
+  void substitutedPatterns_areExpandedUnlessQuoted() throws IOException {
+    assertEquals(0, shell.eval("P='*.md'; echo $P \"$P\" $(echo '[ab]').txt"));
+    assertEquals("c.md *.md a.txt b.txt\n", shell.out());
+  }
+
+  @Test
+  void assignmentsAndRedirectTargets_areNotExpanded() throws IOException {
+    assertEquals(0, shell.eval("A=*.txt; echo x > " + tempDir + "/*.out; echo \"$A\"; cat '" + tempDir + "/*.out'"));
+    assertEquals("*.txt\nx\n", shell.out());
+  }
+
+  @Test
+  void laterCommandsOnTheLine_seeFilesEarlierOnesMade() throws IOException {
+    assertEquals(0, shell.eval("echo *.log; touch new.log; echo *.log; rm new.log; echo *.log"));
+    assertEquals("*.log\nnew.log\n*.log\n", shell.out());
+  }
+}
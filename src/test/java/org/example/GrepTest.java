@@ -0,0 +1,142 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GrepTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    shell = new ShellFixture(tempDir, "no match\nan error here\n");
+
+    Files.writeString(tempDir.resolve("a.log"), "INFO start\nERROR disk full\nWARN slow\nerror: retry\nINFO done");
+    Files.writeString(tempDir.resolve("b.log"), "café au lait\nnothing\n");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void literal_printsMatchingLines() throws IOException {
+    assertEquals(0, shell.eval("grep ERROR a.log"));
+    assertEquals("ERROR disk full\n", shell.out());
+  }
+
+  @Test
+  void pipedInput_isScannedAsItArrives() throws IOException {
+    // the writer only says "seen" once grep has written out its first line
+    assertEquals(0, shell.eval("sh -c 'echo match; i=0;"
+        + " while [ ! -s found ] && [ $i -lt 100 ]; do sleep 0.05; i=$((i+1)); done;"
+        + " [ -s found ] && echo seen' | grep -E 'match|seen' > found"));
+    assertEquals("match\nseen\n", Files.readString(tempDir.resolve("found")));
+  }
+
+  @Test
+  void ignoreCaseAndLineNumbers_numberTheOriginalLines() throws IOException {
+    assertEquals(0, shell.eval("grep -in error a.log"));
+    assertEquals("2:ERROR disk full\n4:error: retry\n", shell.out());
+  }
+
+  @Test
+  void invertAndCount_countUnselectedLines() throws IOException {
+    assertEquals(0, shell.eval("grep -vc INFO a.log"));
+    assertEquals("3\n", shell.out());
+  }
+
+  @Test
+  void regex_isMatchedAgainstDecodedLines() throws IOException {
+    assertEquals(0, shell.eval("grep -E '^(WARN|INFO) [a-z]+$' a.log b.log"));
+    assertEquals("a.log:INFO start\na.log:WARN slow\na.log:INFO done\n", shell.out());
+  }
+
+  @Test
+  void nonAsciiLiteral_matchesUtf8Bytes() throws IOException {
+    assertEquals(0, shell.eval("grep -n café b.log"));
+    assertEquals("1:café au lait\n", shell.out());
+  }
+
+  @Test
+  void wholeWordsAndLines_onlyMatchThoseBoundaries() throws IOException {
+    shell.eval("grep -w err a.log");
+    shell.eval("grep -x 'INFO done' a.log");
+    assertEquals("INFO done\n", shell.out());
+  }
+
+  @Test
+  void fixedString_treatsMetacharactersLiterally() throws IOException {
+    assertEquals(0, shell.eval("grep -F 'error:' a.log"));
+    assertEquals(1, shell.eval("grep -F '.*' a.log"));
+    assertEquals("error: retry\n", shell.out());
+  }
+
+  @Test
+  void filesWithMatchesAndQuiet_printNamesOrNothing() throws IOException {
+    assertEquals(0, shell.eval("grep -l lait a.log b.log"));
+    assertEquals(0, shell.eval("grep -q disk a.log"));
+    assertEquals(1, shell.eval("grep -q absent a.log"));
+    assertEquals("b.log\n", shell.out());
+  }
+
+  @Test
+  void filesWithMatchesAndQuiet_stopReadingAtTheFirstMatch() throws IOException {
+    // /dev/urandom never ends, so only stopping at a match gets past it
+    assertEquals(0, shell.eval("grep -q a /dev/urandom"));
+    assertEquals(0, shell.eval("grep -l a /dev/urandom a.log"));
+    assertEquals("/dev/urandom\na.log\n", shell.out());
+  }
+
+  @Test
+  void stdinAndRedirect_areSearched() throws IOException {
+    shell.eval("grep error");
+    shell.eval("grep -c INFO < " + tempDir.resolve("a.log"));
+    assertEquals("an error here\n2\n", shell.out());
+  }
+
+  @Test
+  void pipelineInput_isSearched() throws IOException {
+    shell.eval("cat b.log b.log | grep -n -i NOTH");
+    assertEquals("2:nothing\n4:nothing\n", shell.out());
+  }
+
+  @Test
+  void largeFile_keepsLineOrderAndNumbersAcrossChunks() throws IOException {
+    StringBuilder log = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 1; i <= 200_000; i++) {
+      String line = (i % 997 == 0 ? "match " : "skip ") + i + " padding to make the file span several chunks";
+      log.append(line).append('\n');
+      if (i % 997 == 0) {
+        expected.append(i).append(':').append(line).append('\n');
+      }
+    }
+    Files.writeString(tempDir.resolve("big.log"), log);
+
+    assertEquals(0, shell.eval("grep -n match big.log"));
+    assertEquals(expected.toString(), shell.out());
+  }
+
+  @Test
+  void missingFileAndBadPattern_areErrors() throws IOException {
+    assertEquals(2, shell.eval("grep ERROR missing.log a.log"));
+    assertEquals(2, shell.eval("grep '(' a.log"));
+    assertEquals(2, shell.eval("grep -z x a.log"));
+    assertEquals("a.log:ERROR disk full\n", shell.out());
+    assertTrue(shell.err().startsWith("grep: missing.log: No such file or directory\n"));
+  }
+}
@@ -0,0 +1,152 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.example.commands.Builtins;
+import org.example.commands.CommandInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JobsTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() {
+    input("");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  private void input(String stdin) {
+    if (shell != null) {
+      shell.close();
+    }
+    shell = new ShellFixture(tempDir, stdin);
+  }
+
+  @Test
+  void backgroundCommand_letsTheShellGoOn() throws IOException {
+    long start = System.nanoTime();
+    assertEquals(0, shell.eval("sleep 0.5 & echo started"));
+    assertTrue(System.nanoTime() - start < 400_000_000L, "waited for the background job");
+    assertEquals("started\n", shell.out());
+
+    assertEquals(0, shell.eval("jobs"));
+    assertEquals("started\n[1]+  Running                 sleep 0.5 &\n", shell.out());
+
+    assertEquals(0, shell.eval("wait"));
+    assertEquals(0, shell.eval("jobs"));
+    assertEquals("started\n[1]+  Running                 sleep 0.5 &\n", shell.out());
+  }
+
+  @Test
+  void wait_returnsTheJobsStatusAndForgetsIt() throws IOException {
+    assertEquals(0, shell.eval("sh -c 'exit 3' & sh -c 'sleep 0.3; exit 4' &"));
+    assertEquals(3, shell.eval("wait %1"));
+    assertEquals(127, shell.eval("wait %1"));
+
+    assertEquals(0, shell.eval("jobs -p %2"));
+    assertEquals(4, shell.eval("wait " + shell.out().strip()));
+    assertEquals(2, shell.eval("wait x"));
+    assertEquals("wait: %1: no such job\nwait: `x': not a pid or valid job spec\n", shell.err());
+  }
+
+  @Test
+  void backgroundBuiltinsAndPipelines_runInTheShell() throws IOException {
+    assertEquals(0, shell.eval("cat & echo a b c | wc -w & exit 5 &"));
+    assertEquals(0, shell.eval("wait %1"));
+    assertEquals(0, shell.eval("wait %2"));
+    // exit only ends its own job, as in a subshell
+    assertEquals(5, shell.eval("wait %3"));
+    assertEquals("3\n", shell.out());
+    assertTrue(shell.context().shouldContinue());
+  }
+
+  @Test
+  void backgroundBuiltinThatThrows_failsOnlyItsJob() throws IOException {
+    shell.close();
+    shell = new ShellFixture(tempDir, "", new Builtins() {
+      @Override
+      public boolean isBuiltin(String name) {
+        return name.equals("boom") || super.isBuiltin(name);
+      }
+
+      @Override
+      public CommandInterface get(String name) {
+        return name.equals("boom") ? (args, context) -> {
+          throw new IllegalStateException("went off");
+        } : super.get(name);
+      }
+    });
+
+    // the substitution runs outside any pipeline stage, so nothing but the
+    // job itself is there to catch it
+    assertEquals(0, shell.eval("boom &"));
+    assertEquals(1, shell.eval("wait %1"));
+    assertEquals(0, shell.eval("echo $(boom) &"));
+    assertEquals(1, shell.eval("wait %1"));
+    assertEquals("went off\necho: went off\n", shell.err());
+    assertEquals(0, shell.eval("jobs"));
+  }
+
+  @Test
+  void fg_printsTheCommandAndWaitsForIt() throws IOException {
+    assertEquals(1, shell.eval("fg"));
+    assertEquals("fg: current: no such job\n", shell.err());
+
+    assertEquals(0, shell.eval("sleep 1 & sh -c 'sleep 0.2; echo done; exit 7' &"));
+    assertEquals(7, shell.eval("fg"));
+    assertEquals("sh -c 'sleep 0.2; echo done; exit 7'\ndone\n", shell.out());
+
+    assertEquals(0, shell.eval("jobs -l"));
+    assertTrue(shell.out().matches("(?s).*\\[1\\]\\+ \\d+ Running  +sleep 1 &\n"), shell.out());
+  }
+
+  @Test
+  void finishedJobs_areReportedAtTheNextPrompt() {
+    input("sh -c 'exit 2' & true &\nsleep 0.5\n");
+    new Shell(shell.context(), shell.evaluator()).run();
+
+    List<String> lines = shell.err().lines().toList();
+    assertEquals(4, lines.size(), shell.err());
+    assertTrue(lines.get(0).matches("\\[1\\] \\d+"), lines.get(0));
+    assertTrue(lines.get(1).matches("\\[2\\] \\d+"), lines.get(1));
+    assertEquals("[1]-  Exit 2                  sh -c 'exit 2'", lines.get(2));
+    assertEquals("[2]+  Done                    true", lines.get(3));
+  }
+
+  @Test
+  void manyJobs_doNotEachTakeAThreadOfTheShell() throws IOException {
+    long before = shellThreads();
+    long start = System.nanoTime();
+    for (int i = 0; i < 200; i++) {
+      shell.eval("sleep 1 > /dev/null 2>&1 &");
+    }
+    long running = shellThreads();
+    assertEquals(0, shell.eval("wait"));
+
+    // the only platform thread per child is the JDK's own process reaper
+    assertTrue(running - before < 10, "threads went from " + before + " to " + running);
+    assertTrue(System.nanoTime() - start < 20_000_000_000L, "the jobs did not run concurrently");
+  }
+
+  private static long shellThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> !t.getName().startsWith("process reaper"))
+        .count();
+  }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.example.lexer.Lexer;
 import org.example.lexer.Token;
+import org.example.lexer.TokenBuffer;
 import org.example.lexer.Token.TokenType;
 import org.junit.jupiter.api.Test;
 
@@ -111,6 +112,177 @@ class LexerTest {
         TokenType.WORD, "file");
   }
 
+  @Test
+  public void correctlyTokenizesPipes() {
+    assertTokens("ls | grep x",
+        TokenType.WORD, "ls",
+        TokenType.PIPE, "|",
+        TokenType.WORD, "grep",
+        TokenType.WORD, "x");
+
+    assertTokens("ls|wc",
+        TokenType.WORD, "ls",
+        TokenType.PIPE, "|",
+        TokenType.WORD, "wc");
+
+    assertTokens("cmd > out|wc",
+        TokenType.WORD, "cmd",
+        TokenType.REDIRECT, ">",
+        TokenType.WORD, "out",
+        TokenType.PIPE, "|",
+        TokenType.WORD, "wc");
+
+    assertTokens("cmd >|wc",
+        TokenType.WORD, "cmd",
+        TokenType.REDIRECT, ">",
+        TokenType.PIPE, "|",
+        TokenType.WORD, "wc");
+
+    assertTokens("echo 'a|b' \"c|d\" e\\|f",
+        TokenType.WORD, "echo",
+        TokenType.WORD, "a|b",
+        TokenType.WORD, "c|d",
+        TokenType.WORD, "e|f");
+  }
+
+  @Test
+  public void correctlyTokenizesAmpersands() {
+    assertTokens("sleep 1 & ls&",
+        TokenType.WORD, "sleep",
+        TokenType.WORD, "1",
+        TokenType.BACKGROUND, "&",
+        TokenType.WORD, "ls",
+        TokenType.BACKGROUND, "&");
+
+    assertTokens("cmd&>f& x",
+        TokenType.WORD, "cmd",
+        TokenType.REDIRECT, "&>",
+        TokenType.WORD, "f",
+        TokenType.BACKGROUND, "&",
+        TokenType.WORD, "x");
+
+    assertTokens("cmd 2>&1 < &0 &",
+        TokenType.WORD, "cmd",
+        TokenType.REDIRECT, "2>",
+        TokenType.WORD, "&1",
+        TokenType.REDIRECT, "<",
+        TokenType.WORD, "&0",
+        TokenType.BACKGROUND, "&");
+
+    assertTokens("echo a\\&b '&' \\&",
+        TokenType.WORD, "echo",
+        TokenType.WORD, "a&b",
+        TokenType.WORD, "&",
+        TokenType.WORD, "&");
+  }
+
+  @Test
+  public void correctlyTokenizesListOperators() {
+    assertTokens("a && b || c; d",
+        TokenType.WORD, "a",
+        TokenType.AND, "&&",
+        TokenType.WORD, "b",
+        TokenType.OR, "||",
+        TokenType.WORD, "c",
+        TokenType.SEMICOLON, ";",
+        TokenType.WORD, "d");
+
+    assertTokens("a&&b||c|d;>f;",
+        TokenType.WORD, "a",
+        TokenType.AND, "&&",
+        TokenType.WORD, "b",
+        TokenType.OR, "||",
+        TokenType.WORD, "c",
+        TokenType.PIPE, "|",
+        TokenType.WORD, "d",
+        TokenType.SEMICOLON, ";",
+        TokenType.REDIRECT, ">",
+        TokenType.WORD, "f",
+        TokenType.SEMICOLON, ";");
+
+    assertTokens("a &&& b >||c",
+        TokenType.WORD, "a",
+        TokenType.AND, "&&",
+        TokenType.BACKGROUND, "&",
+        TokenType.WORD, "b",
+        TokenType.REDIRECT, ">",
+        TokenType.OR, "||",
+        TokenType.WORD, "c");
+
+    assertTokens("echo 'a;b' \\; \"&&\"",
+        TokenType.WORD, "echo",
+        TokenType.WORD, "a;b",
+        TokenType.WORD, ";",
+        TokenType.WORD, "&&");
+  }
+
+  @Test
+  public void commandSubstitutions_stayInsideTheirWord() {
+    assertTokens("echo a$(ls | wc -l; echo ')')b \"`echo x`\" '$(no)'",
+        TokenType.WORD, "echo",
+        TokenType.WORD, "a$(ls | wc -l; echo ')')b",
+        TokenType.WORD, "`echo x`",
+        TokenType.WORD, "$(no)");
+  }
+
+  @Test
+  public void scanRecordsWhereSubstitutionsAre() {
+    TokenBuffer tokens = Lexer.scan("x $(a $(b) \\)) \"q `c`\" \\$(d) $(e", new TokenBuffer());
+
+    assertEquals(5, tokens.size());
+    assertEquals(3, tokens.substitutionCount());
+    assertEquals(1, tokens.substitutionToken(0));
+    assertEquals("$(a $(b) \\))", tokens.text(1).substring(tokens.substitutionStart(0), tokens.substitutionEnd(0)));
+    assertFalse(tokens.isBackquoted(0));
+
+    assertEquals(2, tokens.substitutionToken(1));
+    assertEquals("q `c`", tokens.text(2));
+    assertEquals(2, tokens.substitutionStart(1));
+    assertTrue(tokens.isBackquoted(1));
+    assertTrue(tokens.isDoubleQuoted(1));
+
+    // the escaped $( is plain text, and the last one is never closed
+    assertEquals("$(d)", tokens.text(3));
+    assertEquals(4, tokens.substitutionToken(2));
+    assertEquals(-1, tokens.substitutionEnd(2));
+  }
+
+  @Test
+  public void scanRecordsOffsetsIntoTheInput() {
+    String input = "cat 'my file' 2>err.txt";
+    TokenBuffer tokens = Lexer.scan(input, new TokenBuffer());
+
+    assertEquals(4, tokens.size());
+    assertEquals("cat", input.substring(tokens.start(0), tokens.end(0)));
+    assertEquals("my file", input.substring(tokens.start(1), tokens.end(1)));
+    assertEquals(TokenType.REDIRECT, tokens.type(2));
+    assertEquals("2>", input.substring(tokens.start(2), tokens.end(2)));
+    assertEquals("err.txt", tokens.text(3));
+  }
+
+  @Test
+  public void scanRemovesQuotesAndEscapesFromTokenText() {
+    TokenBuffer tokens = Lexer.scan("a\\ b\"c d\"'e' \"x\\y\"", new TokenBuffer());
+
+    assertEquals(2, tokens.size());
+    assertEquals("a bc de", tokens.text(0));
+    assertEquals(7, tokens.length(0));
+    assertEquals("x\\y", tokens.text(1));
+  }
+
+  @Test
+  public void scanReusesTheBufferBetweenLines() {
+    TokenBuffer tokens = new TokenBuffer();
+
+    Lexer.scan("one two three", tokens);
+    assertEquals(3, tokens.size());
+
+    Lexer.scan("'four'", tokens);
+    assertEquals(1, tokens.size());
+    assertEquals("four", tokens.text(0));
+    assertEquals(List.of(new Token(TokenType.WORD, "four")), tokens.toTokens());
+  }
+
   private void assertTokens(String input, Object... expectedTokens) {
     List<Token> tokens = Lexer.tokenize(input);
     assertEquals(expectedTokens.length / 2, tokens.size());
@@ -0,0 +1,92 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.example.parser.ParseCache;
+import org.example.parser.CommandList;
+import org.junit.jupiter.api.Test;
+
+class ParseCacheTest {
+
+  @Test
+  void parse_repeatedLine_returnsCachedPipeline() throws ParseException {
+    ParseCache cache = new ParseCache(4);
+
+    CommandList first = cache.parse("echo hello | wc -c");
+    CommandList second = cache.parse("echo hello | wc -c");
+
+    assertSame(first, second);
+    assertEquals(new ParseCache.Stats(1, 4, 1, 1), cache.stats());
+  }
+
+  @Test
+  void parse_overCapacity_evictsLeastRecentlyUsed() throws ParseException {
+    ParseCache cache = new ParseCache(2);
+
+    CommandList a = cache.parse("echo a");
+    cache.parse("echo b");
+    cache.parse("echo a");
+    cache.parse("echo c");
+
+    assertSame(a, cache.parse("echo a"));
+    cache.parse("echo b");
+    assertEquals(new ParseCache.Stats(2, 2, 2, 4), cache.stats());
+  }
+
+  @Test
+  void parse_zeroCapacity_disablesCaching() throws ParseException {
+    ParseCache cache = new ParseCache(0);
+
+    assertNotSame(cache.parse("echo a"), cache.parse("echo a"));
+    assertEquals(new ParseCache.Stats(0, 0, 0, 2), cache.stats());
+  }
+
+  @Test
+  void parse_zeroCapacity_doesNotTakeTheLock()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    ParseCache cache = new ParseCache(0);
+
+    synchronized (cache) {
+      CompletableFuture<CommandList> parsed = CompletableFuture.supplyAsync(() -> {
+        try {
+          return cache.parse("echo a");
+        } catch (ParseException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      assertTrue(parsed.get(5, TimeUnit.SECONDS).isSinglePipeline());
+    }
+  }
+
+  @Test
+  void parse_invalidLine_isNotCached() {
+    ParseCache cache = new ParseCache(4);
+
+    assertThrows(ParseException.class, () -> cache.parse("echo a |"));
+    assertThrows(ParseException.class, () -> cache.parse("echo a |"));
+    assertEquals(new ParseCache.Stats(0, 4, 0, 2), cache.stats());
+  }
+
+  @Test
+  void setCapacity_shrinking_dropsOldestEntries() throws ParseException {
+    ParseCache cache = new ParseCache(4);
+    cache.parse("echo a");
+    cache.parse("echo b");
+    CommandList c = cache.parse("echo c");
+
+    cache.setCapacity(1);
+
+    assertSame(c, cache.parse("echo c"));
+    assertEquals(1, cache.stats().size());
+  }
+}
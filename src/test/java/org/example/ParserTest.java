@@ -0,0 +1,186 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.util.List;
+
+import org.example.parser.AndOrList;
+import org.example.parser.Command;
+import org.example.parser.CommandList;
+import org.example.parser.Parser;
+import org.example.parser.Pipeline;
+import org.example.parser.Redirect;
+import org.example.parser.RedirectType;
+import org.example.parser.Substitution;
+import org.junit.jupiter.api.Test;
+
+class ParserTest {
+
+  @Test
+  void parse_singleCommand_returnsPipelineOfOne() throws ParseException {
+    Pipeline pipeline = Parser.parse("echo hello world").first();
+
+    assertTrue(pipeline.isSingleCommand());
+    assertEquals(List.of("echo", "hello", "world"), pipeline.first().args());
+  }
+
+  @Test
+  void parse_pipeline_splitsCommandsAtPipes() throws ParseException {
+    Pipeline pipeline = Parser.parse("cat file | grep -v x | sort | uniq -c").first();
+
+    List<Command> commands = pipeline.commands();
+    assertEquals(4, commands.size());
+    assertEquals(List.of("cat", "file"), commands.get(0).args());
+    assertEquals(List.of("grep", "-v", "x"), commands.get(1).args());
+    assertEquals(List.of("sort"), commands.get(2).args());
+    assertEquals(List.of("uniq", "-c"), commands.get(3).args());
+  }
+
+  @Test
+  void parse_pipeline_keepsRedirectsOnTheirOwnStage() throws ParseException {
+    Pipeline pipeline = Parser.parse("printf x > out.txt | grep x < in.txt 2> err.txt").first();
+
+    assertEquals(List.of(new Redirect(RedirectType.OUTPUT, "out.txt")),
+        pipeline.commands().get(0).redirects());
+    assertEquals(List.of(new Redirect(RedirectType.INPUT, "in.txt"), new Redirect(RedirectType.ERROR, "err.txt")),
+        pipeline.commands().get(1).redirects());
+  }
+
+  @Test
+  void parse_danglingPipe_throwsParseException() {
+    assertThrows(ParseException.class, () -> Parser.parse("ls |"));
+    assertThrows(ParseException.class, () -> Parser.parse("| ls"));
+  }
+
+  @Test
+  void parse_descriptorDuplicates_buildDupRedirects() throws ParseException {
+    Command cmd = Parser.parse("cmd 2>&1 >&- 1>&2 <&0").first().first();
+
+    assertEquals(List.of(
+        new Redirect(RedirectType.ERROR_DUP, "1"),
+        new Redirect(RedirectType.OUTPUT_DUP, "-"),
+        new Redirect(RedirectType.OUTPUT_DUP, "2"),
+        new Redirect(RedirectType.INPUT_DUP, "0")), cmd.redirects());
+  }
+
+  @Test
+  void parse_multiDigitDuplicate_isADuplicateNotAFile() throws ParseException {
+    assertEquals(List.of(new Redirect(RedirectType.ERROR_DUP, "12"), new Redirect(RedirectType.OUTPUT_DUP, "1")),
+        Parser.parse("cmd 2>&12 >&01").first().first().redirects());
+  }
+
+  @Test
+  void parse_quotedOrSpacedAmpersand_isAFileName() throws ParseException {
+    assertEquals(List.of(new Redirect(RedirectType.ERROR, "&1")),
+        Parser.parse("cmd 2>'&1'").first().first().redirects());
+    assertEquals(List.of(new Redirect(RedirectType.OUTPUT, "&2")),
+        Parser.parse("cmd > &2").first().first().redirects());
+    assertEquals(List.of(new Redirect(RedirectType.OUTPUT_APPEND, "&1")),
+        Parser.parse("cmd >>&1").first().first().redirects());
+  }
+
+  @Test
+  void parse_ampersand_startsTheBackgroundPipelineBeforeIt() throws ParseException {
+    CommandList list = Parser.parse("sleep 1 & echo 'a b' | wc -c& date");
+
+    assertEquals(3, list.entries().size());
+    assertEquals(new CommandList.Entry(new AndOrList(Parser.parse("sleep 1").first(), List.of()), true, "sleep 1"),
+        list.entries().get(0));
+    assertEquals("echo 'a b' | wc -c", list.entries().get(1).text());
+    assertTrue(list.entries().get(1).background());
+    assertEquals(2, list.entries().get(1).commands().first().commands().size());
+    assertEquals(new CommandList.Entry(new AndOrList(Parser.parse("date").first(), List.of()), false, "date"),
+        list.entries().get(2));
+  }
+
+  @Test
+  void parse_ampersandAfterADuplicate_isBackground() throws ParseException {
+    CommandList list = Parser.parse("cmd >&2 2>&1&");
+
+    assertEquals(1, list.entries().size());
+    assertTrue(list.entries().get(0).background());
+    assertEquals(List.of(new Redirect(RedirectType.OUTPUT_DUP, "2"), new Redirect(RedirectType.ERROR_DUP, "1")),
+        list.first().first().redirects());
+  }
+
+  @Test
+  void parse_ampersandWithoutACommand_throws() {
+    assertThrows(ParseException.class, () -> Parser.parse("& ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls & &"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls | &"));
+  }
+
+  @Test
+  void parse_andOrLists_keepTheirOperatorsInOrder() throws ParseException {
+    CommandList list = Parser.parse("make && ./run > log || notify | wc -l; 'a;b'&&c");
+
+    assertEquals(2, list.entries().size());
+    AndOrList first = list.entries().get(0).commands();
+    assertEquals(List.of("make"), first.first().first().args());
+    assertEquals(2, first.rest().size());
+    assertEquals(AndOrList.Condition.AND, first.rest().get(0).condition());
+    assertEquals(List.of(new Redirect(RedirectType.OUTPUT, "log")), first.rest().get(0).pipeline().first().redirects());
+    assertEquals(AndOrList.Condition.OR, first.rest().get(1).condition());
+    assertEquals(2, first.rest().get(1).pipeline().commands().size());
+    assertFalse(list.entries().get(0).background());
+    assertEquals("make && ./run > log || notify | wc -l", list.entries().get(0).text());
+
+    AndOrList second = list.entries().get(1).commands();
+    assertEquals(List.of("a;b"), second.first().first().args());
+    assertEquals(new AndOrList.Branch(AndOrList.Condition.AND, Parser.parse("c").first()), second.rest().get(0));
+  }
+
+  @Test
+  void parse_trailingSemicolon_isAllowed() throws ParseException {
+    CommandList list = Parser.parse("a && b & c;");
+
+    assertEquals(2, list.entries().size());
+    assertTrue(list.entries().get(0).background());
+    assertEquals("a && b", list.entries().get(0).text());
+    assertEquals("c", list.entries().get(1).text());
+  }
+
+  @Test
+  void parse_listOperatorWithoutACommand_throws() {
+    assertThrows(ParseException.class, () -> Parser.parse("; ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls ;; ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls &; ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls &&"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls || && ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("ls | || ls"));
+  }
+
+  @Test
+  void parse_commandSubstitutions_areCutOutOfTheirWords() throws ParseException {
+    Command command = Parser.parse("echo a$(ls -l)b `echo \\` \\\\ \\$x` \"in $(x \")\")\"").first().first();
+
+    assertEquals(List.of("echo", "a$(ls -l)b", "`echo \\` \\\\ \\$x`", "in $(x \")\")"), command.args());
+    assertEquals(List.of(
+        new Substitution(Substitution.Kind.COMMAND, 1, 1, 9, "ls -l", false),
+        new Substitution(Substitution.Kind.COMMAND, 2, 0, 16, "echo ` \\ $x", false),
+        new Substitution(Substitution.Kind.COMMAND, 3, 3, 11, "x \")\"", true)), command.substitutions());
+  }
+
+  @Test
+  void parse_unquotedPatternCharacters_areGlobs() throws ParseException {
+    Command command = Parser.parse("echo *.c \"?\"x [a*]b [ [$A] \\*").first().first();
+
+    assertEquals(List.of("echo", "*.c", "?x", "[a*]b", "[", "[$A]", "*"), command.args());
+    assertEquals(List.of(
+        new Substitution(Substitution.Kind.GLOB, 1, 0, 1, "*", false),
+        new Substitution(Substitution.Kind.GLOB, 3, 0, 4, "[a*]", false),
+        new Substitution(Substitution.Kind.PARAMETER, 5, 1, 3, "A", false)), command.substitutions());
+  }
+
+  @Test
+  void parse_unterminatedSubstitution_throws() {
+    ParseException e = assertThrows(ParseException.class, () -> Parser.parse("echo $(ls"));
+    assertEquals("syntax error: unexpected end of file while looking for matching `)'", e.getMessage());
+    assertThrows(ParseException.class, () -> Parser.parse("echo `ls"));
+    assertThrows(ParseException.class, () -> Parser.parse("echo $(ls 'a)'"));
+  }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import org.example.evaluator.PathIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PathIndexTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Path first;
+  private Path second;
+  private String pathEnv;
+  private PathIndex index;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    first = Files.createDirectory(tempDir.resolve("first"));
+    second = Files.createDirectory(tempDir.resolve("second"));
+    pathEnv = first + File.pathSeparator + second;
+    index = new PathIndex();
+  }
+
+  @AfterEach
+  void tearDown() {
+    index.close();
+  }
+
+  private Path createExecutable(Path dir, String name) throws IOException {
+    Path file = dir.resolve(name);
+    Files.writeString(file, "#!/bin/sh\n");
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+    return file;
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("condition not met within 10s");
+      }
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  void index_warmsUpInBackground_andPrefersEarlierDirectories() throws Exception {
+    Path tool = createExecutable(first, "tool");
+    createExecutable(second, "tool");
+    Path other = createExecutable(second, "other");
+    Files.writeString(second.resolve("notes.txt"), "not executable");
+
+    index.start(pathEnv);
+    awaitTrue(() -> index.isReady(pathEnv));
+
+    assertEquals(Optional.of(tool.toString()), index.lookup("tool"));
+    assertEquals(Optional.of(other.toString()), index.lookup("other"));
+    assertEquals(Optional.empty(), index.lookup("notes.txt"));
+    assertFalse(index.isReady(second.toString()));
+  }
+
+  @Test
+  void index_followsCreatesAndDeletes() throws Exception {
+    Path fallback = createExecutable(second, "tool");
+    index.start(pathEnv);
+    awaitTrue(() -> index.isReady(pathEnv));
+
+    Path shadow = createExecutable(first, "tool");
+    awaitTrue(() -> index.lookup("tool").equals(Optional.of(shadow.toString())));
+
+    Files.delete(shadow);
+    awaitTrue(() -> index.lookup("tool").equals(Optional.of(fallback.toString())));
+
+    Files.delete(fallback);
+    awaitTrue(() -> index.lookup("tool").isEmpty());
+    assertTrue(index.commandNames().isEmpty());
+  }
+}
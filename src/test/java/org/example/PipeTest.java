@@ -0,0 +1,84 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.example.evaluator.Pipe;
+import org.junit.jupiter.api.Test;
+
+class PipeTest {
+
+  private static byte[] randomBytes(int size) {
+    byte[] data = new byte[size];
+    new Random(42).nextBytes(data);
+    return data;
+  }
+
+  @Test
+  void pipe_streamsMoreThanItsCapacity_inOrder() throws Exception {
+    Pipe pipe = new Pipe(16);
+    byte[] data = randomBytes(10_000);
+
+    Thread writer = new Thread(() -> {
+      try (OutputStream out = pipe.sink()) {
+        out.write(data);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    writer.start();
+
+    byte[] received = pipe.source().readAllBytes();
+    writer.join();
+
+    assertArrayEquals(data, received);
+  }
+
+  @Test
+  void pipe_transferFromAndTransferTo_copyEverything() throws Exception {
+    Pipe pipe = new Pipe(1024);
+    byte[] data = randomBytes(100_000);
+
+    Thread pump = new Thread(() -> {
+      try {
+        pipe.transferFrom(new ByteArrayInputStream(data));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    pump.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long transferred = pipe.transferTo(out);
+    pump.join();
+
+    assertEquals(data.length, transferred);
+    assertArrayEquals(data, out.toByteArray());
+  }
+
+  @Test
+  void pipe_writeAfterReaderCloses_throwsBrokenPipe() {
+    Pipe pipe = new Pipe(4);
+    pipe.closeRead();
+
+    IOException e = assertThrows(IOException.class, () -> pipe.sink().write(new byte[8]));
+    assertEquals("Broken pipe", e.getMessage());
+  }
+
+  @Test
+  void pipe_readAfterWriterCloses_drainsThenReturnsEndOfFile() throws IOException {
+    Pipe pipe = new Pipe(8);
+    pipe.sink().write(new byte[] { 1, 2, 3 });
+    pipe.closeWrite();
+
+    assertArrayEquals(new byte[] { 1, 2, 3 }, pipe.source().readAllBytes());
+    assertEquals(-1, pipe.source().read());
+  }
+}
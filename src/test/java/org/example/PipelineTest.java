@@ -0,0 +1,107 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.CommandResult;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PipelineTest {
+
+  @TempDir
+  Path tempDir;
+
+  private StringWriter out;
+  private Evaluator evaluator;
+
+  @BeforeEach
+  void setUp() {
+    out = new StringWriter();
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(out),
+        new PrintWriter(System.err), EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io);
+    ctx.setCwd(tempDir);
+    evaluator = new Evaluator(ctx, new Builtins());
+  }
+
+  private String eval(String line) throws IOException {
+    evaluator.evaluate(line);
+    return out.toString();
+  }
+
+  @Test
+  void externalPipeline_passesDataBetweenProcesses() throws IOException {
+    Path result = tempDir.resolve("result.txt");
+
+    evaluator.evaluate("printf 'b\\na\\nc\\n' | sort | head -n 2 > " + result);
+
+    assertEquals("a\nb\n", Files.readString(result));
+  }
+
+  @Test
+  void builtinIntoExternal_pumpsBuiltinOutputToProcess() throws IOException {
+    Path result = tempDir.resolve("result.txt");
+
+    evaluator.evaluate("echo hello pipes | tr a-z A-Z > " + result);
+
+    assertEquals("HELLO PIPES\n", Files.readString(result));
+  }
+
+  @Test
+  void externalIntoBuiltin_runsBuiltinInProcess() throws IOException {
+    assertTrue(eval("seq 1 100000 | type ls").startsWith("ls is "));
+  }
+
+  @Test
+  void redirectedStage_bypassesItsPipe() throws IOException {
+    Path redirected = tempDir.resolve("redirected.txt");
+    Path result = tempDir.resolve("result.txt");
+
+    evaluator.evaluate("echo hello > " + redirected + " | wc -c > " + result);
+
+    assertEquals("hello\n", Files.readString(redirected));
+    assertEquals("0", Files.readString(result).trim());
+  }
+
+  @Test
+  void pipeline_exitCodeIsLastStages() throws IOException {
+    CommandResult result = evaluator.evaluate("echo hi | false");
+    assertEquals(1, result.getExitCode());
+
+    result = evaluator.evaluate("false | echo hi");
+    assertEquals(0, result.getExitCode());
+  }
+
+  @Test
+  void pipeline_stopsWriterWhenReaderExits() throws IOException {
+    Path result = tempDir.resolve("result.txt");
+
+    evaluator.evaluate("yes | head -c 10 | wc -c > " + result);
+
+    assertEquals("10", Files.readString(result).trim());
+  }
+
+  @Test
+  void pipeline_letsAWriterFinishAfterItsReaderExits() throws IOException {
+    Path touched = tempDir.resolve("touched");
+
+    evaluator.evaluate("sh -c 'sleep 0.3; touch " + touched + "' | true");
+
+    // as in sh, the writer is not killed; it only gets SIGPIPE if it writes
+    assertTrue(Files.exists(touched));
+  }
+}
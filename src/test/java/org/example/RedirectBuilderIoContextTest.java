@@ -3,6 +3,7 @@ package org.example;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
@@ -270,4 +271,67 @@ class RedirectBuilderIoContextTest {
 
     assertEquals("test output\ntest error", Files.readString(inputFile).trim());
   }
+
+  @Test
+  void applyToIoContext_errorDuplicatesOutput_sharesOneWriter() throws IOException {
+    Path outputFile = tempDir.resolve("output.txt");
+
+    IoContext result = RedirectHandler.applyAllToIoContext(List.of(
+        createRedirect(RedirectType.OUTPUT, outputFile.toString()),
+        createRedirect(RedirectType.ERROR_DUP, "1")), ctx);
+
+    assertSame(result.out(), result.err());
+    result.out().println("out");
+    result.err().println("err");
+    result.closeResources();
+    assertEquals("out\nerr\n", Files.readString(outputFile));
+  }
+
+  @Test
+  void applyToIoContext_outputReplacedAfterDuplicate_keepsErrorOnFirstFile() throws IOException {
+    Path first = tempDir.resolve("first.txt");
+    Path second = tempDir.resolve("second.txt");
+
+    IoContext result = RedirectHandler.applyAllToIoContext(List.of(
+        createRedirect(RedirectType.OUTPUT, first.toString()),
+        createRedirect(RedirectType.ERROR_DUP, "1"),
+        createRedirect(RedirectType.OUTPUT, second.toString())), ctx);
+
+    result.out().println("out");
+    result.err().println("err");
+    result.closeResources();
+    assertEquals("err\n", Files.readString(first));
+    assertEquals("out\n", Files.readString(second));
+  }
+
+  @Test
+  void applyToIoContext_closedAndDevNull_discardWithoutFiles() throws IOException {
+    IoContext result = RedirectHandler.applyAllToIoContext(List.of(
+        createRedirect(RedirectType.OUTPUT_DUP, "-"),
+        createRedirect(RedirectType.ERROR, "/dev/null"),
+        createRedirect(RedirectType.INPUT, "/dev/null")), ctx);
+
+    assertNotSame(ctx.out(), result.out());
+    assertNotSame(ctx.err(), result.err());
+    assertEquals(null, result.in().readLine());
+    assertEquals(EnumSet.noneOf(Resource.class), result.ownedResources());
+  }
+
+  @Test
+  void applyToIoContext_badDescriptor_throws() {
+    IOException e = assertThrows(IOException.class,
+        () -> RedirectHandler.applyAllToIoContext(List.of(createRedirect(RedirectType.OUTPUT_DUP, "5")), ctx));
+    assertEquals("5: Bad file descriptor", e.getMessage());
+  }
+
+  @Test
+  void applyToIoContext_multiDigitDescriptor_throws() {
+    IOException e = assertThrows(IOException.class,
+        () -> RedirectHandler.applyAllToIoContext(List.of(createRedirect(RedirectType.ERROR_DUP, "12")), ctx));
+    assertEquals("12: Bad file descriptor", e.getMessage());
+
+    e = assertThrows(IOException.class, () -> RedirectHandler.applyAllToIoContext(
+        List.of(createRedirect(RedirectType.OUTPUT_DUP, "99999999999")), ctx));
+    assertEquals("99999999999: Bad file descriptor", e.getMessage());
+  }
 }
@@ -2,6 +2,8 @@ package org.example;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.BufferedReader;
@@ -225,4 +227,96 @@ class RedirectBuilderProcessTest {
     }
   }
 
+  @Test
+  void applyToProcess_allOutput_keepsStreamsInOrder() throws IOException, InterruptedException {
+    Path outputFile = tempDir.resolve("all.txt");
+
+    ProcessBuilder builder = new ProcessBuilder("sh", "-c", "echo one; echo two >&2; echo three");
+    Redirect redirect = createRedirect(RedirectType.ALL_OUTPUT, outputFile.toString());
+    RedirectHandler.applyAllToProcess(List.of(redirect), builder, createDefaultIoContext());
+
+    builder.start().waitFor();
+
+    // both streams share one open file, so neither overwrites the other
+    assertEquals("one\ntwo\nthree\n", Files.readString(outputFile));
+  }
+
+  @Test
+  void applyToProcess_replacedOutput_isStillTruncated() throws IOException, InterruptedException {
+    Path replaced = tempDir.resolve("replaced.txt");
+    Path outputFile = tempDir.resolve("output.txt");
+    Files.writeString(replaced, "old content\n");
+
+    ProcessBuilder builder = createEchoCommand("test");
+    RedirectHandler.applyAllToProcess(List.of(
+        createRedirect(RedirectType.OUTPUT, replaced.toString()),
+        createRedirect(RedirectType.OUTPUT, outputFile.toString())), builder, createDefaultIoContext());
+
+    builder.start().waitFor();
+
+    assertEquals("", Files.readString(replaced));
+    assertEquals("stdout:test\n", Files.readString(outputFile));
+  }
+
+  @Test
+  void describeStartFailure_unwritableTarget_keepsAccessMessage() throws IOException {
+    Path outputFile = tempDir.resolve("missing-dir").resolve("output.txt");
+    List<Redirect> redirects = List.of(createRedirect(RedirectType.OUTPUT, outputFile.toString()));
+
+    ProcessBuilder builder = createEchoCommand("test");
+    RedirectHandler.applyAllToProcess(redirects, builder, createDefaultIoContext());
+
+    IOException e = assertThrows(IOException.class, () -> {
+      try {
+        builder.start();
+      } catch (IOException startFailure) {
+        throw RedirectHandler.describeStartFailure(startFailure, redirects);
+      }
+    });
+    assertEquals("file: " + outputFile + " does not have write access", e.getMessage());
+  }
+
+  @Test
+  void applyToProcess_multiDigitDescriptor_throws() {
+    IOException e = assertThrows(IOException.class, () -> RedirectHandler.applyAllToProcess(
+        List.of(createRedirect(RedirectType.ERROR_DUP, "12")), createEchoCommand("test"), createDefaultIoContext()));
+    assertEquals("12: Bad file descriptor", e.getMessage());
+  }
+
+  @Test
+  void applyToProcess_errorDuplicatesOutput_mergesIntoOneFile() throws IOException, InterruptedException {
+    Path outputFile = tempDir.resolve("merged.txt");
+
+    ProcessBuilder builder = new ProcessBuilder("sh", "-c", "echo one; echo two >&2");
+    RedirectHandler.applyAllToProcess(List.of(
+        createRedirect(RedirectType.OUTPUT, outputFile.toString()),
+        createRedirect(RedirectType.ERROR_DUP, "1")), builder, createDefaultIoContext());
+
+    assertTrue(builder.redirectErrorStream());
+    builder.start().waitFor();
+    assertEquals("one\ntwo\n", Files.readString(outputFile));
+  }
+
+  @Test
+  void applyToProcess_devNull_discardsWithoutTheFilesystem() throws IOException {
+    ProcessBuilder builder = createEchoCommand("test");
+    RedirectHandler.applyAllToProcess(List.of(
+        createRedirect(RedirectType.OUTPUT, "/dev/null"),
+        createRedirect(RedirectType.ERROR_DUP, "-")), builder, createDefaultIoContext());
+
+    assertEquals(ProcessBuilder.Redirect.DISCARD, builder.redirectOutput());
+    assertEquals(ProcessBuilder.Redirect.DISCARD, builder.redirectError());
+  }
+
+  @Test
+  void applyToProcess_crossedDuplicate_asksForACopy() throws IOException {
+    IoContext io = createDefaultIoContext();
+    ProcessBuilder builder = createEchoCommand("test");
+
+    RedirectHandler.Copies copies = RedirectHandler.applyAllToProcess(
+        List.of(createRedirect(RedirectType.OUTPUT_DUP, "2")), builder, io);
+
+    assertEquals(ProcessBuilder.Redirect.PIPE, builder.redirectOutput());
+    assertSame(io.err(), copies.stdout());
+  }
 }
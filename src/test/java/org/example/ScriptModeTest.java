@@ -0,0 +1,87 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScriptModeTest {
+
+  @TempDir
+  Path tempDir;
+
+  private StringWriter out;
+  private Shell shell;
+
+  @BeforeEach
+  void setUp() {
+    out = new StringWriter();
+    IoContext io = new IoContext(new BufferedReader(new InputStreamReader(System.in)), new PrintWriter(out),
+        new PrintWriter(new StringWriter()), EnumSet.noneOf(IoContext.Resource.class));
+    ShellContext ctx = new ShellContext(io);
+    ctx.setCwd(tempDir);
+    shell = new Shell(ctx, new Evaluator(ctx, new Builtins()));
+  }
+
+  private int run(String script) {
+    return shell.runScript(new BufferedReader(new StringReader(script)));
+  }
+
+  @Test
+  void runScript_printsNoPrompt() {
+    int status = run("echo one\necho two\n");
+
+    assertEquals(0, status);
+    assertEquals("one\ntwo\n", out.toString());
+  }
+
+  @Test
+  void runScript_skipsCommentsAndJoinsContinuations() {
+    run("#!/usr/bin/env javashell\n  # a comment\necho one \\\ntwo\n");
+
+    assertEquals("one two\n", out.toString());
+  }
+
+  @Test
+  void runScript_stopsAtExitWithItsStatus() {
+    int status = run("echo before\nexit 3\necho after\n");
+
+    assertEquals(3, status);
+    assertEquals("before\n", out.toString());
+  }
+
+  @Test
+  void runScript_returnsLastCommandsStatus() {
+    assertEquals(127, run("echo x\nno-such-command-here\n"));
+  }
+
+  @Test
+  void scriptReader_readsMappedScripts() throws IOException {
+    StringBuilder script = new StringBuilder();
+    int lines = 0;
+    while (script.length() < ScriptReader.MMAP_THRESHOLD) {
+      script.append("echo ").append(lines++).append('\n');
+    }
+    Path file = tempDir.resolve("big.sh");
+    Files.writeString(file, script);
+
+    try (BufferedReader reader = ScriptReader.open(file)) {
+      assertEquals(0, shell.runScript(reader));
+    }
+    assertEquals(lines, out.toString().lines().count());
+  }
+}
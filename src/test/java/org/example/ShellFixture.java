@@ -0,0 +1,78 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import org.example.commands.Builtins;
+import org.example.evaluator.Evaluator;
+import org.example.evaluator.IoContext;
+
+/**
+ * A shell for tests that run command lines as a user would type them: it
+ * starts in its own directory, reads a fixed stdin and keeps what it prints
+ * in memory. Its stdio is not the JVM's, so the output of external commands
+ * is copied into {@link #out()} and {@link #err()} as well.
+ */
+final class ShellFixture implements AutoCloseable {
+  private final StringWriter out = new StringWriter();
+  private final StringWriter err = new StringWriter();
+  private final ShellContext ctx;
+  private final Evaluator evaluator;
+
+  ShellFixture(Path cwd) {
+    this(cwd, "");
+  }
+
+  ShellFixture(Path cwd, String stdin) {
+    this(cwd, stdin, new Builtins());
+  }
+
+  ShellFixture(Path cwd, String stdin, Builtins builtins) {
+    IoContext io = new IoContext(new BufferedReader(new StringReader(stdin)), new PrintWriter(out),
+        new PrintWriter(err), EnumSet.noneOf(IoContext.Resource.class));
+    ctx = new ShellContext(io, false);
+    ctx.setCwd(cwd);
+    evaluator = new Evaluator(ctx, builtins);
+  }
+
+  /**
+   * @return the exit status of {@code line}, with everything it printed
+   *         flushed into {@link #out()} and {@link #err()}.
+   */
+  int eval(String line) throws IOException {
+    int status = evaluator.evaluate(line).getExitCode();
+    ctx.out().flush();
+    ctx.err().flush();
+    return status;
+  }
+
+  String out() {
+    return out.toString();
+  }
+
+  String err() {
+    return err.toString();
+  }
+
+  void clearOut() {
+    out.getBuffer().setLength(0);
+  }
+
+  ShellContext context() {
+    return ctx;
+  }
+
+  Evaluator evaluator() {
+    return evaluator;
+  }
+
+  @Override
+  public void close() {
+    evaluator.close();
+  }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.example.daemon.ShellClient;
+import org.example.daemon.ShellServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShellServerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellServer server;
+  private ByteArrayOutputStream out;
+  private ByteArrayOutputStream err;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = new ShellServer(tempDir.resolve("javashell.sock"));
+    Thread.ofVirtual().start(() -> {
+      try {
+        server.serve();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    out = new ByteArrayOutputStream();
+    err = new ByteArrayOutputStream();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.close();
+  }
+
+  private int run(Path cwd, String commands) throws IOException {
+    return ShellClient.run(server.socket(), cwd, commands, out, err);
+  }
+
+  @Test
+  void session_streamsBuiltinAndExternalOutput() throws IOException {
+    int status = run(tempDir, "echo from builtin\nprintf 'from external\\n'\n");
+
+    assertEquals(0, status);
+    assertEquals("from builtin\nfrom external\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void session_sendsStderrAndExitStatus() throws IOException {
+    int status = run(tempDir, "no-such-command-here\n");
+
+    assertEquals(127, status);
+    assertEquals("no-such-command-here: command not found\n", err.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void session_pipelineOutputComesBack() throws IOException {
+    run(tempDir, "echo hello | tr a-z A-Z\n");
+
+    assertEquals("HELLO\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void session_endsOnceItsBackgroundJobsHaveWritten() throws IOException {
+    int status = run(tempDir, "sh -c 'sleep 0.1; echo external' &\nsleep 0.4 && echo builtin &\necho first\n");
+
+    assertEquals(0, status);
+    assertEquals("first\nexternal\nbuiltin\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void sessions_haveTheirOwnCwd() throws IOException {
+    Path other = Files.createDirectory(tempDir.resolve("other"));
+
+    run(tempDir, "cd " + other + "\npwd\n");
+    run(tempDir, "pwd\n");
+
+    assertEquals(other + "\n" + tempDir + "\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void socket_isOwnerOnly_andNotTakenOverWhileInUse() throws IOException {
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(server.socket())));
+
+    IOException e = assertThrows(IOException.class, () -> new ShellServer(server.socket()));
+    assertEquals(server.socket() + ": a daemon is already listening on it", e.getMessage());
+
+    assertEquals(0, run(tempDir, "echo still here\n"));
+    assertEquals("still here\n", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void missingDirectory_isCreatedOwnerOnly() throws IOException {
+    Path dir = tempDir.resolve("private");
+    new ShellServer(dir.resolve("daemon.sock")).close();
+
+    assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(dir)));
+  }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SortTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    shell = new ShellFixture(tempDir, "pear\napple\n\nfig\n");
+
+    Files.writeString(tempDir.resolve("words.txt"), "banana\nApple\ncherry\napple\nbanana");
+    Files.writeString(tempDir.resolve("numbers.txt"), "10\n9\n-2\n1.5\n-10\n0\nx\n1.50\n");
+    Files.writeString(tempDir.resolve("passwd"), "root:0:admin\nbob:1000:users\nalice:1000:dev\ndaemon:2:sys\n");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void default_ordersBytesAndEndsTheLastLine() throws IOException {
+    assertEquals(0, shell.eval("sort words.txt"));
+    assertEquals("Apple\napple\nbanana\nbanana\ncherry\n", shell.out());
+  }
+
+  @Test
+  void reverseAndUnique_dropRepeatedLines() throws IOException {
+    assertEquals(0, shell.eval("sort -ru words.txt"));
+    assertEquals("cherry\nbanana\napple\nApple\n", shell.out());
+  }
+
+  @Test
+  void numeric_comparesValuesThenWholeLines() throws IOException {
+    assertEquals(0, shell.eval("sort -n numbers.txt"));
+    assertEquals("-10\n-2\n0\nx\n1.5\n1.50\n9\n10\n", shell.out());
+  }
+
+  @Test
+  void numericUnique_treatsEqualValuesAsDuplicates() throws IOException {
+    assertEquals(0, shell.eval("sort -nu numbers.txt"));
+    assertEquals("-10\n-2\n0\n1.5\n9\n10\n", shell.out());
+  }
+
+  @Test
+  void keysAndSeparator_sortByFieldsInTurn() throws IOException {
+    assertEquals(0, shell.eval("sort -t : -k2,2nr -k1,1 passwd"));
+    assertEquals("alice:1000:dev\nbob:1000:users\ndaemon:2:sys\nroot:0:admin\n", shell.out());
+  }
+
+  @Test
+  void keyWithoutSeparator_countsBlankRunsAsSeparators() throws IOException {
+    Files.writeString(tempDir.resolve("cols.txt"), "a  3\nb 1\nc   2\n");
+    assertEquals(0, shell.eval("sort -k2n cols.txt"));
+    assertEquals("b 1\nc   2\na  3\n", shell.out());
+  }
+
+  @Test
+  void stdinAndPipeline_areSorted() throws IOException {
+    shell.eval("sort");
+    shell.eval("cat words.txt | sort -u");
+    assertEquals("\napple\nfig\npear\nApple\napple\nbanana\ncherry\n", shell.out());
+  }
+
+  @Test
+  void inputLargerThanBudget_isMergedFromSpilledRuns() throws IOException {
+    Random random = new Random(7);
+    StringBuilder input = new StringBuilder();
+    List<Long> numbers = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      long n = random.nextInt(20_000) - 10_000;
+      numbers.add(n);
+      input.append(n).append('\n');
+    }
+    Files.writeString(tempDir.resolve("big.txt"), input);
+    Path spill = Files.createDirectory(tempDir.resolve("spill"));
+
+    assertEquals(0, shell.eval("sort -S 64K -T spill -nu big.txt"));
+
+    StringBuilder expected = new StringBuilder();
+    new TreeSet<>(numbers).forEach(n -> expected.append(n).append('\n'));
+    assertEquals(expected.toString(), shell.out());
+    try (Stream<Path> left = Files.list(spill)) {
+      assertEquals(0, left.count());
+    }
+  }
+
+  @Test
+  void spilledRuns_keepEqualKeysInInputOrder() throws IOException {
+    StringBuilder input = new StringBuilder();
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 30_000; i++) {
+      String line = (i % 10) + " line " + i;
+      lines.add(line);
+      input.append(line).append('\n');
+    }
+    Files.writeString(tempDir.resolve("big.txt"), input);
+
+    assertEquals(0, shell.eval("sort -S 64K -u -k1,1 big.txt"));
+    assertEquals("0 line 0\n1 line 1\n2 line 2\n3 line 3\n4 line 4\n5 line 5\n6 line 6\n7 line 7\n"
+        + "8 line 8\n9 line 9\n", shell.out());
+
+    shell.clearOut();
+    assertEquals(0, shell.eval("sort -S 64K -r big.txt"));
+    lines.sort(Comparator.reverseOrder());
+    assertEquals(String.join("\n", lines) + "\n", shell.out());
+  }
+
+  @Test
+  void badArguments_areErrors() throws IOException {
+    assertEquals(2, shell.eval("sort missing.txt words.txt"));
+    assertEquals(2, shell.eval("sort -z words.txt"));
+    assertEquals(2, shell.eval("sort -k 0 words.txt"));
+    assertEquals(2, shell.eval("sort -S lots words.txt"));
+    assertEquals(2, shell.eval("sort -t ab words.txt"));
+    assertEquals("", shell.out());
+    assertTrue(shell.err().startsWith("sort: cannot read: missing.txt: No such file or directory\n"
+        + "sort: invalid option -- 'z'\n"));
+  }
+}
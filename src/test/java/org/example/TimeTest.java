@@ -0,0 +1,110 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TimeTest {
+
+  private static final Pattern JSON = Pattern.compile("\\{\"command\":\"(.*)\",\"status\":(\\d+),\"real_ns\":(\\d+),"
+      + "\"shell_user_ns\":(\\d+),\"shell_sys_ns\":(\\d+),\"child_user_ns\":(\\d+),\"child_sys_ns\":(\\d+),"
+      + "\"child_max_rss_kib\":(\\d+),\"alloc_bytes\":(\\d+)\\}");
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() {
+    shell = new ShellFixture(tempDir, "a\nb\nc\n");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  private static Matcher json(String line) {
+    Matcher m = JSON.matcher(line.strip());
+    assertTrue(m.matches(), line);
+    return m;
+  }
+
+  @Test
+  void builtin_runsWithTheShellsStreamsAndReportsToStderr() throws IOException {
+    assertEquals(0, shell.eval("time wc -l"));
+    assertEquals("3\n", shell.out());
+    assertTrue(shell.err().matches("(?s)\nreal\t0m\\d\\.\\d{3}s\nuser\t.*\\(shell .*, children .*\\)\n"
+        + "sys\t.*\nalloc\t.*\\(shell\\)\n"), shell.err());
+  }
+
+  @Test
+  void posixFormat_printsThreeLines() throws IOException {
+    shell.eval("time -p echo hi");
+    assertEquals("hi\n", shell.out());
+    assertTrue(shell.err().matches("real \\d+\\.\\d\\d\nuser \\d+\\.\\d\\d\nsys \\d+\\.\\d\\d\n"), shell.err());
+  }
+
+  @Test
+  void json_reportsTheExternalCommandsStatusAndChildCpu() throws IOException {
+    assertEquals(3, shell.eval("time -j sh -c 'i=0; while [ $i -lt 100000 ]; do i=$((i+1)); done; exit 3'"));
+    Matcher m = json(shell.err());
+    assertEquals("sh -c i=0; while [ $i -lt 100000 ]; do i=$((i+1)); done; exit 3", m.group(1));
+    assertEquals("3", m.group(2));
+    assertTrue(Long.parseLong(m.group(3)) > 0);
+    assertTrue(Long.parseLong(m.group(6)) + Long.parseLong(m.group(7)) > 0, "no child cpu in " + m.group());
+    assertTrue(Long.parseLong(m.group(8)) > 0, "no child rss in " + m.group());
+  }
+
+  @Test
+  void json_escapesTheCommand() throws IOException {
+    shell.eval("time -j echo 'say \"hi\"\t\\'");
+    assertEquals("say \"hi\"\t\\\n", shell.out());
+    assertEquals("echo say \\\"hi\\\"\\t\\\\", json(shell.err()).group(1));
+  }
+
+  @Test
+  void outputFile_isTruncatedOrAppendedTo() throws IOException {
+    Path times = tempDir.resolve("times.jsonl");
+    Files.writeString(times, "old\n");
+    shell.eval("time -j -o times.jsonl pwd");
+    shell.eval("time -ja -o times.jsonl nosuchcommand");
+    shell.eval("time -j -a -otimes.jsonl");
+
+    List<String> lines = Files.readAllLines(times);
+    assertEquals(3, lines.size());
+    assertEquals("pwd", json(lines.get(0)).group(1));
+    assertEquals("127", json(lines.get(1)).group(2));
+    assertEquals("", json(lines.get(2)).group(1));
+    assertEquals(tempDir + "\n", shell.out());
+    assertEquals("nosuchcommand: command not found\n", shell.err());
+  }
+
+  @Test
+  void redirect_appliesToTheTimedExternalCommand() throws IOException {
+    Files.writeString(tempDir.resolve("in.txt"), "x\ny\n");
+    assertEquals(0, shell.eval("time -p head -n 5 in.txt > " + tempDir.resolve("copy.txt")));
+    assertEquals("x\ny\n", Files.readString(tempDir.resolve("copy.txt")));
+    assertEquals("", shell.out());
+  }
+
+  @Test
+  void unknownOption_isAnError() throws IOException {
+    assertEquals(2, shell.eval("time -x echo hi"));
+    assertEquals("", shell.out());
+    assertEquals("time: invalid option -- 'x'\nusage: time [-p | -j] [-a] [-o file] [command [arg ...]]\n",
+        shell.err());
+  }
+}
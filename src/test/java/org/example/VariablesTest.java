@@ -0,0 +1,125 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.example.evaluator.Variables;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VariablesTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() {
+    shell = new ShellFixture(tempDir);
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void parameters_areSplitUnlessQuoted() throws IOException {
+    assertEquals(0, shell.eval("A='x  y'; E=; sh -c 'echo $#' $A \"$A\" ${A}z $E \"$E\" $UNSET_VARIABLE"));
+    // sh takes the first as $0
+    assertEquals("5\n", shell.out());
+    assertEquals(0, shell.eval("echo \"[${A}]\" '$A' \\$A"));
+    assertEquals("5\n[x  y] $A $A\n", shell.out());
+  }
+
+  @Test
+  void prefixAssignments_onlyReachTheirCommand() throws IOException {
+    assertEquals(0, shell.eval("A=1 B=$(echo 2) sh -c 'echo $A$B'; echo [$A]"));
+    assertEquals(0, shell.eval("A=3 sh -c 'echo $A' | cat"));
+    assertEquals("12\n[]\n3\n", shell.out());
+  }
+
+  @Test
+  void export_passesVariablesToChildren() throws IOException {
+    assertEquals(0, shell.eval("A=1; sh -c 'echo [$A]'; export A; sh -c 'echo [$A]'; export B=2 C; sh -c 'echo $B'"));
+    assertEquals("[]\n[1]\n2\n", shell.out());
+
+    assertEquals(0, shell.eval("export -p"));
+    assertTrue(shell.out().contains("declare -x A=\"1\"\n"), shell.out());
+    assertTrue(shell.out().contains("declare -x B=\"2\"\n"), shell.out());
+    assertFalse(shell.out().contains("declare -x C=\""),shell.out());
+  }
+
+  @Test
+  void unset_removesVariablesFromTheShellAndItsChildren() throws IOException {
+    assertEquals(0, shell.eval("unset HOME; echo [$HOME]; sh -c 'echo [$HOME]'"));
+    assertEquals("[]\n[]\n", shell.out());
+    assertEquals(1, shell.eval("unset 1x; export a-b=c"));
+    assertEquals("unset: `1x': not a valid identifier\nexport: `a-b=c': not a valid identifier\n", shell.err());
+  }
+
+  @Test
+  void subshells_keepTheirAssignmentsToThemselves() throws IOException {
+    assertEquals(0, shell.eval("echo $(A=5; echo $A) [$A]; A=6 & wait; echo [$A]"));
+    assertEquals("5 []\n[]\n", shell.out());
+  }
+
+  @Test
+  void status_isTheLastPipelines() throws IOException {
+    assertEquals(0, shell.eval("sh -c 'exit 3'; echo $?; echo $?"));
+    assertEquals(3, shell.eval("A=$(sh -c 'exit 3')"));
+    assertEquals("3\n0\n", shell.out());
+  }
+
+  @Test
+  void cdAndPath_comeFromTheShellsVariables() throws IOException {
+    Files.createDirectory(tempDir.resolve("home"));
+    assertEquals(0, shell.eval("HOME=" + tempDir.resolve("home") + "; cd; pwd"));
+    assertEquals(tempDir.resolve("home") + "\n", shell.out());
+
+    assertEquals(127, shell.eval("PATH=" + tempDir + " sh -c true"));
+    assertEquals("sh: command not found\n", shell.err());
+  }
+
+  @Test
+  void badSubstitution_isAParseError() throws IOException {
+    assertEquals(1, shell.eval("echo ${A-b}"));
+    assertEquals(1, shell.eval("echo ${A"));
+    assertEquals("${A-b}: bad substitution\nsyntax error: unexpected end of file while looking for matching `}'\n",
+        shell.err());
+  }
+
+  @Test
+  void forks_copyOnlyWhenWrittenTo() {
+    Variables parent = Variables.fromEnvironment();
+    parent.set("A", "1");
+    Variables child = parent.fork();
+    child.set("A", "2");
+    parent.unset("HOME");
+
+    assertEquals("1", parent.get("A"));
+    assertEquals("2", child.get("A"));
+    assertNull(parent.get("HOME"));
+    assertEquals(System.getenv("HOME"), child.get("HOME"));
+
+    Variables command = child.forkWith(List.of("B=3", "A=4"));
+    ProcessBuilder builder = new ProcessBuilder("true");
+    command.applyTo(builder);
+    Map<String, String> environment = builder.environment();
+    assertEquals("3", environment.get("B"));
+    assertEquals("4", environment.get("A"));
+    assertEquals(System.getenv("HOME"), environment.get("HOME"));
+    assertFalse(child.isExported("B"));
+  }
+}
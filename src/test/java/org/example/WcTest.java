@@ -0,0 +1,104 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WcTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    shell = new ShellFixture(tempDir, "héllo wörld\nx\n");
+
+    Files.writeString(tempDir.resolve("a.txt"), "one two\nthree\n");
+    Files.writeString(tempDir.resolve("b.txt"), "\tfour  five\r\nsix\fseven");
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void oneFile_printsLinesWordsAndBytes() throws IOException {
+    assertEquals(0, shell.eval("wc a.txt"));
+    assertEquals(" 2  3 14 a.txt\n", shell.out());
+  }
+
+  @Test
+  void severalFiles_areTotalledInColumnsWideEnoughForAll() throws IOException {
+    assertEquals(0, shell.eval("wc a.txt b.txt"));
+    assertEquals(" 2  3 14 a.txt\n 1  4 22 b.txt\n 3  7 36 total\n", shell.out());
+  }
+
+  @Test
+  void options_selectColumnsInFixedOrder() throws IOException {
+    shell.eval("wc -l a.txt");
+    shell.eval("wc -cw b.txt");
+    assertEquals("2 a.txt\n 4 22 b.txt\n", shell.out());
+  }
+
+  @Test
+  void stdinReader_countsEncodedBytes() throws IOException {
+    assertEquals(0, shell.eval("wc"));
+    assertEquals("      2       3      16\n", shell.out());
+  }
+
+  @Test
+  void redirectAndPipeline_areCounted() throws IOException {
+    shell.eval("wc -l < " + tempDir.resolve("a.txt"));
+    shell.eval("wc - < " + tempDir.resolve("b.txt"));
+    shell.eval("cat a.txt b.txt | wc -w");
+    assertEquals("2\n 1  4 22 -\n7\n", shell.out());
+  }
+
+  @Test
+  void largeFile_joinsWordsSplitBetweenChunks() throws IOException {
+    Random random = new Random(11);
+    byte[] data = new byte[20_000_000];
+    long lines = 0;
+    long words = 0;
+    boolean inWord = false;
+    for (int i = 0; i < data.length; i++) {
+      int r = random.nextInt(10);
+      byte b = (byte) (r == 0 ? '\n' : r == 1 ? ' ' : r == 2 ? '\t' : r == 3 ? 0xc3 : 'a' + r);
+      data[i] = b;
+      boolean space = b == '\n' || b == ' ' || b == '\t';
+      lines += b == '\n' ? 1 : 0;
+      words += !space && !inWord ? 1 : 0;
+      inWord = !space;
+    }
+    Files.write(tempDir.resolve("big.bin"), data);
+
+    assertEquals(0, shell.eval("wc big.bin"));
+    assertEquals(String.format("%8d %8d %8d big.bin\n", lines, words, data.length), shell.out());
+  }
+
+  @Test
+  void missingFilesAndDirectories_areReportedInOrder() throws IOException {
+    Files.createDirectory(tempDir.resolve("dir"));
+    assertEquals(1, shell.eval("wc -l a.txt missing.txt dir"));
+    assertEquals("      2 a.txt\n      0 dir\n      2 total\n", shell.out());
+    assertEquals("wc: missing.txt: No such file or directory\nwc: dir: Is a directory\n", shell.err());
+  }
+
+  @Test
+  void unknownOption_isAnError() throws IOException {
+    assertEquals(1, shell.eval("wc -m a.txt"));
+    assertEquals("", shell.out());
+    assertEquals("wc: invalid option -- 'm'\nusage: wc [-clw] [file ...]\n", shell.err());
+  }
+}
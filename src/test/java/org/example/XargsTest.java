@@ -0,0 +1,154 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class XargsTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ShellFixture shell;
+
+  private void input(String stdin) {
+    shell = new ShellFixture(tempDir, stdin);
+  }
+
+  @AfterEach
+  void tearDown() {
+    shell.close();
+  }
+
+  @Test
+  void defaultCommand_echoesItemsInBatches() throws IOException {
+    input("1 2 3\n4\n\n5 6 7\n");
+    assertEquals(0, shell.eval("xargs -n 3"));
+    assertEquals("1 2 3\n4 5 6\n7\n", shell.out());
+  }
+
+  @Test
+  void quotesAndBackslashes_keepBlanksInItems() throws IOException {
+    input("a \"b c\" d\\ e 'f \"g\"'\n");
+    assertEquals(0, shell.eval("xargs -n 1 -t"));
+    assertEquals("a\nb c\nd e\nf \"g\"\n", shell.out());
+    assertEquals("echo a\necho b c\necho d e\necho f \"g\"\n", shell.err());
+  }
+
+  @Test
+  void nulSeparated_takesItemsLiterally() throws IOException {
+    input("a b\0'c\0\0d");
+    assertEquals(0, shell.eval("xargs -0 -n 1"));
+    assertEquals("a b\n'c\n\nd\n", shell.out());
+  }
+
+  @Test
+  void unmatchedQuote_isAnError() throws IOException {
+    input("x \"y\n");
+    assertEquals(1, shell.eval("xargs"));
+    assertEquals("x\n", shell.out());
+    assertEquals("xargs: unmatched double quote; by default quotes are special to xargs unless you use the -0 option\n",
+        shell.err());
+  }
+
+  @Test
+  void emptyInput_runsOnceUnlessToldNotTo() throws IOException {
+    input("");
+    assertEquals(0, shell.eval("xargs -r echo x"));
+    assertEquals("", shell.out());
+    assertEquals(0, shell.eval("xargs echo x"));
+    assertEquals("x\n", shell.out());
+  }
+
+  @Test
+  void parallelJobs_doNotInterleaveTheirOutput() throws IOException {
+    input(IntStream.rangeClosed(1, 12).mapToObj(Integer::toString).collect(Collectors.joining("\n")));
+    assertEquals(0, shell.eval("xargs -P 4 -n 1 sh -c 'echo $0 a; sleep 0.0$(( $0 % 3 )); echo $0 b; echo $0 c >&2'"));
+
+    List<String> lines = shell.out().lines().toList();
+    assertEquals(24, lines.size());
+    List<String> jobs = new ArrayList<>();
+    for (int i = 0; i < lines.size(); i += 2) {
+      String job = lines.get(i).split(" ")[0];
+      assertEquals(List.of(job + " a", job + " b"), lines.subList(i, i + 2));
+      jobs.add(job);
+    }
+    jobs.sort(null);
+    assertEquals(Arrays.asList("1", "10", "11", "12", "2", "3", "4", "5", "6", "7", "8", "9"), jobs);
+    assertEquals(12, shell.err().lines().count());
+  }
+
+  @Test
+  void batches_areSizedToTheCommandLineLimit() throws IOException {
+    input(IntStream.range(0, 50_000).mapToObj(i -> "item" + i).collect(Collectors.joining("\n")));
+    assertEquals(0, shell.eval("xargs -s 4096 -P 2 sh -c 'echo $#'"));
+
+    // the command takes 14 bytes and each item its length and a NUL, 7 to 10
+    // bytes, so a batch holds about 408 items
+    List<String> batches = shell.out().lines().toList();
+    int total = 0;
+    for (String batch : batches) {
+      // $0 takes the first item of each batch
+      int items = Integer.parseInt(batch) + 1;
+      assertTrue(items <= (4096 - 14) / 7, batch);
+      total += items;
+    }
+    assertEquals(50_000, total);
+    assertTrue(batches.size() <= 125, "too many batches: " + batches.size());
+  }
+
+  @Test
+  void failures_areAggregated() throws IOException {
+    input("0 1 0 2\n");
+    assertEquals(123, shell.eval("xargs -n 1 -P 2 sh -c 'exit $0'"));
+    assertEquals("", shell.err());
+  }
+
+  @Test
+  void exitStatus255_stopsStartingCommands() throws IOException {
+    input("1 255 3 4\n");
+    assertEquals(124, shell.eval("xargs -n 1 -P 1 sh -c 'echo $0; exit $0'"));
+    assertEquals("1\n255\n", shell.out());
+    assertEquals("xargs: sh: exited with status 255; aborting\n", shell.err());
+  }
+
+  @Test
+  void missingCommand_isReportedOnce() throws IOException {
+    input("a b c\n");
+    assertEquals(127, shell.eval("xargs -n 1 nosuchcommand"));
+    assertEquals("xargs: nosuchcommand: No such file or directory\n", shell.err());
+  }
+
+  @Test
+  void argumentsFile_isReadInsteadOfStdin() throws IOException {
+    Files.writeString(tempDir.resolve("items.txt"), "x y\nz\n");
+    input("ignored\n");
+    assertEquals(0, shell.eval("xargs -a items.txt echo got"));
+    assertEquals("got x y z\n", shell.out());
+
+    assertEquals(1, shell.eval("xargs -a missing.txt"));
+    assertEquals("xargs: missing.txt: No such file or directory\n", shell.err());
+  }
+
+  @Test
+  void badOptions_areErrors() throws IOException {
+    input("");
+    assertEquals(1, shell.eval("xargs -n 0"));
+    assertEquals(1, shell.eval("xargs -q"));
+    assertEquals("xargs: value 0 for -n option should be >= 1\nxargs: invalid option -- 'q'\n"
+        + "usage: xargs [-0rt] [-a file] [-n max-args] [-P max-procs] [-s max-chars] [command [initial-args]]\n",
+        shell.err());
+  }
+}